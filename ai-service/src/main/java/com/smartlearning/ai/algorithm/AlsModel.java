@@ -0,0 +1,177 @@
+package com.smartlearning.ai.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ALS 矩阵分解模型（用户因子 + 课程因子）
+ * <p>
+ * 因子矩阵以 FloatBuffer 访问：训练产出的模型包装堆内数组，从文件加载的模型直接映射到文件（只读内存映射），
+ * 多个服务节点加载同一份文件时不占用堆内存，由操作系统页缓存共享。
+ * 单个映射不超过 2GB，按 32 维计算约可容纳 1500 万用户。
+ */
+public final class AlsModel {
+
+    /**
+     * 因子文件魔数 "ALSF"
+     */
+    private static final int MAGIC = 0x414C5346;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 * 6 + 8;
+
+    private static final AlsModel EMPTY = new AlsModel(0, 0, 0L, new long[0], new long[0],
+            FloatBuffer.allocate(0), FloatBuffer.allocate(0));
+
+    private final int factors;
+    private final int iterations;
+    private final long builtAt;
+    private final long[] userIds;
+    private final long[] courseIds;
+    private final FloatBuffer userFactors;
+    private final FloatBuffer itemFactors;
+
+    private AlsModel(int factors, int iterations, long builtAt, long[] userIds, long[] courseIds,
+                     FloatBuffer userFactors, FloatBuffer itemFactors) {
+        this.factors = factors;
+        this.iterations = iterations;
+        this.builtAt = builtAt;
+        this.userIds = userIds;
+        this.courseIds = courseIds;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+    }
+
+    static AlsModel of(int factors, int iterations, long[] userIds, long[] courseIds,
+                       float[] userFactors, float[] itemFactors) {
+        return new AlsModel(factors, iterations, System.currentTimeMillis(), userIds, courseIds,
+                FloatBuffer.wrap(userFactors), FloatBuffer.wrap(itemFactors));
+    }
+
+    public static AlsModel empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return userIds.length == 0 || courseIds.length == 0;
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int courseCount() {
+        return courseIds.length;
+    }
+
+    public int userIndex(long userId) {
+        int idx = Arrays.binarySearch(userIds, userId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    public long courseId(int courseIndex) {
+        return courseIds[courseIndex];
+    }
+
+    /**
+     * 计算用户对全部课程的预测偏好，写入以课程下标为索引的数组
+     */
+    public void scoreAll(int userIndex, double[] scores) {
+        int userBase = userIndex * factors;
+        for (int c = 0; c < courseIds.length; c++) {
+            int itemBase = c * factors;
+            double dot = 0.0;
+            for (int f = 0; f < factors; f++) {
+                dot += userFactors.get(userBase + f) * itemFactors.get(itemBase + f);
+            }
+            scores[c] = dot;
+        }
+    }
+
+    // ==================== 内存映射文件 ====================
+
+    /**
+     * 写入因子文件（调用方负责写临时文件后原子替换）
+     */
+    public void writeTo(Path file) throws IOException {
+        long size = HEADER_BYTES + 8L * (userIds.length + courseIds.length)
+                + 4L * (userFactors.limit() + itemFactors.limit());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(factors);
+            out.putInt(iterations);
+            out.putInt(userIds.length);
+            out.putInt(courseIds.length);
+            out.putLong(builtAt);
+            out.asLongBuffer().put(userIds);
+            out.position(out.position() + 8 * userIds.length);
+            out.asLongBuffer().put(courseIds);
+            out.position(out.position() + 8 * courseIds.length);
+            out.asFloatBuffer().put(userFactors.duplicate().rewind());
+            out.position(out.position() + 4 * userFactors.limit());
+            out.asFloatBuffer().put(itemFactors.duplicate().rewind());
+            out.force();
+        }
+    }
+
+    /**
+     * 以只读内存映射方式加载因子文件
+     */
+    public static AlsModel map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC) {
+                throw new IOException("不是有效的ALS因子文件");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的因子文件版本: " + version);
+            }
+            int factors = in.getInt();
+            int iterations = in.getInt();
+            int userCount = in.getInt();
+            int courseCount = in.getInt();
+            long builtAt = in.getLong();
+
+            long[] userIds = new long[userCount];
+            in.asLongBuffer().get(userIds);
+            in.position(in.position() + 8 * userCount);
+            long[] courseIds = new long[courseCount];
+            in.asLongBuffer().get(courseIds);
+            in.position(in.position() + 8 * courseCount);
+
+            FloatBuffer userFactors = slice(in, userCount * factors);
+            FloatBuffer itemFactors = slice(in, courseCount * factors);
+            return new AlsModel(factors, iterations, builtAt, userIds, courseIds, userFactors, itemFactors);
+        }
+    }
+
+    private static FloatBuffer slice(ByteBuffer in, int floats) {
+        ByteBuffer view = in.slice();
+        view.limit(floats * 4);
+        in.position(in.position() + floats * 4);
+        return view.asFloatBuffer();
+    }
+}
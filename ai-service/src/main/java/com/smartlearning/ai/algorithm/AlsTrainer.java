@@ -0,0 +1,189 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 隐式反馈 ALS（交替最小二乘）矩阵分解训练器
+ * <p>
+ * 偏好 p = 1（有交互），置信度 c = 1 + alpha * 交互次数 * (评分 / 5)。每轮先固定课程向量求解全部用户，
+ * 再固定用户向量求解全部课程；单个实体的正规方程为
+ * {@code (YtY + Yt(C - I)Y + lambda * I) x = Yt C p}，其中 YtY 每半轮只算一次，
+ * 逐实体只累加其非零项，用 Cholesky 分解求解。各实体相互独立，在 ForkJoinPool 上按实体并行。
+ * <p>
+ * 因子以 float 数组存储，求解过程使用线程本地的 double 缓冲区，避免逐实体分配。
+ */
+public final class AlsTrainer {
+
+    private final int factors;
+    private final double regularization;
+    private final double alpha;
+    private final int iterations;
+    private final long seed;
+
+    private final ThreadLocal<double[]> matrixScratch;
+    private final ThreadLocal<double[]> vectorScratch;
+
+    public AlsTrainer(int factors, double regularization, double alpha, int iterations, long seed) {
+        this.factors = factors;
+        this.regularization = regularization;
+        this.alpha = alpha;
+        this.iterations = iterations;
+        this.seed = seed;
+        this.matrixScratch = ThreadLocal.withInitial(() -> new double[factors * factors]);
+        this.vectorScratch = ThreadLocal.withInitial(() -> new double[factors]);
+    }
+
+    /**
+     * 训练模型
+     *
+     * @param matrix   交互矩阵
+     * @param pool     并行求解使用的线程池
+     * @param deadline 截止时间（毫秒时间戳），超过后不再开始新一轮迭代，至少完成一轮
+     * @return 训练结果
+     */
+    public AlsModel train(SparseInteractionMatrix matrix, ForkJoinPool pool, long deadline) {
+        int userCount = matrix.userCount();
+        int courseCount = matrix.courseCount();
+        float[] userFactors = new float[userCount * factors];
+        float[] itemFactors = new float[courseCount * factors];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double scale = 0.01;
+        for (int i = 0; i < itemFactors.length; i++) {
+            itemFactors[i] = (float) (random.nextGaussian() * scale);
+        }
+
+        int completed = 0;
+        while (completed < iterations && (completed == 0 || System.currentTimeMillis() < deadline)) {
+            solveSide(matrix, true, itemFactors, courseCount, userFactors, userCount, pool);
+            solveSide(matrix, false, userFactors, userCount, itemFactors, courseCount, pool);
+            completed++;
+        }
+
+        long[] userIds = new long[userCount];
+        for (int u = 0; u < userCount; u++) {
+            userIds[u] = matrix.userId(u);
+        }
+        long[] courseIds = new long[courseCount];
+        for (int c = 0; c < courseCount; c++) {
+            courseIds[c] = matrix.courseId(c);
+        }
+        return AlsModel.of(factors, completed, userIds, courseIds, userFactors, itemFactors);
+    }
+
+    /**
+     * 固定一侧因子，求解另一侧全部实体
+     *
+     * @param byUser 为 true 时按行（用户）求解，否则按列（课程）求解
+     */
+    private void solveSide(SparseInteractionMatrix matrix, boolean byUser, float[] fixed, int fixedCount,
+                           float[] target, int targetCount, ForkJoinPool pool) {
+        double[] gram = gramMatrix(fixed, fixedCount);
+        pool.submit(() -> IntStream.range(0, targetCount).parallel()
+                .forEach(e -> solveOne(matrix, byUser, e, fixed, gram, target))).join();
+    }
+
+    private void solveOne(SparseInteractionMatrix matrix, boolean byUser, int entity, float[] fixed,
+                          double[] gram, float[] target) {
+        int k = factors;
+        double[] a = matrixScratch.get();
+        double[] b = vectorScratch.get();
+        System.arraycopy(gram, 0, a, 0, k * k);
+        Arrays.fill(b, 0.0);
+        for (int d = 0; d < k; d++) {
+            a[d * k + d] += regularization;
+        }
+
+        int start = byUser ? matrix.rowStart(entity) : matrix.colStart(entity);
+        int end = byUser ? matrix.rowEnd(entity) : matrix.colEnd(entity);
+        for (int p = start; p < end; p++) {
+            int other = byUser ? matrix.rowCourse(p) : matrix.colUser(p);
+            float count = byUser ? matrix.rowCount(p) : matrix.colCount(p);
+            float rating = byUser ? matrix.rowRating(p) : matrix.colRating(p);
+            double confidence = 1.0 + alpha * count * (rating / 5.0);
+            int base = other * k;
+            // 只累加下三角，Cholesky 只读取下三角
+            for (int i = 0; i < k; i++) {
+                double yi = fixed[base + i];
+                double cyi = (confidence - 1.0) * yi;
+                for (int j = 0; j <= i; j++) {
+                    a[i * k + j] += cyi * fixed[base + j];
+                }
+                b[i] += confidence * yi;
+            }
+        }
+
+        int out = entity * k;
+        if (start == end || !choleskySolve(a, b, k)) {
+            Arrays.fill(target, out, out + k, 0f);
+            return;
+        }
+        for (int i = 0; i < k; i++) {
+            target[out + i] = (float) b[i];
+        }
+    }
+
+    /**
+     * 计算 YtY（k x k，下三角）
+     */
+    private double[] gramMatrix(float[] fixed, int count) {
+        int k = factors;
+        double[] gram = new double[k * k];
+        for (int e = 0; e < count; e++) {
+            int base = e * k;
+            for (int i = 0; i < k; i++) {
+                double yi = fixed[base + i];
+                for (int j = 0; j <= i; j++) {
+                    gram[i * k + j] += yi * fixed[base + j];
+                }
+            }
+        }
+        return gram;
+    }
+
+    /**
+     * 原地 Cholesky 分解并求解 Ax = b，结果写回 b。A 为对称正定矩阵，只使用下三角
+     *
+     * @return 矩阵非正定时返回 false
+     */
+    static boolean choleskySolve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diag = a[j * n + j];
+            for (int m = 0; m < j; m++) {
+                diag -= a[j * n + m] * a[j * n + m];
+            }
+            if (diag <= 0.0) {
+                return false;
+            }
+            diag = Math.sqrt(diag);
+            a[j * n + j] = diag;
+            for (int i = j + 1; i < n; i++) {
+                double sum = a[i * n + j];
+                for (int m = 0; m < j; m++) {
+                    sum -= a[i * n + m] * a[j * n + m];
+                }
+                a[i * n + j] = sum / diag;
+            }
+        }
+        // 前代 L y = b
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int m = 0; m < i; m++) {
+                sum -= a[i * n + m] * b[m];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+        // 回代 L^T x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int m = i + 1; m < n; m++) {
+                sum -= a[m * n + i] * b[m];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+        return true;
+    }
+}
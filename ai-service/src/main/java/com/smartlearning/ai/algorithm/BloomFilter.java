@@ -0,0 +1,67 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器（long 键）
+ * <p>
+ * 以一次 64 位混合哈希拆出两个哈希值，按 h1 + i * h2 生成 k 个位置（Kirsch-Mitzenmacher）。
+ * 位数组为 AtomicLongArray，允许并发写入与读取。
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedItems     预计元素数
+     * @param falsePositiveRate 目标误判率
+     */
+    public BloomFilter(int expectedItems, double falsePositiveRate) {
+        int n = Math.max(1, expectedItems);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void add(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * SplitMix64 混合函数
+     */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
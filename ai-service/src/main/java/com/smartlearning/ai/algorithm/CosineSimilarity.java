@@ -0,0 +1,167 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 稀疏评分向量的余弦相似度内核
+ * <p>
+ * 向量以升序ID数组 + 评分数组表示。先归并求交集，把共同ID上的两组评分收集到连续的缓冲区，
+ * 再一次遍历求点积和两侧模长（只统计共同项，与原有按Map求交集的算法一致）。
+ * 耗时主要在归并求交集上，点积部分使用标量循环。
+ */
+public final class CosineSimilarity {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private CosineSimilarity() {
+    }
+
+    /**
+     * 两个稀疏向量（long ID）的余弦相似度
+     *
+     * @param idsA    向量A的ID（升序）
+     * @param valuesA 向量A的评分
+     * @param idsB    向量B的ID（升序）
+     * @param valuesB 向量B的评分
+     * @return 相似度，没有共同项或模长为0时返回0
+     */
+    public static double cosine(long[] idsA, float[] valuesA, long[] idsB, float[] valuesB) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensure(Math.min(idsA.length, idsB.length));
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < idsA.length && j < idsB.length) {
+            long a = idsA[i];
+            long b = idsB[j];
+            if (a == b) {
+                scratch.a[n] = valuesA[i++];
+                scratch.b[n++] = valuesB[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return finish(scratch, n);
+    }
+
+    /**
+     * 两个 CSR 切片（int 下标）的余弦相似度
+     *
+     * @param ids    下标数组（每个切片内升序）
+     * @param values 评分数组
+     * @param fromA  切片A起始位置
+     * @param toA    切片A结束位置（不含）
+     * @param fromB  切片B起始位置
+     * @param toB    切片B结束位置（不含）
+     */
+    public static double cosine(int[] ids, float[] values, int fromA, int toA, int fromB, int toB) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensure(Math.min(toA - fromA, toB - fromB));
+        int n = 0;
+        int i = fromA;
+        int j = fromB;
+        while (i < toA && j < toB) {
+            int a = ids[i];
+            int b = ids[j];
+            if (a == b) {
+                scratch.a[n] = values[i++];
+                scratch.b[n++] = values[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return finish(scratch, n);
+    }
+
+    /**
+     * 一个切片与多个切片的余弦相似度（批量建模用）
+     * <p>
+     * 先把切片A展开到按下标寻址的稠密缓冲区，之后每个候选切片只需顺序扫描一次、逐项查表，
+     * 不必与A逐对归并。
+     *
+     * @param ids       下标数组（每个切片内升序）
+     * @param values    评分数组
+     * @param ptr       切片偏移数组，切片 k 为 [ptr[k], ptr[k + 1])
+     * @param dimension 下标取值上界（稠密缓冲区长度）
+     * @param one       切片A的编号
+     * @param many      候选切片编号
+     * @param out       输出的相似度，长度不小于 many
+     */
+    public static void cosineOneToMany(int[] ids, float[] values, int[] ptr, int dimension,
+                                       int one, int[] many, double[] out) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureDense(dimension);
+        float[] dense = scratch.dense;
+        long[] present = scratch.present;
+        for (int p = ptr[one]; p < ptr[one + 1]; p++) {
+            dense[ids[p]] = values[p];
+            present[ids[p] >>> 6] |= 1L << ids[p];
+        }
+        scratch.ensure(ptr[one + 1] - ptr[one]);
+        for (int k = 0; k < many.length; k++) {
+            int n = 0;
+            for (int p = ptr[many[k]]; p < ptr[many[k] + 1]; p++) {
+                int id = ids[p];
+                if ((present[id >>> 6] & (1L << id)) != 0) {
+                    scratch.a[n] = dense[id];
+                    scratch.b[n++] = values[p];
+                }
+            }
+            out[k] = finish(scratch, n);
+        }
+        for (int p = ptr[one]; p < ptr[one + 1]; p++) {
+            dense[ids[p]] = 0f;
+            present[ids[p] >>> 6] = 0L;
+        }
+    }
+
+    private static double finish(Scratch scratch, int n) {
+        if (n == 0) {
+            return 0.0;
+        }
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < n; i++) {
+            float a = scratch.a[i];
+            float b = scratch.b[i];
+            dot += a * b;
+            normA += a * a;
+            normB += b * b;
+        }
+        if (normA == 0.0 || normB == 0.0) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    /**
+     * 线程私有缓冲区：交集评分对、一对多时的稠密展开与占位位图
+     */
+    private static final class Scratch {
+
+        private float[] a = new float[64];
+        private float[] b = new float[64];
+        private float[] dense = new float[0];
+        private long[] present = new long[0];
+
+        void ensure(int length) {
+            if (a.length < length) {
+                int capacity = Math.max(length, a.length << 1);
+                a = Arrays.copyOf(a, capacity);
+                b = Arrays.copyOf(b, capacity);
+            }
+        }
+
+        void ensureDense(int dimension) {
+            if (dense.length < dimension) {
+                dense = new float[dimension];
+                present = new long[(dimension + 63) >>> 6];
+            }
+        }
+    }
+}
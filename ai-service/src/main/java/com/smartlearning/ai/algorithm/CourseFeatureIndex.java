@@ -0,0 +1,306 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 课程内容特征索引（稀疏 TF-IDF 向量 + 倒排表）
+ * <p>
+ * 特征为字符串形式（如 {@code cat:3}、{@code tag:java}），构建时映射为连续的整数编号。
+ * 每门课程存一个 L2 归一化的 TF-IDF 向量，同时按特征建倒排表；
+ * 用户画像与全部课程的点积只需遍历画像中各特征的倒排表，一次扫描即可完成打分。
+ * 实例只读，更新时整体重建后由持有方原子替换。
+ */
+public final class CourseFeatureIndex {
+
+    private static final CourseFeatureIndex EMPTY = new Builder().build();
+
+    /**
+     * 构建用户画像、计算课程间相似度时复用的稠密缓冲区
+     */
+    private static final ThreadLocal<double[]> PROFILE_SCRATCH = ThreadLocal.withInitial(() -> new double[0]);
+
+    private final long[] courseIds;
+    private final int featureCount;
+
+    /**
+     * 课程向量（CSR，按课程下标）
+     */
+    private final int[] vectorPtr;
+    private final int[] vectorFeatures;
+    private final float[] vectorWeights;
+
+    /**
+     * 倒排表（CSR，按特征编号）
+     */
+    private final int[] postingPtr;
+    private final int[] postingCourses;
+    private final float[] postingWeights;
+
+    private final long builtAt;
+
+    private CourseFeatureIndex(long[] courseIds, int featureCount, int[] vectorPtr, int[] vectorFeatures,
+                               float[] vectorWeights, int[] postingPtr, int[] postingCourses,
+                               float[] postingWeights) {
+        this.courseIds = courseIds;
+        this.featureCount = featureCount;
+        this.vectorPtr = vectorPtr;
+        this.vectorFeatures = vectorFeatures;
+        this.vectorWeights = vectorWeights;
+        this.postingPtr = postingPtr;
+        this.postingCourses = postingCourses;
+        this.postingWeights = postingWeights;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    public static CourseFeatureIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isEmpty() {
+        return courseIds.length == 0;
+    }
+
+    public int courseCount() {
+        return courseIds.length;
+    }
+
+    public int featureCount() {
+        return featureCount;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public int indexOf(long courseId) {
+        int idx = Arrays.binarySearch(courseIds, courseId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    /**
+     * 构建用户画像：已交互课程的向量按偏好权重加权求和后 L2 归一化
+     *
+     * @param interacted  用户交互过的课程ID
+     * @param preferences 对应的偏好权重
+     * @return 用户画像，没有可用课程时返回空画像
+     */
+    public Profile profile(long[] interacted, double[] preferences) {
+        double[] dense = PROFILE_SCRATCH.get();
+        if (dense.length < featureCount) {
+            dense = new double[featureCount];
+            PROFILE_SCRATCH.set(dense);
+        }
+
+        int[] touched = new int[16];
+        int touchedSize = 0;
+        for (int i = 0; i < interacted.length; i++) {
+            int c = indexOf(interacted[i]);
+            if (c < 0 || preferences[i] <= 0) {
+                continue;
+            }
+            for (int p = vectorPtr[c]; p < vectorPtr[c + 1]; p++) {
+                int f = vectorFeatures[p];
+                if (dense[f] == 0.0) {
+                    if (touchedSize == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedSize << 1);
+                    }
+                    touched[touchedSize++] = f;
+                }
+                dense[f] += preferences[i] * vectorWeights[p];
+            }
+        }
+
+        double norm = 0.0;
+        for (int i = 0; i < touchedSize; i++) {
+            norm += dense[touched[i]] * dense[touched[i]];
+        }
+        norm = Math.sqrt(norm);
+
+        int[] features = Arrays.copyOf(touched, touchedSize);
+        float[] weights = new float[touchedSize];
+        for (int i = 0; i < touchedSize; i++) {
+            weights[i] = norm > 0 ? (float) (dense[features[i]] / norm) : 0f;
+            dense[features[i]] = 0.0;
+        }
+        return new Profile(features, weights);
+    }
+
+    /**
+     * 用户画像与全部课程的余弦相似度（向量均已归一化，即点积），累加到得分累加器
+     *
+     * @param profile  用户画像
+     * @param weight   结果权重
+     * @param excluded 需要排除的课程ID（升序）
+     * @param scores   得分累加器
+     * @param flag     来源标记
+     */
+    public void score(Profile profile, double weight, long[] excluded, ScoreAccumulator scores, int flag) {
+        for (int i = 0; i < profile.features.length; i++) {
+            int f = profile.features[i];
+            double w = weight * profile.weights[i];
+            for (int p = postingPtr[f]; p < postingPtr[f + 1]; p++) {
+                long courseId = courseIds[postingCourses[p]];
+                if (Arrays.binarySearch(excluded, courseId) < 0) {
+                    scores.add(courseId, w * postingWeights[p], flag);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一门课程与一组课程的内容余弦相似度（按课程下标）
+     * <p>
+     * 先把该课程向量展开到稠密缓冲区，再逐门课程按其特征查表累加，避免逐对归并两个稀疏向量。
+     *
+     * @param row    课程下标
+     * @param others 其他课程下标，小于0视为不在索引中（相似度为0）
+     * @param out    输出的相似度，长度不小于 others
+     */
+    public void similarities(int row, int[] others, double[] out) {
+        double[] dense = PROFILE_SCRATCH.get();
+        if (dense.length < featureCount) {
+            dense = new double[featureCount];
+            PROFILE_SCRATCH.set(dense);
+        }
+        for (int p = vectorPtr[row]; p < vectorPtr[row + 1]; p++) {
+            dense[vectorFeatures[p]] = vectorWeights[p];
+        }
+        for (int i = 0; i < others.length; i++) {
+            int c = others[i];
+            double dot = 0.0;
+            if (c >= 0) {
+                for (int p = vectorPtr[c]; p < vectorPtr[c + 1]; p++) {
+                    dot += dense[vectorFeatures[p]] * vectorWeights[p];
+                }
+            }
+            out[i] = dot;
+        }
+        for (int p = vectorPtr[row]; p < vectorPtr[row + 1]; p++) {
+            dense[vectorFeatures[p]] = 0.0;
+        }
+    }
+
+    /**
+     * 用户画像（稀疏特征向量）
+     */
+    public static final class Profile {
+
+        private final int[] features;
+        private final float[] weights;
+
+        Profile(int[] features, float[] weights) {
+            this.features = features;
+            this.weights = weights;
+        }
+
+        public boolean isEmpty() {
+            return features.length == 0;
+        }
+    }
+
+    /**
+     * 索引构建器：逐门课程追加特征（重复特征计为词频）
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> vocabulary = new HashMap<>();
+        private final Map<Long, int[]> courseFeatures = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(long courseId, List<String> features) {
+            int[] ids = new int[features.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = vocabulary.computeIfAbsent(features.get(i), key -> vocabulary.size());
+            }
+            Arrays.sort(ids);
+            courseFeatures.put(courseId, ids);
+            return this;
+        }
+
+        public CourseFeatureIndex build() {
+            long[] courseIds = courseFeatures.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            int featureCount = vocabulary.size();
+            int courseCount = courseIds.length;
+
+            // 1. 文档频率
+            int[] documentFrequency = new int[featureCount];
+            List<int[]> distinctFeatures = new ArrayList<>(courseCount);
+            List<int[]> termFrequencies = new ArrayList<>(courseCount);
+            int total = 0;
+            for (long courseId : courseIds) {
+                int[] sorted = courseFeatures.get(courseId);
+                int[] distinct = new int[sorted.length];
+                int[] tf = new int[sorted.length];
+                int n = 0;
+                for (int i = 0; i < sorted.length; i++) {
+                    if (n > 0 && distinct[n - 1] == sorted[i]) {
+                        tf[n - 1]++;
+                    } else {
+                        distinct[n] = sorted[i];
+                        tf[n++] = 1;
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    documentFrequency[distinct[i]]++;
+                }
+                distinctFeatures.add(Arrays.copyOf(distinct, n));
+                termFrequencies.add(Arrays.copyOf(tf, n));
+                total += n;
+            }
+
+            // 2. TF-IDF 课程向量并归一化
+            int[] vectorPtr = new int[courseCount + 1];
+            int[] vectorFeatures = new int[total];
+            float[] vectorWeights = new float[total];
+            int[] postingPtr = new int[featureCount + 1];
+            int pos = 0;
+            for (int c = 0; c < courseCount; c++) {
+                int[] features = distinctFeatures.get(c);
+                int[] tf = termFrequencies.get(c);
+                double norm = 0.0;
+                for (int i = 0; i < features.length; i++) {
+                    double idf = Math.log((1.0 + courseCount) / (1.0 + documentFrequency[features[i]])) + 1.0;
+                    double w = (1.0 + Math.log(tf[i])) * idf;
+                    vectorFeatures[pos + i] = features[i];
+                    vectorWeights[pos + i] = (float) w;
+                    norm += w * w;
+                    postingPtr[features[i] + 1]++;
+                }
+                norm = Math.sqrt(norm);
+                for (int i = 0; i < features.length; i++) {
+                    vectorWeights[pos + i] = norm > 0 ? (float) (vectorWeights[pos + i] / norm) : 0f;
+                }
+                pos += features.length;
+                vectorPtr[c + 1] = pos;
+            }
+
+            // 3. 倒排表（按课程顺序写入，表内课程下标升序）
+            for (int f = 0; f < featureCount; f++) {
+                postingPtr[f + 1] += postingPtr[f];
+            }
+            int[] postingCourses = new int[total];
+            float[] postingWeights = new float[total];
+            int[] fill = Arrays.copyOf(postingPtr, featureCount);
+            for (int c = 0; c < courseCount; c++) {
+                for (int p = vectorPtr[c]; p < vectorPtr[c + 1]; p++) {
+                    int slot = fill[vectorFeatures[p]]++;
+                    postingCourses[slot] = c;
+                    postingWeights[slot] = vectorWeights[p];
+                }
+            }
+
+            return new CourseFeatureIndex(courseIds, featureCount, vectorPtr, vectorFeatures, vectorWeights,
+                    postingPtr, postingCourses, postingWeights);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 一次重建实际读取到的行为ID集合（升序，不可变）
+ * <p>
+ * 只记录实时增量层仍可能持有的区间 (floor, 高水位] 内的ID：增量层据此逐条移除已被矩阵 / 相似度索引覆盖的行为。
+ * 与单一高水位不同，ID较小但在读取之后才提交的行为不在集合中，会继续保留到下一次重建。
+ */
+public final class CoveredEvents {
+
+    private static final CoveredEvents NONE = new CoveredEvents(new long[0], 0L);
+
+    private final long[] ids;
+
+    /**
+     * 读取区间的下界（不含），不超过该值的ID未被记录
+     */
+    private final long floor;
+
+    private CoveredEvents(long[] ids, long floor) {
+        this.ids = ids;
+        this.floor = floor;
+    }
+
+    public static CoveredEvents none() {
+        return NONE;
+    }
+
+    /**
+     * @param sortedIds 区间内读取到的行为ID（升序）
+     * @param floor     读取区间的下界（不含）
+     */
+    public static CoveredEvents of(long[] sortedIds, long floor) {
+        return new CoveredEvents(sortedIds, floor);
+    }
+
+    public boolean covers(long eventId) {
+        return eventId > floor && Arrays.binarySearch(ids, eventId) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 增量合并：保留本集合中高于 newer 下界的ID，并加入 newer 中大于 afterId 的ID
+     * <p>
+     * 用于相似度索引增量重建：只有 afterId 之后的行为所涉及的课程被重新计算，
+     * 更早但迟提交的行为虽已计入新矩阵，仍视为未覆盖；低于 newer 下界的ID此前已从增量层移除，不再保留。
+     */
+    public CoveredEvents merge(CoveredEvents newer, long afterId) {
+        long[] merged = new long[ids.length + newer.ids.length];
+        int n = 0;
+        int p = lowerBound(ids, newer.floor + 1);
+        int q = lowerBound(newer.ids, afterId + 1);
+        while (p < ids.length || q < newer.ids.length) {
+            long a = p < ids.length ? ids[p] : Long.MAX_VALUE;
+            long b = q < newer.ids.length ? newer.ids[q] : Long.MAX_VALUE;
+            if (a < b) {
+                merged[n++] = a;
+                p++;
+            } else if (b < a) {
+                merged[n++] = b;
+                q++;
+            } else {
+                merged[n++] = a;
+                p++;
+                q++;
+            }
+        }
+        return new CoveredEvents(Arrays.copyOf(merged, n), newer.floor);
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int idx = Arrays.binarySearch(values, key);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+}
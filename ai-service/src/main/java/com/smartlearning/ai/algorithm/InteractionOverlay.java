@@ -0,0 +1,419 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * 交互矩阵的实时增量层
+ * <p>
+ * 记录上次矩阵重建之后到达的行为：每个用户新增的 (课程, 次数, 评分和)，以及由新增交互产生的课程共现次数。
+ * 写入方（单线程）在可增长的缓冲区上原地累加，并保留逐条行为 (行为ID, 课程, 评分) 用于清理；
+ * 每批处理完后调用 {@link #publish()}，只为本批变动的用户 / 课程生成一次不可变快照，读取方无需加锁。
+ * 矩阵 / 相似度索引重建后按其实际读取到的行为ID逐条移除已被覆盖的行为
+ * （{@link #pruneUsers(LongPredicate)} / {@link #pruneCooccurrence(LongPredicate)}），其余行为保留。
+ */
+public final class InteractionOverlay {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Map<Long, UserRow> users = new ConcurrentHashMap<>();
+    private final Map<Long, CooccurrenceRow> cooccurrence = new ConcurrentHashMap<>();
+
+    /**
+     * 写入线程私有的可变状态，及自上次发布以来变动过的ID
+     */
+    private final Map<Long, UserState> userStates = new HashMap<>();
+    private final Map<Long, CooccurrenceState> cooccurrenceStates = new HashMap<>();
+    private final Set<Long> dirtyUsers = new HashSet<>();
+    private final Set<Long> dirtyCourses = new HashSet<>();
+
+    /**
+     * 增量层中最小的行为ID（不含缺失ID的行为），为空时为 {@link Long#MAX_VALUE}
+     */
+    private volatile long minEventId = Long.MAX_VALUE;
+
+    /**
+     * 用户的增量行，不存在返回 null
+     */
+    public UserRow user(long userId) {
+        return users.get(userId);
+    }
+
+    /**
+     * 课程的增量共现行，不存在返回 null
+     */
+    public CooccurrenceRow cooccurrence(long courseId) {
+        return cooccurrence.get(courseId);
+    }
+
+    public int userCount() {
+        return users.size();
+    }
+
+    public int cooccurrenceCount() {
+        return cooccurrence.size();
+    }
+
+    /**
+     * 增量层中最小的行为ID，矩阵重建据此确定需要记录的行为ID区间（可由任意线程读取）
+     */
+    public long minEventId() {
+        return minEventId;
+    }
+
+    /**
+     * 记录一次用户-课程交互（仅允许单线程调用，调用 {@link #publish()} 后对读取方可见）
+     *
+     * @param userId       用户ID
+     * @param courseId     课程ID
+     * @param rating       评分
+     * @param baseCourses  矩阵中该用户已交互的课程（升序）
+     * @param maxFanout    单次新增交互最多更新的共现课程数
+     * @param eventId      行为ID
+     * @return 是否为该用户首次交互的课程（此时已更新共现次数）
+     */
+    public boolean record(long userId, long courseId, float rating, long[] baseCourses, int maxFanout, long eventId) {
+        UserState state = userStates.computeIfAbsent(userId, key -> new UserState());
+        boolean isNew = Arrays.binarySearch(baseCourses, courseId) < 0 && state.indexOf(courseId) < 0;
+
+        if (isNew) {
+            int fanout = 0;
+            for (int i = 0; i < baseCourses.length && fanout < maxFanout; i++, fanout++) {
+                incrementPair(courseId, baseCourses[i], eventId);
+            }
+            for (int i = 0; i < state.size && fanout < maxFanout; i++) {
+                if (Arrays.binarySearch(baseCourses, state.courseIds[i]) < 0) {
+                    incrementPair(courseId, state.courseIds[i], eventId);
+                    fanout++;
+                }
+            }
+        }
+        state.append(courseId, rating, eventId);
+        dirtyUsers.add(userId);
+        if (eventId > 0 && eventId < minEventId) {
+            minEventId = eventId;
+        }
+        return isNew;
+    }
+
+    /**
+     * 移除已被重建后的矩阵覆盖的用户增量（仅允许写入线程调用）
+     *
+     * @param covered 行为ID是否已计入矩阵
+     */
+    public void pruneUsers(LongPredicate covered) {
+        for (Map.Entry<Long, UserState> entry : userStates.entrySet()) {
+            if (entry.getValue().retain(covered)) {
+                dirtyUsers.add(entry.getKey());
+            }
+        }
+        refreshMinEventId();
+    }
+
+    /**
+     * 移除已被重建后的相似度索引覆盖的共现增量（仅允许写入线程调用）
+     *
+     * @param covered 行为ID是否已计入索引
+     */
+    public void pruneCooccurrence(LongPredicate covered) {
+        for (Map.Entry<Long, CooccurrenceState> entry : cooccurrenceStates.entrySet()) {
+            if (entry.getValue().retain(covered)) {
+                dirtyCourses.add(entry.getKey());
+            }
+        }
+        refreshMinEventId();
+    }
+
+    /**
+     * 为上次发布以来变动过的用户 / 课程生成不可变快照并替换，已清空的行直接移除（仅允许写入线程调用）
+     */
+    public void publish() {
+        for (Long userId : dirtyUsers) {
+            UserState state = userStates.get(userId);
+            if (state == null || state.eventCount == 0) {
+                userStates.remove(userId);
+                users.remove(userId);
+            } else {
+                users.put(userId, state.snapshot());
+            }
+        }
+        dirtyUsers.clear();
+        for (Long courseId : dirtyCourses) {
+            CooccurrenceState state = cooccurrenceStates.get(courseId);
+            if (state == null || state.eventCount == 0) {
+                cooccurrenceStates.remove(courseId);
+                cooccurrence.remove(courseId);
+            } else {
+                cooccurrence.put(courseId, state.snapshot());
+            }
+        }
+        dirtyCourses.clear();
+    }
+
+    private void incrementPair(long a, long b, long eventId) {
+        cooccurrenceStates.computeIfAbsent(a, key -> new CooccurrenceState()).append(b, eventId);
+        cooccurrenceStates.computeIfAbsent(b, key -> new CooccurrenceState()).append(a, eventId);
+        dirtyCourses.add(a);
+        dirtyCourses.add(b);
+    }
+
+    private void refreshMinEventId() {
+        long min = Long.MAX_VALUE;
+        for (UserState state : userStates.values()) {
+            min = Math.min(min, state.minEventId());
+        }
+        for (CooccurrenceState state : cooccurrenceStates.values()) {
+            min = Math.min(min, state.minEventId());
+        }
+        minEventId = min;
+    }
+
+    private static long minPositive(long[] eventIds, int eventCount) {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < eventCount; i++) {
+            if (eventIds[i] > 0 && eventIds[i] < min) {
+                min = eventIds[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 用户增量行快照（课程ID升序）
+     */
+    public static final class UserRow {
+
+        private final long[] courseIds;
+        private final float[] counts;
+        private final float[] ratingSums;
+
+        private UserRow(long[] courseIds, float[] counts, float[] ratingSums) {
+            this.courseIds = courseIds;
+            this.counts = counts;
+            this.ratingSums = ratingSums;
+        }
+
+        public int size() {
+            return courseIds.length;
+        }
+
+        public long courseId(int i) {
+            return courseIds[i];
+        }
+
+        public float count(int i) {
+            return counts[i];
+        }
+
+        public float ratingSum(int i) {
+            return ratingSums[i];
+        }
+
+        public int indexOf(long courseId) {
+            int idx = Arrays.binarySearch(courseIds, courseId);
+            return idx >= 0 ? idx : -1;
+        }
+    }
+
+    /**
+     * 课程增量共现行快照（共现课程ID升序）
+     */
+    public static final class CooccurrenceRow {
+
+        private final long[] courseIds;
+        private final int[] counts;
+
+        private CooccurrenceRow(long[] courseIds, int[] counts) {
+            this.courseIds = courseIds;
+            this.counts = counts;
+        }
+
+        public int size() {
+            return courseIds.length;
+        }
+
+        public long courseId(int i) {
+            return courseIds[i];
+        }
+
+        public int count(int i) {
+            return counts[i];
+        }
+    }
+
+    /**
+     * 用户增量的写入方状态：按课程聚合的升序数组与逐条行为日志，均按需倍增扩容、原地更新
+     */
+    private static final class UserState {
+
+        private long[] courseIds = new long[INITIAL_CAPACITY];
+        private float[] counts = new float[INITIAL_CAPACITY];
+        private float[] ratingSums = new float[INITIAL_CAPACITY];
+        private int size;
+
+        private long[] eventIds = new long[INITIAL_CAPACITY];
+        private long[] eventCourses = new long[INITIAL_CAPACITY];
+        private float[] eventRatings = new float[INITIAL_CAPACITY];
+        private int eventCount;
+
+        int indexOf(long courseId) {
+            int idx = Arrays.binarySearch(courseIds, 0, size, courseId);
+            return idx >= 0 ? idx : -1;
+        }
+
+        void append(long courseId, float rating, long eventId) {
+            if (eventCount == eventIds.length) {
+                int capacity = eventCount << 1;
+                eventIds = Arrays.copyOf(eventIds, capacity);
+                eventCourses = Arrays.copyOf(eventCourses, capacity);
+                eventRatings = Arrays.copyOf(eventRatings, capacity);
+            }
+            eventIds[eventCount] = eventId;
+            eventCourses[eventCount] = courseId;
+            eventRatings[eventCount] = rating;
+            eventCount++;
+            accumulate(courseId, rating);
+        }
+
+        private void accumulate(long courseId, float rating) {
+            int idx = Arrays.binarySearch(courseIds, 0, size, courseId);
+            if (idx >= 0) {
+                counts[idx] += 1f;
+                ratingSums[idx] += rating;
+                return;
+            }
+            if (size == courseIds.length) {
+                int capacity = size << 1;
+                courseIds = Arrays.copyOf(courseIds, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                ratingSums = Arrays.copyOf(ratingSums, capacity);
+            }
+            int insert = -idx - 1;
+            System.arraycopy(courseIds, insert, courseIds, insert + 1, size - insert);
+            System.arraycopy(counts, insert, counts, insert + 1, size - insert);
+            System.arraycopy(ratingSums, insert, ratingSums, insert + 1, size - insert);
+            courseIds[insert] = courseId;
+            counts[insert] = 1f;
+            ratingSums[insert] = rating;
+            size++;
+        }
+
+        /**
+         * 原地压缩行为日志，移除已覆盖的行为并重新聚合
+         *
+         * @return 是否有行为被移除
+         */
+        boolean retain(LongPredicate covered) {
+            int kept = 0;
+            for (int i = 0; i < eventCount; i++) {
+                if (!covered.test(eventIds[i])) {
+                    eventIds[kept] = eventIds[i];
+                    eventCourses[kept] = eventCourses[i];
+                    eventRatings[kept] = eventRatings[i];
+                    kept++;
+                }
+            }
+            if (kept == eventCount) {
+                return false;
+            }
+            eventCount = kept;
+            size = 0;
+            for (int i = 0; i < eventCount; i++) {
+                accumulate(eventCourses[i], eventRatings[i]);
+            }
+            return true;
+        }
+
+        long minEventId() {
+            return minPositive(eventIds, eventCount);
+        }
+
+        UserRow snapshot() {
+            return new UserRow(Arrays.copyOf(courseIds, size), Arrays.copyOf(counts, size),
+                    Arrays.copyOf(ratingSums, size));
+        }
+    }
+
+    /**
+     * 课程共现增量的写入方状态：按共现课程聚合的升序数组与逐次累加日志，均按需倍增扩容、原地更新
+     */
+    private static final class CooccurrenceState {
+
+        private long[] courseIds = new long[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private long[] eventIds = new long[INITIAL_CAPACITY];
+        private long[] eventCourses = new long[INITIAL_CAPACITY];
+        private int eventCount;
+
+        void append(long courseId, long eventId) {
+            if (eventCount == eventIds.length) {
+                int capacity = eventCount << 1;
+                eventIds = Arrays.copyOf(eventIds, capacity);
+                eventCourses = Arrays.copyOf(eventCourses, capacity);
+            }
+            eventIds[eventCount] = eventId;
+            eventCourses[eventCount] = courseId;
+            eventCount++;
+            accumulate(courseId);
+        }
+
+        private void accumulate(long courseId) {
+            int idx = Arrays.binarySearch(courseIds, 0, size, courseId);
+            if (idx >= 0) {
+                counts[idx]++;
+                return;
+            }
+            if (size == courseIds.length) {
+                int capacity = size << 1;
+                courseIds = Arrays.copyOf(courseIds, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            int insert = -idx - 1;
+            System.arraycopy(courseIds, insert, courseIds, insert + 1, size - insert);
+            System.arraycopy(counts, insert, counts, insert + 1, size - insert);
+            courseIds[insert] = courseId;
+            counts[insert] = 1;
+            size++;
+        }
+
+        /**
+         * 原地压缩累加日志，移除已覆盖的行为并重新聚合
+         *
+         * @return 是否有累加被移除
+         */
+        boolean retain(LongPredicate covered) {
+            int kept = 0;
+            for (int i = 0; i < eventCount; i++) {
+                if (!covered.test(eventIds[i])) {
+                    eventIds[kept] = eventIds[i];
+                    eventCourses[kept] = eventCourses[i];
+                    kept++;
+                }
+            }
+            if (kept == eventCount) {
+                return false;
+            }
+            eventCount = kept;
+            size = 0;
+            for (int i = 0; i < eventCount; i++) {
+                accumulate(eventCourses[i]);
+            }
+            return true;
+        }
+
+        long minEventId() {
+            return minPositive(eventIds, eventCount);
+        }
+
+        CooccurrenceRow snapshot() {
+            return new CooccurrenceRow(Arrays.copyOf(courseIds, size), Arrays.copyOf(counts, size));
+        }
+    }
+}
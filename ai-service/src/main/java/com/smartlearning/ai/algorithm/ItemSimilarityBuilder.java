@@ -0,0 +1,218 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 课程-课程相似度索引构建器
+ * <p>
+ * 基于交互矩阵计算评分向量在共同用户上的余弦相似度（与 {@link CosineSimilarity} 的实时计算口径一致）。
+ * 不枚举全部课程对，而是对每门课程沿 "课程 -> 用户 -> 课程" 路径统计存在共同用户的候选及共同用户数，
+ * 再用 {@link SparseInteractionMatrix#courseCosines} 一次算出该课程与全部候选的相似度，并做以下剪枝：
+ * <ul>
+ *     <li>交互课程数超过 {@code maxUserInteractions} 的重度用户不参与候选统计（贡献低、代价为平方级），
+ *     但候选的相似度仍在全部共同用户上计算</li>
+ *     <li>共同用户数低于 {@code minCommonUsers} 或相似度低于 {@code minSimilarity} 的候选直接丢弃</li>
+ *     <li>每门课程只保留 Top-K 邻居（有界最小堆）</li>
+ * </ul>
+ * 各课程行相互独立，通过 ForkJoinPool 按课程区间并行计算。
+ */
+public final class ItemSimilarityBuilder {
+
+    /**
+     * 叶子任务处理的课程数
+     */
+    private static final int LEAF_SIZE = 64;
+
+    private final int topK;
+    private final int minCommonUsers;
+    private final float minSimilarity;
+    private final int maxUserInteractions;
+
+    public ItemSimilarityBuilder(int topK, int minCommonUsers, float minSimilarity, int maxUserInteractions) {
+        this.topK = topK;
+        this.minCommonUsers = minCommonUsers;
+        this.minSimilarity = minSimilarity;
+        this.maxUserInteractions = maxUserInteractions;
+    }
+
+    /**
+     * 全量构建
+     */
+    public ItemSimilarityIndex build(SparseInteractionMatrix matrix, ForkJoinPool pool) {
+        int[] all = new int[matrix.courseCount()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return buildRows(matrix, all, pool);
+    }
+
+    /**
+     * 只计算指定课程（列号，需升序）的邻居行，用于增量更新后与旧索引合并
+     */
+    public ItemSimilarityIndex buildRows(SparseInteractionMatrix matrix, int[] courseIndexes, ForkJoinPool pool) {
+        long[][] rowIds = new long[courseIndexes.length][];
+        float[][] rowSims = new float[courseIndexes.length][];
+
+        pool.invoke(new RowTask(matrix, courseIndexes, rowIds, rowSims, 0, courseIndexes.length));
+
+        int total = 0;
+        for (long[] ids : rowIds) {
+            total += ids.length;
+        }
+        long[] courseIds = new long[courseIndexes.length];
+        int[] offsets = new int[courseIndexes.length + 1];
+        long[] neighborIds = new long[total];
+        float[] similarities = new float[total];
+        int pos = 0;
+        for (int r = 0; r < courseIndexes.length; r++) {
+            courseIds[r] = matrix.courseId(courseIndexes[r]);
+            System.arraycopy(rowIds[r], 0, neighborIds, pos, rowIds[r].length);
+            System.arraycopy(rowSims[r], 0, similarities, pos, rowSims[r].length);
+            pos += rowIds[r].length;
+            offsets[r + 1] = pos;
+        }
+        return new ItemSimilarityIndex(courseIds, offsets, neighborIds, similarities, System.currentTimeMillis(),
+                matrix.coveredId());
+    }
+
+    private final class RowTask extends RecursiveAction {
+
+        private final SparseInteractionMatrix matrix;
+        private final int[] courseIndexes;
+        private final long[][] rowIds;
+        private final float[][] rowSims;
+        private final int from;
+        private final int to;
+
+        RowTask(SparseInteractionMatrix matrix, int[] courseIndexes,
+                long[][] rowIds, float[][] rowSims, int from, int to) {
+            this.matrix = matrix;
+            this.courseIndexes = courseIndexes;
+            this.rowIds = rowIds;
+            this.rowSims = rowSims;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(matrix, courseIndexes, rowIds, rowSims, from, mid),
+                        new RowTask(matrix, courseIndexes, rowIds, rowSims, mid, to));
+                return;
+            }
+
+            // 叶子任务内复用的稠密缓冲区
+            int courseCount = matrix.courseCount();
+            int[] common = new int[courseCount];
+            int[] touched = new int[courseCount];
+            int[] candidates = new int[courseCount];
+            double[] sims = new double[courseCount];
+            int[] heapIdx = new int[topK];
+            float[] heapSim = new float[topK];
+
+            for (int r = from; r < to; r++) {
+                int course = courseIndexes[r];
+                int touchedSize = 0;
+
+                for (int q = matrix.colStart(course), qEnd = matrix.colEnd(course); q < qEnd; q++) {
+                    int user = matrix.colUser(q);
+                    if (matrix.rowLength(user) > maxUserInteractions) {
+                        continue;
+                    }
+                    for (int p = matrix.rowStart(user), pEnd = matrix.rowEnd(user); p < pEnd; p++) {
+                        int other = matrix.rowCourse(p);
+                        if (other == course) {
+                            continue;
+                        }
+                        if (common[other]++ == 0) {
+                            touched[touchedSize++] = other;
+                        }
+                    }
+                }
+
+                int candidateCount = 0;
+                for (int t = 0; t < touchedSize; t++) {
+                    int other = touched[t];
+                    if (common[other] >= minCommonUsers) {
+                        candidates[candidateCount++] = other;
+                    }
+                    common[other] = 0;
+                }
+                int[] many = Arrays.copyOf(candidates, candidateCount);
+                matrix.courseCosines(course, many, sims);
+
+                int heapSize = 0;
+                for (int t = 0; t < many.length; t++) {
+                    int other = many[t];
+                    float sim = (float) sims[t];
+                    if (sim < minSimilarity) {
+                        continue;
+                    }
+                    if (heapSize < topK) {
+                        heapIdx[heapSize] = other;
+                        heapSim[heapSize] = sim;
+                        siftUp(heapIdx, heapSim, heapSize++);
+                    } else if (sim > heapSim[0]) {
+                        heapIdx[0] = other;
+                        heapSim[0] = sim;
+                        siftDown(heapIdx, heapSim, heapSize);
+                    }
+                }
+
+                for (int n = heapSize - 1; n > 0; n--) {
+                    swap(heapIdx, heapSim, 0, n);
+                    siftDown(heapIdx, heapSim, n);
+                }
+                long[] ids = new long[heapSize];
+                for (int k = 0; k < heapSize; k++) {
+                    ids[k] = matrix.courseId(heapIdx[k]);
+                }
+                rowIds[r] = ids;
+                rowSims[r] = Arrays.copyOf(heapSim, heapSize);
+            }
+        }
+    }
+
+    private static void siftUp(int[] idx, float[] sims, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (sims[parent] <= sims[i]) {
+                break;
+            }
+            swap(idx, sims, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] idx, float[] sims, int size) {
+        int i = 0;
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            if (left + 1 < size && sims[left + 1] < sims[left]) {
+                smallest = left + 1;
+            }
+            if (sims[i] <= sims[smallest]) {
+                break;
+            }
+            swap(idx, sims, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] idx, float[] sims, int a, int b) {
+        int t = idx[a];
+        idx[a] = idx[b];
+        idx[b] = t;
+        float s = sims[a];
+        sims[a] = sims[b];
+        sims[b] = s;
+    }
+}
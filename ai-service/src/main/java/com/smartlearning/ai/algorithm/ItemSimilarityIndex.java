@@ -0,0 +1,214 @@
+package com.smartlearning.ai.algorithm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 课程-课程 Top-K 相似度索引
+ * <p>
+ * 每门课程的邻居按相似度降序连续存放，课程ID排序后二分定位，读取单门课程的邻居为 O(K)。
+ * 实例只读，更新时生成新实例并由持有方原子替换。
+ */
+public final class ItemSimilarityIndex {
+
+    /**
+     * 快照文件魔数 "ISIM"
+     */
+    private static final int MAGIC = 0x4953494D;
+
+    private static final int VERSION = 2;
+
+    private static final ItemSimilarityIndex EMPTY =
+            new ItemSimilarityIndex(new long[0], new int[1], new long[0], new float[0], 0L, 0L);
+
+    private final long[] courseIds;
+    private final int[] offsets;
+    private final long[] neighborIds;
+    private final float[] similarities;
+    private final long builtAt;
+
+    /**
+     * 构建所用交互矩阵的行为ID高水位，0 表示未知
+     */
+    private final long coveredId;
+
+    ItemSimilarityIndex(long[] courseIds, int[] offsets, long[] neighborIds, float[] similarities,
+                        long builtAt, long coveredId) {
+        this.courseIds = courseIds;
+        this.offsets = offsets;
+        this.neighborIds = neighborIds;
+        this.similarities = similarities;
+        this.builtAt = builtAt;
+        this.coveredId = coveredId;
+    }
+
+    public static ItemSimilarityIndex empty() {
+        return EMPTY;
+    }
+
+    public int courseCount() {
+        return courseIds.length;
+    }
+
+    public int entryCount() {
+        return neighborIds.length;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public long coveredId() {
+        return coveredId;
+    }
+
+    public boolean isEmpty() {
+        return neighborIds.length == 0;
+    }
+
+    /**
+     * 课程在索引中的位置，不存在返回 -1
+     */
+    public int indexOf(long courseId) {
+        int idx = Arrays.binarySearch(courseIds, courseId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    public long courseId(int index) {
+        return courseIds[index];
+    }
+
+    public int start(int index) {
+        return offsets[index];
+    }
+
+    public int end(int index) {
+        return offsets[index + 1];
+    }
+
+    public long neighborId(int pos) {
+        return neighborIds[pos];
+    }
+
+    public float similarity(int pos) {
+        return similarities[pos];
+    }
+
+    /**
+     * 两门课程的相似度（仅在 Top-K 邻居中查找），不在邻居表中返回 NaN
+     */
+    public float similarity(long courseId, long otherCourseId) {
+        int idx = indexOf(courseId);
+        if (idx < 0) {
+            return Float.NaN;
+        }
+        for (int p = offsets[idx], end = offsets[idx + 1]; p < end; p++) {
+            if (neighborIds[p] == otherCourseId) {
+                return similarities[p];
+            }
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * 用新计算的行替换（或新增）部分课程的邻居列表，返回新索引
+     */
+    public ItemSimilarityIndex merge(ItemSimilarityIndex updates) {
+        if (updates.courseIds.length == 0) {
+            return this;
+        }
+        long[] mergedIds = new long[courseIds.length + updates.courseIds.length];
+        int[] mergedOffsets = new int[mergedIds.length + 1];
+        long[] mergedNeighbors = new long[neighborIds.length + updates.neighborIds.length];
+        float[] mergedSims = new float[mergedNeighbors.length];
+
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        int pos = 0;
+        while (i < courseIds.length || j < updates.courseIds.length) {
+            ItemSimilarityIndex source;
+            int row;
+            if (j >= updates.courseIds.length
+                    || (i < courseIds.length && courseIds[i] < updates.courseIds[j])) {
+                source = this;
+                row = i++;
+            } else {
+                if (i < courseIds.length && courseIds[i] == updates.courseIds[j]) {
+                    i++;
+                }
+                source = updates;
+                row = j++;
+            }
+            int from = source.offsets[row];
+            int len = source.offsets[row + 1] - from;
+            mergedIds[n] = source.courseIds[row];
+            System.arraycopy(source.neighborIds, from, mergedNeighbors, pos, len);
+            System.arraycopy(source.similarities, from, mergedSims, pos, len);
+            pos += len;
+            mergedOffsets[++n] = pos;
+        }
+
+        return new ItemSimilarityIndex(Arrays.copyOf(mergedIds, n), Arrays.copyOf(mergedOffsets, n + 1),
+                Arrays.copyOf(mergedNeighbors, pos), Arrays.copyOf(mergedSims, pos), System.currentTimeMillis(),
+                Math.max(coveredId, updates.coveredId));
+    }
+
+    // ==================== 二进制快照 ====================
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(builtAt);
+        out.writeLong(coveredId);
+        out.writeInt(courseIds.length);
+        out.writeInt(neighborIds.length);
+        for (long id : courseIds) {
+            out.writeLong(id);
+        }
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        for (long id : neighborIds) {
+            out.writeLong(id);
+        }
+        for (float sim : similarities) {
+            out.writeFloat(sim);
+        }
+    }
+
+    public static ItemSimilarityIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是有效的课程相似度快照文件");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        long builtAt = in.readLong();
+        // 版本1没有记录高水位，加载后由下次全量构建补齐
+        long coveredId = version >= 2 ? in.readLong() : 0L;
+        int courseCount = in.readInt();
+        int entryCount = in.readInt();
+
+        long[] courseIds = new long[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            courseIds[i] = in.readLong();
+        }
+        int[] offsets = new int[courseCount + 1];
+        for (int i = 0; i <= courseCount; i++) {
+            offsets[i] = in.readInt();
+        }
+        long[] neighborIds = new long[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            neighborIds[i] = in.readLong();
+        }
+        float[] similarities = new float[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            similarities[i] = in.readFloat();
+        }
+        return new ItemSimilarityIndex(courseIds, offsets, neighborIds, similarities, builtAt, coveredId);
+    }
+}
@@ -0,0 +1,283 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 基于 MinHash + LSH 分段的近似相似用户索引
+ * <p>
+ * 每个用户的已交互课程集合压缩为 {@code bands * rows} 个 MinHash 值，每 {@code rows} 个值组成一段并哈希为桶键。
+ * 两个用户至少在一段上完全相同才会成为候选，命中概率为 {@code 1 - (1 - J^rows)^bands}（J 为 Jaccard 相似度）：
+ * 段数越多召回越高、候选越多；每段行数越多越偏向高相似用户。候选数量由 {@code maxCandidates} 截断，
+ * 最后用交互矩阵的有序行做归并求交，按真实共同课程数排序输出，与 SQL 路径的排序口径一致。
+ * <p>
+ * 用户行号与构建时使用的交互矩阵一一对应，矩阵替换后需同步重建。
+ */
+public final class MinHashLshIndex {
+
+    private static final MinHashLshIndex EMPTY =
+            new MinHashLshIndex(SparseInteractionMatrix.empty(), 0, 0, new int[0], new long[0][]);
+
+    private final SparseInteractionMatrix matrix;
+    private final int bands;
+    private final int rows;
+
+    /**
+     * 用户各段的桶键，按用户行号连续存放，每个用户 bands 个值（完整签名只在构建时临时存在）
+     */
+    private final int[] bandKeys;
+
+    /**
+     * 每段一个有序数组，元素为 (桶键 << 32 | 用户行号)，同一桶的用户连续存放
+     */
+    private final long[][] buckets;
+
+    private MinHashLshIndex(SparseInteractionMatrix matrix, int bands, int rows, int[] bandKeys, long[][] buckets) {
+        this.matrix = matrix;
+        this.bands = bands;
+        this.rows = rows;
+        this.bandKeys = bandKeys;
+        this.buckets = buckets;
+    }
+
+    public static MinHashLshIndex empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return buckets.length == 0;
+    }
+
+    public SparseInteractionMatrix matrix() {
+        return matrix;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param matrix 交互矩阵
+     * @param bands  分段数
+     * @param rows   每段的哈希个数
+     * @param seed   哈希函数种子（固定种子保证多次构建结果一致）
+     * @param pool   并行计算使用的线程池
+     */
+    public static MinHashLshIndex build(SparseInteractionMatrix matrix, int bands, int rows, long seed,
+                                        ForkJoinPool pool) {
+        if (matrix.isEmpty() || bands <= 0 || rows <= 0) {
+            return EMPTY;
+        }
+        int hashCount = bands * rows;
+        long[] multipliers = new long[hashCount];
+        long[] offsets = new long[hashCount];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int h = 0; h < hashCount; h++) {
+            multipliers[h] = random.nextLong() | 1L;
+            offsets[h] = random.nextLong();
+        }
+
+        int userCount = matrix.userCount();
+        int[] bandKeys = new int[userCount * bands];
+        pool.submit(() -> IntStream.range(0, userCount).parallel().forEach(u -> {
+            int[] signature = new int[hashCount];
+            Arrays.fill(signature, Integer.MAX_VALUE);
+            for (int p = matrix.rowStart(u), end = matrix.rowEnd(u); p < end; p++) {
+                long courseId = matrix.courseId(matrix.rowCourse(p));
+                for (int h = 0; h < hashCount; h++) {
+                    int value = hash(courseId, multipliers[h], offsets[h]);
+                    if (value < signature[h]) {
+                        signature[h] = value;
+                    }
+                }
+            }
+            for (int b = 0; b < bands; b++) {
+                bandKeys[u * bands + b] = bandKey(signature, b * rows, rows);
+            }
+        })).join();
+
+        long[][] buckets = new long[bands][];
+        pool.submit(() -> IntStream.range(0, bands).parallel().forEach(b -> {
+            long[] entries = new long[userCount];
+            for (int u = 0; u < userCount; u++) {
+                entries[u] = ((long) bandKeys[u * bands + b] << 32) | u;
+            }
+            Arrays.sort(entries);
+            buckets[b] = entries;
+        })).join();
+
+        return new MinHashLshIndex(matrix, bands, rows, bandKeys, buckets);
+    }
+
+    /**
+     * 查询相似用户
+     *
+     * @param userIndex     目标用户行号
+     * @param minCommon     最少共同课程数
+     * @param limit         返回数量上限
+     * @param maxCandidates 参与精确计算的候选用户上限
+     * @return 邻居集合（按共同课程数降序）
+     */
+    public SparseInteractionMatrix.Neighbors query(int userIndex, int minCommon, int limit, int maxCandidates) {
+        if (userIndex < 0 || userIndex >= matrix.userCount() || limit <= 0 || isEmpty()) {
+            return SparseInteractionMatrix.Neighbors.EMPTY;
+        }
+
+        // 1. 收集与目标用户在任一段上同桶的候选
+        int[] candidates = new int[Math.min(maxCandidates, 64)];
+        int candidateSize = 0;
+        collect:
+        for (int b = 0; b < bands; b++) {
+            long key = (long) bandKeys[userIndex * bands + b] << 32;
+            long[] entries = buckets[b];
+            int pos = lowerBound(entries, key);
+            for (; pos < entries.length && (entries[pos] & 0xFFFFFFFF00000000L) == key; pos++) {
+                int u = (int) entries[pos];
+                if (u == userIndex) {
+                    continue;
+                }
+                if (candidateSize == candidates.length) {
+                    if (candidateSize >= maxCandidates) {
+                        break collect;
+                    }
+                    candidates = Arrays.copyOf(candidates, Math.min(maxCandidates, candidateSize << 1));
+                }
+                candidates[candidateSize++] = u;
+            }
+        }
+
+        // 2. 去重后用有序行归并求真实共同课程数，有界最小堆保留 Top-N
+        Arrays.sort(candidates, 0, candidateSize);
+        int[] heapUsers = new int[limit];
+        int[] heapCommon = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < candidateSize; i++) {
+            int u = candidates[i];
+            if (i > 0 && candidates[i - 1] == u) {
+                continue;
+            }
+            int common = intersectionSize(userIndex, u);
+            if (common < minCommon) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heapUsers[heapSize] = u;
+                heapCommon[heapSize] = common;
+                siftUp(heapUsers, heapCommon, heapSize++);
+            } else if (common > heapCommon[0]) {
+                heapUsers[0] = u;
+                heapCommon[0] = common;
+                siftDown(heapUsers, heapCommon, heapSize);
+            }
+        }
+
+        for (int n = heapSize - 1; n > 0; n--) {
+            swap(heapUsers, heapCommon, 0, n);
+            siftDown(heapUsers, heapCommon, n);
+        }
+        return new SparseInteractionMatrix.Neighbors(Arrays.copyOf(heapUsers, heapSize),
+                Arrays.copyOf(heapCommon, heapSize));
+    }
+
+    /**
+     * 两个用户的共同课程数（行内课程列号升序，归并求交）
+     */
+    private int intersectionSize(int a, int b) {
+        int p = matrix.rowStart(a);
+        int pEnd = matrix.rowEnd(a);
+        int q = matrix.rowStart(b);
+        int qEnd = matrix.rowEnd(b);
+        int common = 0;
+        while (p < pEnd && q < qEnd) {
+            int ca = matrix.rowCourse(p);
+            int cb = matrix.rowCourse(q);
+            if (ca == cb) {
+                common++;
+                p++;
+                q++;
+            } else if (ca < cb) {
+                p++;
+            } else {
+                q++;
+            }
+        }
+        return common;
+    }
+
+    private static int hash(long value, long multiplier, long offset) {
+        long h = value * multiplier + offset;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) (h >>> 33);
+    }
+
+    private static int bandKey(int[] signatures, int from, int length) {
+        int h = 1;
+        for (int i = from, end = from + length; i < end; i++) {
+            h = 31 * h + signatures[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int lowerBound(long[] entries, long key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void siftUp(int[] users, int[] common, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (common[parent] <= common[i]) {
+                break;
+            }
+            swap(users, common, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] users, int[] common, int size) {
+        int i = 0;
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            if (left + 1 < size && common[left + 1] < common[left]) {
+                smallest = left + 1;
+            }
+            if (common[i] <= common[smallest]) {
+                break;
+            }
+            swap(users, common, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] users, int[] common, int a, int b) {
+        int u = users[a];
+        users[a] = users[b];
+        users[b] = u;
+        int c = common[a];
+        common[a] = common[b];
+        common[b] = c;
+    }
+}
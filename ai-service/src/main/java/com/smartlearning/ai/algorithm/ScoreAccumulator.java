@@ -0,0 +1,130 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 课程ID -> 分数 的原始类型累加器（开放寻址 + 线性探测）
+ * <p>
+ * 替代 {@code HashMap<Long, Double>} 的逐条装箱。每个条目额外记录一个来源位掩码，
+ * 用于混合推荐时判断分数来自哪些算法。已占用槽位按插入顺序记录，
+ * {@link #clear()} 只重置用过的槽位，实例可在同一线程内反复复用。
+ */
+public final class ScoreAccumulator {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private double[] values;
+    private int[] flags;
+
+    /**
+     * 按插入顺序记录的已占用槽位，用于遍历和清空
+     */
+    private int[] slots;
+    private int size;
+    private int mask;
+
+    public ScoreAccumulator(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 累加分数并合并来源标记
+     */
+    public void add(long key, double delta, int flag) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            slots[size++] = slot;
+        }
+        values[slot] += delta;
+        flags[slot] |= flag;
+    }
+
+    /**
+     * 获取分数，不存在时返回 0
+     */
+    public double get(long key) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? 0.0 : values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 第 i 个插入的键（0 <= i < size）
+     */
+    public long keyAt(int i) {
+        return keys[slots[i]];
+    }
+
+    public double valueAt(int i) {
+        return values[slots[i]];
+    }
+
+    public int flagsAt(int i) {
+        return flags[slots[i]];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int slot = slots[i];
+            keys[slot] = EMPTY;
+            values[slot] = 0.0;
+            flags[slot] = 0;
+        }
+        size = 0;
+    }
+
+    private int slotOf(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        int[] oldFlags = flags;
+        int[] oldSlots = slots;
+        int oldSize = size;
+
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldSize; i++) {
+            int old = oldSlots[i];
+            int slot = slotOf(oldKeys[old]);
+            keys[slot] = oldKeys[old];
+            values[slot] = oldValues[old];
+            flags[slot] = oldFlags[old];
+            slots[size++] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+        flags = new int[capacity];
+        slots = new int[capacity >> 1];
+        size = 0;
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
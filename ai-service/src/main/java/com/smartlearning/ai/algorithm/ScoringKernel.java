@@ -0,0 +1,79 @@
+package com.smartlearning.ai.algorithm;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * 推荐打分内核：线程本地的累加器 + Top-K 堆 + 稠密缓冲区
+ * <p>
+ * 在线请求和批量预计算共用同一路径：每个线程持有一份缓冲区，单次打分只在输出结果时分配对象。
+ * 同一线程内不可嵌套使用（{@link #local()} 会清空上一次的累加结果）。
+ */
+public final class ScoringKernel {
+
+    private static final ThreadLocal<ScoringKernel> LOCAL = ThreadLocal.withInitial(ScoringKernel::new);
+
+    private final ScoreAccumulator accumulator = new ScoreAccumulator(1024);
+    private final TopKHeap heap = new TopKHeap(64);
+    private double[] dense = new double[0];
+
+    private ScoringKernel() {
+    }
+
+    /**
+     * 获取当前线程的内核（累加器已清空）
+     */
+    public static ScoringKernel local() {
+        ScoringKernel kernel = LOCAL.get();
+        kernel.accumulator.clear();
+        return kernel;
+    }
+
+    public ScoreAccumulator accumulator() {
+        return accumulator;
+    }
+
+    public TopKHeap heap() {
+        return heap;
+    }
+
+    /**
+     * 至少 size 长度的稠密缓冲区，内容未清零，由调用方覆盖写入
+     */
+    public double[] dense(int size) {
+        if (dense.length < size) {
+            dense = new double[size];
+        }
+        return dense;
+    }
+
+    /**
+     * 从累加器中选出分数最高的 k 门课程
+     *
+     * @param k        数量
+     * @param excluded 需要排除的课程
+     * @param reasons  来源标记 -> 推荐理由
+     * @return 按分数降序的结果
+     */
+    public List<ScoredCourse> topK(int k, LongPredicate excluded, IntFunction<String> reasons) {
+        heap.reset(k);
+        for (int i = 0, n = accumulator.size(); i < n; i++) {
+            long courseId = accumulator.keyAt(i);
+            double score = accumulator.valueAt(i);
+            if (score > 0 && !excluded.test(courseId)) {
+                heap.offer(courseId, score, accumulator.flagsAt(i));
+            }
+        }
+        heap.sortDescending();
+
+        List<ScoredCourse> result = new ArrayList<>(heap.size());
+        for (int i = 0; i < heap.size(); i++) {
+            result.add(new ScoredCourse(heap.id(i), heap.score(i), reasons.apply(heap.flags(i))));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,517 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 用户-课程稀疏交互矩阵（CSR + CSC 双向存储）
+ * <p>
+ * 用户ID、课程ID均为排序后的 long 数组，通过二分查找映射为 int 下标；
+ * 行方向（用户 -> 课程）与列方向（课程 -> 用户）各保存一份压缩数组，
+ * 交互次数与平均评分以 float 存储。实例构建完成后只读，可被多线程共享。
+ */
+public final class SparseInteractionMatrix {
+
+    private static final SparseInteractionMatrix EMPTY = new Builder(0).build();
+
+    /**
+     * 邻居查询使用的线程私有计数缓冲区（全零），所有矩阵实例共用，长度不足当前矩阵用户数时扩容
+     */
+    private static final ThreadLocal<int[]> NEIGHBOR_SCRATCH = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * 排序后的用户ID（下标即行号）
+     */
+    private final long[] userIds;
+
+    /**
+     * 排序后的课程ID（下标即列号）
+     */
+    private final long[] courseIds;
+
+    /**
+     * CSR：用户行起始偏移，长度 = 用户数 + 1
+     */
+    private final int[] rowPtr;
+    private final int[] rowCourses;
+    private final float[] rowCounts;
+    private final float[] rowRatings;
+
+    /**
+     * CSC：课程列起始偏移，长度 = 课程数 + 1
+     */
+    private final int[] colPtr;
+    private final int[] colUsers;
+    private final float[] colCounts;
+    private final float[] colRatings;
+
+    /**
+     * 构建时间戳（毫秒）
+     */
+    private final long builtAt;
+
+    /**
+     * 构建时的行为ID高水位：ID不超过该值的行为均已计入矩阵，0 表示未知
+     */
+    private final long coveredId;
+
+    /**
+     * 构建时实际读取到的、实时增量层仍可能持有的行为ID
+     */
+    private final CoveredEvents coveredEvents;
+
+    private SparseInteractionMatrix(long[] userIds, long[] courseIds,
+                                    int[] rowPtr, int[] rowCourses, float[] rowCounts, float[] rowRatings,
+                                    int[] colPtr, int[] colUsers, float[] colCounts, float[] colRatings,
+                                    long coveredId, CoveredEvents coveredEvents) {
+        this.userIds = userIds;
+        this.courseIds = courseIds;
+        this.rowPtr = rowPtr;
+        this.rowCourses = rowCourses;
+        this.rowCounts = rowCounts;
+        this.rowRatings = rowRatings;
+        this.colPtr = colPtr;
+        this.colUsers = colUsers;
+        this.colCounts = colCounts;
+        this.colRatings = colRatings;
+        this.builtAt = System.currentTimeMillis();
+        this.coveredId = coveredId;
+        this.coveredEvents = coveredEvents;
+    }
+
+    public static SparseInteractionMatrix empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    // ==================== 基本信息 ====================
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int courseCount() {
+        return courseIds.length;
+    }
+
+    public int nonZeroCount() {
+        return rowCourses.length;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public long coveredId() {
+        return coveredId;
+    }
+
+    public CoveredEvents coveredEvents() {
+        return coveredEvents;
+    }
+
+    public boolean isEmpty() {
+        return rowCourses.length == 0;
+    }
+
+    /**
+     * 用户ID -> 行号，不存在返回 -1
+     */
+    public int userIndex(long userId) {
+        int idx = Arrays.binarySearch(userIds, userId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    /**
+     * 课程ID -> 列号，不存在返回 -1
+     */
+    public int courseIndex(long courseId) {
+        int idx = Arrays.binarySearch(courseIds, courseId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    public long userId(int userIndex) {
+        return userIds[userIndex];
+    }
+
+    public long courseId(int courseIndex) {
+        return courseIds[courseIndex];
+    }
+
+    // ==================== 行访问（用户 -> 课程） ====================
+
+    public int rowStart(int userIndex) {
+        return rowPtr[userIndex];
+    }
+
+    public int rowEnd(int userIndex) {
+        return rowPtr[userIndex + 1];
+    }
+
+    public int rowLength(int userIndex) {
+        return rowPtr[userIndex + 1] - rowPtr[userIndex];
+    }
+
+    /**
+     * 行内第 pos 个非零元素的课程列号（pos 取值于 [rowStart, rowEnd)）
+     */
+    public int rowCourse(int pos) {
+        return rowCourses[pos];
+    }
+
+    public float rowCount(int pos) {
+        return rowCounts[pos];
+    }
+
+    public float rowRating(int pos) {
+        return rowRatings[pos];
+    }
+
+    // ==================== 列访问（课程 -> 用户） ====================
+
+    public int colStart(int courseIndex) {
+        return colPtr[courseIndex];
+    }
+
+    public int colEnd(int courseIndex) {
+        return colPtr[courseIndex + 1];
+    }
+
+    public int colLength(int courseIndex) {
+        return colPtr[courseIndex + 1] - colPtr[courseIndex];
+    }
+
+    public int colUser(int pos) {
+        return colUsers[pos];
+    }
+
+    public float colCount(int pos) {
+        return colCounts[pos];
+    }
+
+    public float colRating(int pos) {
+        return colRatings[pos];
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 查找与指定用户共同交互课程数最多的邻居用户
+     *
+     * @param userIndex 目标用户行号
+     * @param minCommon 最少共同课程数
+     * @param limit     返回的邻居数量上限
+     * @return 邻居集合（按共同课程数降序）
+     */
+    public Neighbors neighbors(int userIndex, int minCommon, int limit) {
+        if (userIndex < 0 || limit <= 0) {
+            return Neighbors.EMPTY;
+        }
+        // 缓冲区在每次查询结束前按 touched 列表归零，保证下次复用时为全零
+        int[] scratch = NEIGHBOR_SCRATCH.get();
+        if (scratch.length < userIds.length) {
+            scratch = new int[userIds.length];
+            NEIGHBOR_SCRATCH.set(scratch);
+        }
+        int[] touched = new int[64];
+        int touchedSize = 0;
+
+        for (int p = rowPtr[userIndex], end = rowPtr[userIndex + 1]; p < end; p++) {
+            int c = rowCourses[p];
+            for (int q = colPtr[c], qEnd = colPtr[c + 1]; q < qEnd; q++) {
+                int u = colUsers[q];
+                if (u == userIndex) {
+                    continue;
+                }
+                if (scratch[u]++ == 0) {
+                    if (touchedSize == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedSize << 1);
+                    }
+                    touched[touchedSize++] = u;
+                }
+            }
+        }
+
+        // 有界最小堆保留共同课程数最高的 limit 个用户
+        int[] heapUsers = new int[limit];
+        int[] heapCommon = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < touchedSize; i++) {
+            int u = touched[i];
+            int common = scratch[u];
+            scratch[u] = 0;
+            if (common < minCommon) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heapUsers[heapSize] = u;
+                heapCommon[heapSize] = common;
+                siftUp(heapUsers, heapCommon, heapSize++);
+            } else if (common > heapCommon[0]) {
+                heapUsers[0] = u;
+                heapCommon[0] = common;
+                siftDown(heapUsers, heapCommon, heapSize);
+            }
+        }
+
+        // 堆排序输出为降序
+        for (int n = heapSize - 1; n > 0; n--) {
+            swap(heapUsers, heapCommon, 0, n);
+            siftDown(heapUsers, heapCommon, n);
+        }
+        return new Neighbors(Arrays.copyOf(heapUsers, heapSize), Arrays.copyOf(heapCommon, heapSize));
+    }
+
+    /**
+     * 将某个用户行按权重累加到课程得分累加器
+     * 单条贡献 = weight * 交互次数 * (评分 / 5)，与原 SQL 路径的打分公式一致
+     */
+    public void accumulateRow(int userIndex, double weight, ScoreAccumulator scores, int flag) {
+        for (int p = rowPtr[userIndex], end = rowPtr[userIndex + 1]; p < end; p++) {
+            scores.add(courseIds[rowCourses[p]], weight * rowCounts[p] * (rowRatings[p] / 5.0), flag);
+        }
+    }
+
+    /**
+     * 两个用户在共同课程上的评分余弦相似度
+     */
+    public double userCosine(int userA, int userB) {
+        return CosineSimilarity.cosine(rowCourses, rowRatings, rowPtr[userA], rowPtr[userA + 1],
+                rowPtr[userB], rowPtr[userB + 1]);
+    }
+
+    /**
+     * 两门课程在共同用户上的评分余弦相似度
+     */
+    public double courseCosine(int courseA, int courseB) {
+        return CosineSimilarity.cosine(colUsers, colRatings, colPtr[courseA], colPtr[courseA + 1],
+                colPtr[courseB], colPtr[courseB + 1]);
+    }
+
+    /**
+     * 一门课程与一组课程的评分余弦相似度（构建课程相似度索引用）
+     */
+    public void courseCosines(int courseIndex, int[] others, double[] out) {
+        CosineSimilarity.cosineOneToMany(colUsers, colRatings, colPtr, userIds.length, courseIndex, others, out);
+    }
+
+    /**
+     * 用户已交互课程的ID（升序）
+     */
+    public long[] rowCourseIds(int userIndex) {
+        if (userIndex < 0) {
+            return new long[0];
+        }
+        long[] ids = new long[rowPtr[userIndex + 1] - rowPtr[userIndex]];
+        for (int p = rowPtr[userIndex], i = 0; i < ids.length; p++, i++) {
+            ids[i] = courseIds[rowCourses[p]];
+        }
+        return ids;
+    }
+
+    /**
+     * 用户ID列表（只读副本）
+     */
+    public long[] userIds() {
+        return userIds.clone();
+    }
+
+    private static void siftUp(int[] users, int[] common, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (common[parent] <= common[i]) {
+                break;
+            }
+            swap(users, common, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] users, int[] common, int size) {
+        int i = 0;
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && common[right] < common[left]) {
+                smallest = right;
+            }
+            if (common[i] <= common[smallest]) {
+                break;
+            }
+            swap(users, common, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] users, int[] common, int a, int b) {
+        int u = users[a];
+        users[a] = users[b];
+        users[b] = u;
+        int c = common[a];
+        common[a] = common[b];
+        common[b] = c;
+    }
+
+    /**
+     * 邻居查询结果（行号 + 共同课程数）
+     */
+    public static final class Neighbors {
+
+        static final Neighbors EMPTY = new Neighbors(new int[0], new int[0]);
+
+        private final int[] userIndexes;
+        private final int[] commonCounts;
+
+        Neighbors(int[] userIndexes, int[] commonCounts) {
+            this.userIndexes = userIndexes;
+            this.commonCounts = commonCounts;
+        }
+
+        public int size() {
+            return userIndexes.length;
+        }
+
+        public int userIndex(int i) {
+            return userIndexes[i];
+        }
+
+        public int commonCount(int i) {
+            return commonCounts[i];
+        }
+    }
+
+    /**
+     * 矩阵构建器：按任意顺序追加 (用户, 课程, 次数, 评分) 三元组，build 时排序压缩
+     */
+    public static final class Builder {
+
+        private long[] users;
+        private long[] courses;
+        private float[] counts;
+        private float[] ratings;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.users = new long[capacity];
+            this.courses = new long[capacity];
+            this.counts = new float[capacity];
+            this.ratings = new float[capacity];
+        }
+
+        public Builder add(long userId, long courseId, float count, float rating) {
+            if (size == users.length) {
+                int capacity = size + (size >> 1);
+                users = Arrays.copyOf(users, capacity);
+                courses = Arrays.copyOf(courses, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+            }
+            users[size] = userId;
+            courses[size] = courseId;
+            counts[size] = count;
+            ratings[size] = rating;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SparseInteractionMatrix build() {
+            return build(0L);
+        }
+
+        public SparseInteractionMatrix build(long coveredId) {
+            return build(coveredId, CoveredEvents.none());
+        }
+
+        /**
+         * @param coveredId     数据源的行为ID高水位（读取前捕获）
+         * @param coveredEvents 同一读取快照中实时增量层仍可能持有的行为ID
+         */
+        public SparseInteractionMatrix build(long coveredId, CoveredEvents coveredEvents) {
+            long[] userIds = distinctSorted(users, size);
+            long[] courseIds = distinctSorted(courses, size);
+
+            int[] userIdx = new int[size];
+            int[] courseIdx = new int[size];
+            int[] rowPtr = new int[userIds.length + 1];
+            int[] colPtr = new int[courseIds.length + 1];
+            for (int i = 0; i < size; i++) {
+                userIdx[i] = Arrays.binarySearch(userIds, users[i]);
+                courseIdx[i] = Arrays.binarySearch(courseIds, courses[i]);
+                rowPtr[userIdx[i] + 1]++;
+                colPtr[courseIdx[i] + 1]++;
+            }
+            for (int i = 0; i < userIds.length; i++) {
+                rowPtr[i + 1] += rowPtr[i];
+            }
+            for (int i = 0; i < courseIds.length; i++) {
+                colPtr[i + 1] += colPtr[i];
+            }
+
+            // 两趟计数排序：先按课程分桶，再按课程顺序写入行，使行内课程列号天然升序；
+            // 随后按用户顺序写入列，使列内用户行号升序。(用户, 课程) 组合由调用方保证唯一
+            int[] bucketUsers = new int[size];
+            float[] bucketCounts = new float[size];
+            float[] bucketRatings = new float[size];
+            int[] colFill = Arrays.copyOf(colPtr, courseIds.length);
+            for (int i = 0; i < size; i++) {
+                int b = colFill[courseIdx[i]]++;
+                bucketUsers[b] = userIdx[i];
+                bucketCounts[b] = counts[i];
+                bucketRatings[b] = ratings[i];
+            }
+
+            int[] rowCourses = new int[size];
+            float[] rowCounts = new float[size];
+            float[] rowRatings = new float[size];
+            int[] rowFill = Arrays.copyOf(rowPtr, userIds.length);
+            for (int c = 0; c < courseIds.length; c++) {
+                for (int b = colPtr[c]; b < colPtr[c + 1]; b++) {
+                    int r = rowFill[bucketUsers[b]]++;
+                    rowCourses[r] = c;
+                    rowCounts[r] = bucketCounts[b];
+                    rowRatings[r] = bucketRatings[b];
+                }
+            }
+
+            int[] colUsers = bucketUsers;
+            float[] colCounts = bucketCounts;
+            float[] colRatings = bucketRatings;
+            System.arraycopy(colPtr, 0, colFill, 0, courseIds.length);
+            for (int u = 0; u < userIds.length; u++) {
+                for (int p = rowPtr[u]; p < rowPtr[u + 1]; p++) {
+                    int c = colFill[rowCourses[p]]++;
+                    colUsers[c] = u;
+                    colCounts[c] = rowCounts[p];
+                    colRatings[c] = rowRatings[p];
+                }
+            }
+
+            return new SparseInteractionMatrix(userIds, courseIds,
+                    rowPtr, rowCourses, rowCounts, rowRatings,
+                    colPtr, colUsers, colCounts, colRatings, coveredId, coveredEvents);
+        }
+
+        private static long[] distinctSorted(long[] values, int size) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (n == 0 || sorted[i] != sorted[n - 1]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartlearning.ai.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 有界最小堆，保留分数最高的 K 个 (课程ID, 分数, 来源标记)
+ * <p>
+ * 每次 offer 为 O(log K)，避免对全部候选排序；实例可通过 {@link #reset(int)} 复用。
+ */
+public final class TopKHeap {
+
+    private long[] ids;
+    private double[] scores;
+    private int[] flags;
+    private int limit;
+    private int size;
+
+    public TopKHeap(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        ids = new long[capacity];
+        scores = new double[capacity];
+        flags = new int[capacity];
+    }
+
+    /**
+     * 清空并设置新的容量上限
+     */
+    public void reset(int k) {
+        if (k > ids.length) {
+            ids = Arrays.copyOf(ids, k);
+            scores = Arrays.copyOf(scores, k);
+            flags = Arrays.copyOf(flags, k);
+        }
+        limit = Math.max(0, k);
+        size = 0;
+    }
+
+    public void offer(long id, double score, int flag) {
+        if (size < limit) {
+            ids[size] = id;
+            scores[size] = score;
+            flags[size] = flag;
+            siftUp(size++);
+        } else if (limit > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            flags[0] = flag;
+            siftDown(size);
+        }
+    }
+
+    /**
+     * 原地堆排序为分数降序，之后按下标读取；排序后不可再 offer
+     */
+    public void sortDescending() {
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(n);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public double score(int i) {
+        return scores[i];
+    }
+
+    public int flags(int i) {
+        return flags[i];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                break;
+            }
+            swap(parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int heapSize) {
+        int i = 0;
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int smallest = left;
+            if (left + 1 < heapSize && scores[left + 1] < scores[left]) {
+                smallest = left + 1;
+            }
+            if (scores[i] <= scores[smallest]) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int flag = flags[a];
+        flags[a] = flags[b];
+        flags[b] = flag;
+    }
+}
@@ -0,0 +1,292 @@
+package com.smartlearning.ai.algorithm;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 按时间指数衰减的课程热度计数器（前向衰减）
+ * <p>
+ * 热度 = Σ 权重 * exp(-λ (now - t))。存储值为相对基准时间 L 的 Σ 权重 * exp(λ (t - L))，
+ * 与真实热度只差一个所有课程共享的因子 exp(-λ (now - L))，因此写入时无需衰减其他课程，
+ * 未被写入的课程之间相对顺序也不变：全局及各分类各维护一个按存储值降序的跳表，取 Top-K 只需遍历前 K 个节点。
+ * 指数增长到阈值时整体平移基准时间，避免溢出。
+ * <p>
+ * 写入方法互斥，读取无锁。基准时间、计数和各排行放在同一个状态对象中：单次写入原地更新，
+ * 替换分类映射、恢复检查点和平移基准时间则构建新的状态后整体替换，读取方不会看到清空或重建到一半的排行。
+ * <p>
+ * 多节点部署时每个节点只收到本节点的行为：写入同时累加到待合并增量，由调用方定期取出合并到共享存储，
+ * 再用合并后的全量计数替换本地计数（尚未取出的增量会保留并叠加在恢复的计数上）。
+ */
+public final class TrendingCounters {
+
+    /**
+     * 基准时间平移阈值：λ (t - L) 超过该值时把基准时间移到当前时间
+     */
+    private static final double REBASE_EXPONENT = 50.0;
+
+    private final double lambda;
+    private volatile State state;
+
+    /**
+     * 上次取出后新增的存储值（相对当前基准时间），只在写入方法中访问
+     */
+    private Map<Long, Double> pending = new HashMap<>();
+
+    /**
+     * @param halfLifeMillis 热度半衰期（毫秒）
+     * @param landmark       初始基准时间
+     */
+    public TrendingCounters(long halfLifeMillis, long landmark) {
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.state = State.build(landmark, Map.of(), Map.of());
+    }
+
+    public long landmark() {
+        return state.landmark;
+    }
+
+    public int size() {
+        return state.values.size();
+    }
+
+    /**
+     * 衰减系数 λ = ln2 / 半衰期（每毫秒）
+     */
+    public double lambda() {
+        return lambda;
+    }
+
+    /**
+     * 以 landmark 为基准时间的存储值在 time 时是否已需要平移基准时间
+     */
+    public boolean needsRebase(long landmark, long time) {
+        return lambda * (time - landmark) > REBASE_EXPONENT;
+    }
+
+    /**
+     * 记录一次课程交互
+     *
+     * @param courseId 课程ID
+     * @param weight   交互权重
+     * @param time     交互时间（毫秒时间戳）
+     */
+    public synchronized void record(long courseId, double weight, long time) {
+        State current = state;
+        if (needsRebase(current.landmark, time)) {
+            current = rebase(current, time);
+        }
+        double delta = weight * Math.exp(lambda * (time - current.landmark));
+        Double previous = current.values.get(courseId);
+        double updated = previous == null ? delta : previous + delta;
+        current.values.put(courseId, updated);
+        current.reindex(courseId, previous, updated);
+        pending.merge(courseId, delta, Double::sum);
+    }
+
+    /**
+     * 当前热度最高的课程
+     *
+     * @param categoryId 分类ID，为 null 时取全局排行
+     * @param k          数量
+     * @param now        当前时间
+     * @param reason     推荐理由
+     * @return 按热度降序的课程及当前热度
+     */
+    public List<ScoredCourse> top(Long categoryId, int k, long now, String reason) {
+        State current = state;
+        NavigableSet<Node> ranking = categoryId == null ? current.global : current.byCategory.get(categoryId);
+        if (ranking == null) {
+            return Collections.emptyList();
+        }
+        double decay = Math.exp(-lambda * (now - current.landmark));
+        List<ScoredCourse> result = new ArrayList<>(k);
+        // 并发写入时同一课程的新旧节点可能短暂同时存在，只取排在前面的一个
+        Set<Long> emitted = new HashSet<>(k * 2);
+        Iterator<Node> iterator = ranking.iterator();
+        while (result.size() < k && iterator.hasNext()) {
+            Node node = iterator.next();
+            if (emitted.add(node.courseId)) {
+                result.add(new ScoredCourse(node.courseId, node.value * decay, reason));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 替换课程分类映射：按新映射构建各分类排行后整体替换
+     */
+    public synchronized void assignCategories(Map<Long, Long> courseCategories) {
+        State current = state;
+        state = new State(current.landmark, current.values, current.global,
+                State.buildCategories(current.values, courseCategories), courseCategories);
+    }
+
+    /**
+     * 取出上次取出后新增的计数并清空
+     */
+    public synchronized Delta drain() {
+        Delta delta = new Delta(state.landmark, pending);
+        pending = new HashMap<>();
+        return delta;
+    }
+
+    /**
+     * 合并失败时放回取出的增量（本地计数中已包含，只恢复待合并部分）
+     */
+    public synchronized void requeue(Delta delta) {
+        double factor = Math.exp(lambda * (delta.landmark - state.landmark));
+        delta.values.forEach((courseId, value) -> pending.merge(courseId, value * factor, Double::sum));
+    }
+
+    /**
+     * 用共享存储中合并后的计数替换全部计数，尚未取出的增量叠加在其上
+     */
+    public synchronized void restore(long checkpointLandmark, Map<Long, Double> checkpointValues) {
+        State current = state;
+        double factor = Math.exp(lambda * (current.landmark - checkpointLandmark));
+        Map<Long, Double> rescaled = new HashMap<>(pending.size() * 2);
+        pending.forEach((courseId, value) -> rescaled.put(courseId, value * factor));
+        Map<Long, Double> values = new HashMap<>(checkpointValues);
+        rescaled.forEach((courseId, value) -> values.merge(courseId, value, Double::sum));
+        pending = rescaled;
+        state = State.build(checkpointLandmark, values, current.categories);
+    }
+
+    /**
+     * 平移基准时间：全部存储值（含待合并增量）乘以 exp(-λ (newLandmark - landmark))，相对顺序不变
+     */
+    private State rebase(State current, long newLandmark) {
+        double factor = Math.exp(-lambda * (newLandmark - current.landmark));
+        Map<Long, Double> scaled = new HashMap<>(current.values.size() * 2);
+        current.values.forEach((courseId, value) -> scaled.put(courseId, value * factor));
+        pending.replaceAll((courseId, value) -> value * factor);
+        state = State.build(newLandmark, scaled, current.categories);
+        return state;
+    }
+
+    /**
+     * 一段时间内新增的计数：存储值相对 landmark
+     */
+    public static final class Delta {
+
+        private final long landmark;
+        private final Map<Long, Double> values;
+
+        Delta(long landmark, Map<Long, Double> values) {
+            this.landmark = landmark;
+            this.values = values;
+        }
+
+        public long landmark() {
+            return landmark;
+        }
+
+        public Map<Long, Double> values() {
+            return values;
+        }
+
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+    }
+
+    /**
+     * 计数状态：基准时间、存储值及按其构建的全局和分类排行
+     */
+    private static final class State {
+
+        private final long landmark;
+        private final Map<Long, Double> values;
+        private final NavigableSet<Node> global;
+        private final Map<Long, NavigableSet<Node>> byCategory;
+        private final Map<Long, Long> categories;
+
+        State(long landmark, Map<Long, Double> values, NavigableSet<Node> global,
+              Map<Long, NavigableSet<Node>> byCategory, Map<Long, Long> categories) {
+            this.landmark = landmark;
+            this.values = values;
+            this.global = global;
+            this.byCategory = byCategory;
+            this.categories = categories;
+        }
+
+        static State build(long landmark, Map<Long, Double> source, Map<Long, Long> categories) {
+            Map<Long, Double> values = new ConcurrentHashMap<>(source);
+            NavigableSet<Node> global = new ConcurrentSkipListSet<>();
+            values.forEach((courseId, value) -> global.add(new Node(courseId, value)));
+            return new State(landmark, values, global, buildCategories(values, categories), categories);
+        }
+
+        static Map<Long, NavigableSet<Node>> buildCategories(Map<Long, Double> values, Map<Long, Long> categories) {
+            Map<Long, NavigableSet<Node>> byCategory = new ConcurrentHashMap<>();
+            values.forEach((courseId, value) -> {
+                Long categoryId = categories.get(courseId);
+                if (categoryId != null) {
+                    byCategory.computeIfAbsent(categoryId, key -> new ConcurrentSkipListSet<>())
+                            .add(new Node(courseId, value));
+                }
+            });
+            return byCategory;
+        }
+
+        void reindex(long courseId, Double previous, double updated) {
+            Long categoryId = categories.get(courseId);
+            NavigableSet<Node> category = categoryId == null ? null
+                    : byCategory.computeIfAbsent(categoryId, key -> new ConcurrentSkipListSet<>());
+            // 先插入新节点再移除旧节点，并发读取最多短暂看到同一课程两次，不会漏掉
+            Node node = new Node(courseId, updated);
+            global.add(node);
+            if (category != null) {
+                category.add(node);
+            }
+            if (previous != null) {
+                Node old = new Node(courseId, previous);
+                global.remove(old);
+                if (category != null) {
+                    category.remove(old);
+                }
+            }
+        }
+    }
+
+    /**
+     * 排行节点：按存储值降序，值相同按课程ID升序
+     */
+    private static final class Node implements Comparable<Node> {
+
+        private final long courseId;
+        private final double value;
+
+        Node(long courseId, double value) {
+            this.courseId = courseId;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int byValue = Double.compare(other.value, value);
+            return byValue != 0 ? byValue : Long.compare(courseId, other.courseId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Node node && node.courseId == courseId && node.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(courseId) * 31 + Double.hashCode(value);
+        }
+    }
+}
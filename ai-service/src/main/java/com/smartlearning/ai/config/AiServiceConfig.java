@@ -1,5 +1,6 @@
 package com.smartlearning.ai.config;
 
+import com.smartlearning.ai.algorithm.InteractionOverlay;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -9,6 +10,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * AI服务配置类
@@ -50,4 +52,20 @@ public class AiServiceConfig {
         executor.initialize();
         return executor;
     }
+    
+    /**
+     * 交互矩阵的实时增量层，由行为流写入、推荐打分读取
+     */
+    @Bean
+    public InteractionOverlay interactionOverlay() {
+        return new InteractionOverlay();
+    }
+    
+    /**
+     * 模型构建线程池（相似度索引、矩阵分解等CPU密集型计算），与Web请求线程隔离
+     */
+    @Bean(name = "modelBuildPool", destroyMethod = "shutdown")
+    public ForkJoinPool modelBuildPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
 }
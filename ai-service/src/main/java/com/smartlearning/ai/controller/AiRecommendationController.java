@@ -1,10 +1,19 @@
 package com.smartlearning.ai.controller;
 
+import com.smartlearning.ai.dto.BatchBehaviorResult;
 import com.smartlearning.ai.dto.RecommendationRequest;
 import com.smartlearning.ai.dto.RecommendationResponse;
 import com.smartlearning.ai.dto.UserBehaviorDTO;
 import com.smartlearning.ai.service.AiRecommendationService;
+import com.smartlearning.ai.service.BehaviorStreamService;
+import com.smartlearning.ai.service.CourseSummaryService;
+import com.smartlearning.ai.service.RecommendationStoreService;
+import com.smartlearning.ai.service.SeenCourseService;
+import com.smartlearning.ai.service.SimilarUserIndexService;
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.common.exception.BusinessException;
 import com.smartlearning.common.result.Result;
+import com.smartlearning.common.result.ResultCode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,6 +35,11 @@ import java.util.Map;
 public class AiRecommendationController {
 
     private final AiRecommendationService aiRecommendationService;
+    private final SimilarUserIndexService similarUserIndexService;
+    private final BehaviorStreamService behaviorStreamService;
+    private final CourseSummaryService courseSummaryService;
+    private final RecommendationStoreService recommendationStoreService;
+    private final SeenCourseService seenCourseService;
 
     /**
      * 记录用户行为
@@ -39,14 +53,25 @@ public class AiRecommendationController {
     }
 
     /**
-     * 批量记录用户行为
+     * 批量记录用户行为（返回成功数量，保持原有接口契约）
      */
     @PostMapping("/behavior/batch")
     @Operation(summary = "批量记录用户行为", description = "批量记录用户的学习行为数据")
     public Result<Integer> batchRecordUserBehavior(@RequestBody List<UserBehaviorDTO> behaviors) {
         log.info("批量记录用户行为请求: 数量={}", behaviors.size());
-        int successCount = aiRecommendationService.batchRecordUserBehavior(behaviors);
-        return Result.success("批量记录完成", successCount);
+        BatchBehaviorResult result = aiRecommendationService.batchRecordUserBehavior(behaviors);
+        return Result.success("批量记录完成", result.getSuccessCount());
+    }
+
+    /**
+     * 批量记录用户行为（返回成功数量及逐条失败明细）
+     */
+    @PostMapping("/v2/behavior/batch")
+    @Operation(summary = "批量记录用户行为（含失败明细）", description = "批量记录用户的学习行为数据，返回每条失败记录的下标和原因")
+    public Result<BatchBehaviorResult> batchRecordUserBehaviorV2(@RequestBody List<UserBehaviorDTO> behaviors) {
+        log.info("批量记录用户行为请求(v2): 数量={}", behaviors.size());
+        BatchBehaviorResult result = aiRecommendationService.batchRecordUserBehavior(behaviors);
+        return Result.success("批量记录完成", result);
     }
 
     /**
@@ -179,6 +204,59 @@ public class AiRecommendationController {
         return Result.success("模型更新" + (success ? "成功" : "失败"), success);
     }
 
+    /**
+     * 评估相似用户近似索引的召回率（仅管理员，每个样本都会执行一次精确SQL）
+     */
+    @GetMapping("/model/similar-users/recall")
+    @Operation(summary = "评估相似用户索引召回率", description = "抽样对比LSH近似结果与SQL精确结果的召回率和耗时，仅管理员可用")
+    public Result<Map<String, Object>> evaluateSimilarUserRecall(
+            @RequestHeader(value = "X-User-Role", required = false) String role,
+            @Parameter(description = "抽样用户数") @RequestParam(defaultValue = "100") Integer sampleSize) {
+
+        if (!CommonConstants.UserRole.ADMIN.equals(role)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "仅管理员可评估召回率");
+        }
+        log.info("评估相似用户索引召回率请求: sampleSize={}", sampleSize);
+        Map<String, Object> report = similarUserIndexService.evaluateRecall(sampleSize);
+        return Result.success("召回率评估完成", report);
+    }
+
+    /**
+     * 获取用户行为实时流统计
+     */
+    @GetMapping("/model/stream/stats")
+    @Operation(summary = "获取行为实时流统计", description = "获取实时流队列长度、丢弃数及增量层规模")
+    public Result<Map<String, Object>> getBehaviorStreamStats() {
+        return Result.success(behaviorStreamService.getStreamStats());
+    }
+
+    /**
+     * 获取课程摘要缓存统计
+     */
+    @GetMapping("/cache/course-summary/stats")
+    @Operation(summary = "获取课程摘要缓存统计", description = "获取本地课程摘要缓存的命中率、容量及远程调用次数")
+    public Result<Map<String, Object>> getCourseSummaryCacheStats() {
+        return Result.success(courseSummaryService.getCacheStats());
+    }
+
+    /**
+     * 获取预计算推荐存储统计
+     */
+    @GetMapping("/cache/recommendation-store/stats")
+    @Operation(summary = "获取预计算推荐存储统计", description = "获取近端缓存规模及近端、Redis命中次数")
+    public Result<Map<String, Object>> getRecommendationStoreStats() {
+        return Result.success(recommendationStoreService.getStats());
+    }
+
+    /**
+     * 获取已学习/已展示课程记录统计
+     */
+    @GetMapping("/cache/seen-courses/stats")
+    @Operation(summary = "获取已展示课程记录统计", description = "获取重排过滤使用的每用户布隆过滤器记录规模")
+    public Result<Map<String, Object>> getSeenCourseStats() {
+        return Result.success(seenCourseService.getStats());
+    }
+
     /**
      * 清理过期数据
      */
@@ -0,0 +1,49 @@
+package com.smartlearning.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量记录用户行为结果
+ */
+@Data
+public class BatchBehaviorResult {
+
+    /**
+     * 提交总数
+     */
+    private int total;
+
+    /**
+     * 成功数
+     */
+    private int successCount;
+
+    /**
+     * 失败明细（按提交顺序）
+     */
+    private List<Failure> failures = new ArrayList<>();
+
+    /**
+     * 单条失败信息
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+
+        /**
+         * 在请求列表中的下标（从0开始）
+         */
+        private int index;
+
+        /**
+         * 失败原因
+         */
+        private String reason;
+    }
+}
@@ -0,0 +1,50 @@
+package com.smartlearning.ai.dto;
+
+import lombok.Data;
+
+/**
+ * 课程摘要（推荐结果展示所需的课程字段）
+ */
+@Data
+public class CourseSummary {
+
+    /**
+     * 课程ID
+     */
+    private Long courseId;
+
+    /**
+     * 课程标题
+     */
+    private String title;
+
+    /**
+     * 课程描述
+     */
+    private String description;
+
+    /**
+     * 封面图片
+     */
+    private String coverImage;
+
+    /**
+     * 讲师姓名
+     */
+    private String teacherName;
+
+    /**
+     * 价格
+     */
+    private Double price;
+
+    /**
+     * 评分
+     */
+    private Double rating;
+
+    /**
+     * 学生数量
+     */
+    private Integer studentCount;
+}
@@ -0,0 +1,38 @@
+package com.smartlearning.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户预计算推荐列表（按得分降序的并行数组，推荐理由以编码存储，序列化体积远小于对象列表）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrecomputedRecommendations {
+
+    /**
+     * 课程ID
+     */
+    private long[] courseIds;
+
+    /**
+     * 推荐分数
+     */
+    private float[] scores;
+
+    /**
+     * 推荐理由编码
+     */
+    private byte[] reasonCodes;
+
+    /**
+     * 生成时间（毫秒时间戳）
+     */
+    private long generatedAt;
+
+    public int size() {
+        return courseIds != null ? courseIds.length : 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartlearning.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 推荐算法打分结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoredCourse {
+
+    /**
+     * 课程ID
+     */
+    private Long courseId;
+
+    /**
+     * 推荐分数
+     */
+    private Double score;
+
+    /**
+     * 推荐理由
+     */
+    private String reason;
+}
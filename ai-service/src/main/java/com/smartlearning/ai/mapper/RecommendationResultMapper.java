@@ -2,6 +2,7 @@ package com.smartlearning.ai.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.smartlearning.ai.entity.RecommendationResult;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -27,6 +28,22 @@ public interface RecommendationResultMapper extends BaseMapper<RecommendationRes
                          @Param("batchId") String batchId,
                          @Param("clickTime") LocalDateTime clickTime);
     
+    /**
+     * 获取某个推荐批次中课程的推荐算法
+     */
+    @Select("SELECT algorithm_type FROM recommendation_results " +
+            "WHERE user_id = #{userId} AND course_id = #{courseId} AND batch_id = #{batchId} LIMIT 1")
+    String selectAlgorithmType(@Param("userId") Long userId,
+                               @Param("courseId") Long courseId,
+                               @Param("batchId") String batchId);
+    
+    /**
+     * 获取向用户推荐过该课程的算法
+     */
+    @Select("SELECT DISTINCT algorithm_type FROM recommendation_results " +
+            "WHERE user_id = #{userId} AND course_id = #{courseId}")
+    List<String> selectAlgorithmTypes(@Param("userId") Long userId, @Param("courseId") Long courseId);
+    
     /**
      * 更新推荐结果的转化状态
      */
@@ -60,6 +77,14 @@ public interface RecommendationResultMapper extends BaseMapper<RecommendationRes
     List<RecommendationResult> selectUserRecommendationHistory(@Param("userId") Long userId,
                                                               @Param("limit") Integer limit);
     
+    /**
+     * 获取某时间之后向用户推荐过的课程ID
+     */
+    @Select("SELECT DISTINCT course_id FROM recommendation_results " +
+            "WHERE user_id = #{userId} AND create_time >= #{since}")
+    List<Long> selectRecommendedCoursesSince(@Param("userId") Long userId,
+                                             @Param("since") LocalDateTime since);
+    
     /**
      * 获取课程的推荐统计
      */
@@ -81,4 +106,17 @@ public interface RecommendationResultMapper extends BaseMapper<RecommendationRes
      */
     @Update("DELETE FROM recommendation_results WHERE create_time < #{expireTime}")
     int deleteExpiredRecommendations(@Param("expireTime") LocalDateTime expireTime);
+    
+    /**
+     * 多行INSERT批量写入推荐结果
+     */
+    @Insert("<script>" +
+            "INSERT INTO recommendation_results (user_id, course_id, algorithm_type, score, reason, position, " +
+            "clicked, converted, batch_id, create_time, update_time) VALUES " +
+            "<foreach collection='results' item='r' separator=','>" +
+            "(#{r.userId}, #{r.courseId}, #{r.algorithmType}, #{r.score}, #{r.reason}, #{r.position}, " +
+            "#{r.clicked}, #{r.converted}, #{r.batchId}, #{r.createTime}, #{r.updateTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("results") List<RecommendationResult> results);
 }
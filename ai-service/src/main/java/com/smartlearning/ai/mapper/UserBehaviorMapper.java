@@ -2,9 +2,14 @@ package com.smartlearning.ai.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.smartlearning.ai.entity.UserBehavior;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,6 +20,33 @@ import java.util.Map;
  */
 @Mapper
 public interface UserBehaviorMapper extends BaseMapper<UserBehavior> {
+
+    /**
+     * 未填写评分的行为按中性评分计入：交互矩阵、相似度索引、实时增量层及数据库兜底路径统一使用该值
+     */
+    int DEFAULT_RATING = 3;
+
+    /**
+     * 用户-课程交互矩阵查询语句
+     */
+    String USER_COURSE_MATRIX_SQL = "SELECT user_id, target_id as course_id, " +
+            "COUNT(*) as interaction_count, " +
+            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE " + DEFAULT_RATING + " END) as avg_rating " +
+            "FROM user_behaviors " +
+            "WHERE target_type = 'course' " +
+            "GROUP BY user_id, target_id " +
+            "HAVING interaction_count >= #{minInteractions}";
+    
+    /**
+     * 截至指定行为ID的用户-课程交互矩阵查询语句
+     */
+    String USER_COURSE_MATRIX_UNTIL_SQL = "SELECT user_id, target_id as course_id, " +
+            "COUNT(*) as interaction_count, " +
+            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE " + DEFAULT_RATING + " END) as avg_rating " +
+            "FROM user_behaviors " +
+            "WHERE target_type = 'course' AND id <= #{maxId} " +
+            "GROUP BY user_id, target_id " +
+            "HAVING interaction_count >= #{minInteractions}";
     
     /**
      * 获取用户最近的行为数据
@@ -26,41 +58,51 @@ public interface UserBehaviorMapper extends BaseMapper<UserBehavior> {
                                            @Param("limit") Integer limit);
     
     /**
-     * 获取用户对课程的交互数据
+     * 获取用户对课程的交互数据（按课程ID升序）
      */
     @Select("SELECT target_id as course_id, " +
             "COUNT(*) as interaction_count, " +
-            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE 0 END) as avg_rating, " +
+            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE " + DEFAULT_RATING + " END) as avg_rating, " +
             "SUM(CASE WHEN duration IS NOT NULL THEN duration ELSE 0 END) as total_duration " +
             "FROM user_behaviors " +
             "WHERE user_id = #{userId} AND target_type = 'course' " +
-            "GROUP BY target_id")
+            "GROUP BY target_id ORDER BY target_id")
     List<Map<String, Object>> selectUserCourseInteractions(@Param("userId") Long userId);
     
     /**
-     * 获取课程的用户交互统计
+     * 获取课程的用户交互统计（按用户ID升序）
      */
     @Select("SELECT user_id, " +
             "COUNT(*) as interaction_count, " +
-            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE 0 END) as avg_rating, " +
+            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE " + DEFAULT_RATING + " END) as avg_rating, " +
             "SUM(CASE WHEN duration IS NOT NULL THEN duration ELSE 0 END) as total_duration " +
             "FROM user_behaviors " +
             "WHERE target_id = #{courseId} AND target_type = 'course' " +
-            "GROUP BY user_id")
+            "GROUP BY user_id ORDER BY user_id")
     List<Map<String, Object>> selectCourseUserInteractions(@Param("courseId") Long courseId);
     
     /**
      * 获取用户-课程交互矩阵数据
      */
-    @Select("SELECT user_id, target_id as course_id, " +
-            "COUNT(*) as interaction_count, " +
-            "AVG(CASE WHEN rating IS NOT NULL THEN rating ELSE 3 END) as avg_rating " +
-            "FROM user_behaviors " +
-            "WHERE target_type = 'course' " +
-            "GROUP BY user_id, target_id " +
-            "HAVING interaction_count >= #{minInteractions}")
+    @Select(USER_COURSE_MATRIX_SQL)
     List<Map<String, Object>> selectUserCourseMatrix(@Param("minInteractions") Integer minInteractions);
     
+    /**
+     * 流式读取截至指定行为ID的用户-课程交互矩阵数据（逐行回调，避免百万级结果集一次性驻留内存）
+     */
+    @Select(USER_COURSE_MATRIX_UNTIL_SQL)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Map.class)
+    void streamUserCourseMatrix(@Param("minInteractions") Integer minInteractions,
+                                @Param("maxId") Long maxId,
+                                ResultHandler<Map<String, Object>> handler);
+    
+    /**
+     * 当前最大行为ID（交互矩阵和相似度索引的高水位）
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) FROM user_behaviors")
+    Long selectMaxId();
+    
     /**
      * 获取相似用户（基于行为相似度）
      */
@@ -78,12 +120,58 @@ public interface UserBehaviorMapper extends BaseMapper<UserBehavior> {
                                                 @Param("limit") Integer limit);
     
     /**
-     * 获取用户已学习的课程ID列表
+     * 获取用户交互过的课程ID列表（推荐结果排除这些课程，与交互矩阵的口径一致）
+     */
+    @Select("SELECT DISTINCT target_id FROM user_behaviors " +
+            "WHERE user_id = #{userId} AND target_type = 'course'")
+    List<Long> selectUserInteractedCourses(@Param("userId") Long userId);
+    
+    /**
+     * 获取用户已学习的课程ID列表（开始学习 / 完成课时，与行为实时流标记已学习的行为类型一致）
      */
     @Select("SELECT DISTINCT target_id FROM user_behaviors " +
             "WHERE user_id = #{userId} AND target_type = 'course' " +
             "AND action_type IN ('start_learning', 'complete_lesson')")
-    List<Long> selectUserLearnedCourses(@Param("userId") Long userId);
+    List<Long> selectUserEnrolledCourses(@Param("userId") Long userId);
+    
+    /**
+     * 批量获取多个用户交互过的课程
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT user_id, target_id as course_id FROM user_behaviors " +
+            "WHERE target_type = 'course' " +
+            "AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> selectInteractedCoursesByUsers(@Param("userIds") List<Long> userIds);
+    
+    /**
+     * 按课程、行为类型和日期汇总指定时间之后的课程交互次数（热度计数初始化用）
+     */
+    @Select("SELECT target_id as course_id, action_type, DATE(create_time) as day, COUNT(*) as interaction_count " +
+            "FROM user_behaviors WHERE target_type = 'course' AND create_time >= #{startTime} " +
+            "GROUP BY target_id, action_type, DATE(create_time)")
+    List<Map<String, Object>> selectDailyCourseActivity(@Param("startTime") LocalDateTime startTime);
+    
+    /**
+     * 获取指定时间之后有行为记录的用户ID（活跃用户）
+     */
+    @Select("SELECT DISTINCT user_id FROM user_behaviors WHERE create_time >= #{startTime}")
+    List<Long> selectActiveUserIds(@Param("startTime") LocalDateTime startTime);
+    
+    /**
+     * 获取行为ID在 (afterId, untilId] 区间内的课程行为ID（升序）
+     */
+    @Select("SELECT id FROM user_behaviors " +
+            "WHERE target_type = 'course' AND id > #{afterId} AND id <= #{untilId} ORDER BY id")
+    List<Long> selectCourseBehaviorIdsBetween(@Param("afterId") Long afterId, @Param("untilId") Long untilId);
+    
+    /**
+     * 获取行为ID在 (afterId, untilId] 区间内有新交互的课程ID列表
+     */
+    @Select("SELECT DISTINCT target_id FROM user_behaviors " +
+            "WHERE target_type = 'course' AND id > #{afterId} AND id <= #{untilId}")
+    List<Long> selectCoursesTouchedBetween(@Param("afterId") Long afterId, @Param("untilId") Long untilId);
     
     /**
      * 统计行为数据
@@ -93,4 +181,18 @@ public interface UserBehaviorMapper extends BaseMapper<UserBehavior> {
             "WHERE create_time >= #{startTime} " +
             "GROUP BY action_type")
     List<Map<String, Object>> selectBehaviorStats(@Param("startTime") LocalDateTime startTime);
+    
+    /**
+     * 多行INSERT批量写入用户行为（单条语句，调用方负责分块控制语句大小）
+     */
+    @Insert("<script>" +
+            "INSERT INTO user_behaviors (user_id, action_type, target_id, target_type, duration, rating, " +
+            "source, device_type, ip_address, user_agent, metadata, create_time) VALUES " +
+            "<foreach collection='behaviors' item='b' separator=','>" +
+            "(#{b.userId}, #{b.actionType}, #{b.targetId}, #{b.targetType}, #{b.duration}, #{b.rating}, " +
+            "#{b.source}, #{b.deviceType}, #{b.ipAddress}, #{b.userAgent}, #{b.metadata}, #{b.createTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "behaviors.id", keyColumn = "id")
+    int insertBatch(@Param("behaviors") List<UserBehavior> behaviors);
 }
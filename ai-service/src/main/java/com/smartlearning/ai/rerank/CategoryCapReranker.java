@@ -0,0 +1,48 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类数量上限
+ * <p>
+ * 按顺序保留每个分类的前 N 门课程，超出的课程移到列表末尾，仅在候选不足时补位。
+ * 未知分类的课程不受限制。
+ */
+@Component
+@Order(300)
+public class CategoryCapReranker implements Reranker {
+
+    private final int maxPerCategory;
+
+    public CategoryCapReranker(@Value("${ai.recommendation.rerank.max-per-category:3}") int maxPerCategory) {
+        this.maxPerCategory = maxPerCategory;
+    }
+
+    @Override
+    public List<ScoredCourse> rerank(List<ScoredCourse> candidates, RerankContext context) {
+        if (maxPerCategory <= 0 || context.categories().isEmpty()) {
+            return candidates;
+        }
+        Map<Long, Integer> perCategory = new HashMap<>();
+        List<ScoredCourse> kept = new ArrayList<>(candidates.size());
+        List<ScoredCourse> overflow = new ArrayList<>();
+        for (ScoredCourse course : candidates) {
+            Long categoryId = context.categories().get(course.getCourseId());
+            if (categoryId == null || perCategory.merge(categoryId, 1, Integer::sum) <= maxPerCategory) {
+                kept.add(course);
+            } else {
+                overflow.add(course);
+            }
+        }
+        kept.addAll(overflow);
+        return kept;
+    }
+}
@@ -0,0 +1,90 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+import com.smartlearning.ai.dto.ScoredCourse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MMR（最大边际相关）多样化
+ * <p>
+ * 依次选取 {@code λ * 相关度 - (1 - λ) * 与已选课程的最大内容相似度} 最高的候选，相关度为得分 / 最高得分。
+ * 每选出一门课程只需用它与全部候选的相似度更新最大相似度，选 k 门共 k 次一对多相似度计算。
+ * 只选出最终条数，其余候选按原得分顺序接在后面供后续阶段补位。
+ */
+@Component
+@Order(200)
+public class MmrReranker implements Reranker {
+
+    private final double lambda;
+
+    public MmrReranker(@Value("${ai.recommendation.rerank.mmr-lambda:0.7}") double lambda) {
+        this.lambda = lambda;
+    }
+
+    @Override
+    public List<ScoredCourse> rerank(List<ScoredCourse> candidates, RerankContext context) {
+        int n = candidates.size();
+        CourseFeatureIndex index = context.featureIndex();
+        if (n <= 1 || lambda >= 1.0 || index.isEmpty()) {
+            return candidates;
+        }
+
+        int[] featureRows = new int[n];
+        double[] relevance = new double[n];
+        double maxScore = 0.0;
+        for (int i = 0; i < n; i++) {
+            ScoredCourse course = candidates.get(i);
+            featureRows[i] = index.indexOf(course.getCourseId());
+            relevance[i] = course.getScore() != null ? course.getScore() : 0.0;
+            maxScore = Math.max(maxScore, relevance[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            relevance[i] = maxScore > 0 ? relevance[i] / maxScore : 0.0;
+        }
+
+        int k = Math.min(context.count(), n);
+        double[] similarity = new double[n];
+        double[] maxSimilarity = new double[n];
+        boolean[] selected = new boolean[n];
+        List<ScoredCourse> result = new ArrayList<>(n);
+        for (int round = 0; round < k; round++) {
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (selected[i]) {
+                    continue;
+                }
+                double value = lambda * relevance[i] - (1.0 - lambda) * maxSimilarity[i];
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            selected[best] = true;
+            result.add(candidates.get(best));
+
+            int row = featureRows[best];
+            if (row < 0) {
+                continue;
+            }
+            index.similarities(row, featureRows, similarity);
+            for (int i = 0; i < n; i++) {
+                if (similarity[i] > maxSimilarity[i]) {
+                    maxSimilarity[i] = similarity[i];
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (!selected[i]) {
+                result.add(candidates.get(i));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * 单次重排请求的上下文
+ */
+public final class RerankContext {
+
+    private static final LongPredicate NONE = courseId -> false;
+
+    private final Long userId;
+    private final int count;
+    private final CourseFeatureIndex featureIndex;
+    private final Map<Long, Long> categories;
+    private final LongPredicate enrolled;
+    private final LongPredicate shown;
+
+    /**
+     * @param userId       用户ID
+     * @param count        最终返回条数
+     * @param featureIndex 课程内容特征索引（多样性计算用）
+     * @param categories   课程ID -> 分类ID
+     * @param enrolled     是否已学习（命中即移除）
+     * @param shown        是否近期已展示（候选不足时才保留）
+     */
+    public RerankContext(Long userId, int count, CourseFeatureIndex featureIndex, Map<Long, Long> categories,
+                         LongPredicate enrolled, LongPredicate shown) {
+        this.userId = userId;
+        this.count = count;
+        this.featureIndex = featureIndex != null ? featureIndex : CourseFeatureIndex.empty();
+        this.categories = categories != null ? categories : Map.of();
+        this.enrolled = enrolled != null ? enrolled : NONE;
+        this.shown = shown != null ? shown : NONE;
+    }
+
+    public Long userId() {
+        return userId;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public CourseFeatureIndex featureIndex() {
+        return featureIndex;
+    }
+
+    public Map<Long, Long> categories() {
+        return categories;
+    }
+
+    public LongPredicate enrolled() {
+        return enrolled;
+    }
+
+    public LongPredicate shown() {
+        return shown;
+    }
+}
@@ -0,0 +1,37 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 推荐结果重排流水线
+ * <p>
+ * 依次执行已注册的 {@link Reranker}（过滤 -> 多样化 -> 分类上限），最后截断到请求条数。
+ * 新增阶段只需注册一个带 {@link org.springframework.core.annotation.Order} 的 Reranker Bean。
+ */
+@Component
+public class RerankPipeline {
+
+    private final List<Reranker> stages;
+
+    /**
+     * @param stages 重排阶段（Spring 注入时已按 Order 排序）
+     */
+    public RerankPipeline(List<Reranker> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public List<ScoredCourse> rerank(List<ScoredCourse> candidates, RerankContext context) {
+        List<ScoredCourse> result = candidates;
+        for (Reranker stage : stages) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result = stage.rerank(result, context);
+        }
+        return result.size() > context.count() ? new ArrayList<>(result.subList(0, context.count())) : result;
+    }
+}
@@ -0,0 +1,23 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+
+import java.util.List;
+
+/**
+ * 推荐结果重排阶段
+ * <p>
+ * 输入为按得分降序的候选列表，输出为重排后的列表（可删除或调整顺序，不截断到最终条数）。
+ * 各阶段以 Spring Bean 注册，按 {@link org.springframework.core.annotation.Order} 顺序由 {@link RerankPipeline} 串联执行。
+ */
+public interface Reranker {
+
+    /**
+     * 重排候选列表
+     *
+     * @param candidates 候选课程（不可修改原列表）
+     * @param context    重排上下文
+     * @return 重排后的课程列表
+     */
+    List<ScoredCourse> rerank(List<ScoredCourse> candidates, RerankContext context);
+}
@@ -0,0 +1,39 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已学习 / 已展示过滤
+ * <p>
+ * 已学习的课程直接移除；近期已展示的课程在未展示的候选足够时移除，不足时移到列表末尾补位。
+ */
+@Component
+@Order(100)
+public class SeenFilterReranker implements Reranker {
+
+    @Override
+    public List<ScoredCourse> rerank(List<ScoredCourse> candidates, RerankContext context) {
+        List<ScoredCourse> fresh = new ArrayList<>(candidates.size());
+        List<ScoredCourse> shown = new ArrayList<>();
+        for (ScoredCourse course : candidates) {
+            long courseId = course.getCourseId();
+            if (context.enrolled().test(courseId)) {
+                continue;
+            }
+            if (context.shown().test(courseId)) {
+                shown.add(course);
+            } else {
+                fresh.add(course);
+            }
+        }
+        if (fresh.size() < context.count()) {
+            fresh.addAll(shown);
+        }
+        return fresh;
+    }
+}
@@ -1,5 +1,6 @@
 package com.smartlearning.ai.service;
 
+import com.smartlearning.ai.dto.BatchBehaviorResult;
 import com.smartlearning.ai.dto.RecommendationRequest;
 import com.smartlearning.ai.dto.RecommendationResponse;
 import com.smartlearning.ai.dto.UserBehaviorDTO;
@@ -21,11 +22,11 @@ public interface AiRecommendationService {
     boolean recordUserBehavior(UserBehaviorDTO behaviorDTO);
     
     /**
-     * 批量记录用户行为
+     * 批量记录用户行为（分块多行写入）
      * @param behaviors 用户行为数据列表
-     * @return 成功记录的数量
+     * @return 成功数量及逐条失败明细
      */
-    int batchRecordUserBehavior(List<UserBehaviorDTO> behaviors);
+    BatchBehaviorResult batchRecordUserBehavior(List<UserBehaviorDTO> behaviors);
     
     /**
      * 获取个性化推荐
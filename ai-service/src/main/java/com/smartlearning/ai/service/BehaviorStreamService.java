@@ -0,0 +1,28 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.entity.UserBehavior;
+
+import java.util.Map;
+
+/**
+ * 用户行为实时流服务接口
+ * <p>
+ * 行为入库后投递到进程内有界队列，后台线程在秒级内把交互写入实时增量层并失效该用户的推荐缓存，
+ * 不必等待下一次矩阵 / 相似度索引重建。
+ */
+public interface BehaviorStreamService {
+    
+    /**
+     * 投递一条已入库的行为（非阻塞，队列已满时丢弃，由下次矩阵重建兜底）；
+     * 在事务中调用时延迟到事务提交后入队，回滚则不投递
+     * @param behavior 用户行为
+     * @return 是否成功入队，事务中调用时表示已登记提交后投递
+     */
+    boolean publish(UserBehavior behavior);
+    
+    /**
+     * 获取行为流运行统计
+     * @return 统计信息
+     */
+    Map<String, Object> getStreamStats();
+}
@@ -0,0 +1,35 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+
+import java.util.Map;
+
+/**
+ * 课程内容特征索引服务接口
+ */
+public interface CourseFeatureService {
+    
+    /**
+     * 获取当前索引快照
+     * @return 当前索引，尚未加载时返回空索引
+     */
+    CourseFeatureIndex current();
+    
+    /**
+     * 获取当前索引中课程的分类映射
+     * @return 课程ID -> 分类ID（只读）
+     */
+    Map<Long, Long> courseCategories();
+    
+    /**
+     * 从课程服务全量加载全部已发布课程并重建索引
+     * @return 重建后的索引
+     */
+    CourseFeatureIndex refresh();
+    
+    /**
+     * 增量刷新：只拉取上次刷新后有更新的课程，合并后重建索引
+     * @return 刷新后的索引
+     */
+    CourseFeatureIndex refreshIncremental();
+}
@@ -0,0 +1,25 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.dto.CourseSummary;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 课程摘要服务接口（本地缓存 + 批量回源课程服务）
+ */
+public interface CourseSummaryService {
+    
+    /**
+     * 批量获取课程摘要，未命中的课程合并为一次批量远程调用
+     * @param courseIds 课程ID列表
+     * @return 课程ID到摘要的映射，课程不存在或课程服务不可用时不包含对应ID
+     */
+    Map<Long, CourseSummary> getSummaries(Collection<Long> courseIds);
+    
+    /**
+     * 获取缓存统计
+     * @return 统计信息
+     */
+    Map<String, Object> getCacheStats();
+}
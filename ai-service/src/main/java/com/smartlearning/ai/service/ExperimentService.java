@@ -0,0 +1,53 @@
+package com.smartlearning.ai.service;
+
+import java.util.Map;
+
+/**
+ * 推荐A/B实验服务接口
+ * <p>
+ * 用户按ID确定性分桶到算法变体；曝光、点击、转化只在实际提供推荐的算法与用户所在变体一致时计入该变体
+ * （显式指定了其他算法的请求不计入），计数在内存中累加并定期增量刷写到Redis按天的哈希中。
+ */
+public interface ExperimentService {
+    
+    /**
+     * 获取用户所在的实验变体（同一实验配置下结果固定）
+     * @param userId 用户ID
+     * @return 变体名称（即推荐算法类型）
+     */
+    String assignVariant(Long userId);
+    
+    /**
+     * 记录推荐曝光
+     * @param userId 用户ID
+     * @param servedVariant 实际提供推荐的算法类型
+     * @param count 曝光课程数
+     */
+    void recordImpressions(Long userId, String servedVariant, int count);
+    
+    /**
+     * 记录推荐点击
+     * @param userId 用户ID
+     * @param servedVariant 被点击的推荐结果的算法类型
+     */
+    void recordClick(Long userId, String servedVariant);
+    
+    /**
+     * 记录推荐转化
+     * @param userId 用户ID
+     * @param servedVariant 被转化的推荐结果的算法类型
+     */
+    void recordConversion(Long userId, String servedVariant);
+    
+    /**
+     * 将上次刷写后的增量写入Redis
+     */
+    void flush();
+    
+    /**
+     * 获取最近若干天各变体的曝光、点击、转化及点击率、转化率
+     * @param days 统计天数（含当天）
+     * @return 统计信息
+     */
+    Map<String, Object> getStats(int days);
+}
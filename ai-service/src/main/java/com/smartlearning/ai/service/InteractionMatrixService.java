@@ -0,0 +1,27 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+
+/**
+ * 用户-课程交互矩阵服务接口
+ */
+public interface InteractionMatrixService {
+    
+    /**
+     * 获取当前矩阵快照
+     * @return 当前矩阵，尚未加载时返回空矩阵
+     */
+    SparseInteractionMatrix current();
+    
+    /**
+     * 矩阵是否已加载
+     * @return 已加载且非空返回true
+     */
+    boolean isReady();
+    
+    /**
+     * 从数据库全量重建矩阵并原子替换当前快照
+     * @return 重建后的矩阵（已有重建任务在执行时返回当前快照）
+     */
+    SparseInteractionMatrix rebuild();
+}
@@ -0,0 +1,34 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.algorithm.CoveredEvents;
+import com.smartlearning.ai.algorithm.ItemSimilarityIndex;
+
+/**
+ * 课程相似度索引服务接口
+ */
+public interface ItemSimilarityService {
+    
+    /**
+     * 获取当前索引快照
+     * @return 当前索引，尚未构建时返回空索引
+     */
+    ItemSimilarityIndex current();
+    
+    /**
+     * 当前索引已计入的、实时增量层仍可能持有的行为ID
+     * @return 行为ID集合，尚未构建时为空
+     */
+    CoveredEvents coveredEvents();
+    
+    /**
+     * 基于当前交互矩阵全量重建索引，写入快照文件后原子替换
+     * @return 重建后的索引
+     */
+    ItemSimilarityIndex rebuild();
+    
+    /**
+     * 增量重建：仅重新计算上次构建后有新交互的课程、与其存在共同用户的课程及以其为邻居的课程
+     * @return 更新后的索引
+     */
+    ItemSimilarityIndex rebuildIncremental();
+}
@@ -0,0 +1,21 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.algorithm.AlsModel;
+
+/**
+ * 矩阵分解（ALS）模型服务接口
+ */
+public interface MatrixFactorizationService {
+    
+    /**
+     * 获取当前模型
+     * @return 当前模型，尚未训练或加载时返回空模型
+     */
+    AlsModel current();
+    
+    /**
+     * 基于当前交互矩阵训练模型，写入因子文件后重新映射加载
+     * @return 训练后的模型（矩阵未加载或已有训练在执行时返回当前模型）
+     */
+    AlsModel train();
+}
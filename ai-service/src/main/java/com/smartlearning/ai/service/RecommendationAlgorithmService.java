@@ -1,5 +1,7 @@
 package com.smartlearning.ai.service;
 
+import com.smartlearning.ai.dto.ScoredCourse;
+
 import java.util.List;
 import java.util.Map;
 
@@ -14,7 +16,7 @@ public interface RecommendationAlgorithmService {
      * @param count 推荐数量
      * @return 推荐的课程ID列表及分数
      */
-    List<Map<String, Object>> collaborativeFiltering(Long userId, Integer count);
+    List<ScoredCourse> collaborativeFiltering(Long userId, Integer count);
     
     /**
      * 基于内容的推荐
@@ -22,7 +24,7 @@ public interface RecommendationAlgorithmService {
      * @param count 推荐数量
      * @return 推荐的课程ID列表及分数
      */
-    List<Map<String, Object>> contentBasedRecommendation(Long userId, Integer count);
+    List<ScoredCourse> contentBasedRecommendation(Long userId, Integer count);
     
     /**
      * 混合推荐算法
@@ -30,7 +32,27 @@ public interface RecommendationAlgorithmService {
      * @param count 推荐数量
      * @return 推荐的课程ID列表及分数
      */
-    List<Map<String, Object>> hybridRecommendation(Long userId, Integer count);
+    List<ScoredCourse> hybridRecommendation(Long userId, Integer count);
+    
+    /**
+     * 批量混合推荐（不读写缓存），在线请求与批量预计算共用同一打分路径
+     * @param userIds 用户ID列表
+     * @param count 每个用户的推荐数量
+     * @return 用户ID -> 推荐的课程ID列表及分数
+     */
+    Map<Long, List<ScoredCourse>> batchHybridRecommendation(List<Long> userIds, Integer count);
+    
+    /**
+     * 失效指定用户的预计算推荐列表（只删除该用户的存储）
+     * @param userId 用户ID
+     */
+    void evictUserRecommendations(Long userId);
+    
+    /**
+     * 为近期活跃用户批量预计算混合推荐Top-N列表并写入存储
+     * @return 预计算的用户数
+     */
+    int precomputeRecommendations();
     
     /**
      * 热门课程推荐（冷启动）
@@ -38,7 +60,7 @@ public interface RecommendationAlgorithmService {
      * @param categoryId 分类ID（可选）
      * @return 推荐的课程ID列表及分数
      */
-    List<Map<String, Object>> popularCourseRecommendation(Integer count, Long categoryId);
+    List<ScoredCourse> popularCourseRecommendation(Integer count, Long categoryId);
     
     /**
      * 计算用户相似度
@@ -0,0 +1,38 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.entity.RecommendationResult;
+
+import java.util.List;
+
+/**
+ * 推荐结果日志服务接口（异步写后缓冲）
+ * <p>
+ * 推荐结果不再在请求线程逐条写库，而是进入有界缓冲区，由后台按批多行写入。
+ */
+public interface RecommendationLogService {
+    
+    /**
+     * 提交一次推荐的全部结果；缓冲区满时短暂等待（背压），超时仍无空间则丢弃并计数
+     * @param results 推荐结果
+     */
+    void submit(List<RecommendationResult> results);
+    
+    /**
+     * 触发一次异步刷写（缓冲区为空或已有刷写在进行时忽略）
+     */
+    void flushAsync();
+    
+    /**
+     * 推荐结果是否可能尚未写入数据库（仍在缓冲区中，或有刷写正在进行）
+     * @param userId   用户ID
+     * @param courseId 课程ID
+     * @param batchId  推荐批次ID，为 null 时匹配任意批次
+     * @return 是否需要先刷写
+     */
+    boolean isPending(Long userId, Long courseId, String batchId);
+    
+    /**
+     * 等待进行中的刷写结束后，同步刷写缓冲区中的剩余数据（点击 / 转化命中未落库的结果时使用）
+     */
+    void flush();
+}
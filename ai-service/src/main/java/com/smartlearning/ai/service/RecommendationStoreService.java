@@ -0,0 +1,50 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.dto.PrecomputedRecommendations;
+
+import java.util.Map;
+
+/**
+ * 预计算推荐存储服务接口（进程内近端缓存 + Redis）
+ */
+public interface RecommendationStoreService {
+    
+    /**
+     * 读取用户的预计算推荐列表，依次查询近端缓存和Redis
+     * @param userId 用户ID
+     * @return 推荐列表，不存在时返回 null
+     */
+    PrecomputedRecommendations get(Long userId);
+    
+    /**
+     * 写入单个用户的推荐列表
+     * @param userId 用户ID
+     * @param recommendations 推荐列表
+     * @param ttlMinutes 过期时间（分钟）
+     */
+    void put(Long userId, PrecomputedRecommendations recommendations, long ttlMinutes);
+    
+    /**
+     * 批量写入推荐列表（Redis管道）
+     * @param recommendations 用户ID -> 推荐列表
+     * @param ttlMinutes 过期时间（分钟）
+     */
+    void putAll(Map<Long, PrecomputedRecommendations> recommendations, long ttlMinutes);
+    
+    /**
+     * 删除用户的推荐列表（近端缓存与Redis）
+     * @param userId 用户ID
+     */
+    void evict(Long userId);
+    
+    /**
+     * 清空本节点的近端缓存
+     */
+    void clearNearCache();
+    
+    /**
+     * 获取存储统计
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
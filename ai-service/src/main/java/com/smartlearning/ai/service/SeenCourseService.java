@@ -0,0 +1,45 @@
+package com.smartlearning.ai.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * 用户已学习 / 已展示课程记录服务接口（每用户布隆过滤器，仅用于推荐重排过滤）
+ */
+public interface SeenCourseService {
+    
+    /**
+     * 记录向用户展示过的课程
+     * @param userId 用户ID
+     * @param courseIds 课程ID
+     */
+    void markShown(Long userId, Collection<Long> courseIds);
+    
+    /**
+     * 记录用户开始学习的课程
+     * @param userId 用户ID
+     * @param courseId 课程ID
+     */
+    void markEnrolled(Long userId, Long courseId);
+    
+    /**
+     * 用户是否已学习某课程（可能误判为已学习，不会漏判已记录的课程）
+     * @param userId 用户ID
+     * @return 课程ID判定函数
+     */
+    LongPredicate enrolledFilter(Long userId);
+    
+    /**
+     * 课程是否在展示窗口内向用户展示过
+     * @param userId 用户ID
+     * @return 课程ID判定函数
+     */
+    LongPredicate shownFilter(Long userId);
+    
+    /**
+     * 获取统计信息
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
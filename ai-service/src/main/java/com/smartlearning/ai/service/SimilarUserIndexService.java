@@ -0,0 +1,51 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.algorithm.MinHashLshIndex;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相似用户近似索引服务接口（MinHash + LSH）
+ */
+public interface SimilarUserIndexService {
+    
+    /**
+     * 获取当前索引快照
+     * @return 当前索引，尚未构建时返回空索引
+     */
+    MinHashLshIndex current();
+    
+    /**
+     * 基于当前交互矩阵重建索引
+     * @return 重建后的索引
+     */
+    MinHashLshIndex rebuild();
+    
+    /**
+     * 在交互矩阵上查找相似用户：索引基于同一矩阵构建时走近似检索，否则在矩阵上精确计算
+     * @param matrix 交互矩阵
+     * @param userIndex 用户行号
+     * @param minCommon 最少共同课程数
+     * @param limit 返回数量
+     * @return 邻居集合（按共同课程数降序）
+     */
+    SparseInteractionMatrix.Neighbors neighbors(SparseInteractionMatrix matrix, int userIndex, int minCommon, int limit);
+    
+    /**
+     * 查找相似用户
+     * @param userId 用户ID
+     * @param minCommonCourses 最少共同课程数
+     * @param limit 返回数量
+     * @return 相似用户列表（字段与 selectSimilarUsers 一致：user_id, common_courses）
+     */
+    List<Map<String, Object>> findSimilarUsers(Long userId, Integer minCommonCourses, Integer limit);
+    
+    /**
+     * 以 SQL 精确结果为基准评估召回率
+     * @param sampleSize 抽样用户数（不超过配置的上限）
+     * @return 召回率及两条路径的平均耗时
+     */
+    Map<String, Object> evaluateRecall(Integer sampleSize);
+}
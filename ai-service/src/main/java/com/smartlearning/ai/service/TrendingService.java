@@ -0,0 +1,32 @@
+package com.smartlearning.ai.service;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+
+import java.util.List;
+
+/**
+ * 课程热度排行服务接口（时间衰减计数，内存维护，各节点的增量定期合并到Redis共享计数）
+ */
+public interface TrendingService {
+    
+    /**
+     * 记录一次课程交互
+     * @param courseId 课程ID
+     * @param actionType 行为类型，决定计数权重
+     * @param time 交互时间（毫秒时间戳）
+     */
+    void record(long courseId, String actionType, long time);
+    
+    /**
+     * 当前热度最高的课程
+     * @param categoryId 分类ID（可选）
+     * @param count 数量
+     * @return 按热度降序的课程及热度
+     */
+    List<ScoredCourse> top(Long categoryId, int count);
+    
+    /**
+     * 同步课程分类映射，把本节点的新增计数合并到共享计数，并读回全部节点合并后的计数
+     */
+    void checkpoint();
+}
@@ -1,21 +1,33 @@
 package com.smartlearning.ai.service.impl;
 
+import com.smartlearning.ai.algorithm.ItemSimilarityIndex;
+import com.smartlearning.ai.dto.BatchBehaviorResult;
+import com.smartlearning.ai.dto.CourseSummary;
 import com.smartlearning.ai.dto.RecommendationRequest;
 import com.smartlearning.ai.dto.RecommendationResponse;
+import com.smartlearning.ai.dto.ScoredCourse;
 import com.smartlearning.ai.dto.UserBehaviorDTO;
 import com.smartlearning.ai.entity.RecommendationResult;
 import com.smartlearning.ai.entity.UserBehavior;
 import com.smartlearning.ai.mapper.RecommendationResultMapper;
 import com.smartlearning.ai.mapper.UserBehaviorMapper;
 import com.smartlearning.ai.service.AiRecommendationService;
+import com.smartlearning.ai.service.BehaviorStreamService;
+import com.smartlearning.ai.service.CourseSummaryService;
+import com.smartlearning.ai.service.ExperimentService;
+import com.smartlearning.ai.service.ItemSimilarityService;
 import com.smartlearning.ai.service.RecommendationAlgorithmService;
+import com.smartlearning.ai.service.RecommendationLogService;
+import com.smartlearning.ai.service.SeenCourseService;
 import com.smartlearning.common.feign.CourseServiceClient;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -32,19 +44,23 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     private final UserBehaviorMapper userBehaviorMapper;
     private final RecommendationResultMapper recommendationResultMapper;
     private final RecommendationAlgorithmService algorithmService;
+    private final ItemSimilarityService itemSimilarityService;
+    private final BehaviorStreamService behaviorStreamService;
     private final CourseServiceClient courseServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final RecommendationLogService recommendationLogService;
+    private final CourseSummaryService courseSummaryService;
+    private final ExperimentService experimentService;
+    private final SeenCourseService seenCourseService;
+
+    @Value("${ai.behavior.batch.chunk-size:200}")
+    private int behaviorBatchChunkSize;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean recordUserBehavior(UserBehaviorDTO behaviorDTO) {
         try {
-            UserBehavior behavior = new UserBehavior();
-            BeanUtils.copyProperties(behaviorDTO, behavior);
-
-            // 设置请求信息
-            behavior.setIpAddress("127.0.0.1"); // 简化处理
-            behavior.setUserAgent("Smart Learning Platform");
-            behavior.setCreateTime(LocalDateTime.now());
+            UserBehavior behavior = toBehavior(behaviorDTO, LocalDateTime.now());
 
             int result = userBehaviorMapper.insert(behavior);
 
@@ -52,6 +68,11 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
                     behaviorDTO.getUserId(), behaviorDTO.getActionType(),
                     behaviorDTO.getTargetId(), result > 0 ? "成功" : "失败");
 
+            // 投递到实时流，秒级更新推荐
+            if (result > 0) {
+                behaviorStreamService.publish(behavior);
+            }
+
             return result > 0;
 
         } catch (Exception e) {
@@ -60,19 +81,90 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         }
     }
 
+    /**
+     * 分块批量写入：先逐条校验，合法记录按块多行INSERT，每块一个事务；
+     * 某块写入失败时回滚该块并逐条重试，定位具体失败的记录，不影响其他块
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public int batchRecordUserBehavior(List<UserBehaviorDTO> behaviors) {
-        int successCount = 0;
+    public BatchBehaviorResult batchRecordUserBehavior(List<UserBehaviorDTO> behaviors) {
+        long start = System.currentTimeMillis();
+        BatchBehaviorResult result = new BatchBehaviorResult();
+        result.setTotal(behaviors.size());
+
+        // 1. 校验并转换
+        LocalDateTime now = LocalDateTime.now();
+        List<UserBehavior> valid = new ArrayList<>(behaviors.size());
+        List<Integer> validIndexes = new ArrayList<>(behaviors.size());
+        for (int i = 0; i < behaviors.size(); i++) {
+            String reason = validateBehavior(behaviors.get(i));
+            if (reason != null) {
+                result.getFailures().add(new BatchBehaviorResult.Failure(i, reason));
+                continue;
+            }
+            valid.add(toBehavior(behaviors.get(i), now));
+            validIndexes.add(i);
+        }
 
-        for (UserBehaviorDTO behaviorDTO : behaviors) {
-            if (recordUserBehavior(behaviorDTO)) {
-                successCount++;
+        // 2. 分块写入
+        int succeeded = 0;
+        for (int from = 0; from < valid.size(); from += behaviorBatchChunkSize) {
+            int to = Math.min(from + behaviorBatchChunkSize, valid.size());
+            List<UserBehavior> chunk = valid.subList(from, to);
+            try {
+                transactionTemplate.executeWithoutResult(status -> userBehaviorMapper.insertBatch(chunk));
+                succeeded += chunk.size();
+                chunk.forEach(behaviorStreamService::publish);
+            } catch (Exception e) {
+                log.warn("批量写入用户行为失败，逐条重试: 块大小={}, 原因={}", chunk.size(), e.getMessage());
+                for (int i = from; i < to; i++) {
+                    UserBehavior behavior = valid.get(i);
+                    try {
+                        userBehaviorMapper.insert(behavior);
+                        succeeded++;
+                        behaviorStreamService.publish(behavior);
+                    } catch (Exception single) {
+                        result.getFailures().add(new BatchBehaviorResult.Failure(validIndexes.get(i),
+                                "写入失败: " + single.getMessage()));
+                    }
+                }
             }
         }
 
-        log.info("批量记录用户行为: 总数={}, 成功={}", behaviors.size(), successCount);
-        return successCount;
+        result.setSuccessCount(succeeded);
+        result.getFailures().sort(Comparator.comparingInt(BatchBehaviorResult.Failure::getIndex));
+        log.info("批量记录用户行为: 总数={}, 成功={}, 失败={}, 耗时={}ms", behaviors.size(), succeeded,
+                result.getFailures().size(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 校验单条行为，合法返回 null，否则返回失败原因
+     */
+    private String validateBehavior(UserBehaviorDTO behaviorDTO) {
+        if (behaviorDTO == null) {
+            return "行为数据为空";
+        }
+        if (behaviorDTO.getUserId() == null) {
+            return "用户ID不能为空";
+        }
+        if (behaviorDTO.getActionType() == null || behaviorDTO.getActionType().isBlank()) {
+            return "行为类型不能为空";
+        }
+        if (behaviorDTO.getRating() != null && (behaviorDTO.getRating() < 1 || behaviorDTO.getRating() > 5)) {
+            return "行为评分须在1-5之间";
+        }
+        return null;
+    }
+
+    private UserBehavior toBehavior(UserBehaviorDTO behaviorDTO, LocalDateTime now) {
+        UserBehavior behavior = new UserBehavior();
+        BeanUtils.copyProperties(behaviorDTO, behavior);
+
+        // 设置请求信息
+        behavior.setIpAddress("127.0.0.1"); // 简化处理
+        behavior.setUserAgent("Smart Learning Platform");
+        behavior.setCreateTime(now);
+        return behavior;
     }
 
     @Override
@@ -80,8 +172,11 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         log.info("获取个性化推荐: userId={}, count={}, algorithmType={}",
                 request.getUserId(), request.getCount(), request.getAlgorithmType());
 
-        // 1. 根据算法类型获取推荐结果
-        List<Map<String, Object>> algorithmResults;
+        // 1. 根据算法类型获取推荐结果；未指定或使用默认混合算法时由实验分桶决定算法变体
+        if (request.getAlgorithmType() == null || "hybrid".equals(request.getAlgorithmType())) {
+            request.setAlgorithmType(experimentService.assignVariant(request.getUserId()));
+        }
+        List<ScoredCourse> algorithmResults;
 
         switch (request.getAlgorithmType()) {
             case "collaborative_filtering":
@@ -101,24 +196,34 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
 
         // 3. 获取课程详细信息并构建响应
         List<RecommendationResponse.RecommendedCourse> recommendations = new ArrayList<>();
+        List<RecommendationResult> results = new ArrayList<>(algorithmResults.size());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, CourseSummary> summaries = courseSummaryService.getSummaries(
+                algorithmResults.stream().map(ScoredCourse::getCourseId).collect(Collectors.toList()));
 
         for (int i = 0; i < algorithmResults.size(); i++) {
-            Map<String, Object> algorithmResult = algorithmResults.get(i);
-            Long courseId = (Long) algorithmResult.get("course_id");
-            Double score = (Double) algorithmResult.get("score");
-            String reason = (String) algorithmResult.get("reason");
-
-            // 获取课程信息（这里应该调用课程服务）
-            RecommendationResponse.RecommendedCourse course = buildRecommendedCourse(courseId, score, reason, i + 1);
+            ScoredCourse algorithmResult = algorithmResults.get(i);
+            Long courseId = algorithmResult.getCourseId();
+            Double score = algorithmResult.getScore();
+            String reason = algorithmResult.getReason();
+
+            int position = recommendations.size() + 1;
+            RecommendationResponse.RecommendedCourse course = buildRecommendedCourse(courseId, score, reason, position,
+                    summaries.get(courseId));
             if (course != null) {
                 recommendations.add(course);
 
-                // 保存推荐结果
-                saveRecommendationResult(request.getUserId(), courseId, request.getAlgorithmType(),
-                        score, reason, i + 1, batchId);
+                // 推荐结果记录交由写后缓冲异步批量落库
+                results.add(buildRecommendationResult(request.getUserId(), courseId,
+                        request.getAlgorithmType(), score, reason, position, batchId, now));
             }
         }
 
+        recommendationLogService.submit(results);
+        experimentService.recordImpressions(request.getUserId(), request.getAlgorithmType(), recommendations.size());
+        seenCourseService.markShown(request.getUserId(),
+                results.stream().map(RecommendationResult::getCourseId).collect(Collectors.toList()));
+
         // 4. 构建响应
         RecommendationResponse response = new RecommendationResponse();
         response.setUserId(request.getUserId());
@@ -133,23 +238,28 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     public List<RecommendationResponse.RecommendedCourse> getSimilarCourses(Long courseId, Integer count) {
         log.info("获取相似课程推荐: courseId={}, count={}", courseId, count);
 
-        // 这里应该实现基于课程内容的相似度计算
-        // 简化处理，返回模拟数据
-        List<RecommendationResponse.RecommendedCourse> similarCourses = new ArrayList<>();
+        // 读取预计算的课程相似度索引，单门课程邻居为 O(K)
+        ItemSimilarityIndex index = itemSimilarityService.current();
+        int row = index.indexOf(courseId);
+        if (row < 0 || index.start(row) == index.end(row)) {
+            log.debug("课程不在相似度索引中，返回热门课程: courseId={}", courseId);
+            return getPopularCourses(null, count);
+        }
 
-        for (int i = 1; i <= count; i++) {
-            RecommendationResponse.RecommendedCourse course = new RecommendationResponse.RecommendedCourse();
-            course.setCourseId((long) (courseId + i));
-            course.setTitle("相似课程 " + i);
-            course.setDescription("与当前课程相似的课程内容");
-            course.setPrice(99.0 + i * 10);
-            course.setRating(4.5 - i * 0.1);
-            course.setStudentCount(1000 - i * 50);
-            course.setScore(0.9 - i * 0.05);
-            course.setReason("基于课程内容相似度");
-            course.setPosition(i);
-
-            similarCourses.add(course);
+        List<RecommendationResponse.RecommendedCourse> similarCourses = new ArrayList<>();
+        int end = Math.min(index.end(row), index.start(row) + count);
+        List<Long> neighborIds = new ArrayList<>(end - index.start(row));
+        for (int p = index.start(row); p < end; p++) {
+            neighborIds.add(index.neighborId(p));
+        }
+        Map<Long, CourseSummary> summaries = courseSummaryService.getSummaries(neighborIds);
+        for (int p = index.start(row); p < end; p++) {
+            RecommendationResponse.RecommendedCourse course = buildRecommendedCourse(index.neighborId(p),
+                    (double) index.similarity(p), "基于课程相似度", similarCourses.size() + 1,
+                    summaries.get(index.neighborId(p)));
+            if (course != null) {
+                similarCourses.add(course);
+            }
         }
 
         return similarCourses;
@@ -159,26 +269,37 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     public List<RecommendationResponse.RecommendedCourse> getPopularCourses(Long categoryId, Integer count) {
         log.info("获取热门课程推荐: categoryId={}, count={}", categoryId, count);
 
-        List<Map<String, Object>> popularResults = algorithmService.popularCourseRecommendation(count, categoryId);
+        List<ScoredCourse> popularResults = algorithmService.popularCourseRecommendation(count, categoryId);
 
-        return popularResults.stream()
-                .map(result -> {
-                    Long courseId = (Long) result.get("course_id");
-                    Double score = (Double) result.get("score");
-                    String reason = (String) result.get("reason");
-
-                    return buildRecommendedCourse(courseId, score, reason,
-                            popularResults.indexOf(result) + 1);
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<RecommendationResponse.RecommendedCourse> courses = new ArrayList<>(popularResults.size());
+        Map<Long, CourseSummary> summaries = courseSummaryService.getSummaries(
+                popularResults.stream().map(ScoredCourse::getCourseId).collect(Collectors.toList()));
+        for (int i = 0; i < popularResults.size(); i++) {
+            ScoredCourse result = popularResults.get(i);
+            RecommendationResponse.RecommendedCourse course = buildRecommendedCourse(result.getCourseId(),
+                    result.getScore(), result.getReason(), courses.size() + 1, summaries.get(result.getCourseId()));
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        return courses;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean recordRecommendationClick(Long userId, Long courseId, String batchId) {
         try {
-            int result = recommendationResultMapper.updateClickStatus(userId, courseId, batchId, LocalDateTime.now());
+            LocalDateTime clickTime = LocalDateTime.now();
+            int result = recommendationResultMapper.updateClickStatus(userId, courseId, batchId, clickTime);
+            if (result == 0 && recommendationLogService.isPending(userId, courseId, batchId)) {
+                // 推荐结果仍在写后缓冲中，先刷写落库再重试，避免点击丢失
+                recommendationLogService.flush();
+                result = recommendationResultMapper.updateClickStatus(userId, courseId, batchId, clickTime);
+            }
+            if (result > 0) {
+                experimentService.recordClick(userId,
+                        recommendationResultMapper.selectAlgorithmType(userId, courseId, batchId));
+            }
 
             log.info("记录推荐点击: userId={}, courseId={}, batchId={}, result={}",
                     userId, courseId, batchId, result > 0 ? "成功" : "失败");
@@ -195,7 +316,18 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     @Transactional(rollbackFor = Exception.class)
     public boolean recordRecommendationConversion(Long userId, Long courseId) {
         try {
-            int result = recommendationResultMapper.updateConvertStatus(userId, courseId, LocalDateTime.now());
+            LocalDateTime convertTime = LocalDateTime.now();
+            int result = recommendationResultMapper.updateConvertStatus(userId, courseId, convertTime);
+            if (result == 0 && recommendationLogService.isPending(userId, courseId, null)) {
+                recommendationLogService.flush();
+                result = recommendationResultMapper.updateConvertStatus(userId, courseId, convertTime);
+            }
+            if (result > 0) {
+                // 各算法中至多一个是用户所在变体，同一次转化只计入一次
+                for (String algorithmType : recommendationResultMapper.selectAlgorithmTypes(userId, courseId)) {
+                    experimentService.recordConversion(userId, algorithmType);
+                }
+            }
 
             log.info("记录推荐转化: userId={}, courseId={}, result={}",
                     userId, courseId, result > 0 ? "成功" : "失败");
@@ -210,12 +342,9 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
 
     @Override
     public Map<String, Object> getRecommendationStats(Integer days) {
-        LocalDateTime startTime = LocalDateTime.now().minusDays(days);
-        List<Map<String, Object>> stats = recommendationResultMapper.selectRecommendationStats(startTime);
-
-        Map<String, Object> result = new HashMap<>();
+        // 读取实验计数的按天汇总，不再扫描推荐结果表
+        Map<String, Object> result = new HashMap<>(experimentService.getStats(days));
         result.put("period_days", days);
-        result.put("algorithm_stats", stats);
         result.put("generated_at", LocalDateTime.now());
 
         return result;
@@ -271,22 +400,25 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     }
 
     /**
-     * 构建推荐课程对象
+     * 构建推荐课程对象，没有课程摘要（课程已删除或课程服务不可用）时返回 null，不进入推荐结果
      */
     private RecommendationResponse.RecommendedCourse buildRecommendedCourse(Long courseId, Double score,
-            String reason, Integer position) {
+            String reason, Integer position, CourseSummary summary) {
+        if (summary == null) {
+            log.debug("课程摘要不存在，跳过: courseId={}", courseId);
+            return null;
+        }
         try {
-            // 这里应该调用课程服务获取课程详情
-            // 简化处理，返回模拟数据
+            // 课程详情来自课程摘要缓存
             RecommendationResponse.RecommendedCourse course = new RecommendationResponse.RecommendedCourse();
             course.setCourseId(courseId);
-            course.setTitle("推荐课程 " + courseId);
-            course.setDescription("这是一门优质的在线课程");
-            course.setCoverImage("/images/course-" + courseId + ".jpg");
-            course.setTeacherName("讲师" + (courseId % 10));
-            course.setPrice(99.0 + (courseId % 100));
-            course.setRating(4.0 + (courseId % 10) * 0.1);
-            course.setStudentCount(1000 + (int) (courseId % 5000));
+            course.setTitle(summary.getTitle());
+            course.setDescription(summary.getDescription());
+            course.setCoverImage(summary.getCoverImage());
+            course.setTeacherName(summary.getTeacherName());
+            course.setPrice(summary.getPrice());
+            course.setRating(summary.getRating());
+            course.setStudentCount(summary.getStudentCount());
             course.setScore(score);
             course.setReason(reason);
             course.setPosition(position);
@@ -300,29 +432,23 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     }
 
     /**
-     * 保存推荐结果
+     * 构建推荐结果记录
      */
-    private void saveRecommendationResult(Long userId, Long courseId, String algorithmType,
-            Double score, String reason, Integer position, String batchId) {
-        try {
-            RecommendationResult result = new RecommendationResult();
-            result.setUserId(userId);
-            result.setCourseId(courseId);
-            result.setAlgorithmType(algorithmType);
-            result.setScore(score);
-            result.setReason(reason);
-            result.setPosition(position);
-            result.setBatchId(batchId);
-            result.setClicked(false);
-            result.setConverted(false);
-            result.setCreateTime(LocalDateTime.now());
-            result.setUpdateTime(LocalDateTime.now());
-
-            recommendationResultMapper.insert(result);
-
-        } catch (Exception e) {
-            log.error("保存推荐结果失败", e);
-        }
+    private RecommendationResult buildRecommendationResult(Long userId, Long courseId, String algorithmType,
+            Double score, String reason, Integer position, String batchId, LocalDateTime now) {
+        RecommendationResult result = new RecommendationResult();
+        result.setUserId(userId);
+        result.setCourseId(courseId);
+        result.setAlgorithmType(algorithmType);
+        result.setScore(score);
+        result.setReason(reason);
+        result.setPosition(position);
+        result.setBatchId(batchId);
+        result.setClicked(false);
+        result.setConverted(false);
+        result.setCreateTime(now);
+        result.setUpdateTime(now);
+        return result;
     }
 
 }
@@ -0,0 +1,231 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.CoveredEvents;
+import com.smartlearning.ai.algorithm.InteractionOverlay;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.entity.UserBehavior;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.BehaviorStreamService;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.ItemSimilarityService;
+import com.smartlearning.ai.service.RecommendationAlgorithmService;
+import com.smartlearning.ai.service.SeenCourseService;
+import com.smartlearning.ai.service.TrendingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户行为实时流服务实现
+ * <p>
+ * 在事务中投递时延迟到提交之后再入队，回滚的行为不会进入增量层和热度计数；
+ * 课程热度计数在入队时直接写入；单个消费线程批量取出行为写入 {@link InteractionOverlay}（单写多读），
+ * 每批处理完后只失效本批新增交互课程的用户的混合推荐缓存；
+ * 并在矩阵 / 相似度索引更新后按其实际读取到的行为ID清理已被覆盖的增量。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BehaviorStreamServiceImpl implements BehaviorStreamService {
+
+    private static final String TARGET_TYPE_COURSE = "course";
+
+    /**
+     * 视为已学习该课程的行为类型，重排时不再推荐
+     */
+    private static final Set<String> ENROLL_ACTIONS = Set.of("start_learning", "complete_lesson");
+
+    /**
+     * 增量清理的最小间隔（毫秒）
+     */
+    private static final long PRUNE_INTERVAL_MS = 10_000L;
+
+    private final InteractionOverlay interactionOverlay;
+    private final InteractionMatrixService interactionMatrixService;
+    private final ItemSimilarityService itemSimilarityService;
+    private final RecommendationAlgorithmService algorithmService;
+    private final TrendingService trendingService;
+    private final SeenCourseService seenCourseService;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    @Value("${ai.recommendation.stream.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ai.recommendation.stream.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ai.recommendation.stream.max-cooccurrence-fanout:200}")
+    private int maxCooccurrenceFanout;
+
+    private BlockingQueue<UserBehavior> queue;
+    private Thread consumer;
+    private volatile boolean running;
+    private long lastPruneAt;
+    private CoveredEvents prunedUsers = CoveredEvents.none();
+    private CoveredEvents prunedCooccurrence = CoveredEvents.none();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        consumer = new Thread(this::consume, "behavior-stream");
+        consumer.setDaemon(true);
+        consumer.start();
+        log.info("用户行为实时流已启动: queueCapacity={}, batchSize={}", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        consumer.interrupt();
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("用户行为实时流已停止: 未处理={}", queue.size());
+    }
+
+    @Override
+    public boolean publish(UserBehavior behavior) {
+        if (!TARGET_TYPE_COURSE.equals(behavior.getTargetType())
+                || behavior.getUserId() == null || behavior.getTargetId() == null) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 行为写入尚未提交，提交后再投递，避免回滚的行为进入增量层
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(behavior);
+                }
+            });
+            return true;
+        }
+        return enqueue(behavior);
+    }
+
+    private boolean enqueue(UserBehavior behavior) {
+        // 热度计数开销很小，直接在投递线程写入，队列满时丢弃的行为也会计入
+        trendingService.record(behavior.getTargetId(), behavior.getActionType(), System.currentTimeMillis());
+        if (!queue.offer(behavior)) {
+            long count = dropped.incrementAndGet();
+            if ((count & 1023) == 1) {
+                log.warn("用户行为实时流队列已满，丢弃行为: 累计丢弃={}", count);
+            }
+            return false;
+        }
+        published.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStreamStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueSize", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("published", published.get());
+        stats.put("processed", processed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("overlayUsers", interactionOverlay.userCount());
+        stats.put("overlayCourses", interactionOverlay.cooccurrenceCount());
+        return stats;
+    }
+
+    private void consume() {
+        List<UserBehavior> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                UserBehavior first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    apply(batch);
+                    batch.clear();
+                }
+                pruneIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                batch.clear();
+                log.error("处理用户行为实时流失败", e);
+            }
+        }
+    }
+
+    private void apply(List<UserBehavior> batch) {
+        SparseInteractionMatrix matrix = interactionMatrixService.current();
+        Set<Long> changedUsers = new LinkedHashSet<>();
+        for (UserBehavior behavior : batch) {
+            long userId = behavior.getUserId();
+            float rating = behavior.getRating() != null ? behavior.getRating() : UserBehaviorMapper.DEFAULT_RATING;
+            // 行为在写库后投递，正常都带有自增ID；缺失时按已覆盖处理，最迟在下次清理时移除
+            long eventId = behavior.getId() != null ? behavior.getId() : 0L;
+            boolean isNew = interactionOverlay.record(userId, behavior.getTargetId(), rating,
+                    matrix.rowCourseIds(matrix.userIndex(userId)), maxCooccurrenceFanout, eventId);
+            if (ENROLL_ACTIONS.contains(behavior.getActionType())) {
+                seenCourseService.markEnrolled(userId, behavior.getTargetId());
+            }
+            // 只有首次交互的课程会改变推荐的排除集合，重复交互不失效预计算列表
+            if (isNew) {
+                changedUsers.add(userId);
+            }
+        }
+        interactionOverlay.publish();
+        processed.addAndGet(batch.size());
+
+        for (Long userId : changedUsers) {
+            try {
+                algorithmService.evictUserRecommendations(userId);
+            } catch (Exception e) {
+                log.warn("失效用户推荐缓存失败: userId={}", userId, e);
+            }
+        }
+    }
+
+    /**
+     * 矩阵重建后用户增量已并入矩阵，相似度索引更新后共现增量已并入索引，分别按各自实际读取到的行为ID清理；
+     * 未被读取的行为（读取之后才提交的较小ID、或读取期间新到达的行为）继续保留在增量层中
+     */
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneAt < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPruneAt = now;
+        CoveredEvents matrixEvents = interactionMatrixService.current().coveredEvents();
+        CoveredEvents indexEvents = itemSimilarityService.coveredEvents();
+        if (matrixEvents == prunedUsers && indexEvents == prunedCooccurrence) {
+            return;
+        }
+        if (matrixEvents != prunedUsers) {
+            interactionOverlay.pruneUsers(eventId -> eventId == 0L || matrixEvents.covers(eventId));
+            prunedUsers = matrixEvents;
+        }
+        if (indexEvents != prunedCooccurrence) {
+            interactionOverlay.pruneCooccurrence(eventId -> eventId == 0L || indexEvents.covers(eventId));
+            prunedCooccurrence = indexEvents;
+        }
+        interactionOverlay.publish();
+    }
+}
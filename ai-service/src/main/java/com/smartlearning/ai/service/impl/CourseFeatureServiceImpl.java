@@ -0,0 +1,205 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+import com.smartlearning.ai.service.CourseFeatureService;
+import com.smartlearning.common.feign.CourseServiceClient;
+import com.smartlearning.common.result.Result;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程内容特征索引服务实现
+ * <p>
+ * 特征：分类、难度、标签（Course.tags，逗号分隔）、讲师、价格区间。
+ * 课程详情通过 {@link CourseServiceClient#getCoursesByIds} 分批批量拉取，不在推荐请求中逐门调用。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseFeatureServiceImpl implements CourseFeatureService {
+
+    private final CourseServiceClient courseServiceClient;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile CourseFeatureIndex index = CourseFeatureIndex.empty();
+
+    /**
+     * 各课程的原始特征，增量刷新时覆盖变更课程后整体重建索引（IDF 依赖全量文档频率）
+     */
+    private Map<Long, List<String>> courseFeatures = new HashMap<>();
+
+    /**
+     * 课程ID -> 分类ID，随索引一起替换
+     */
+    private volatile Map<Long, Long> courseCategories = Map.of();
+
+    /**
+     * 上次成功刷新的开始时间
+     */
+    private LocalDateTime lastRefreshTime;
+
+    @Value("${ai.recommendation.content-based.batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public CourseFeatureIndex current() {
+        return index;
+    }
+
+    @Override
+    public Map<Long, Long> courseCategories() {
+        return courseCategories;
+    }
+
+    @Override
+    public CourseFeatureIndex refresh() {
+        return doRefresh(true);
+    }
+
+    @Override
+    public CourseFeatureIndex refreshIncremental() {
+        return doRefresh(index.isEmpty());
+    }
+
+    private CourseFeatureIndex doRefresh(boolean full) {
+        if (!refreshLock.tryLock()) {
+            log.info("课程特征索引正在刷新中，跳过本次请求");
+            return index;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime refreshTime = LocalDateTime.now();
+
+            List<Long> courseIds = unwrap(courseServiceClient.getCourseIdsUpdatedSince(full ? null : lastRefreshTime));
+            if (courseIds == null) {
+                log.warn("获取课程ID失败，保留当前课程特征索引");
+                return index;
+            }
+            if (!full && courseIds.isEmpty()) {
+                lastRefreshTime = refreshTime;
+                return index;
+            }
+
+            Map<Long, List<String>> features = full ? new HashMap<>() : new HashMap<>(courseFeatures);
+            for (int from = 0; from < courseIds.size(); from += batchSize) {
+                List<Long> batch = courseIds.subList(from, Math.min(from + batchSize, courseIds.size()));
+                List<Map<String, Object>> courses = unwrap(courseServiceClient.getCoursesByIds(batch));
+                if (courses == null) {
+                    log.warn("批量获取课程失败，保留当前课程特征索引: batchStart={}", from);
+                    return index;
+                }
+                for (Map<String, Object> course : courses) {
+                    Object id = course.get("id");
+                    if (id instanceof Number) {
+                        features.put(((Number) id).longValue(), extractFeatures(course));
+                    }
+                }
+            }
+
+            CourseFeatureIndex.Builder builder = CourseFeatureIndex.builder();
+            features.forEach(builder::add);
+            CourseFeatureIndex rebuilt = builder.build();
+
+            courseFeatures = features;
+            lastRefreshTime = refreshTime;
+            courseCategories = extractCategories(features);
+            index = rebuilt;
+            log.info("课程特征索引{}刷新完成: 拉取课程={}, 索引课程={}, 特征数={}, 耗时={}ms",
+                    full ? "全量" : "增量", courseIds.size(), rebuilt.courseCount(), rebuilt.featureCount(),
+                    System.currentTimeMillis() - start);
+            return rebuilt;
+        } catch (Exception e) {
+            log.error("课程特征索引刷新失败", e);
+            return index;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 服务启动后异步全量加载
+     */
+    @Async("aiTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    private List<String> extractFeatures(Map<String, Object> course) {
+        List<String> features = new ArrayList<>();
+        if (course.get("categoryId") != null) {
+            features.add("cat:" + course.get("categoryId"));
+        }
+        if (course.get("difficulty") != null) {
+            features.add("diff:" + course.get("difficulty"));
+        }
+        if (course.get("teacherId") != null) {
+            features.add("teacher:" + course.get("teacherId"));
+        }
+        Object tags = course.get("tags");
+        if (tags instanceof String && StringUtils.hasText((String) tags)) {
+            for (String tag : ((String) tags).split("[,，]")) {
+                if (StringUtils.hasText(tag)) {
+                    features.add("tag:" + tag.trim().toLowerCase());
+                }
+            }
+        }
+        features.add("price:" + priceBucket(course));
+        return features;
+    }
+
+    private static Map<Long, Long> extractCategories(Map<Long, List<String>> features) {
+        Map<Long, Long> categories = new HashMap<>(features.size() * 2);
+        features.forEach((courseId, courseFeatures) -> {
+            for (String feature : courseFeatures) {
+                if (feature.startsWith("cat:")) {
+                    try {
+                        categories.put(courseId, Long.parseLong(feature.substring(4)));
+                    } catch (NumberFormatException ignored) {
+                        // 非数字分类不参与分类排行
+                    }
+                    break;
+                }
+            }
+        });
+        return Collections.unmodifiableMap(categories);
+    }
+
+    private static String priceBucket(Map<String, Object> course) {
+        Object isFree = course.get("isFree");
+        Object price = course.get("price");
+        double value = price instanceof Number ? ((Number) price).doubleValue() : 0.0;
+        if (Integer.valueOf(1).equals(isFree) || value <= 0) {
+            return "free";
+        }
+        if (value < 100) {
+            return "0-100";
+        }
+        if (value < 300) {
+            return "100-300";
+        }
+        if (value < 1000) {
+            return "300-1000";
+        }
+        return "1000+";
+    }
+
+    private static <T> T unwrap(Result<T> result) {
+        return result != null && result.isSuccess() ? result.getData() : null;
+    }
+}
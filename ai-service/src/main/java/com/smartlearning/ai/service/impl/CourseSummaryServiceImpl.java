@@ -0,0 +1,293 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.dto.CourseSummary;
+import com.smartlearning.ai.service.CourseSummaryService;
+import com.smartlearning.common.feign.CourseServiceClient;
+import com.smartlearning.common.result.Result;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 课程摘要服务实现
+ * <p>
+ * 本地缓存按条目过期（TTL），超过刷新阈值的条目仍直接返回，同时在 aiTaskExecutor 上批量预刷新；
+ * 并发请求未命中同一课程时共享同一次在途加载（请求合并），一次请求的全部未命中课程合并为一次批量调用。
+ * 课程服务确认不存在的课程缓存为短期空条目（墓碑），期间不再远程查询，结果中也不包含这些课程。
+ * 缓存超过容量上限时按加载时间淘汰最旧的条目。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseSummaryServiceImpl implements CourseSummaryService {
+
+    private final CourseServiceClient courseServiceClient;
+    @Qualifier("aiTaskExecutor")
+    private final Executor aiTaskExecutor;
+
+    private final Map<Long, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<CourseSummary>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder remoteCalls = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    @Value("${ai.course-summary.max-size:10000}")
+    private int maxSize;
+
+    @Value("${ai.course-summary.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${ai.course-summary.missing-ttl-seconds:60}")
+    private long missingTtlSeconds;
+
+    @Value("${ai.course-summary.refresh-ahead-ratio:0.8}")
+    private double refreshAheadRatio;
+
+    @Value("${ai.course-summary.batch-size:200}")
+    private int batchSize;
+
+    @Value("${ai.course-summary.load-timeout-ms:3000}")
+    private long loadTimeoutMs;
+
+    @Override
+    public Map<Long, CourseSummary> getSummaries(Collection<Long> courseIds) {
+        long now = System.currentTimeMillis();
+        long ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        long refreshAfterMillis = (long) (ttlMillis * refreshAheadRatio);
+        long missingTtlMillis = TimeUnit.SECONDS.toMillis(missingTtlSeconds);
+
+        Map<Long, CourseSummary> result = new HashMap<>();
+        Map<Long, CompletableFuture<CourseSummary>> waiting = new HashMap<>();
+        List<Long> toLoad = new ArrayList<>();
+        List<Long> toRefresh = new ArrayList<>();
+
+        for (Long courseId : new LinkedHashSet<>(courseIds)) {
+            Entry entry = cache.get(courseId);
+            long age = entry != null ? now - entry.loadedAt : Long.MAX_VALUE;
+            if (entry != null && entry.summary == null && age < missingTtlMillis) {
+                // 墓碑：课程不存在
+                hits.increment();
+                continue;
+            }
+            if (entry != null && entry.summary != null && age < ttlMillis) {
+                hits.increment();
+                result.put(courseId, entry.summary);
+                if (age >= refreshAfterMillis && entry.refreshing.compareAndSet(false, true)) {
+                    toRefresh.add(courseId);
+                }
+                continue;
+            }
+
+            // 未命中或已过期：已有在途加载则等待其结果，否则由本请求负责加载
+            misses.increment();
+            CompletableFuture<CourseSummary> created = new CompletableFuture<>();
+            CompletableFuture<CourseSummary> existing = inFlight.putIfAbsent(courseId, created);
+            if (existing == null) {
+                toLoad.add(courseId);
+                waiting.put(courseId, created);
+            } else {
+                waiting.put(courseId, existing);
+            }
+        }
+
+        if (!toLoad.isEmpty()) {
+            load(toLoad);
+        }
+        waiting.forEach((courseId, future) -> {
+            try {
+                CourseSummary summary = future.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+                if (summary != null) {
+                    result.put(courseId, summary);
+                }
+            } catch (Exception e) {
+                log.debug("等待课程摘要加载失败: courseId={}", courseId);
+            }
+        });
+        if (!toRefresh.isEmpty()) {
+            refreshAsync(toRefresh);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.put("size", cache.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("remoteCalls", remoteCalls.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    /**
+     * 同步加载并完成对应的在途加载，失败时等待方得到空结果
+     */
+    private void load(List<Long> courseIds) {
+        Map<Long, CourseSummary> loaded = Map.of();
+        try {
+            loaded = fetch(courseIds);
+            put(courseIds, loaded);
+        } catch (Exception e) {
+            log.warn("批量获取课程摘要失败: courseIds={}, 原因={}", courseIds.size(), e.getMessage());
+        } finally {
+            for (Long courseId : courseIds) {
+                CompletableFuture<CourseSummary> future = inFlight.remove(courseId);
+                if (future != null) {
+                    future.complete(loaded.get(courseId));
+                }
+            }
+        }
+    }
+
+    /**
+     * 预刷新即将过期的条目，期间读取方继续使用旧值
+     */
+    private void refreshAsync(List<Long> courseIds) {
+        try {
+            aiTaskExecutor.execute(() -> {
+                try {
+                    refreshes.increment();
+                    put(courseIds, fetch(courseIds));
+                } catch (Exception e) {
+                    log.warn("预刷新课程摘要失败: courseIds={}, 原因={}", courseIds.size(), e.getMessage());
+                } finally {
+                    // 未被新条目替换的旧条目允许下次再触发刷新
+                    courseIds.forEach(courseId -> {
+                        Entry entry = cache.get(courseId);
+                        if (entry != null) {
+                            entry.refreshing.set(false);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            courseIds.forEach(courseId -> {
+                Entry entry = cache.get(courseId);
+                if (entry != null) {
+                    entry.refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    private Map<Long, CourseSummary> fetch(List<Long> courseIds) {
+        Map<Long, CourseSummary> summaries = new HashMap<>();
+        for (int from = 0; from < courseIds.size(); from += batchSize) {
+            List<Long> batch = courseIds.subList(from, Math.min(from + batchSize, courseIds.size()));
+            remoteCalls.increment();
+            Result<List<Map<String, Object>>> response = courseServiceClient.getCoursesByIds(batch);
+            if (response == null || !response.isSuccess()) {
+                throw new IllegalStateException("课程服务返回失败");
+            }
+            if (response.getData() == null) {
+                continue;
+            }
+            for (Map<String, Object> course : response.getData()) {
+                CourseSummary summary = toSummary(course);
+                if (summary != null) {
+                    summaries.put(summary.getCourseId(), summary);
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * 写入本次查询的结果，课程服务未返回的课程写入墓碑
+     */
+    private void put(List<Long> requested, Map<Long, CourseSummary> summaries) {
+        long now = System.currentTimeMillis();
+        for (Long courseId : requested) {
+            cache.put(courseId, new Entry(summaries.get(courseId), now));
+        }
+        if (cache.size() > maxSize) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * 淘汰最旧的条目，保留容量上限的90%，避免每次写入都触发淘汰
+     */
+    private void evictOldest() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = cache.size() - maxSize * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().loadedAt))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(cache::remove);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static CourseSummary toSummary(Map<String, Object> course) {
+        Object id = course.get("id");
+        if (!(id instanceof Number)) {
+            return null;
+        }
+        CourseSummary summary = new CourseSummary();
+        summary.setCourseId(((Number) id).longValue());
+        summary.setTitle((String) course.get("title"));
+        summary.setDescription((String) course.get("description"));
+        summary.setCoverImage((String) course.get("coverImage"));
+        summary.setTeacherName((String) course.get("teacherName"));
+        summary.setPrice(toDouble(course.get("price")));
+        summary.setRating(toDouble(course.get("rating")));
+        Object studentCount = course.get("studentCount");
+        summary.setStudentCount(studentCount instanceof Number ? ((Number) studentCount).intValue() : null);
+        return summary;
+    }
+
+    private static Double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    /**
+     * 缓存条目，摘要为 null 表示课程不存在
+     */
+    private static final class Entry {
+
+        private final CourseSummary summary;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(CourseSummary summary, long loadedAt) {
+            this.summary = summary;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.service.ExperimentService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 推荐A/B实验服务实现
+ * <p>
+ * 分桶：对 (实验名, 用户ID) 做 64 位混合哈希后取模 10000，按各变体权重的累计区间落桶，
+ * 修改实验名即重新打散分桶。计数使用 LongAdder 无锁累加；刷写时取 sum 与上次已刷写值之差，
+ * 通过管道 HINCRBY 到 {@code experiment:{实验名}:{yyyyMMdd}}，字段为 {@code 变体:指标}。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExperimentServiceImpl implements ExperimentService {
+
+    private static final String KEY_PREFIX = "experiment:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int BUCKETS = 10000;
+
+    private static final String IMPRESSIONS = "impressions";
+    private static final String CLICKS = "clicks";
+    private static final String CONVERSIONS = "conversions";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${ai.recommendation.experiment.name:default}")
+    private String experimentName;
+
+    /**
+     * 变体及权重，格式：变体:权重,变体:权重
+     */
+    @Value("${ai.recommendation.experiment.variants:hybrid:100}")
+    private String variantsConfig;
+
+    @Value("${ai.recommendation.experiment.retention-days:90}")
+    private int retentionDays;
+
+    private String[] variants;
+    private int[] bucketUpperBounds;
+    private Map<String, VariantCounters> counters;
+    private long nameSalt;
+
+    @PostConstruct
+    public void init() {
+        List<String> names = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String part : variantsConfig.split(",")) {
+            String[] pair = part.trim().split(":");
+            names.add(pair[0].trim());
+            weights.add(pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1);
+        }
+        int total = weights.stream().mapToInt(Integer::intValue).sum();
+
+        variants = names.toArray(new String[0]);
+        bucketUpperBounds = new int[variants.length];
+        counters = new LinkedHashMap<>();
+        int cumulative = 0;
+        for (int i = 0; i < variants.length; i++) {
+            cumulative += weights.get(i);
+            bucketUpperBounds[i] = (int) ((long) cumulative * BUCKETS / total);
+            counters.put(variants[i], new VariantCounters());
+        }
+        nameSalt = experimentName.hashCode();
+        log.info("推荐实验已加载: name={}, variants={}", experimentName, variantsConfig);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public String assignVariant(Long userId) {
+        int bucket = (int) Math.floorMod(mix(userId ^ (nameSalt << 32)), (long) BUCKETS);
+        for (int i = 0; i < bucketUpperBounds.length; i++) {
+            if (bucket < bucketUpperBounds[i]) {
+                return variants[i];
+            }
+        }
+        return variants[variants.length - 1];
+    }
+
+    @Override
+    public void recordImpressions(Long userId, String servedVariant, int count) {
+        VariantCounters counter = attributed(userId, servedVariant);
+        if (counter != null && count > 0) {
+            counter.impressions.add(count);
+        }
+    }
+
+    @Override
+    public void recordClick(Long userId, String servedVariant) {
+        VariantCounters counter = attributed(userId, servedVariant);
+        if (counter != null) {
+            counter.clicks.increment();
+        }
+    }
+
+    @Override
+    public void recordConversion(Long userId, String servedVariant) {
+        VariantCounters counter = attributed(userId, servedVariant);
+        if (counter != null) {
+            counter.conversions.increment();
+        }
+    }
+
+    /**
+     * 实际提供的算法即用户所在变体时返回该变体的计数器，否则不计入实验
+     */
+    private VariantCounters attributed(Long userId, String servedVariant) {
+        String variant = assignVariant(userId);
+        return variant.equals(servedVariant) ? counters.get(variant) : null;
+    }
+
+    @Override
+    public synchronized void flush() {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        counters.forEach((variant, counter) -> {
+            putDelta(deltas, variant + ":" + IMPRESSIONS, counter.impressions, counter.flushed, 0);
+            putDelta(deltas, variant + ":" + CLICKS, counter.clicks, counter.flushed, 1);
+            putDelta(deltas, variant + ":" + CONVERSIONS, counter.conversions, counter.flushed, 2);
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        String key = dayKey(LocalDate.now());
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    deltas.forEach((field, delta) -> operations.opsForHash().increment(key, field, delta));
+                    operations.expire(key, retentionDays, TimeUnit.DAYS);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 刷写失败时回退已刷写值，下次刷写重试
+            counters.forEach((variant, counter) -> {
+                counter.flushed[0] -= deltas.getOrDefault(variant + ":" + IMPRESSIONS, 0L);
+                counter.flushed[1] -= deltas.getOrDefault(variant + ":" + CLICKS, 0L);
+                counter.flushed[2] -= deltas.getOrDefault(variant + ":" + CONVERSIONS, 0L);
+            });
+            log.warn("推荐实验指标刷写失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats(int days) {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        counters.keySet().forEach(variant -> totals.put(variant, new long[3]));
+
+        LocalDate today = LocalDate.now();
+        for (int d = 0; d < days; d++) {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(dayKey(today.minusDays(d)));
+            fields.forEach((field, value) -> {
+                String[] parts = String.valueOf(field).split(":");
+                long[] total = totals.computeIfAbsent(parts[0], key -> new long[3]);
+                long count = value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+                switch (parts.length > 1 ? parts[1] : "") {
+                    case IMPRESSIONS -> total[0] += count;
+                    case CLICKS -> total[1] += count;
+                    case CONVERSIONS -> total[2] += count;
+                    default -> { }
+                }
+            });
+        }
+        // 加上尚未刷写的内存增量
+        synchronized (this) {
+            counters.forEach((variant, counter) -> {
+                long[] total = totals.get(variant);
+                total[0] += counter.impressions.sum() - counter.flushed[0];
+                total[1] += counter.clicks.sum() - counter.flushed[1];
+                total[2] += counter.conversions.sum() - counter.flushed[2];
+            });
+        }
+
+        List<Map<String, Object>> variantStats = new ArrayList<>();
+        totals.forEach((variant, total) -> {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("variant", variant);
+            stat.put("impressions", total[0]);
+            stat.put("clicks", total[1]);
+            stat.put("conversions", total[2]);
+            stat.put("ctr", total[0] == 0 ? 0.0 : (double) total[1] / total[0]);
+            stat.put("conversion_rate", total[0] == 0 ? 0.0 : (double) total[2] / total[0]);
+            variantStats.add(stat);
+        });
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("experiment", experimentName);
+        stats.put("variants", variantsConfig);
+        stats.put("variant_stats", variantStats);
+        return stats;
+    }
+
+    private String dayKey(LocalDate day) {
+        return KEY_PREFIX + experimentName + ":" + day.format(DAY_FORMAT);
+    }
+
+    private static void putDelta(Map<String, Long> deltas, String field, LongAdder adder, long[] flushed, int slot) {
+        long current = adder.sum();
+        long delta = current - flushed[slot];
+        if (delta > 0) {
+            deltas.put(field, delta);
+            flushed[slot] = current;
+        }
+    }
+
+    /**
+     * SplitMix64 混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 单个变体的计数器；flushed 为已刷写到Redis的累计值（仅在持有服务锁时读写）
+     */
+    private static final class VariantCounters {
+
+        private final LongAdder impressions = new LongAdder();
+        private final LongAdder clicks = new LongAdder();
+        private final LongAdder conversions = new LongAdder();
+        private final long[] flushed = new long[3];
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.CoveredEvents;
+import com.smartlearning.ai.algorithm.InteractionOverlay;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户-课程交互矩阵服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InteractionMatrixServiceImpl implements InteractionMatrixService {
+
+    private final UserBehaviorMapper userBehaviorMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final InteractionOverlay interactionOverlay;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile SparseInteractionMatrix matrix = SparseInteractionMatrix.empty();
+
+    @Value("${ai.recommendation.matrix.min-interactions:1}")
+    private int minInteractions;
+
+    @Value("${ai.recommendation.matrix.expected-size:1000000}")
+    private int expectedSize;
+
+    @Override
+    public SparseInteractionMatrix current() {
+        return matrix;
+    }
+
+    @Override
+    public boolean isReady() {
+        return !matrix.isEmpty();
+    }
+
+    @Override
+    public SparseInteractionMatrix rebuild() {
+        if (!rebuildLock.tryLock()) {
+            log.info("交互矩阵正在重建中，跳过本次请求");
+            return matrix;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            SparseInteractionMatrix.Builder builder = SparseInteractionMatrix.builder(expectedSize);
+
+            // 高水位、矩阵数据和已读取的行为ID在同一个可重复读快照中查询，保证三者一致
+            TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+            snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            snapshot.setReadOnly(true);
+            SparseInteractionMatrix rebuilt = snapshot.execute(status -> read(builder));
+            matrix = rebuilt;
+
+            log.info("交互矩阵重建完成: users={}, courses={}, nnz={}, coveredId={}, 记录行为ID={}, 耗时={}ms",
+                    rebuilt.userCount(), rebuilt.courseCount(), rebuilt.nonZeroCount(), rebuilt.coveredId(),
+                    rebuilt.coveredEvents().size(), System.currentTimeMillis() - start);
+
+            // 通知依赖矩阵行号的派生索引（如相似用户索引）同步重建
+            eventPublisher.publishEvent(rebuilt);
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 先捕获高水位并只读取此前的行为；再记录实时增量层仍可能持有的区间内实际读到的行为ID，
+     * 增量层只移除这些行为，读取时尚未提交的较小ID会继续保留
+     */
+    private SparseInteractionMatrix read(SparseInteractionMatrix.Builder builder) {
+        Long maxId = userBehaviorMapper.selectMaxId();
+        long coveredId = maxId != null ? maxId : 0L;
+        userBehaviorMapper.streamUserCourseMatrix(minInteractions, coveredId, context -> {
+            Map<String, Object> row = context.getResultObject();
+            Number userId = (Number) row.get("user_id");
+            Number courseId = (Number) row.get("course_id");
+            if (userId == null || courseId == null) {
+                return;
+            }
+            builder.add(userId.longValue(), courseId.longValue(),
+                    toFloat(row.get("interaction_count"), 1f),
+                    toFloat(row.get("avg_rating"), UserBehaviorMapper.DEFAULT_RATING));
+        });
+
+        // 读取期间写入增量层的行为也计入区间，增量层为空时区间为空
+        long floor = Math.min(coveredId, interactionOverlay.minEventId() - 1);
+        List<Long> ids = userBehaviorMapper.selectCourseBehaviorIdsBetween(floor, coveredId);
+        long[] eventIds = ids.stream().mapToLong(Long::longValue).toArray();
+        return builder.build(coveredId, CoveredEvents.of(eventIds, floor));
+    }
+
+    /**
+     * 服务启动后异步加载矩阵，加载完成前推荐请求走数据库路径
+     */
+    @Async("aiTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("启动时加载交互矩阵失败", e);
+        }
+    }
+
+    private static float toFloat(Object value, float defaultValue) {
+        return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+    }
+}
@@ -0,0 +1,233 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.CoveredEvents;
+import com.smartlearning.ai.algorithm.ItemSimilarityBuilder;
+import com.smartlearning.ai.algorithm.ItemSimilarityIndex;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.ItemSimilarityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程相似度索引服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemSimilarityServiceImpl implements ItemSimilarityService {
+
+    private static final String SNAPSHOT_FILE = "item-similarity.bin";
+
+    private final InteractionMatrixService interactionMatrixService;
+    private final UserBehaviorMapper userBehaviorMapper;
+    private final ForkJoinPool modelBuildPool;
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private volatile ItemSimilarityIndex index = ItemSimilarityIndex.empty();
+
+    /**
+     * 当前索引覆盖到的行为ID高水位，增量重建从该ID之后查找新交互
+     */
+    private volatile long coveredId;
+
+    /**
+     * 索引已计入的行为ID：全量构建取矩阵读取到的ID；增量构建只追加高水位之后的ID，
+     * 更早但迟提交的行为所涉及的课程未被重算，留待下次全量构建
+     */
+    private volatile CoveredEvents coveredEvents = CoveredEvents.none();
+
+    @Value("${ai.recommendation.item-similarity.top-k:50}")
+    private int topK;
+
+    @Value("${ai.recommendation.item-similarity.min-common-users:2}")
+    private int minCommonUsers;
+
+    @Value("${ai.recommendation.item-similarity.min-similarity:0.05}")
+    private float minSimilarity;
+
+    @Value("${ai.recommendation.item-similarity.max-user-interactions:500}")
+    private int maxUserInteractions;
+
+    @Value("${ai.recommendation.model.dir:data/model}")
+    private String modelDir;
+
+    @Override
+    public ItemSimilarityIndex current() {
+        return index;
+    }
+
+    @Override
+    public CoveredEvents coveredEvents() {
+        return coveredEvents;
+    }
+
+    @Override
+    public ItemSimilarityIndex rebuild() {
+        buildLock.lock();
+        try {
+            SparseInteractionMatrix matrix = interactionMatrixService.current();
+            if (matrix.isEmpty()) {
+                log.warn("交互矩阵尚未加载，跳过课程相似度索引构建");
+                return index;
+            }
+
+            long start = System.currentTimeMillis();
+            ItemSimilarityIndex rebuilt = newBuilder().build(matrix, modelBuildPool);
+            writeSnapshot(rebuilt);
+            index = rebuilt;
+            coveredId = matrix.coveredId();
+            coveredEvents = matrix.coveredEvents();
+
+            log.info("课程相似度索引全量构建完成: courses={}, entries={}, 耗时={}ms",
+                    rebuilt.courseCount(), rebuilt.entryCount(), System.currentTimeMillis() - start);
+            return rebuilt;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    @Override
+    public ItemSimilarityIndex rebuildIncremental() {
+        if (index.isEmpty() || coveredId <= 0) {
+            return rebuild();
+        }
+        buildLock.lock();
+        try {
+            SparseInteractionMatrix matrix = interactionMatrixService.current();
+            if (matrix.coveredId() <= coveredId) {
+                return index;
+            }
+
+            long start = System.currentTimeMillis();
+            List<Long> touchedCourses = userBehaviorMapper.selectCoursesTouchedBetween(coveredId, matrix.coveredId());
+            int[] rows = affectedRows(matrix, touchedCourses);
+            if (rows.length == 0) {
+                coveredEvents = coveredEvents.merge(matrix.coveredEvents(), coveredId);
+                coveredId = matrix.coveredId();
+                return index;
+            }
+
+            ItemSimilarityIndex updated = index.merge(newBuilder().buildRows(matrix, rows, modelBuildPool));
+            writeSnapshot(updated);
+            index = updated;
+            coveredEvents = coveredEvents.merge(matrix.coveredEvents(), coveredId);
+            coveredId = matrix.coveredId();
+
+            log.info("课程相似度索引增量更新完成: 新交互课程={}, 重算行数={}, 耗时={}ms",
+                    touchedCourses.size(), rows.length, System.currentTimeMillis() - start);
+            return updated;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 服务启动后加载最近一次的索引快照
+     */
+    @Async("aiTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshotOnStartup() {
+        Path snapshot = Paths.get(modelDir, SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            log.info("未找到课程相似度索引快照，等待下次构建: {}", snapshot);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            ItemSimilarityIndex loaded = ItemSimilarityIndex.readFrom(in);
+            index = loaded;
+            coveredId = loaded.coveredId();
+            log.info("课程相似度索引快照加载完成: courses={}, entries={}", loaded.courseCount(), loaded.entryCount());
+        } catch (IOException e) {
+            log.error("课程相似度索引快照加载失败: {}", snapshot, e);
+        }
+    }
+
+    private ItemSimilarityBuilder newBuilder() {
+        return new ItemSimilarityBuilder(topK, minCommonUsers, minSimilarity, maxUserInteractions);
+    }
+
+    /**
+     * 需要重算的行：有新交互的课程本身、与这些课程存在共同用户的课程（新交互改变了与它们的相似度，
+     * 也可能让它们首次成为邻居），以及旧邻居列表中包含这些课程的课程
+     * <p>
+     * 重度用户的交互课程也计入：用户可能因本次新交互才超过阈值，此前由其贡献的共现需要一并撤销。
+     */
+    private int[] affectedRows(SparseInteractionMatrix matrix, List<Long> touchedCourses) {
+        boolean[] affected = new boolean[matrix.courseCount()];
+        long[] touched = touchedCourses.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long courseId : touched) {
+            int c = matrix.courseIndex(courseId);
+            if (c < 0) {
+                continue;
+            }
+            affected[c] = true;
+            for (int q = matrix.colStart(c), qEnd = matrix.colEnd(c); q < qEnd; q++) {
+                int user = matrix.colUser(q);
+                for (int p = matrix.rowStart(user), pEnd = matrix.rowEnd(user); p < pEnd; p++) {
+                    affected[matrix.rowCourse(p)] = true;
+                }
+            }
+        }
+        ItemSimilarityIndex current = index;
+        for (int i = 0; i < current.courseCount(); i++) {
+            for (int p = current.start(i), end = current.end(i); p < end; p++) {
+                if (Arrays.binarySearch(touched, current.neighborId(p)) >= 0) {
+                    int c = matrix.courseIndex(current.courseId(i));
+                    if (c >= 0) {
+                        affected[c] = true;
+                    }
+                    break;
+                }
+            }
+        }
+
+        int count = 0;
+        int[] rows = new int[affected.length];
+        for (int c = 0; c < affected.length; c++) {
+            if (affected[c]) {
+                rows[count++] = c;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免读取到写了一半的快照
+     */
+    private void writeSnapshot(ItemSimilarityIndex snapshotIndex) {
+        Path dir = Paths.get(modelDir);
+        Path target = dir.resolve(SNAPSHOT_FILE);
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                snapshotIndex.writeTo(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("课程相似度索引快照写入失败: {}", target, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.AlsModel;
+import com.smartlearning.ai.algorithm.AlsTrainer;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.MatrixFactorizationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 矩阵分解（ALS）模型服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatrixFactorizationServiceImpl implements MatrixFactorizationService {
+
+    private static final String FACTOR_FILE = "als-factors.bin";
+
+    private final InteractionMatrixService interactionMatrixService;
+    private final ForkJoinPool modelBuildPool;
+
+    private final ReentrantLock trainLock = new ReentrantLock();
+
+    private volatile AlsModel model = AlsModel.empty();
+
+    @Value("${ai.recommendation.als.factors:32}")
+    private int factors;
+
+    @Value("${ai.recommendation.als.regularization:0.1}")
+    private double regularization;
+
+    @Value("${ai.recommendation.als.alpha:10}")
+    private double alpha;
+
+    @Value("${ai.recommendation.als.iterations:10}")
+    private int iterations;
+
+    @Value("${ai.recommendation.als.max-training-minutes:50}")
+    private long maxTrainingMinutes;
+
+    @Value("${ai.recommendation.model.dir:data/model}")
+    private String modelDir;
+
+    @Override
+    public AlsModel current() {
+        return model;
+    }
+
+    @Override
+    public AlsModel train() {
+        if (!trainLock.tryLock()) {
+            log.info("ALS模型正在训练中，跳过本次请求");
+            return model;
+        }
+        try {
+            SparseInteractionMatrix matrix = interactionMatrixService.current();
+            if (matrix.isEmpty()) {
+                log.warn("交互矩阵尚未加载，跳过ALS模型训练");
+                return model;
+            }
+
+            long start = System.currentTimeMillis();
+            long deadline = start + TimeUnit.MINUTES.toMillis(maxTrainingMinutes);
+            AlsTrainer trainer = new AlsTrainer(factors, regularization, alpha, iterations, matrix.builtAt());
+            AlsModel trained = trainer.train(matrix, modelBuildPool, deadline);
+            if (trained.iterations() < iterations) {
+                log.warn("ALS训练达到时间上限，提前结束: 完成迭代={}/{}", trained.iterations(), iterations);
+            }
+
+            model = persistAndMap(trained);
+            log.info("ALS模型训练完成: users={}, courses={}, factors={}, iterations={}, 耗时={}ms",
+                    trained.userCount(), trained.courseCount(), factors, trained.iterations(),
+                    System.currentTimeMillis() - start);
+            return model;
+        } finally {
+            trainLock.unlock();
+        }
+    }
+
+    /**
+     * 服务启动后映射加载最近一次训练的因子文件
+     */
+    @Async("aiTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Path file = Paths.get(modelDir, FACTOR_FILE);
+        if (!Files.exists(file)) {
+            log.info("未找到ALS因子文件，等待下次训练: {}", file);
+            return;
+        }
+        try {
+            AlsModel loaded = AlsModel.map(file);
+            model = loaded;
+            log.info("ALS因子文件加载完成: users={}, courses={}, factors={}",
+                    loaded.userCount(), loaded.courseCount(), loaded.factors());
+        } catch (IOException e) {
+            log.error("ALS因子文件加载失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，然后以内存映射方式重新加载；写入失败时继续使用堆内模型
+     */
+    private AlsModel persistAndMap(AlsModel trained) {
+        Path dir = Paths.get(modelDir);
+        Path target = dir.resolve(FACTOR_FILE);
+        Path tmp = dir.resolve(FACTOR_FILE + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            trained.writeTo(tmp);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return AlsModel.map(target);
+        } catch (IOException e) {
+            log.error("ALS因子文件写入失败: {}", target, e);
+            return trained;
+        }
+    }
+}
@@ -1,8 +1,30 @@
 package com.smartlearning.ai.service.impl;
 
+import com.smartlearning.ai.algorithm.AlsModel;
+import com.smartlearning.ai.algorithm.CosineSimilarity;
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+import com.smartlearning.ai.algorithm.InteractionOverlay;
+import com.smartlearning.ai.algorithm.ItemSimilarityIndex;
+import com.smartlearning.ai.algorithm.ScoreAccumulator;
+import com.smartlearning.ai.algorithm.ScoringKernel;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.algorithm.TopKHeap;
+import com.smartlearning.ai.dto.PrecomputedRecommendations;
+import com.smartlearning.ai.dto.ScoredCourse;
 import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.rerank.RerankContext;
+import com.smartlearning.ai.rerank.RerankPipeline;
+import com.smartlearning.ai.service.CourseFeatureService;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.ItemSimilarityService;
+import com.smartlearning.ai.service.MatrixFactorizationService;
+import com.smartlearning.ai.service.RecommendationStoreService;
+import com.smartlearning.ai.service.SeenCourseService;
+import com.smartlearning.ai.service.SimilarUserIndexService;
+import com.smartlearning.ai.service.TrendingService;
 import com.smartlearning.ai.service.RecommendationAlgorithmService;
 import com.smartlearning.common.feign.CourseServiceClient;
+import com.smartlearning.common.result.Result;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,8 +34,11 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 /**
@@ -24,9 +49,54 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RecommendationAlgorithmServiceImpl implements RecommendationAlgorithmService {
 
+    /**
+     * 相似用户的最少共同课程数
+     */
+    private static final int SIMILAR_USER_MIN_COMMON = 2;
+
+    /**
+     * 参与打分的相似用户数量上限
+     */
+    private static final int SIMILAR_USER_LIMIT = 20;
+
+    /**
+     * 实时共现折算相似度时的收缩系数，共现次数越少折算出的相似度越低
+     */
+    private static final double REALTIME_COOCCURRENCE_SHRINK = 5.0;
+
+    /**
+     * 推荐理由编码表，预计算列表只存编码（下标）
+     */
+    private static final List<String> REASONS = List.of("混合推荐算法", "协同过滤推荐", "与您学过的课程相似",
+            "基于您的学习偏好模型", "内容相似度推荐", "热门课程推荐");
+
+    /**
+     * 打分来源标记，混合推荐按标记生成推荐理由
+     */
+    private static final int SOURCE_COLLABORATIVE = 1;
+    private static final int SOURCE_ITEM = 1 << 1;
+    private static final int SOURCE_ALS = 1 << 2;
+    private static final int SOURCE_CONTENT = 1 << 3;
+
+    /**
+     * 清理推荐缓存时每次SCAN的数量及单条DEL的key数量上限
+     */
+    private static final int CACHE_DELETE_BATCH = 1000;
+
     private final UserBehaviorMapper userBehaviorMapper;
+    private final InteractionMatrixService interactionMatrixService;
+    private final ItemSimilarityService itemSimilarityService;
+    private final SimilarUserIndexService similarUserIndexService;
+    private final MatrixFactorizationService matrixFactorizationService;
+    private final CourseFeatureService courseFeatureService;
+    private final InteractionOverlay interactionOverlay;
     private final CourseServiceClient courseServiceClient;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ForkJoinPool modelBuildPool;
+    private final RecommendationStoreService recommendationStoreService;
+    private final TrendingService trendingService;
+    private final SeenCourseService seenCourseService;
+    private final RerankPipeline rerankPipeline;
 
     @Value("${recommendation.cache.ttl.hybrid:30}")
     private long hybridRecommendationTtl;
@@ -34,322 +104,631 @@ public class RecommendationAlgorithmServiceImpl implements RecommendationAlgorit
     @Value("${recommendation.cache.ttl.popular:60}")
     private long popularRecommendationTtl;
 
+    @Value("${ai.recommendation.hybrid.collaborative-weight:0.6}")
+    private double hybridCollaborativeWeight;
+
+    @Value("${ai.recommendation.hybrid.content-weight:0.4}")
+    private double hybridContentWeight;
+
+    @Value("${ai.recommendation.precompute.size:100}")
+    private int precomputeSize;
+
+    @Value("${ai.recommendation.precompute.active-days:30}")
+    private int precomputeActiveDays;
+
+    @Value("${ai.recommendation.precompute.chunk-size:1000}")
+    private int precomputeChunkSize;
+
+    @Value("${ai.recommendation.precompute.ttl-hours:26}")
+    private long precomputeTtlHours;
+
     @Override
-    public List<Map<String, Object>> collaborativeFiltering(Long userId, Integer count) {
+    public List<ScoredCourse> collaborativeFiltering(Long userId, Integer count) {
         log.info("执行协同过滤推荐: userId={}, count={}", userId, count);
 
-        // 1. 获取相似用户
-        List<Map<String, Object>> similarUsers = userBehaviorMapper.selectSimilarUsers(userId, 2, 20);
-        if (similarUsers.isEmpty()) {
+        ScoringKernel kernel = ScoringKernel.local();
+        boolean found = interactionMatrixService.isReady()
+                ? accumulateCollaborative(userId, 1.0, kernel.accumulator())
+                : accumulateCollaborativeFromDatabase(userId, 1.0, kernel.accumulator());
+        if (!found) {
             log.info("未找到相似用户，返回热门推荐");
-            return popularCourseRecommendation(count, null);
+            return rerank(userId, count, popularCourseRecommendation(count * 2, null));
         }
 
-        // 2. 获取用户已学习的课程
-        List<Long> learnedCourses = userBehaviorMapper.selectUserLearnedCourses(userId);
-        Set<Long> learnedCourseSet = new HashSet<>(learnedCourses);
+        // 与混合推荐一致：多取一倍候选，经同一重排流程过滤已学/已展示并多样化
+        long[] learned = interactedCourses(userId);
+        return rerank(userId, count, kernel.topK(count * 2, courseId -> Arrays.binarySearch(learned, courseId) >= 0,
+                flags -> "基于相似用户的学习偏好"));
+    }
 
-        // 3. 计算推荐分数
-        Map<Long, Double> courseScores = new HashMap<>();
+    /**
+     * 在内存矩阵中查找相似用户并累加其交互课程
+     *
+     * @return 是否找到相似用户
+     */
+    private boolean accumulateCollaborative(Long userId, double weight, ScoreAccumulator scores) {
+        SparseInteractionMatrix matrix = interactionMatrixService.current();
+
+        // LSH索引与当前矩阵一致时走近似检索，否则在矩阵上精确计算
+        int userIndex = matrix.userIndex(userId);
+        SparseInteractionMatrix.Neighbors neighbors = similarUserIndexService.neighbors(matrix, userIndex,
+                SIMILAR_USER_MIN_COMMON, SIMILAR_USER_LIMIT);
+        for (int i = 0; i < neighbors.size(); i++) {
+            double similarity = Math.min(1.0, neighbors.commonCount(i) / 10.0);
+            matrix.accumulateRow(neighbors.userIndex(i), weight * similarity, scores, SOURCE_COLLABORATIVE);
+        }
+        return neighbors.size() > 0;
+    }
+
+    /**
+     * 协同过滤（数据库路径），交互矩阵尚未加载时使用
+     */
+    private boolean accumulateCollaborativeFromDatabase(Long userId, double weight, ScoreAccumulator scores) {
+        List<Map<String, Object>> similarUsers = similarUserIndexService.findSimilarUsers(userId,
+                SIMILAR_USER_MIN_COMMON, SIMILAR_USER_LIMIT);
 
         for (Map<String, Object> similarUser : similarUsers) {
-            Long similarUserId = (Long) similarUser.get("user_id");
-            Integer commonCourses = (Integer) similarUser.get("common_courses");
+            Long similarUserId = ((Number) similarUser.get("user_id")).longValue();
+            int commonCourses = ((Number) similarUser.get("common_courses")).intValue();
 
             // 相似度权重
-            double similarity = Math.min(1.0, commonCourses / 10.0);
+            double similarity = weight * Math.min(1.0, commonCourses / 10.0);
 
             // 获取相似用户的课程交互数据
             List<Map<String, Object>> userInteractions = userBehaviorMapper.selectUserCourseInteractions(similarUserId);
-
             for (Map<String, Object> interaction : userInteractions) {
-                Long courseId = (Long) interaction.get("course_id");
+                long courseId = ((Number) interaction.get("course_id")).longValue();
+                double interactionCount = ((Number) interaction.get("interaction_count")).doubleValue();
+                double avgRating = ((Number) interaction.get("avg_rating")).doubleValue();
 
-                // 跳过已学习的课程
-                if (learnedCourseSet.contains(courseId)) {
-                    continue;
-                }
-
-                Integer interactionCount = (Integer) interaction.get("interaction_count");
-                Double avgRating = (Double) interaction.get("avg_rating");
-
-                // 计算推荐分数
-                double score = similarity * interactionCount * (avgRating / 5.0);
-                courseScores.merge(courseId, score, Double::sum);
+                scores.add(courseId, similarity * interactionCount * (avgRating / 5.0), SOURCE_COLLABORATIVE);
             }
         }
-
-        // 4. 排序并返回top N
-        return courseScores.entrySet().stream()
-                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(count)
-                .map(entry -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("course_id", entry.getKey());
-                    result.put("score", entry.getValue());
-                    result.put("reason", "基于相似用户的学习偏好");
-                    return result;
-                })
-                .collect(Collectors.toList());
+        return !similarUsers.isEmpty();
     }
 
     @Override
-    public List<Map<String, Object>> contentBasedRecommendation(Long userId, Integer count) {
+    public List<ScoredCourse> contentBasedRecommendation(Long userId, Integer count) {
         log.info("执行基于内容的推荐: userId={}, count={}", userId, count);
 
-        // 1. 获取用户的课程交互数据
-        List<Map<String, Object>> userInteractions = userBehaviorMapper.selectUserCourseInteractions(userId);
-        if (userInteractions.isEmpty()) {
-            return popularCourseRecommendation(count, null);
+        ScoringKernel kernel = ScoringKernel.local();
+        if (!accumulateContent(userId, 1.0, kernel.accumulator())) {
+            return rerank(userId, count, popularCourseRecommendation(count * 2, null));
         }
+        return rerank(userId, count, kernel.topK(count * 2, courseId -> false,
+                flags -> "基于您的学习偏好和课程内容相似度"));
+    }
 
-        // 2. 分析用户偏好
-        Map<String, Double> categoryPreferences = new HashMap<>();
-        Map<String, Double> difficultyPreferences = new HashMap<>();
-
-        for (Map<String, Object> interaction : userInteractions) {
-            Long courseId = (Long) interaction.get("course_id");
-            Double avgRating = (Double) interaction.get("avg_rating");
-            Integer interactionCount = (Integer) interaction.get("interaction_count");
+    /**
+     * 基于内容的打分：用户交互过的课程按偏好加权合成画像，在课程特征索引上做点积
+     *
+     * @return 是否得到有效的用户画像
+     */
+    private boolean accumulateContent(Long userId, double weight, ScoreAccumulator scores) {
+        CourseFeatureIndex index = courseFeatureService.current();
+        if (index.isEmpty()) {
+            return false;
+        }
 
-            // 获取课程信息（通过Feign调用课程服务）
-            // 这里简化处理，实际应该调用课程服务获取课程详情
-            // 基于评分和交互次数计算偏好权重
-            double weight = avgRating * Math.log(interactionCount + 1);
+        // 1. 获取用户的课程交互数据，偏好权重 = 评分 * ln(交互次数 + 1)
+        long[] interacted;
+        double[] preferences;
+        if (interactionMatrixService.isReady()) {
+            Interactions interactions = userInteractions(userId);
+            interacted = interactions.courseIds;
+            preferences = new double[interactions.size()];
+            for (int i = 0; i < preferences.length; i++) {
+                preferences[i] = interactions.ratings[i] * Math.log(interactions.counts[i] + 1);
+            }
+        } else {
+            List<Map<String, Object>> userInteractions = userBehaviorMapper.selectUserCourseInteractions(userId);
+            interacted = new long[userInteractions.size()];
+            preferences = new double[userInteractions.size()];
+            for (int i = 0; i < userInteractions.size(); i++) {
+                Map<String, Object> interaction = userInteractions.get(i);
+                interacted[i] = ((Number) interaction.get("course_id")).longValue();
+                preferences[i] = ((Number) interaction.get("avg_rating")).doubleValue()
+                        * Math.log(((Number) interaction.get("interaction_count")).doubleValue() + 1);
+            }
+        }
 
-            // 这里应该根据课程信息更新分类和难度偏好
-            // 简化处理，使用模拟数据
-            categoryPreferences.merge("编程", weight, Double::sum);
-            difficultyPreferences.merge("INTERMEDIATE", weight, Double::sum);
+        // 2. 合成画像并与全部课程做点积（排除已交互课程）
+        CourseFeatureIndex.Profile profile = index.profile(interacted, preferences);
+        if (profile.isEmpty()) {
+            return false;
         }
+        long[] excluded = interacted.clone();
+        Arrays.sort(excluded);
+        index.score(profile, weight, excluded, scores, SOURCE_CONTENT);
+        return true;
+    }
 
-        // 3. 基于偏好推荐相似课程
-        // 这里应该调用课程服务，根据用户偏好搜索相似课程
-        // 简化处理，返回模拟推荐结果
-        List<Map<String, Object>> recommendations = new ArrayList<>();
+    @Override
+    public List<ScoredCourse> hybridRecommendation(Long userId, Integer count) {
+        log.info("执行混合推荐算法: userId={}, count={}", userId, count);
 
-        // 模拟推荐结果
-        for (int i = 1; i <= count; i++) {
-            Map<String, Object> recommendation = new HashMap<>();
-            recommendation.put("course_id", (long) (1000 + i));
-            recommendation.put("score", 0.8 - (i * 0.05));
-            recommendation.put("reason", "基于您的学习偏好和课程内容相似度");
-            recommendations.add(recommendation);
+        // 超出预计算长度的请求直接实时计算，多取一倍候选供重排
+        if (count > precomputeSize) {
+            return rerank(userId, count, scoreHybrid(userId, count * 2, interactedCourses(userId)));
         }
 
-        return recommendations;
+        // 近端缓存 -> Redis 预计算列表，任意 count 均从同一列表截取
+        PrecomputedRecommendations stored = recommendationStoreService.get(userId);
+        if (stored == null) {
+            // 冷启动用户没有任何交互，直接使用共享的热门推荐，不为其单独存储
+            if (isColdUser(userId)) {
+                return rerank(userId, count, popularCourseRecommendation(count * 2, null));
+            }
+            stored = toPrecomputed(scoreHybrid(userId, precomputeSize, interactedCourses(userId)));
+            recommendationStoreService.put(userId, stored, hybridRecommendationTtl);
+        }
+        // 整个预计算列表作为候选，重排（过滤已学/已展示、多样化、分类上限）后截取
+        return rerank(userId, count, slice(stored, stored.size()));
+    }
+
+    private List<ScoredCourse> rerank(Long userId, int count, List<ScoredCourse> candidates) {
+        RerankContext context = new RerankContext(userId, count, courseFeatureService.current(),
+                courseFeatureService.courseCategories(), seenCourseService.enrolledFilter(userId),
+                seenCourseService.shownFilter(userId));
+        return rerankPipeline.rerank(candidates, context);
     }
 
     @Override
-    public List<Map<String, Object>> hybridRecommendation(Long userId, Integer count) {
-        log.info("执行混合推荐算法: userId={}, count={}", userId, count);
+    public void evictUserRecommendations(Long userId) {
+        recommendationStoreService.evict(userId);
+    }
 
-        // 检查缓存
-        String cacheKey = "recommendation:hybrid:" + userId + ":" + count;
-        List<Map<String, Object>> cachedResult = (List<Map<String, Object>>) redisTemplate.opsForValue().get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
+    @Override
+    public int precomputeRecommendations() {
+        long start = System.currentTimeMillis();
+        List<Long> activeUsers = userBehaviorMapper.selectActiveUserIds(
+                LocalDateTime.now().minusDays(precomputeActiveDays));
+        long ttlMinutes = TimeUnit.HOURS.toMinutes(precomputeTtlHours);
+
+        for (int from = 0; from < activeUsers.size(); from += precomputeChunkSize) {
+            List<Long> chunk = activeUsers.subList(from, Math.min(from + precomputeChunkSize, activeUsers.size()));
+            Map<Long, PrecomputedRecommendations> lists = new HashMap<>(chunk.size() * 2);
+            batchHybridRecommendation(chunk, precomputeSize)
+                    .forEach((userId, courses) -> lists.put(userId, toPrecomputed(courses)));
+            recommendationStoreService.putAll(lists, ttlMinutes);
         }
 
-        // 1. 获取协同过滤推荐（权重60%）
-        List<Map<String, Object>> cfRecommendations = collaborativeFiltering(userId, count * 2);
+        log.info("预计算推荐列表完成: 活跃用户={}, 每用户={}条, 耗时={}ms",
+                activeUsers.size(), precomputeSize, System.currentTimeMillis() - start);
+        return activeUsers.size();
+    }
 
-        // 2. 获取基于内容的推荐（权重40%）
-        List<Map<String, Object>> cbRecommendations = contentBasedRecommendation(userId, count * 2);
+    /**
+     * 交互矩阵已加载且矩阵与实时增量中都没有该用户时视为冷启动用户
+     */
+    private boolean isColdUser(Long userId) {
+        return interactionMatrixService.isReady()
+                && interactionMatrixService.current().userIndex(userId) < 0
+                && interactionOverlay.user(userId) == null;
+    }
 
-        // 3. 合并和重新评分
-        Map<Long, Double> hybridScores = new HashMap<>();
-        Map<Long, String> reasons = new HashMap<>();
+    private static PrecomputedRecommendations toPrecomputed(List<ScoredCourse> courses) {
+        long[] courseIds = new long[courses.size()];
+        float[] scores = new float[courses.size()];
+        byte[] reasonCodes = new byte[courses.size()];
+        for (int i = 0; i < courses.size(); i++) {
+            ScoredCourse course = courses.get(i);
+            courseIds[i] = course.getCourseId();
+            scores[i] = course.getScore().floatValue();
+            reasonCodes[i] = (byte) Math.max(0, REASONS.indexOf(course.getReason()));
+        }
+        return new PrecomputedRecommendations(courseIds, scores, reasonCodes, System.currentTimeMillis());
+    }
 
-        // 处理协同过滤结果
-        for (Map<String, Object> rec : cfRecommendations) {
-            Long courseId = (Long) rec.get("course_id");
-            Double score = (Double) rec.get("score");
-            hybridScores.put(courseId, score * 0.6);
-            reasons.put(courseId, "协同过滤推荐");
+    private static List<ScoredCourse> slice(PrecomputedRecommendations stored, int count) {
+        int size = Math.min(count, stored.size());
+        List<ScoredCourse> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new ScoredCourse(stored.getCourseIds()[i], (double) stored.getScores()[i],
+                    REASONS.get(stored.getReasonCodes()[i])));
         }
+        return result;
+    }
 
-        // 处理基于内容的结果
-        for (Map<String, Object> rec : cbRecommendations) {
-            Long courseId = (Long) rec.get("course_id");
-            Double score = (Double) rec.get("score");
-            hybridScores.merge(courseId, score * 0.4, Double::sum);
+    @Override
+    public Map<Long, List<ScoredCourse>> batchHybridRecommendation(List<Long> userIds, Integer count) {
+        log.info("执行批量混合推荐: users={}, count={}", userIds.size(), count);
+
+        // 排除口径与在线路径一致：矩阵已加载时各用户取矩阵行与实时增量的并集；否则一次查询全部用户的交互课程
+        Map<Long, long[]> interactedByUser = new HashMap<>();
+        if (!interactionMatrixService.isReady() && !userIds.isEmpty()) {
+            userBehaviorMapper.selectInteractedCoursesByUsers(userIds).stream()
+                    .collect(Collectors.groupingBy(row -> ((Number) row.get("user_id")).longValue(),
+                            Collectors.mapping(row -> ((Number) row.get("course_id")).longValue(),
+                                    Collectors.toList())))
+                    .forEach((userId, courses) -> interactedByUser.put(userId,
+                            courses.stream().mapToLong(Long::longValue).sorted().toArray()));
+        }
 
-            if (reasons.containsKey(courseId)) {
-                reasons.put(courseId, "混合推荐算法");
-            } else {
-                reasons.put(courseId, "内容相似度推荐");
-            }
+        // 每个工作线程复用自己的打分内核
+        long[] none = new long[0];
+        return modelBuildPool.submit(() -> userIds.parallelStream().distinct()
+                .collect(Collectors.toMap(userId -> userId,
+                        userId -> scoreHybrid(userId, count, interactionMatrixService.isReady()
+                                ? userInteractions(userId).courseIds
+                                : interactedByUser.getOrDefault(userId, none)))))
+                .join();
+    }
+
+    /**
+     * 混合打分：协同过滤、物品相似度、矩阵分解（协同权重）与内容推荐（内容权重）累加，在线与预计算共用
+     *
+     * @param learned 用户交互过的课程（升序），从结果中排除
+     */
+    private List<ScoredCourse> scoreHybrid(Long userId, int count, long[] learned) {
+        ScoringKernel kernel = ScoringKernel.local();
+        ScoreAccumulator scores = kernel.accumulator();
+
+        if (interactionMatrixService.isReady()) {
+            accumulateCollaborative(userId, hybridCollaborativeWeight, scores);
+            accumulateItemBased(userId, hybridCollaborativeWeight, scores);
+        } else {
+            accumulateCollaborativeFromDatabase(userId, hybridCollaborativeWeight, scores);
         }
+        accumulateAls(userId, count * 2, hybridCollaborativeWeight, kernel);
+        accumulateContent(userId, hybridContentWeight, scores);
 
-        // 4. 排序并返回结果
-        List<Map<String, Object>> result = hybridScores.entrySet().stream()
-                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(count)
-                .map(entry -> {
-                    Map<String, Object> recommendation = new HashMap<>();
-                    recommendation.put("course_id", entry.getKey());
-                    recommendation.put("score", entry.getValue());
-                    recommendation.put("reason", reasons.get(entry.getKey()));
-                    return recommendation;
-                })
-                .collect(Collectors.toList());
+        if (scores.isEmpty()) {
+            return popularCourseRecommendation(count, null);
+        }
 
-        // 缓存结果
-        redisTemplate.opsForValue().set(cacheKey, result, hybridRecommendationTtl, TimeUnit.MINUTES);
+        LongPredicate excluded = courseId -> Arrays.binarySearch(learned, courseId) >= 0;
+        return kernel.topK(count, excluded, RecommendationAlgorithmServiceImpl::hybridReason);
+    }
 
-        return result;
+    /**
+     * 多个来源命中同一课程时标记为混合推荐
+     */
+    private static String hybridReason(int flags) {
+        if (Integer.bitCount(flags) > 1) {
+            return "混合推荐算法";
+        }
+        switch (flags) {
+            case SOURCE_COLLABORATIVE:
+                return "协同过滤推荐";
+            case SOURCE_ITEM:
+                return "与您学过的课程相似";
+            case SOURCE_ALS:
+                return "基于您的学习偏好模型";
+            default:
+                return "内容相似度推荐";
+        }
     }
 
     @Override
-    public List<Map<String, Object>> popularCourseRecommendation(Integer count, Long categoryId) {
+    public List<ScoredCourse> popularCourseRecommendation(Integer count, Long categoryId) {
         log.info("执行热门课程推荐: count={}, categoryId={}", count, categoryId);
 
+        // 内存中的时间衰减热度排行，O(K) 读取
+        List<ScoredCourse> trending = trendingService.top(categoryId, count);
+        if (!trending.isEmpty()) {
+            return trending;
+        }
+
+        // 尚无热度数据（新部署且没有行为记录）时回退到课程服务的热门课程
         String cacheKey = "recommendation:popular:" + count + ":" + (categoryId != null ? categoryId : "all");
-        List<Map<String, Object>> cachedResult = (List<Map<String, Object>>) redisTemplate.opsForValue().get(cacheKey);
+        List<ScoredCourse> cachedResult = (List<ScoredCourse>) redisTemplate.opsForValue().get(cacheKey);
         if (cachedResult != null) {
             return cachedResult;
         }
 
-        // 这里应该调用课程服务获取热门课程
-        // 简化处理，返回模拟数据
-        List<Map<String, Object>> recommendations = new ArrayList<>();
-
-        for (int i = 1; i <= count; i++) {
-            Map<String, Object> recommendation = new HashMap<>();
-            recommendation.put("course_id", (long) (2000 + i));
-            recommendation.put("score", 0.9 - (i * 0.02));
-            recommendation.put("reason", "热门课程推荐");
-            recommendations.add(recommendation);
+        List<ScoredCourse> recommendations = new ArrayList<>(count);
+        try {
+            Result<List<Map<String, Object>>> response = courseServiceClient.getPopularCourses(categoryId, count);
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                for (Map<String, Object> course : response.getData()) {
+                    if (recommendations.size() < count && course.get("id") instanceof Number id) {
+                        recommendations.add(new ScoredCourse(id.longValue(),
+                                1.0 - recommendations.size() * 0.02, "热门课程推荐"));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("获取课程服务热门课程失败: {}", e.getMessage());
         }
 
         // 缓存结果
-        redisTemplate.opsForValue().set(cacheKey, recommendations, popularRecommendationTtl, TimeUnit.MINUTES);
+        if (!recommendations.isEmpty()) {
+            redisTemplate.opsForValue().set(cacheKey, recommendations, popularRecommendationTtl, TimeUnit.MINUTES);
+        }
 
         return recommendations;
     }
 
     @Override
     public Double calculateUserSimilarity(Long userId1, Long userId2) {
-        // 获取两个用户的课程交互数据
-        List<Map<String, Object>> user1Interactions = userBehaviorMapper.selectUserCourseInteractions(userId1);
-        List<Map<String, Object>> user2Interactions = userBehaviorMapper.selectUserCourseInteractions(userId2);
+        // 两个用户都在交互矩阵中时直接在矩阵行上计算（不含矩阵重建后的新交互）
+        SparseInteractionMatrix matrix = interactionMatrixService.current();
+        int user1Index = matrix.userIndex(userId1);
+        int user2Index = matrix.userIndex(userId2);
+        if (user1Index >= 0 && user2Index >= 0) {
+            return matrix.userCosine(user1Index, user2Index);
+        }
 
-        // 构建用户-课程评分向量
-        Map<Long, Double> user1Ratings = user1Interactions.stream()
-                .collect(Collectors.toMap(
-                        m -> (Long) m.get("course_id"),
-                        m -> (Double) m.get("avg_rating")));
+        // 用户-课程评分向量（课程ID升序的原始数组）
+        RatingVector user1 = RatingVector.of(userBehaviorMapper.selectUserCourseInteractions(userId1), "course_id");
+        RatingVector user2 = RatingVector.of(userBehaviorMapper.selectUserCourseInteractions(userId2), "course_id");
 
-        Map<Long, Double> user2Ratings = user2Interactions.stream()
-                .collect(Collectors.toMap(
-                        m -> (Long) m.get("course_id"),
-                        m -> (Double) m.get("avg_rating")));
+        // 归并求共同课程后计算余弦相似度
+        return CosineSimilarity.cosine(user1.ids, user1.ratings, user2.ids, user2.ratings);
+    }
 
-        // 计算余弦相似度
-        Set<Long> commonCourses = new HashSet<>(user1Ratings.keySet());
-        commonCourses.retainAll(user2Ratings.keySet());
+    @Override
+    public Double calculateCourseSimilarity(Long courseId1, Long courseId2) {
+        // 优先读取预计算的Top-K相似度索引
+        float indexed = itemSimilarityService.current().similarity(courseId1, courseId2);
+        if (!Float.isNaN(indexed)) {
+            return (double) indexed;
+        }
 
-        if (commonCourses.isEmpty()) {
-            return 0.0;
+        // 索引未收录的课程对（低于阈值或不在Top-K内）在矩阵列上计算，口径与索引构建一致
+        SparseInteractionMatrix matrix = interactionMatrixService.current();
+        int course1Index = matrix.courseIndex(courseId1);
+        int course2Index = matrix.courseIndex(courseId2);
+        if (course1Index >= 0 && course2Index >= 0) {
+            return matrix.courseCosine(course1Index, course2Index);
         }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+        // 课程-用户评分向量（用户ID升序的原始数组），默认评分与矩阵构建SQL一致，结果与索引口径相同
+        RatingVector course1 = RatingVector.of(userBehaviorMapper.selectCourseUserInteractions(courseId1), "user_id");
+        RatingVector course2 = RatingVector.of(userBehaviorMapper.selectCourseUserInteractions(courseId2), "user_id");
 
-        for (Long courseId : commonCourses) {
-            double rating1 = user1Ratings.get(courseId);
-            double rating2 = user2Ratings.get(courseId);
+        // 归并求共同用户后计算余弦相似度
+        return CosineSimilarity.cosine(course1.ids, course1.ratings, course2.ids, course2.ratings);
+    }
 
-            dotProduct += rating1 * rating2;
-            norm1 += rating1 * rating1;
-            norm2 += rating2 * rating2;
-        }
+    @Override
+    public void updateRecommendationModel() {
+        log.info("开始更新推荐模型");
+
+        try {
+            // 1. 重建用户-课程交互矩阵（先于清缓存，避免缓存被旧矩阵的结果重新填充）
+            interactionMatrixService.rebuild();
+
+            // 2. 训练ALS矩阵分解模型（受训练时长上限约束）
+            matrixFactorizationService.train();
+
+            // 3. 重建课程相似度索引
+            itemSimilarityService.rebuild();
+
+            // 4. 全量刷新课程特征索引（白天只做增量刷新，下线课程在此时移出索引）
+            courseFeatureService.refresh();
+
+            // 5. 清除相关缓存（预计算列表不删除，由第6步原地覆盖，避免覆盖前的请求全部走实时计算）
+            Long deleted = redisTemplate.execute((RedisConnection connection) -> {
+                long count = 0;
+                List<byte[]> batch = new ArrayList<>(CACHE_DELETE_BATCH);
+                try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions()
+                        .match("recommendation:*").count(CACHE_DELETE_BATCH).build())) {
+                    while (cursor.hasNext()) {
+                        byte[] key = cursor.next();
+                        if (new String(key).startsWith(RecommendationStoreServiceImpl.KEY_PREFIX)) {
+                            continue;
+                        }
+                        batch.add(key);
+                        if (batch.size() >= CACHE_DELETE_BATCH) {
+                            count += connection.keyCommands().del(batch.toArray(new byte[0][]));
+                            batch.clear();
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    count += connection.keyCommands().del(batch.toArray(new byte[0][]));
+                }
+                return count;
+            });
+            log.info("清除推荐缓存: {} 个key", deleted);
+            recommendationStoreService.clearNearCache();
+
+            // 6. 为活跃用户预计算Top-N推荐列表，避免清缓存后的首批请求全部走实时计算
+            precomputeRecommendations();
+
+            log.info("推荐模型更新完成");
 
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
+        } catch (Exception e) {
+            log.error("更新推荐模型失败", e);
         }
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * 物品协同打分：用户交互过的每门课程取其Top-K相似课程，按相似度 * 评分偏好累加；
+     * 矩阵重建后新产生的共现（实时增量）按 共现次数 / (共现次数 + 收缩系数) 折算为相似度一并累加
+     */
+    private void accumulateItemBased(Long userId, double weight, ScoreAccumulator scores) {
+        ItemSimilarityIndex index = itemSimilarityService.current();
+        Interactions interactions = userInteractions(userId);
+
+        for (int k = 0; k < interactions.size(); k++) {
+            long courseId = interactions.courseIds[k];
+            double preference = weight * interactions.ratings[k] / 5.0;
+
+            int i = index.indexOf(courseId);
+            if (i >= 0) {
+                for (int q = index.start(i); q < index.end(i); q++) {
+                    long neighborId = index.neighborId(q);
+                    // 排除用户已交互过的课程
+                    if (!interactions.contains(neighborId)) {
+                        scores.add(neighborId, index.similarity(q) * preference, SOURCE_ITEM);
+                    }
+                }
+            }
+
+            InteractionOverlay.CooccurrenceRow cooccurrence = interactionOverlay.cooccurrence(courseId);
+            if (cooccurrence != null) {
+                for (int q = 0; q < cooccurrence.size(); q++) {
+                    long otherId = cooccurrence.courseId(q);
+                    if (!interactions.contains(otherId)) {
+                        double together = cooccurrence.count(q);
+                        scores.add(otherId, together / (together + REALTIME_COOCCURRENCE_SHRINK) * preference,
+                                SOURCE_ITEM);
+                    }
+                }
+            }
+        }
     }
 
-    @Override
-    public Double calculateCourseSimilarity(Long courseId1, Long courseId2) {
-        // 获取两个课程的用户交互数据
-        List<Map<String, Object>> course1Interactions = userBehaviorMapper.selectCourseUserInteractions(courseId1);
-        List<Map<String, Object>> course2Interactions = userBehaviorMapper.selectCourseUserInteractions(courseId2);
+    /**
+     * 矩阵分解打分：用户因子与全部课程因子做内积，排除已交互课程后取Top N累加
+     */
+    private void accumulateAls(Long userId, int limit, double weight, ScoringKernel kernel) {
+        AlsModel model = matrixFactorizationService.current();
+        int userIndex = model.userIndex(userId);
+        if (userIndex < 0) {
+            return;
+        }
 
-        // 构建课程-用户评分向量
-        Map<Long, Double> course1Ratings = course1Interactions.stream()
-                .collect(Collectors.toMap(
-                        m -> (Long) m.get("user_id"),
-                        m -> (Double) m.get("avg_rating")));
+        double[] predictions = kernel.dense(model.courseCount());
+        model.scoreAll(userIndex, predictions);
 
-        Map<Long, Double> course2Ratings = course2Interactions.stream()
-                .collect(Collectors.toMap(
-                        m -> (Long) m.get("user_id"),
-                        m -> (Double) m.get("avg_rating")));
+        Interactions interactions = userInteractions(userId);
 
-        // 计算余弦相似度
-        Set<Long> commonUsers = new HashSet<>(course1Ratings.keySet());
-        commonUsers.retainAll(course2Ratings.keySet());
+        TopKHeap heap = kernel.heap();
+        heap.reset(limit);
+        for (int c = 0; c < model.courseCount(); c++) {
+            long courseId = model.courseId(c);
+            if (predictions[c] > 0 && !interactions.contains(courseId)) {
+                heap.offer(courseId, predictions[c], SOURCE_ALS);
+            }
+        }
+        ScoreAccumulator scores = kernel.accumulator();
+        for (int i = 0; i < heap.size(); i++) {
+            scores.add(heap.id(i), weight * heap.score(i), SOURCE_ALS);
+        }
+    }
 
-        if (commonUsers.isEmpty()) {
-            return 0.0;
+    /**
+     * 用户的交互行：矩阵行与实时增量合并（课程ID升序，次数相加，评分按次数加权平均）
+     */
+    private Interactions userInteractions(Long userId) {
+        SparseInteractionMatrix matrix = interactionMatrixService.current();
+        int userIndex = matrix.userIndex(userId);
+        int baseLength = userIndex >= 0 ? matrix.rowLength(userIndex) : 0;
+        InteractionOverlay.UserRow delta = interactionOverlay.user(userId);
+        int deltaLength = delta != null ? delta.size() : 0;
+
+        Interactions merged = new Interactions(baseLength + deltaLength);
+        int p = userIndex >= 0 ? matrix.rowStart(userIndex) : 0;
+        int pEnd = p + baseLength;
+        int q = 0;
+        while (p < pEnd || q < deltaLength) {
+            long baseId = p < pEnd ? matrix.courseId(matrix.rowCourse(p)) : Long.MAX_VALUE;
+            long deltaId = q < deltaLength ? delta.courseId(q) : Long.MAX_VALUE;
+            if (baseId < deltaId) {
+                merged.append(baseId, matrix.rowCount(p), matrix.rowRating(p));
+                p++;
+            } else if (deltaId < baseId) {
+                merged.append(deltaId, delta.count(q), delta.ratingSum(q) / delta.count(q));
+                q++;
+            } else {
+                double count = matrix.rowCount(p) + delta.count(q);
+                double ratingSum = matrix.rowRating(p) * matrix.rowCount(p) + delta.ratingSum(q);
+                merged.append(baseId, count, ratingSum / count);
+                p++;
+                q++;
+            }
         }
+        return merged.trim();
+    }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+    /**
+     * 评分向量：ID升序的原始数组，由按ID排序的查询结果构建
+     */
+    private static final class RatingVector {
 
-        for (Long userId : commonUsers) {
-            double rating1 = course1Ratings.get(userId);
-            double rating2 = course2Ratings.get(userId);
+        private final long[] ids;
+        private final float[] ratings;
 
-            dotProduct += rating1 * rating2;
-            norm1 += rating1 * rating1;
-            norm2 += rating2 * rating2;
+        private RatingVector(long[] ids, float[] ratings) {
+            this.ids = ids;
+            this.ratings = ratings;
         }
 
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
+        static RatingVector of(List<Map<String, Object>> rows, String idColumn) {
+            long[] ids = new long[rows.size()];
+            float[] ratings = new float[rows.size()];
+            boolean sorted = true;
+            for (int i = 0; i < rows.size(); i++) {
+                Map<String, Object> row = rows.get(i);
+                ids[i] = ((Number) row.get(idColumn)).longValue();
+                Object rating = row.get("avg_rating");
+                ratings[i] = rating instanceof Number ? ((Number) rating).floatValue() : 0f;
+                sorted &= i == 0 || ids[i] > ids[i - 1];
+            }
+            return sorted ? new RatingVector(ids, ratings) : sortById(ids, ratings);
         }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        private static RatingVector sortById(long[] ids, float[] ratings) {
+            Integer[] order = new Integer[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> ids[i]));
+            long[] sortedIds = new long[ids.length];
+            float[] sortedRatings = new float[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedRatings[i] = ratings[order[i]];
+            }
+            return new RatingVector(sortedIds, sortedRatings);
+        }
     }
 
-    @Override
-    public void updateRecommendationModel() {
-        log.info("开始更新推荐模型");
+    /**
+     * 用户交互行（课程ID升序的并行数组）
+     */
+    private static final class Interactions {
 
-        try {
-            // 1. 清除相关缓存
-            Set<String> keys = redisTemplate.execute((RedisConnection connection) -> {
-                Set<String> keysToDelete = new HashSet<>();
-                try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match("recommendation:*").count(1000).build())) {
-                    while (cursor.hasNext()) {
-                        keysToDelete.add(new String(cursor.next()));
-                    }
-                }
-                return keysToDelete;
-            });
+        private long[] courseIds;
+        private double[] counts;
+        private double[] ratings;
+        private int size;
 
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.info("清除推荐缓存: {} 个key", keys.size());
-            }
+        Interactions(int capacity) {
+            courseIds = new long[capacity];
+            counts = new double[capacity];
+            ratings = new double[capacity];
+        }
+
+        void append(long courseId, double count, double rating) {
+            courseIds[size] = courseId;
+            counts[size] = count;
+            ratings[size] = rating;
+            size++;
+        }
 
-            // 2. 预计算热门课程
-            popularCourseRecommendation(20, null);
+        Interactions trim() {
+            if (size < courseIds.length) {
+                courseIds = Arrays.copyOf(courseIds, size);
+                counts = Arrays.copyOf(counts, size);
+                ratings = Arrays.copyOf(ratings, size);
+            }
+            return this;
+        }
 
-            // 3. 预计算用户相似度矩阵（可选，数据量大时考虑异步处理）
-            // 这里可以添加更复杂的模型训练逻辑
+        int size() {
+            return size;
+        }
 
-            log.info("推荐模型更新完成");
+        boolean contains(long courseId) {
+            return Arrays.binarySearch(courseIds, 0, size, courseId) >= 0;
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("更新推荐模型失败", e);
+    /**
+     * 用户已交互课程（升序）：矩阵已加载时取矩阵行与实时增量的并集，不查询数据库；否则查询全部交互过的课程
+     */
+    private long[] interactedCourses(Long userId) {
+        if (interactionMatrixService.isReady()) {
+            return userInteractions(userId).courseIds;
         }
+        return userBehaviorMapper.selectUserInteractedCourses(userId).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.entity.RecommendationResult;
+import com.smartlearning.ai.mapper.RecommendationResultMapper;
+import com.smartlearning.ai.service.RecommendationLogService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 推荐结果日志服务实现
+ * <p>
+ * 缓冲区达到批大小时立即提交刷写任务，另由定时任务按时间间隔兜底刷写；
+ * 同一时刻最多一个刷写任务，在专用的单线程刷写器上运行（任务被拒绝时不回退到调用线程，
+ * 避免请求线程执行数据库写入），每批一条多行INSERT。点击 / 转化命中尚未落库的结果时由调用方同步刷写后重试。
+ * 指标：ai.recommendation.log.queue.depth（缓冲区深度）、ai.recommendation.log.dropped（丢弃行数）、
+ * ai.recommendation.log.written（写入行数）、ai.recommendation.log.failed（写入失败行数）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecommendationLogServiceImpl implements RecommendationLogService {
+
+    private final RecommendationResultMapper recommendationResultMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    @Value("${ai.recommendation.result-log.capacity:20000}")
+    private int capacity;
+
+    @Value("${ai.recommendation.result-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ai.recommendation.result-log.offer-timeout-ms:20}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<RecommendationResult> buffer;
+    private ThreadPoolExecutor flusher;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private volatile boolean accepting;
+
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        // 同一时刻最多一个刷写任务，队列只需容纳一个；默认 AbortPolicy
+        flusher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("ai.recommendation.log.queue.depth", buffer, BlockingQueue::size)
+                .description("推荐结果写后缓冲区深度")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("ai.recommendation.log.dropped")
+                .description("缓冲区已满被丢弃的推荐结果行数")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("ai.recommendation.log.written")
+                .description("已写入数据库的推荐结果行数")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("ai.recommendation.log.failed")
+                .description("写入数据库失败的推荐结果行数")
+                .register(meterRegistry);
+        accepting = true;
+    }
+
+    @Override
+    public void submit(List<RecommendationResult> results) {
+        if (!accepting) {
+            droppedCounter.increment(results.size());
+            return;
+        }
+        int dropped = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (!buffer.offer(results.get(i), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    dropped++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped += results.size() - i;
+                break;
+            }
+        }
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+            log.warn("推荐结果缓冲区已满，丢弃{}条，当前深度={}", dropped, buffer.size());
+        }
+        if (buffer.size() >= batchSize) {
+            flushAsync();
+        }
+    }
+
+    @Override
+    public void flushAsync() {
+        if (buffer.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flusher.execute(this::flushAndRelease);
+        } catch (RejectedExecutionException e) {
+            flushing.set(false);
+            log.warn("推荐结果刷写任务被拒绝，等待下次触发");
+        }
+    }
+
+    @Override
+    public boolean isPending(Long userId, Long courseId, String batchId) {
+        // 刷写中的批次已移出缓冲区但尚未提交，保守地视为未落库
+        if (flushing.get()) {
+            return true;
+        }
+        for (RecommendationResult result : buffer) {
+            if (Objects.equals(result.getUserId(), userId) && Objects.equals(result.getCourseId(), courseId)
+                    && (batchId == null || batchId.equals(result.getBatchId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() {
+        while (!flushing.compareAndSet(false, true)) {
+            Thread.onSpinWait();
+        }
+        try {
+            drain();
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * 关闭时停止接收并同步刷写剩余数据
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        flusher.shutdown();
+        int remaining = buffer.size();
+        flush();
+        log.info("推荐结果缓冲区已排空: {}条", remaining);
+    }
+
+    private void flushAndRelease() {
+        try {
+            drain();
+        } finally {
+            flushing.set(false);
+        }
+        // 刷写期间又积满一批时继续
+        if (buffer.size() >= batchSize) {
+            flushAsync();
+        }
+    }
+
+    private void drain() {
+        List<RecommendationResult> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                recommendationResultMapper.insertBatch(batch);
+                writtenCounter.increment(batch.size());
+            } catch (Exception e) {
+                failedCounter.increment(batch.size());
+                log.error("批量写入推荐结果失败: {}条", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+}
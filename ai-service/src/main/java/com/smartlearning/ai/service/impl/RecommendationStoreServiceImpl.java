@@ -0,0 +1,154 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.dto.PrecomputedRecommendations;
+import com.smartlearning.ai.service.RecommendationStoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预计算推荐存储服务实现
+ * <p>
+ * 近端缓存条目存活时间较短（默认60秒）：其他节点失效某用户的推荐后，本节点最多在该时间内返回旧列表。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecommendationStoreServiceImpl implements RecommendationStoreService {
+
+    static final String KEY_PREFIX = "recommendation:precomputed:";
+
+    /**
+     * 每次管道写入的key数量
+     */
+    private static final int PIPELINE_BATCH = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final Map<Long, NearEntry> nearCache = new ConcurrentHashMap<>();
+
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Value("${ai.recommendation.precompute.near-cache.max-size:50000}")
+    private int nearCacheMaxSize;
+
+    @Value("${ai.recommendation.precompute.near-cache.ttl-seconds:60}")
+    private long nearCacheTtlSeconds;
+
+    @Override
+    public PrecomputedRecommendations get(Long userId) {
+        long now = System.currentTimeMillis();
+        NearEntry entry = nearCache.get(userId);
+        if (entry != null && entry.expiresAt > now) {
+            nearHits.increment();
+            return entry.recommendations;
+        }
+
+        Object stored = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        if (stored instanceof PrecomputedRecommendations recommendations) {
+            redisHits.increment();
+            putNear(userId, recommendations, now);
+            return recommendations;
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public void put(Long userId, PrecomputedRecommendations recommendations, long ttlMinutes) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + userId, recommendations, ttlMinutes, TimeUnit.MINUTES);
+        putNear(userId, recommendations, System.currentTimeMillis());
+    }
+
+    @Override
+    public void putAll(Map<Long, PrecomputedRecommendations> recommendations, long ttlMinutes) {
+        List<Map.Entry<Long, PrecomputedRecommendations>> entries = new ArrayList<>(recommendations.entrySet());
+        for (int from = 0; from < entries.size(); from += PIPELINE_BATCH) {
+            List<Map.Entry<Long, PrecomputedRecommendations>> batch =
+                    entries.subList(from, Math.min(from + PIPELINE_BATCH, entries.size()));
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    for (Map.Entry<Long, PrecomputedRecommendations> entry : batch) {
+                        operations.opsForValue().set(KEY_PREFIX + entry.getKey(), entry.getValue(),
+                                ttlMinutes, TimeUnit.MINUTES);
+                    }
+                    return null;
+                }
+            });
+        }
+        // 批量预计算覆盖的用户不写近端缓存，避免挤掉在线热点用户；已缓存的旧列表直接移除
+        recommendations.keySet().forEach(nearCache::remove);
+    }
+
+    @Override
+    public void evict(Long userId) {
+        nearCache.remove(userId);
+        redisTemplate.delete(KEY_PREFIX + userId);
+    }
+
+    @Override
+    public void clearNearCache() {
+        nearCache.clear();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nearCacheSize", nearCache.size());
+        stats.put("nearHits", nearHits.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    private void putNear(Long userId, PrecomputedRecommendations recommendations, long now) {
+        if (nearCache.size() >= nearCacheMaxSize) {
+            evictNear(now);
+        }
+        nearCache.put(userId, new NearEntry(recommendations, now + TimeUnit.SECONDS.toMillis(nearCacheTtlSeconds)));
+    }
+
+    /**
+     * 先清理过期条目，仍超过上限时按遍历顺序（近似随机）移除十分之一
+     */
+    private void evictNear(long now) {
+        nearCache.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = nearCache.size() - nearCacheMaxSize * 9 / 10;
+        Iterator<Long> iterator = nearCache.keySet().iterator();
+        while (excess-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 近端缓存条目
+     */
+    private static final class NearEntry {
+
+        private final PrecomputedRecommendations recommendations;
+        private final long expiresAt;
+
+        NearEntry(PrecomputedRecommendations recommendations, long expiresAt) {
+            this.recommendations = recommendations;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
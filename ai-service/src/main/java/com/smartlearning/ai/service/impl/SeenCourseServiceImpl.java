@@ -0,0 +1,229 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.BloomFilter;
+import com.smartlearning.ai.mapper.RecommendationResultMapper;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.SeenCourseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongPredicate;
+
+/**
+ * 用户已学习 / 已展示课程记录服务实现
+ * <p>
+ * 每个用户一个已学习布隆过滤器和两代已展示布隆过滤器：当前代写满半个窗口后轮换，
+ * 查询同时检查两代，因此展示记录保留半个到一个窗口的时长，无需逐条记录过期时间。
+ * 记录在本实例内存中，用户首次被过滤时从数据库补齐：已学习课程取自行为表，已展示课程取自近半个窗口的推荐记录，
+ * 因此重启或由其他实例处理过的用户也能正确过滤；用户数超过上限时淘汰最久未访问的用户，再次访问时重新加载。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeenCourseServiceImpl implements SeenCourseService {
+
+    private static final LongPredicate NONE = courseId -> false;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Map<Long, UserSeen> users = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final UserBehaviorMapper userBehaviorMapper;
+    private final RecommendationResultMapper recommendationResultMapper;
+
+    @Value("${ai.recommendation.rerank.filter-shown:true}")
+    private boolean filterShown;
+
+    @Value("${ai.recommendation.rerank.shown-window-hours:12}")
+    private long shownWindowHours;
+
+    @Value("${ai.recommendation.rerank.expected-shown:300}")
+    private int expectedShown;
+
+    @Value("${ai.recommendation.rerank.expected-enrolled:200}")
+    private int expectedEnrolled;
+
+    @Value("${ai.recommendation.rerank.max-users:20000}")
+    private int maxUsers;
+
+    @Override
+    public void markShown(Long userId, Collection<Long> courseIds) {
+        if (!filterShown || userId == null || courseIds == null || courseIds.isEmpty()) {
+            return;
+        }
+        UserSeen seen = user(userId);
+        long now = System.currentTimeMillis();
+        BloomFilter current = seen.currentShown(now, TimeUnit.HOURS.toMillis(shownWindowHours) / 2, expectedShown);
+        for (Long courseId : courseIds) {
+            if (courseId != null) {
+                current.add(courseId);
+            }
+        }
+    }
+
+    @Override
+    public void markEnrolled(Long userId, Long courseId) {
+        if (userId == null || courseId == null) {
+            return;
+        }
+        user(userId).enrolled(expectedEnrolled).add(courseId);
+    }
+
+    @Override
+    public LongPredicate enrolledFilter(Long userId) {
+        if (userId == null) {
+            return NONE;
+        }
+        BloomFilter enrolled = loadedUser(userId).enrolled;
+        if (enrolled == null) {
+            return NONE;
+        }
+        return enrolled::mightContain;
+    }
+
+    @Override
+    public LongPredicate shownFilter(Long userId) {
+        if (!filterShown || userId == null) {
+            return NONE;
+        }
+        UserSeen seen = loadedUser(userId);
+        long now = System.currentTimeMillis();
+        long windowMs = TimeUnit.HOURS.toMillis(shownWindowHours);
+        long sinceRotation = now - seen.rotatedAt;
+        BloomFilter current = seen.shown;
+        // 上一代最早的记录在轮换前半个窗口写入，轮换超过半个窗口后即已过期
+        BloomFilter previous = sinceRotation < windowMs / 2 ? seen.previousShown : null;
+        if (current == null || sinceRotation >= windowMs) {
+            return NONE;
+        }
+        if (previous == null) {
+            return current::mightContain;
+        }
+        return courseId -> current.mightContain(courseId) || previous.mightContain(courseId);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("users", users.size());
+        stats.put("maxUsers", maxUsers);
+        stats.put("filterShown", filterShown);
+        stats.put("shownWindowHours", shownWindowHours);
+        return stats;
+    }
+
+    private UserSeen user(Long userId) {
+        UserSeen seen = users.computeIfAbsent(userId, id -> new UserSeen());
+        seen.accessedAt = System.currentTimeMillis();
+        if (users.size() > maxUsers) {
+            evictOldest();
+        }
+        return seen;
+    }
+
+    /**
+     * 过滤前取用户记录并确保已从数据库补齐；写入路径（行为实时流）不查询数据库
+     */
+    private UserSeen loadedUser(Long userId) {
+        UserSeen seen = user(userId);
+        if (!seen.loaded) {
+            load(userId, seen);
+        }
+        return seen;
+    }
+
+    /**
+     * 从数据库补齐用户的已学习课程和近半个窗口内的已展示课程，与加载前后实时写入的记录取并集
+     * <p>
+     * 加载失败时不标记为已加载，下次访问重试；期间只按实时记录过滤。
+     */
+    private void load(Long userId, UserSeen seen) {
+        synchronized (seen) {
+            if (seen.loaded) {
+                return;
+            }
+            try {
+                BloomFilter enrolled = seen.enrolled(expectedEnrolled);
+                for (Long courseId : userBehaviorMapper.selectUserEnrolledCourses(userId)) {
+                    enrolled.add(courseId);
+                }
+                if (filterShown) {
+                    long halfWindowMs = TimeUnit.HOURS.toMillis(shownWindowHours) / 2;
+                    BloomFilter current = seen.currentShown(System.currentTimeMillis(), halfWindowMs, expectedShown);
+                    LocalDateTime since = LocalDateTime.now().minusSeconds(TimeUnit.MILLISECONDS.toSeconds(halfWindowMs));
+                    for (Long courseId : recommendationResultMapper.selectRecommendedCoursesSince(userId, since)) {
+                        current.add(courseId);
+                    }
+                }
+                seen.loaded = true;
+            } catch (Exception e) {
+                log.warn("加载用户已学习 / 已展示课程失败: userId={}", userId, e);
+            }
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的用户，保留上限的90%，避免每次写入都触发淘汰
+     */
+    private void evictOldest() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = users.size() - maxUsers * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            users.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().accessedAt))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(users::remove);
+            log.debug("淘汰已展示课程记录: 淘汰用户数={}", excess);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class UserSeen {
+
+        private volatile BloomFilter enrolled;
+        private volatile BloomFilter shown;
+        private volatile BloomFilter previousShown;
+        private volatile long rotatedAt;
+        private volatile long accessedAt;
+        private volatile boolean loaded;
+
+        synchronized BloomFilter enrolled(int expected) {
+            if (enrolled == null) {
+                enrolled = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+            }
+            return enrolled;
+        }
+
+        /**
+         * 当前代已展示过滤器，超过半个窗口时轮换（上一代保留，再上一代丢弃）
+         */
+        synchronized BloomFilter currentShown(long now, long halfWindowMs, int expected) {
+            if (shown == null || now - rotatedAt >= halfWindowMs) {
+                previousShown = shown != null && now - rotatedAt < 2 * halfWindowMs ? shown : null;
+                shown = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+                rotatedAt = now;
+            }
+            return shown;
+        }
+    }
+}
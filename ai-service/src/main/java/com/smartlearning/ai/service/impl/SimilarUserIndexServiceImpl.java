@@ -0,0 +1,184 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.MinHashLshIndex;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.SimilarUserIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 相似用户近似索引服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimilarUserIndexServiceImpl implements SimilarUserIndexService {
+
+    /**
+     * 固定哈希种子，保证重建前后签名一致、结果可复现
+     */
+    private static final long HASH_SEED = 0x5EED5EEDL;
+
+    private final InteractionMatrixService interactionMatrixService;
+    private final UserBehaviorMapper userBehaviorMapper;
+    private final ForkJoinPool modelBuildPool;
+
+    private volatile MinHashLshIndex index = MinHashLshIndex.empty();
+
+    @Value("${ai.recommendation.similar-user.lsh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.recommendation.similar-user.lsh.bands:32}")
+    private int bands;
+
+    @Value("${ai.recommendation.similar-user.lsh.rows:2}")
+    private int rows;
+
+    @Value("${ai.recommendation.similar-user.lsh.max-candidates:2000}")
+    private int maxCandidates;
+    
+    /**
+     * 召回率评估的最大抽样用户数（每个样本都要执行一次精确SQL）
+     */
+    @Value("${ai.recommendation.similar-user.max-recall-samples:200}")
+    private int maxRecallSamples;
+
+    @Override
+    public MinHashLshIndex current() {
+        return index;
+    }
+
+    @Override
+    public synchronized MinHashLshIndex rebuild() {
+        return rebuild(interactionMatrixService.current());
+    }
+
+    /**
+     * 交互矩阵重建后同步重建索引（索引中的用户行号依赖矩阵）
+     */
+    @EventListener
+    public synchronized void onMatrixRebuilt(SparseInteractionMatrix matrix) {
+        try {
+            rebuild(matrix);
+        } catch (Exception e) {
+            log.error("相似用户索引重建失败", e);
+        }
+    }
+
+    private MinHashLshIndex rebuild(SparseInteractionMatrix matrix) {
+        if (!enabled || matrix.isEmpty()) {
+            index = MinHashLshIndex.empty();
+            return index;
+        }
+        long start = System.currentTimeMillis();
+        MinHashLshIndex rebuilt = MinHashLshIndex.build(matrix, bands, rows, HASH_SEED, modelBuildPool);
+        index = rebuilt;
+        log.info("相似用户索引重建完成: users={}, bands={}, rows={}, 耗时={}ms",
+                matrix.userCount(), bands, rows, System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+
+    @Override
+    public SparseInteractionMatrix.Neighbors neighbors(SparseInteractionMatrix matrix, int userIndex,
+                                                       int minCommon, int limit) {
+        MinHashLshIndex current = index;
+        if (current.matrix() == matrix && !current.isEmpty()) {
+            return current.query(userIndex, minCommon, limit, maxCandidates);
+        }
+        return matrix.neighbors(userIndex, minCommon, limit);
+    }
+
+    @Override
+    public List<Map<String, Object>> findSimilarUsers(Long userId, Integer minCommonCourses, Integer limit) {
+        MinHashLshIndex current = index;
+        if (current.isEmpty()) {
+            return userBehaviorMapper.selectSimilarUsers(userId, minCommonCourses, limit);
+        }
+
+        SparseInteractionMatrix matrix = current.matrix();
+        SparseInteractionMatrix.Neighbors neighbors = current.query(matrix.userIndex(userId),
+                minCommonCourses, limit, maxCandidates);
+        List<Map<String, Object>> result = new ArrayList<>(neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("user_id", matrix.userId(neighbors.userIndex(i)));
+            user.put("common_courses", neighbors.commonCount(i));
+            result.add(user);
+        }
+        return result;
+    }
+
+    /**
+     * 召回率 = 近似结果与 SQL 精确 Top-N 的交集 / 精确结果数。
+     * SQL 按行为记录计数且并列名次的取舍不固定，结果可视为召回率下界
+     */
+    @Override
+    public Map<String, Object> evaluateRecall(Integer sampleSize) {
+        MinHashLshIndex current = index;
+        Map<String, Object> report = new HashMap<>();
+        if (current.isEmpty()) {
+            report.put("ready", false);
+            return report;
+        }
+
+        SparseInteractionMatrix matrix = current.matrix();
+        int limit = 20;
+        int minCommon = 2;
+        Random random = new Random(HASH_SEED);
+        int requested = sampleSize == null ? 0 : Math.max(sampleSize, 0);
+        int samples = Math.min(Math.min(requested, maxRecallSamples), matrix.userCount());
+
+        long exactTotal = 0;
+        long hitTotal = 0;
+        long lshNanos = 0;
+        long sqlNanos = 0;
+        for (int s = 0; s < samples; s++) {
+            int userIndex = random.nextInt(matrix.userCount());
+            long userId = matrix.userId(userIndex);
+
+            long t0 = System.nanoTime();
+            SparseInteractionMatrix.Neighbors approx = current.query(userIndex, minCommon, limit, maxCandidates);
+            long t1 = System.nanoTime();
+            List<Map<String, Object>> exact = userBehaviorMapper.selectSimilarUsers(userId, minCommon, limit);
+            long t2 = System.nanoTime();
+            lshNanos += t1 - t0;
+            sqlNanos += t2 - t1;
+
+            Set<Long> approxIds = new HashSet<>();
+            for (int i = 0; i < approx.size(); i++) {
+                approxIds.add(matrix.userId(approx.userIndex(i)));
+            }
+            for (Map<String, Object> row : exact) {
+                if (approxIds.contains(((Number) row.get("user_id")).longValue())) {
+                    hitTotal++;
+                }
+            }
+            exactTotal += exact.size();
+        }
+
+        report.put("ready", true);
+        report.put("sampleSize", samples);
+        report.put("bands", current.bands());
+        report.put("rows", current.rows());
+        report.put("maxCandidates", maxCandidates);
+        report.put("recall", exactTotal == 0 ? 1.0 : (double) hitTotal / exactTotal);
+        report.put("lshAvgMicros", samples == 0 ? 0.0 : lshNanos / 1000.0 / samples);
+        report.put("sqlAvgMillis", samples == 0 ? 0.0 : sqlNanos / 1_000_000.0 / samples);
+        log.info("相似用户索引召回评估: {}", report);
+        return report;
+    }
+}
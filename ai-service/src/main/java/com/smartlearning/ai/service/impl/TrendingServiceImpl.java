@@ -0,0 +1,260 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.algorithm.TrendingCounters;
+import com.smartlearning.ai.dto.ScoredCourse;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.CourseFeatureService;
+import com.smartlearning.ai.service.TrendingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程热度排行服务实现
+ * <p>
+ * 计数由行为实时流写入，读取为内存 O(K)。各节点共享Redis有序集合 {@code trending:scores}（成员为课程ID，
+ * 分数为相对共享基准时间的存储值）和基准时间 {@code trending:scores:landmark}：每个节点定期用 ZINCRBY 把本节点的新增计数
+ * 合并进去（按两边基准时间换算），再读回全部节点合并后的计数替换本地计数。共享基准时间过旧时由脚本原子地整体平移。
+ * 启动时从共享计数恢复；尚无共享计数时，只有抢到基准时间的节点从近期行为做一次性初始化，避免多节点重复计入。
+ * 分类排行由课程特征索引的分类映射派生。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingServiceImpl implements TrendingService {
+
+    /**
+     * 共享计数key不使用 recommendation: 前缀，避免被每晚的推荐缓存清理删除
+     */
+    private static final String SCORES_KEY = "trending:scores";
+    private static final String LANDMARK_KEY = "trending:scores:landmark";
+
+    private static final String REASON = "热门课程推荐";
+
+    /**
+     * 各行为类型的计数权重，未列出的行为计1
+     */
+    private static final Map<String, Double> ACTION_WEIGHTS = Map.of(
+            "view_course", 1.0,
+            "start_learning", 3.0,
+            "complete_lesson", 2.0,
+            "take_exam", 2.0);
+
+    /**
+     * 每次合并脚本携带的课程数
+     */
+    private static final int MERGE_BATCH = 1000;
+
+    /**
+     * 合并增量：ARGV = 本地基准时间, λ, 课程ID, 存储值, ...；共享基准时间不存在时以本地基准时间初始化
+     */
+    private static final RedisScript<String> MERGE_SCRIPT = new DefaultRedisScript<>(
+            "local landmark = redis.call('GET', KEYS[2]) "
+                    + "if not landmark then redis.call('SET', KEYS[2], ARGV[1]) landmark = ARGV[1] end "
+                    + "local factor = math.exp(tonumber(ARGV[2]) * (tonumber(ARGV[1]) - tonumber(landmark))) "
+                    + "for i = 3, #ARGV, 2 do "
+                    + "redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[i + 1]) * factor, ARGV[i]) end "
+                    + "return landmark",
+            String.class);
+
+    /**
+     * 平移共享基准时间：ARGV = 期望的旧基准时间, 新基准时间, λ；旧基准时间已被其他节点平移时不做处理
+     */
+    private static final RedisScript<Long> REBASE_SCRIPT = new DefaultRedisScript<>(
+            "local landmark = redis.call('GET', KEYS[2]) "
+                    + "if landmark ~= ARGV[1] then return 0 end "
+                    + "local factor = math.exp(-tonumber(ARGV[3]) * (tonumber(ARGV[2]) - tonumber(landmark))) "
+                    + "local entries = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES') "
+                    + "for i = 1, #entries, 2 do "
+                    + "redis.call('ZADD', KEYS[1], tonumber(entries[i + 1]) * factor, entries[i]) end "
+                    + "redis.call('SET', KEYS[2], ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 读取共享计数：返回 [基准时间, 课程ID, 存储值, ...]，没有基准时间时返回空列表
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>(
+            "local landmark = redis.call('GET', KEYS[2]) "
+                    + "if not landmark then return {} end "
+                    + "local entries = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES') "
+                    + "table.insert(entries, 1, landmark) "
+                    + "return entries",
+            List.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserBehaviorMapper userBehaviorMapper;
+    private final CourseFeatureService courseFeatureService;
+
+    @Value("${ai.recommendation.trending.half-life-hours:72}")
+    private long halfLifeHours;
+
+    @Value("${ai.recommendation.trending.bootstrap-days:14}")
+    private int bootstrapDays;
+
+    private TrendingCounters counters;
+    private Map<Long, Long> assignedCategories;
+
+    @PostConstruct
+    public void load() {
+        long now = System.currentTimeMillis();
+        counters = new TrendingCounters(TimeUnit.HOURS.toMillis(halfLifeHours), now);
+        try {
+            if (!refresh()) {
+                if (claimBootstrap(now)) {
+                    bootstrapFromBehaviors(now);
+                    merge();
+                } else {
+                    log.info("其他节点正在初始化课程热度计数，等待下次同步");
+                }
+            }
+        } catch (Exception e) {
+            log.error("课程热度计数加载失败，从空计数开始", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            merge();
+        } catch (Exception e) {
+            log.warn("停止前合并课程热度计数失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void record(long courseId, String actionType, long time) {
+        counters.record(courseId, ACTION_WEIGHTS.getOrDefault(actionType, 1.0), time);
+    }
+
+    @Override
+    public List<ScoredCourse> top(Long categoryId, int count) {
+        return counters.top(categoryId, count, System.currentTimeMillis(), REASON);
+    }
+
+    @Override
+    public void checkpoint() {
+        Map<Long, Long> categories = courseFeatureService.courseCategories();
+        if (categories != assignedCategories) {
+            counters.assignCategories(categories);
+            assignedCategories = categories;
+        }
+
+        try {
+            String landmark = merge();
+            long now = System.currentTimeMillis();
+            if (landmark != null && counters.needsRebase(Long.parseLong(landmark), now)) {
+                redisTemplate.execute(REBASE_SCRIPT, StringRedisSerializer.UTF_8, new GenericToStringSerializer<>(Long.class),
+                        List.of(SCORES_KEY, LANDMARK_KEY), landmark, String.valueOf(now), String.valueOf(counters.lambda()));
+            }
+            refresh();
+        } catch (Exception e) {
+            log.warn("课程热度计数同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把本节点上次合并后的新增计数合并到共享计数，失败时放回待合并增量
+     *
+     * @return 共享基准时间，没有需要合并的增量时返回 null
+     */
+    private String merge() {
+        TrendingCounters.Delta delta = counters.drain();
+        if (delta.isEmpty()) {
+            return null;
+        }
+        try {
+            List<Map.Entry<Long, Double>> entries = new ArrayList<>(delta.values().entrySet());
+            String landmark = null;
+            for (int from = 0; from < entries.size(); from += MERGE_BATCH) {
+                List<Map.Entry<Long, Double>> batch = entries.subList(from, Math.min(from + MERGE_BATCH, entries.size()));
+                Object[] args = new Object[2 + batch.size() * 2];
+                args[0] = String.valueOf(delta.landmark());
+                args[1] = String.valueOf(counters.lambda());
+                int i = 2;
+                for (Map.Entry<Long, Double> entry : batch) {
+                    args[i++] = String.valueOf(entry.getKey());
+                    args[i++] = String.valueOf(entry.getValue());
+                }
+                landmark = redisTemplate.execute(MERGE_SCRIPT, StringRedisSerializer.UTF_8, StringRedisSerializer.UTF_8,
+                        List.of(SCORES_KEY, LANDMARK_KEY), args);
+            }
+            log.debug("课程热度增量已合并: courses={}", entries.size());
+            return landmark;
+        } catch (RuntimeException e) {
+            // 部分批次可能已合并，重复计入的代价低于丢失
+            counters.requeue(delta);
+            throw e;
+        }
+    }
+
+    /**
+     * 读取全部节点合并后的计数替换本地计数
+     *
+     * @return 共享计数是否存在
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private boolean refresh() {
+        // 列表结果按元素逐个用结果序列化器反序列化
+        List<String> entries = redisTemplate.execute(READ_SCRIPT, StringRedisSerializer.UTF_8,
+                (RedisSerializer) StringRedisSerializer.UTF_8, List.of(SCORES_KEY, LANDMARK_KEY));
+        if (entries == null || entries.isEmpty()) {
+            return false;
+        }
+        Map<Long, Double> values = new HashMap<>(entries.size());
+        for (int i = 1; i + 1 < entries.size(); i += 2) {
+            values.put(Long.parseLong(entries.get(i)), Double.parseDouble(entries.get(i + 1)));
+        }
+        counters.restore(Long.parseLong(entries.get(0)), values);
+        log.debug("课程热度计数已从共享计数刷新: courses={}", values.size());
+        return true;
+    }
+
+    /**
+     * 抢占共享基准时间，只有抢到的节点执行初始化
+     */
+    private boolean claimBootstrap(long now) {
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisConnection connection) -> connection.stringCommands()
+                .setNX(LANDMARK_KEY.getBytes(StandardCharsets.UTF_8), String.valueOf(now).getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 首次启动（没有共享计数）时按天汇总近期行为初始化计数，之后只由行为流增量更新
+     */
+    private void bootstrapFromBehaviors(long now) {
+        LocalDateTime since = LocalDateTime.now().minusDays(bootstrapDays);
+        List<Map<String, Object>> rows = userBehaviorMapper.selectDailyCourseActivity(since);
+        for (Map<String, Object> row : rows) {
+            long courseId = ((Number) row.get("course_id")).longValue();
+            Object day = row.get("day");
+            LocalDate date = day instanceof Date sqlDate ? sqlDate.toLocalDate() : LocalDate.parse(day.toString());
+            long time = Math.min(now, date.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            double weight = ACTION_WEIGHTS.getOrDefault((String) row.get("action_type"), 1.0)
+                    * ((Number) row.get("interaction_count")).doubleValue();
+            counters.record(courseId, weight, time);
+        }
+        log.info("课程热度计数已从近{}天行为初始化: rows={}, courses={}", bootstrapDays, rows.size(), counters.size());
+    }
+}
@@ -1,6 +1,12 @@
 package com.smartlearning.ai.task;
 
 import com.smartlearning.ai.service.AiRecommendationService;
+import com.smartlearning.ai.service.CourseFeatureService;
+import com.smartlearning.ai.service.ExperimentService;
+import com.smartlearning.ai.service.InteractionMatrixService;
+import com.smartlearning.ai.service.ItemSimilarityService;
+import com.smartlearning.ai.service.RecommendationLogService;
+import com.smartlearning.ai.service.TrendingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -8,6 +14,9 @@ import org.springframework.stereotype.Component;
 
 /**
  * 推荐系统定时任务
+ * <p>
+ * 调度线程池大小由 {@code spring.task.scheduling.pool.size} 配置，长耗时的模型重建只占用其中一个线程，
+ * 不会推迟推荐日志刷写、热度检查点等秒级任务。
  */
 @Slf4j
 @Component
@@ -15,6 +24,12 @@ import org.springframework.stereotype.Component;
 public class RecommendationTask {
     
     private final AiRecommendationService aiRecommendationService;
+    private final InteractionMatrixService interactionMatrixService;
+    private final ItemSimilarityService itemSimilarityService;
+    private final CourseFeatureService courseFeatureService;
+    private final RecommendationLogService recommendationLogService;
+    private final TrendingService trendingService;
+    private final ExperimentService experimentService;
     
     /**
      * 每天凌晨2点更新推荐模型
@@ -32,6 +47,45 @@ public class RecommendationTask {
         }
     }
     
+    /**
+     * 定时刷新用户-课程交互矩阵（默认15分钟）
+     */
+    @Scheduled(initialDelayString = "${ai.recommendation.matrix.refresh-interval-ms:900000}",
+            fixedDelayString = "${ai.recommendation.matrix.refresh-interval-ms:900000}")
+    public void refreshInteractionMatrix() {
+        try {
+            interactionMatrixService.rebuild();
+        } catch (Exception e) {
+            log.error("交互矩阵刷新失败", e);
+        }
+    }
+    
+    /**
+     * 定时增量更新课程相似度索引（默认1小时，只重算有新交互的课程）
+     */
+    @Scheduled(initialDelayString = "${ai.recommendation.item-similarity.incremental-interval-ms:3600000}",
+            fixedDelayString = "${ai.recommendation.item-similarity.incremental-interval-ms:3600000}")
+    public void refreshItemSimilarity() {
+        try {
+            itemSimilarityService.rebuildIncremental();
+        } catch (Exception e) {
+            log.error("课程相似度索引增量更新失败", e);
+        }
+    }
+    
+    /**
+     * 定时增量刷新课程特征索引（默认10分钟，只拉取有更新的课程）
+     */
+    @Scheduled(initialDelayString = "${ai.recommendation.content-based.refresh-interval-ms:600000}",
+            fixedDelayString = "${ai.recommendation.content-based.refresh-interval-ms:600000}")
+    public void refreshCourseFeatures() {
+        try {
+            courseFeatureService.refreshIncremental();
+        } catch (Exception e) {
+            log.error("课程特征索引增量刷新失败", e);
+        }
+    }
+    
     /**
      * 每周日凌晨3点清理过期数据（保留90天）
      */
@@ -54,7 +108,7 @@ public class RecommendationTask {
     @Scheduled(fixedRate = 3600000) // 1小时 = 3600000毫秒
     public void monitorRecommendationPerformance() {
         try {
-            // 获取最近24小时的推荐效果统计
+            // 获取当天的推荐效果统计（读取实验指标的按天汇总）
             var stats = aiRecommendationService.getRecommendationStats(1);
             
             // 这里可以添加监控逻辑，比如发送告警等
@@ -64,4 +118,36 @@ public class RecommendationTask {
             log.error("推荐效果监控失败", e);
         }
     }
+    
+    /**
+     * 按时间间隔刷写推荐结果缓冲区（未积满一批的数据最长等待一个间隔）
+     */
+    @Scheduled(fixedDelayString = "${ai.recommendation.result-log.flush-interval-ms:1000}")
+    public void flushRecommendationLog() {
+        recommendationLogService.flushAsync();
+    }
+    
+    /**
+     * 定期把课程热度增量合并到Redis共享计数并读回（同时同步课程分类映射）
+     */
+    @Scheduled(fixedDelayString = "${ai.recommendation.trending.checkpoint-interval-ms:60000}")
+    public void checkpointTrending() {
+        try {
+            trendingService.checkpoint();
+        } catch (Exception e) {
+            log.error("课程热度计数同步失败", e);
+        }
+    }
+    
+    /**
+     * 定期刷写推荐实验指标
+     */
+    @Scheduled(fixedDelayString = "${ai.recommendation.experiment.flush-interval-ms:60000}")
+    public void flushExperimentMetrics() {
+        try {
+            experimentService.flush();
+        } catch (Exception e) {
+            log.error("推荐实验指标刷写失败", e);
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package com.smartlearning.ai.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 余弦相似度内核测试
+ * <p>
+ * 按ID数组归并、CSR切片及一对多三种计算方式需与原有按Map求交集的实现在容差内一致。
+ */
+public class CosineSimilarityTest {
+
+    private static final double TOLERANCE = 1e-5;
+
+    @Test
+    public void testCosineMatchesMapBasedAcrossOverlapLengths() {
+        Random random = new Random(11);
+        // 覆盖交集为空、较短及超过缓冲区初始容量（64）的长度
+        for (int overlap = 0; overlap <= 100; overlap++) {
+            for (int round = 0; round < 5; round++) {
+                Map<Long, Double> a = new HashMap<>();
+                Map<Long, Double> b = new HashMap<>();
+                randomPair(random, overlap, random.nextInt(20), random.nextInt(20), a, b);
+
+                long[] idsA = sortedIds(a);
+                long[] idsB = sortedIds(b);
+                double actual = CosineSimilarity.cosine(idsA, ratings(idsA, a), idsB, ratings(idsB, b));
+
+                assertEquals(mapCosine(a, b), actual, TOLERANCE, "overlap=" + overlap);
+            }
+        }
+    }
+
+    @Test
+    public void testSliceAndOneToManyMatchMapBased() {
+        Random random = new Random(13);
+        int rows = 40;
+        int dimension = 300;
+        Map<Long, Double>[] vectors = randomRows(random, rows, dimension);
+
+        int[] ptr = new int[rows + 1];
+        for (int r = 0; r < rows; r++) {
+            ptr[r + 1] = ptr[r] + vectors[r].size();
+        }
+        int[] ids = new int[ptr[rows]];
+        float[] values = new float[ptr[rows]];
+        for (int r = 0; r < rows; r++) {
+            long[] sorted = sortedIds(vectors[r]);
+            for (int k = 0; k < sorted.length; k++) {
+                ids[ptr[r] + k] = (int) sorted[k];
+                values[ptr[r] + k] = vectors[r].get(sorted[k]).floatValue();
+            }
+        }
+
+        int[] many = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            many[r] = r;
+        }
+        double[] out = new double[rows];
+        for (int one = 0; one < rows; one++) {
+            CosineSimilarity.cosineOneToMany(ids, values, ptr, dimension, one, many, out);
+            for (int other = 0; other < rows; other++) {
+                double expected = mapCosine(vectors[one], vectors[other]);
+                assertEquals(expected, CosineSimilarity.cosine(ids, values, ptr[one], ptr[one + 1],
+                        ptr[other], ptr[other + 1]), TOLERANCE, "slice " + one + "/" + other);
+                assertEquals(expected, out[other], TOLERANCE, "oneToMany " + one + "/" + other);
+            }
+        }
+    }
+
+    @Test
+    public void testZeroNormAndDisjointVectors() {
+        long[] ids = {1L, 2L, 3L};
+        assertEquals(0.0, CosineSimilarity.cosine(ids, new float[]{0f, 0f, 0f}, ids, new float[]{1f, 2f, 3f}));
+        assertEquals(0.0, CosineSimilarity.cosine(ids, new float[]{1f, 2f, 3f}, new long[]{4L, 5L}, new float[]{1f, 1f}));
+        assertEquals(0.0, CosineSimilarity.cosine(new long[0], new float[0], ids, new float[]{1f, 2f, 3f}));
+        assertEquals(1.0, CosineSimilarity.cosine(ids, new float[]{1f, 2f, 3f}, ids, new float[]{2f, 4f, 6f}), TOLERANCE);
+    }
+
+    /**
+     * 原实现：按Map求共同ID，只在共同项上计算点积和模长
+     */
+    private static double mapCosine(Map<Long, Double> a, Map<Long, Double> b) {
+        Set<Long> common = new HashSet<>(a.keySet());
+        common.retainAll(b.keySet());
+        if (common.isEmpty()) {
+            return 0.0;
+        }
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (Long id : common) {
+            double x = a.get(id);
+            double y = b.get(id);
+            dot += x * y;
+            normA += x * x;
+            normB += y * y;
+        }
+        if (normA == 0.0 || normB == 0.0) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    /**
+     * 生成恰有 overlap 个共同ID、各自另有若干独有ID的两个向量
+     */
+    private static void randomPair(Random random, int overlap, int onlyA, int onlyB,
+                                   Map<Long, Double> a, Map<Long, Double> b) {
+        Set<Long> used = new HashSet<>();
+        for (int k = 0; k < overlap; k++) {
+            long id = freshId(random, used);
+            a.put(id, (double) rating(random));
+            b.put(id, (double) rating(random));
+        }
+        for (int k = 0; k < onlyA; k++) {
+            a.put(freshId(random, used), (double) rating(random));
+        }
+        for (int k = 0; k < onlyB; k++) {
+            b.put(freshId(random, used), (double) rating(random));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Double>[] randomRows(Random random, int rows, int dimension) {
+        Map<Long, Double>[] vectors = new Map[rows];
+        for (int r = 0; r < rows; r++) {
+            vectors[r] = new HashMap<>();
+            int length = random.nextInt(60);
+            for (int k = 0; k < length; k++) {
+                vectors[r].put((long) random.nextInt(dimension), (double) rating(random));
+            }
+        }
+        return vectors;
+    }
+
+    private static long freshId(Random random, Set<Long> used) {
+        long id;
+        do {
+            id = 1 + random.nextInt(1_000_000);
+        } while (!used.add(id));
+        return id;
+    }
+
+    private static float rating(Random random) {
+        // 与行为评分一致的 0.5 ~ 5.0 半星刻度
+        return (1 + random.nextInt(10)) * 0.5f;
+    }
+
+    private static long[] sortedIds(Map<Long, Double> vector) {
+        long[] ids = vector.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static float[] ratings(long[] ids, Map<Long, Double> vector) {
+        float[] values = new float[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = vector.get(ids[i]).floatValue();
+        }
+        return values;
+    }
+}
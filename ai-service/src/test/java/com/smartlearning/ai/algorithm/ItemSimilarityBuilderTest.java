@@ -0,0 +1,109 @@
+package com.smartlearning.ai.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 课程相似度索引构建器测试
+ * <p>
+ * 索引中的相似度需与课程相似度查询的兜底路径一致：矩阵列上的余弦，以及按课程查询的用户评分向量（用户ID升序）上的余弦。
+ */
+public class ItemSimilarityBuilderTest {
+
+    private static final double TOLERANCE = 1e-5;
+
+    @Test
+    public void testIndexedSimilarityMatchesFallbackCosine() {
+        Random random = new Random(17);
+        int users = 300;
+        int courses = 60;
+        SparseInteractionMatrix.Builder builder = SparseInteractionMatrix.builder(users * 10);
+        // 课程 -> (用户 -> 评分)，模拟按课程查询并按用户ID排序的结果
+        Map<Long, TreeMap<Long, Float>> columns = new HashMap<>();
+        for (long user = 1; user <= users; user++) {
+            int length = 1 + random.nextInt(12);
+            for (int k = 0; k < length; k++) {
+                long course = 1000 + random.nextInt(courses);
+                TreeMap<Long, Float> column = columns.computeIfAbsent(course, key -> new TreeMap<>());
+                if (column.containsKey(user)) {
+                    continue;
+                }
+                float rating = (1 + random.nextInt(10)) * 0.5f;
+                column.put(user, rating);
+                builder.add(user, course, 1 + random.nextInt(3), rating);
+            }
+        }
+        SparseInteractionMatrix matrix = builder.build();
+
+        ItemSimilarityIndex index = new ItemSimilarityBuilder(courses, 1, 0f, Integer.MAX_VALUE)
+                .build(matrix, ForkJoinPool.commonPool());
+
+        int compared = 0;
+        for (int a = 0; a < matrix.courseCount(); a++) {
+            long courseA = matrix.courseId(a);
+            int row = index.indexOf(courseA);
+            for (int b = 0; b < matrix.courseCount(); b++) {
+                if (a == b) {
+                    continue;
+                }
+                long courseB = matrix.courseId(b);
+                double fallback = vectorCosine(columns.get(courseA), columns.get(courseB));
+                assertEquals(fallback, matrix.courseCosine(a, b), TOLERANCE, courseA + "/" + courseB);
+
+                float indexed = row >= 0 ? index.similarity(courseA, courseB) : Float.NaN;
+                if (fallback > 0) {
+                    // 共同用户数满足阈值的课程对都应收录在索引中，且与兜底路径一致
+                    assertFalse(Float.isNaN(indexed), "missing " + courseA + "/" + courseB);
+                    assertEquals(fallback, indexed, TOLERANCE, courseA + "/" + courseB);
+                    compared++;
+                } else {
+                    assertTrue(Float.isNaN(indexed), "unexpected " + courseA + "/" + courseB);
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    @Test
+    public void testHeavyUsersStillCountTowardsSimilarity() {
+        SparseInteractionMatrix.Builder builder = SparseInteractionMatrix.builder(16);
+        // 用户1、2为普通用户；用户3交互课程数超过阈值，不参与候选统计但参与相似度计算
+        builder.add(1, 10, 1, 5f).add(1, 20, 1, 4f);
+        builder.add(2, 10, 1, 2f).add(2, 20, 1, 3f);
+        builder.add(3, 10, 1, 1f).add(3, 20, 1, 5f).add(3, 30, 1, 3f).add(3, 40, 1, 3f);
+        SparseInteractionMatrix matrix = builder.build();
+
+        ItemSimilarityIndex index = new ItemSimilarityBuilder(10, 2, 0f, 3)
+                .build(matrix, ForkJoinPool.commonPool());
+
+        double expected = CosineSimilarity.cosine(new long[]{1, 2, 3}, new float[]{5f, 2f, 1f},
+                new long[]{1, 2, 3}, new float[]{4f, 3f, 5f});
+        assertEquals(expected, index.similarity(10L, 20L), TOLERANCE);
+        assertTrue(Float.isNaN(index.similarity(10L, 30L)), "只有重度用户共同交互的课程对不应收录");
+    }
+
+    /**
+     * 兜底路径：两门课程的用户评分向量（用户ID升序）在共同用户上的余弦
+     */
+    private static double vectorCosine(TreeMap<Long, Float> a, TreeMap<Long, Float> b) {
+        long[] idsA = a.keySet().stream().mapToLong(Long::longValue).toArray();
+        long[] idsB = b.keySet().stream().mapToLong(Long::longValue).toArray();
+        return CosineSimilarity.cosine(idsA, ratings(a), idsB, ratings(b));
+    }
+
+    private static float[] ratings(TreeMap<Long, Float> vector) {
+        float[] values = new float[vector.size()];
+        int i = 0;
+        for (float value : vector.values()) {
+            values[i++] = value;
+        }
+        return values;
+    }
+}
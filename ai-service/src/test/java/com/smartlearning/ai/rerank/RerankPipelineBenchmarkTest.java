@@ -0,0 +1,132 @@
+package com.smartlearning.ai.rerank;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+import com.smartlearning.ai.dto.ScoredCourse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推荐重排流水线测试与基准
+ * <p>
+ * 不依赖Spring环境，直接组装各重排阶段。基准部分通过 {@code -Dbenchmark=true} 启用：
+ * {@code mvn -pl ai-service test -Dtest=RerankPipelineBenchmarkTest -Dbenchmark=true}
+ * 200 个候选重排到 20 条的平均耗时需低于 1ms。
+ */
+@Slf4j
+public class RerankPipelineBenchmarkTest {
+
+    private static final int CANDIDATES = 200;
+    private static final int COUNT = 20;
+    private static final int CATEGORIES = 8;
+    private static final int MAX_PER_CATEGORY = 3;
+
+    private RerankPipeline pipeline;
+    private CourseFeatureIndex featureIndex;
+    private Map<Long, Long> categories;
+    private List<ScoredCourse> candidates;
+
+    @BeforeEach
+    public void setUp() {
+        pipeline = new RerankPipeline(List.of(new SeenFilterReranker(), new MmrReranker(0.7),
+                new CategoryCapReranker(MAX_PER_CATEGORY)));
+
+        Random random = new Random(42);
+        CourseFeatureIndex.Builder builder = CourseFeatureIndex.builder();
+        categories = new HashMap<>();
+        candidates = new ArrayList<>(CANDIDATES);
+        for (long courseId = 1; courseId <= CANDIDATES; courseId++) {
+            // 高分课程集中在少数分类，检验多样化与分类上限
+            long categoryId = courseId <= CANDIDATES / 2 ? courseId % 2 : courseId % CATEGORIES;
+            categories.put(courseId, categoryId);
+            List<String> features = new ArrayList<>();
+            features.add("cat:" + categoryId);
+            features.add("diff:" + random.nextInt(3));
+            features.add("teacher:" + random.nextInt(30));
+            for (int t = 0; t < 4; t++) {
+                features.add("tag:" + random.nextInt(40));
+            }
+            builder.add(courseId, features);
+            candidates.add(new ScoredCourse(courseId, 1.0 - courseId * 0.001, "混合推荐算法"));
+        }
+        featureIndex = builder.build();
+    }
+
+    @Test
+    public void testFiltersEnrolledAndShownCourses() {
+        Set<Long> enrolled = Set.of(1L, 2L);
+        Set<Long> shown = Set.of(3L, 4L, 5L);
+        List<ScoredCourse> result = pipeline.rerank(candidates,
+                new RerankContext(1L, COUNT, featureIndex, categories, enrolled::contains, shown::contains));
+
+        assertEquals(COUNT, result.size());
+        for (ScoredCourse course : result) {
+            assertFalse(enrolled.contains(course.getCourseId()), "已学习课程不应出现");
+            assertFalse(shown.contains(course.getCourseId()), "候选充足时不应出现已展示课程");
+        }
+    }
+
+    @Test
+    public void testShownCoursesBackfillWhenCandidatesRunOut() {
+        List<ScoredCourse> few = candidates.subList(0, 5);
+        List<ScoredCourse> result = pipeline.rerank(few,
+                new RerankContext(1L, COUNT, featureIndex, Map.of(), id -> id == 1L, id -> id == 2L));
+
+        assertEquals(4, result.size());
+        assertTrue(result.stream().noneMatch(course -> course.getCourseId() == 1L), "已学习课程不应补位");
+        assertTrue(result.stream().anyMatch(course -> course.getCourseId() == 2L), "候选不足时已展示课程应补位");
+    }
+
+    @Test
+    public void testCategoryCapAndDistinctResults() {
+        List<ScoredCourse> result = pipeline.rerank(candidates,
+                new RerankContext(1L, COUNT, featureIndex, categories, null, null));
+
+        assertEquals(COUNT, result.size());
+        Map<Long, Integer> perCategory = new HashMap<>();
+        Set<Long> distinct = new HashSet<>();
+        for (ScoredCourse course : result) {
+            assertTrue(distinct.add(course.getCourseId()), "重排结果不应重复");
+            perCategory.merge(categories.get(course.getCourseId()), 1, Integer::sum);
+        }
+        perCategory.values().forEach(n -> assertTrue(n <= MAX_PER_CATEGORY, "单个分类超出上限: " + perCategory));
+        assertEquals(1L, result.get(0).getCourseId(), "最高分课程应排在首位");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkRerankLatency() {
+        Set<Long> shown = new HashSet<>();
+        for (long courseId = 1; courseId <= CANDIDATES; courseId += 7) {
+            shown.add(courseId);
+        }
+        RerankContext context = new RerankContext(1L, COUNT, featureIndex, categories, id -> false, shown::contains);
+
+        for (int i = 0; i < 20_000; i++) {
+            pipeline.rerank(candidates, context);
+        }
+
+        int rounds = 20_000;
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += pipeline.rerank(candidates, context).size();
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / rounds;
+
+        log.info("重排 {} 个候选 -> {} 条: 平均 {}µs", CANDIDATES, COUNT, String.format("%.1f", avgMicros));
+        assertEquals(rounds * COUNT, sink);
+        assertTrue(avgMicros < 1000.0, "重排平均耗时超过1ms: " + avgMicros + "µs");
+    }
+}
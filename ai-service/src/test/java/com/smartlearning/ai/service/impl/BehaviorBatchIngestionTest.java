@@ -0,0 +1,141 @@
+package com.smartlearning.ai.service.impl;
+
+import com.smartlearning.ai.dto.BatchBehaviorResult;
+import com.smartlearning.ai.dto.UserBehaviorDTO;
+import com.smartlearning.ai.entity.UserBehavior;
+import com.smartlearning.ai.mapper.RecommendationResultMapper;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.service.BehaviorStreamService;
+import com.smartlearning.ai.service.CourseSummaryService;
+import com.smartlearning.ai.service.ExperimentService;
+import com.smartlearning.ai.service.ItemSimilarityService;
+import com.smartlearning.ai.service.RecommendationAlgorithmService;
+import com.smartlearning.ai.service.RecommendationLogService;
+import com.smartlearning.ai.service.SeenCourseService;
+import com.smartlearning.common.feign.CourseServiceClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户行为分块批量写入测试
+ * <p>
+ * 数据库与行为流均为桩：校验分块大小、逐条失败明细，以及某块写入失败时的逐条重试。
+ */
+public class BehaviorBatchIngestionTest {
+
+    private static final int CHUNK_SIZE = 200;
+
+    private UserBehaviorMapper userBehaviorMapper;
+    private BehaviorStreamService behaviorStreamService;
+    private AiRecommendationServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        userBehaviorMapper = mock(UserBehaviorMapper.class);
+        behaviorStreamService = mock(BehaviorStreamService.class);
+        service = new AiRecommendationServiceImpl(userBehaviorMapper, mock(RecommendationResultMapper.class),
+                mock(RecommendationAlgorithmService.class), mock(ItemSimilarityService.class), behaviorStreamService,
+                mock(CourseServiceClient.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(RecommendationLogService.class), mock(CourseSummaryService.class),
+                mock(ExperimentService.class), mock(SeenCourseService.class));
+        ReflectionTestUtils.setField(service, "behaviorBatchChunkSize", CHUNK_SIZE);
+    }
+
+    @Test
+    public void testWritesValidEventsInChunks() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(userBehaviorMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<?> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return chunk.size();
+        });
+
+        BatchBehaviorResult result = service.batchRecordUserBehavior(events(450));
+
+        assertEquals(450, result.getTotal());
+        assertEquals(450, result.getSuccessCount());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(List.of(200, 200, 50), chunkSizes);
+        verify(userBehaviorMapper, never()).insert(any(UserBehavior.class));
+        verify(behaviorStreamService, times(450)).publish(any(UserBehavior.class));
+    }
+
+    @Test
+    public void testReportsInvalidEventsByRequestIndex() {
+        List<UserBehaviorDTO> events = events(10);
+        events.get(3).setUserId(null);
+        events.get(7).setRating(9);
+        when(userBehaviorMapper.insertBatch(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        BatchBehaviorResult result = service.batchRecordUserBehavior(events);
+
+        assertEquals(10, result.getTotal());
+        assertEquals(8, result.getSuccessCount());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(3, result.getFailures().get(0).getIndex());
+        assertEquals(7, result.getFailures().get(1).getIndex());
+        verify(behaviorStreamService, times(8)).publish(any(UserBehavior.class));
+    }
+
+    @Test
+    public void testFailedChunkIsRetriedRowByRow() {
+        List<UserBehaviorDTO> events = events(250);
+        // 下标1为非法数据，校验后第一块对应请求下标 0、2..200
+        events.get(1).setActionType(" ");
+        when(userBehaviorMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<?> chunk = invocation.getArgument(0);
+            if (chunk.size() == CHUNK_SIZE) {
+                throw new IllegalStateException("Data truncation");
+            }
+            return chunk.size();
+        });
+        when(userBehaviorMapper.insert(any(UserBehavior.class))).thenAnswer(invocation -> {
+            UserBehavior behavior = invocation.getArgument(0);
+            if (behavior.getTargetId() == 105L) {
+                throw new IllegalStateException("Duplicate entry");
+            }
+            return 1;
+        });
+
+        BatchBehaviorResult result = service.batchRecordUserBehavior(events);
+
+        assertEquals(248, result.getSuccessCount());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(1, result.getFailures().get(0).getIndex());
+        assertEquals(105, result.getFailures().get(1).getIndex());
+        assertTrue(result.getFailures().get(1).getReason().contains("Duplicate entry"));
+        verify(userBehaviorMapper, times(CHUNK_SIZE)).insert(any(UserBehavior.class));
+        verify(behaviorStreamService, times(248)).publish(any(UserBehavior.class));
+    }
+
+    /**
+     * 第 i 条行为的课程ID为 i，便于按课程ID定位请求下标
+     */
+    private static List<UserBehaviorDTO> events(int count) {
+        List<UserBehaviorDTO> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserBehaviorDTO event = new UserBehaviorDTO();
+            event.setUserId(1_000_000L + i % 50);
+            event.setActionType("view_course");
+            event.setTargetId((long) i);
+            event.setTargetType("course");
+            event.setDuration(60);
+            event.setRating(1 + i % 5);
+            event.setSource("test");
+            event.setDeviceType("web");
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,81 @@
+package com.smartlearning.benchmark;
+
+import com.smartlearning.ai.dto.ScoredCourse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推荐算法打分基准
+ * <p>
+ * 构建与运行（-prof gc 输出每次调用的分配字节数 gc.alloc.rate.norm）：
+ * <pre>
+ * mvn -Pbenchmarks -pl benchmarks -am package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar RecommendationAlgorithmBenchmark -prof gc
+ * </pre>
+ * 只跑某个规模：追加 {@code -p interactions=100000}。
+ * 每次调用从数据集中随机抽取用户 / 课程（课程按热门程度加权），避免只测到单个用户的缓存路径。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class RecommendationAlgorithmBenchmark {
+
+    private static final int COUNT = 20;
+
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+    }
+
+    /**
+     * 协同过滤：相似用户检索（LSH）+ 邻居交互累加 + Top-K
+     */
+    @Benchmark
+    public List<ScoredCourse> collaborativeFiltering(RecommendationFixture fixture) {
+        return fixture.algorithmService.collaborativeFiltering(fixture.sampleUserId(random), COUNT);
+    }
+
+    /**
+     * 两个用户的评分余弦相似度（映射器返回行后在内存中计算）
+     */
+    @Benchmark
+    public Double calculateUserSimilarity(RecommendationFixture fixture) {
+        return fixture.algorithmService.calculateUserSimilarity(fixture.sampleUserId(random),
+                fixture.sampleUserId(random));
+    }
+
+    /**
+     * 两门课程的相似度（优先查课程相似度索引，未收录的课程对回退到按用户评分计算）
+     */
+    @Benchmark
+    public Double calculateCourseSimilarity(RecommendationFixture fixture) {
+        return fixture.algorithmService.calculateCourseSimilarity(fixture.sampleCourseId(random),
+                fixture.sampleCourseId(random));
+    }
+
+    /**
+     * 混合推荐（预计算列表未命中）：协同过滤、相似课程、ALS、内容四路打分合并 + 重排
+     */
+    @Benchmark
+    public List<ScoredCourse> hybridRecommendation(RecommendationFixture fixture) {
+        return fixture.algorithmService.hybridRecommendation(fixture.sampleUserId(random), COUNT);
+    }
+}
@@ -0,0 +1,252 @@
+package com.smartlearning.benchmark;
+
+import com.smartlearning.ai.algorithm.CourseFeatureIndex;
+import com.smartlearning.ai.algorithm.InteractionOverlay;
+import com.smartlearning.ai.algorithm.SparseInteractionMatrix;
+import com.smartlearning.ai.dto.ScoredCourse;
+import com.smartlearning.ai.mapper.RecommendationResultMapper;
+import com.smartlearning.ai.mapper.UserBehaviorMapper;
+import com.smartlearning.ai.rerank.CategoryCapReranker;
+import com.smartlearning.ai.rerank.MmrReranker;
+import com.smartlearning.ai.rerank.RerankPipeline;
+import com.smartlearning.ai.rerank.SeenFilterReranker;
+import com.smartlearning.ai.service.CourseFeatureService;
+import com.smartlearning.ai.service.RecommendationAlgorithmService;
+import com.smartlearning.ai.service.RecommendationStoreService;
+import com.smartlearning.ai.service.TrendingService;
+import com.smartlearning.ai.service.impl.InteractionMatrixServiceImpl;
+import com.smartlearning.ai.service.impl.ItemSimilarityServiceImpl;
+import com.smartlearning.ai.service.impl.MatrixFactorizationServiceImpl;
+import com.smartlearning.ai.service.impl.RecommendationAlgorithmServiceImpl;
+import com.smartlearning.ai.service.impl.SeenCourseServiceImpl;
+import com.smartlearning.ai.service.impl.SimilarUserIndexServiceImpl;
+import com.smartlearning.common.feign.CourseServiceClient;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 推荐算法基准的共享装配（每个数据规模一份）
+ * <p>
+ * 直接构造 ai-service 中的真实服务实现，数据库映射器、课程服务Feign客户端、Redis 预计算存储均以桩替代：
+ * 映射器从 {@link SyntheticDataset} 回放查询结果，预计算存储始终未命中（测量实时打分路径），
+ * 热度排行返回固定列表。交互矩阵、相似用户索引、课程相似度索引、ALS 模型在 Setup 阶段按生产配置构建。
+ */
+@State(Scope.Benchmark)
+public class RecommendationFixture {
+
+    /**
+     * 交互条数
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int interactions;
+
+    /**
+     * 基准中 ALS 只训练少量迭代，模型质量不影响打分耗时
+     */
+    private static final int ALS_ITERATIONS = 3;
+
+    private static final long SEED = 20240501L;
+
+    SyntheticDataset dataset;
+    RecommendationAlgorithmService algorithmService;
+
+    private ForkJoinPool modelBuildPool;
+    private Path modelDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataset = SyntheticDataset.generate(interactions, SEED);
+        modelBuildPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        modelDir = Files.createTempDirectory("ai-benchmark-model");
+
+        UserBehaviorMapper mapper = userBehaviorMapper(dataset);
+
+        SimilarUserIndexServiceImpl[] similarUsers = new SimilarUserIndexServiceImpl[1];
+        InteractionMatrixServiceImpl matrixService = new InteractionMatrixServiceImpl(mapper, event -> {
+            if (event instanceof SparseInteractionMatrix matrix && similarUsers[0] != null) {
+                similarUsers[0].onMatrixRebuilt(matrix);
+            }
+        });
+        Stubs.setField(matrixService, "minInteractions", 1);
+        Stubs.setField(matrixService, "expectedSize", dataset.interactionCount());
+
+        similarUsers[0] = new SimilarUserIndexServiceImpl(matrixService, mapper, modelBuildPool);
+        Stubs.setField(similarUsers[0], "enabled", true);
+        Stubs.setField(similarUsers[0], "bands", 32);
+        Stubs.setField(similarUsers[0], "rows", 2);
+        Stubs.setField(similarUsers[0], "maxCandidates", 2000);
+
+        ItemSimilarityServiceImpl itemSimilarity = new ItemSimilarityServiceImpl(matrixService, mapper, modelBuildPool);
+        Stubs.setField(itemSimilarity, "topK", 50);
+        Stubs.setField(itemSimilarity, "minCommonUsers", 2);
+        Stubs.setField(itemSimilarity, "minSimilarity", 0.05f);
+        Stubs.setField(itemSimilarity, "maxUserInteractions", 500);
+        Stubs.setField(itemSimilarity, "modelDir", modelDir.toString());
+
+        MatrixFactorizationServiceImpl factorization = new MatrixFactorizationServiceImpl(matrixService, modelBuildPool);
+        Stubs.setField(factorization, "factors", 32);
+        Stubs.setField(factorization, "regularization", 0.1);
+        Stubs.setField(factorization, "alpha", 10.0);
+        Stubs.setField(factorization, "iterations", ALS_ITERATIONS);
+        Stubs.setField(factorization, "maxTrainingMinutes", 50L);
+        Stubs.setField(factorization, "modelDir", modelDir.toString());
+
+        SeenCourseServiceImpl seenCourses = new SeenCourseServiceImpl(mapper, Stubs.of(RecommendationResultMapper.class));
+        Stubs.setField(seenCourses, "filterShown", true);
+        Stubs.setField(seenCourses, "shownWindowHours", 12L);
+        Stubs.setField(seenCourses, "expectedShown", 300);
+        Stubs.setField(seenCourses, "expectedEnrolled", 200);
+        Stubs.setField(seenCourses, "maxUsers", 20000);
+
+        RerankPipeline rerankPipeline = new RerankPipeline(List.of(new SeenFilterReranker(),
+                new MmrReranker(0.7), new CategoryCapReranker(3)));
+
+        RecommendationAlgorithmServiceImpl service = new RecommendationAlgorithmServiceImpl(mapper, matrixService,
+                itemSimilarity, similarUsers[0], factorization, courseFeatureService(dataset), new InteractionOverlay(),
+                Stubs.of(CourseServiceClient.class), new RedisTemplate<>(), modelBuildPool,
+                Stubs.of(RecommendationStoreService.class), trendingService(dataset), seenCourses, rerankPipeline);
+        Stubs.setField(service, "hybridRecommendationTtl", 30L);
+        Stubs.setField(service, "popularRecommendationTtl", 60L);
+        Stubs.setField(service, "precomputeSize", 100);
+        Stubs.setField(service, "precomputeActiveDays", 30);
+        Stubs.setField(service, "precomputeChunkSize", 1000);
+        Stubs.setField(service, "precomputeTtlHours", 26L);
+
+        matrixService.rebuild();
+        itemSimilarity.rebuild();
+        factorization.train();
+        algorithmService = service;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        modelBuildPool.shutdownNow();
+        FileSystemUtils.deleteRecursively(modelDir);
+    }
+
+    long sampleUserId(SplittableRandom random) {
+        return dataset.sampleUserId(random);
+    }
+
+    long sampleCourseId(SplittableRandom random) {
+        return dataset.sampleCourseId(random);
+    }
+
+    private static UserBehaviorMapper userBehaviorMapper(SyntheticDataset dataset) {
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("streamUserCourseMatrix", args -> {
+            @SuppressWarnings("unchecked")
+            ResultHandler<Map<String, Object>> handler = (ResultHandler<Map<String, Object>>) args[2];
+            RowContext context = new RowContext();
+            dataset.forEachMatrixRow(row -> {
+                context.row = row;
+                context.count++;
+                handler.handleResult(context);
+            });
+            return null;
+        });
+        answers.put("selectUserCourseInteractions", args -> dataset.userInteractions((Long) args[0]));
+        answers.put("selectCourseUserInteractions", args -> dataset.courseInteractions((Long) args[0]));
+        answers.put("selectUserInteractedCourses", args -> dataset.interactedCourses((Long) args[0]));
+        answers.put("selectUserEnrolledCourses", args -> dataset.interactedCourses((Long) args[0]));
+        answers.put("selectInteractedCoursesByUsers", args -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Object userId : (List<?>) args[0]) {
+                for (Long courseId : dataset.interactedCourses((Long) userId)) {
+                    rows.add(Map.of("user_id", userId, "course_id", courseId));
+                }
+            }
+            return rows;
+        });
+        return Stubs.of(UserBehaviorMapper.class, answers);
+    }
+
+    /**
+     * 课程特征：每门课程一个分类、难度、讲师和若干标签，分类与热门程度相关
+     */
+    private static CourseFeatureService courseFeatureService(SyntheticDataset dataset) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        CourseFeatureIndex.Builder builder = CourseFeatureIndex.builder();
+        Map<Long, Long> categories = new HashMap<>(dataset.courseCount() * 2);
+        for (long courseId = 1; courseId <= dataset.courseCount(); courseId++) {
+            long categoryId = courseId % 12;
+            categories.put(courseId, categoryId);
+            List<String> features = new ArrayList<>();
+            features.add("cat:" + categoryId);
+            features.add("diff:" + random.nextInt(3));
+            features.add("teacher:" + random.nextInt(Math.max(1, dataset.courseCount() / 10)));
+            for (int t = 0; t < 4; t++) {
+                features.add("tag:" + random.nextInt(200));
+            }
+            features.add("price:" + (random.nextBoolean() ? "free" : "100-300"));
+            builder.add(courseId, features);
+        }
+        CourseFeatureIndex index = builder.build();
+
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("current", args -> index);
+        answers.put("refresh", args -> index);
+        answers.put("refreshIncremental", args -> index);
+        answers.put("courseCategories", args -> categories);
+        return Stubs.of(CourseFeatureService.class, answers);
+    }
+
+    /**
+     * 热度排行：课程ID越小越热门，与数据集的 Zipf 分布一致
+     */
+    private static TrendingService trendingService(SyntheticDataset dataset) {
+        Map<String, Stubs.Answer> answers = new HashMap<>();
+        answers.put("top", args -> {
+            int count = Math.min((Integer) args[1], dataset.courseCount());
+            List<ScoredCourse> top = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                top.add(new ScoredCourse(i + 1L, 1.0 / (i + 1), "热门课程推荐"));
+            }
+            return top;
+        });
+        return Stubs.of(TrendingService.class, answers);
+    }
+
+    private static final class RowContext implements ResultContext<Map<String, Object>> {
+
+        private Map<String, Object> row;
+        private int count;
+
+        @Override
+        public Map<String, Object> getResultObject() {
+            return row;
+        }
+
+        @Override
+        public int getResultCount() {
+            return count;
+        }
+
+        @Override
+        public boolean isStopped() {
+            return false;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
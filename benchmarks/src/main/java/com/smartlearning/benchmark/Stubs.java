@@ -0,0 +1,101 @@
+package com.smartlearning.benchmark;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基准装配用的桩与反射工具
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * 接口桩：answers 中按方法名给出实现，其余方法返回空集合 / null / 基本类型零值
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T of(Class<T> type, Map<String, Answer> answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args, type);
+            }
+            Answer answer = answers.get(method.getName());
+            return answer != null ? answer.answer(args) : defaultValue(method.getReturnType());
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    static <T> T of(Class<T> type) {
+        return of(type, Map.of());
+    }
+
+    /**
+     * 写入 {@code @Value} 注入的私有字段（不启动Spring容器时使用默认配置）
+     */
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " 没有字段 " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Class<?> type) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return type.getSimpleName() + "Stub";
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == List.class || type == Iterable.class || type == java.util.Collection.class) {
+            return new ArrayList<>();
+        }
+        if (type == Set.class) {
+            return new HashSet<>();
+        }
+        if (type == Map.class) {
+            return new HashMap<>();
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class || type == short.class || type == byte.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    interface Answer {
+        Object answer(Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,233 @@
+package com.smartlearning.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * 合成的用户-课程交互数据集
+ * <p>
+ * 用户ID为 1..userCount，课程ID为 1..courseCount。每个用户的交互数服从以20为均值的几何分布，
+ * 课程按 Zipf(1.0) 分布抽取（课程ID越小越热门），与线上"少数课程占据大部分学习行为"的长尾形态一致。
+ * 数据按用户、按课程各存一份 CSR，供映射器桩按用户 / 按课程返回行。
+ */
+public final class SyntheticDataset {
+
+    private static final int MEAN_INTERACTIONS_PER_USER = 20;
+
+    private final int userCount;
+    private final int courseCount;
+
+    /**
+     * 按用户的 CSR：用户下标 u 对应用户ID u + 1
+     */
+    private final int[] userPtr;
+    private final int[] userCourses;
+    private final int[] counts;
+    private final float[] ratings;
+
+    /**
+     * 按课程的 CSR：存用户下标与对应的按用户 CSR 位置
+     */
+    private final int[] coursePtr;
+    private final int[] courseUsers;
+    private final int[] courseEntries;
+
+    private final double[] zipfCdf;
+
+    private SyntheticDataset(int userCount, int courseCount, int[] userPtr, int[] userCourses, int[] counts,
+                             float[] ratings, double[] zipfCdf) {
+        this.userCount = userCount;
+        this.courseCount = courseCount;
+        this.userPtr = userPtr;
+        this.userCourses = userCourses;
+        this.counts = counts;
+        this.ratings = ratings;
+        this.zipfCdf = zipfCdf;
+
+        this.coursePtr = new int[courseCount + 1];
+        for (int course : userCourses) {
+            coursePtr[course + 1]++;
+        }
+        for (int c = 0; c < courseCount; c++) {
+            coursePtr[c + 1] += coursePtr[c];
+        }
+        this.courseUsers = new int[userCourses.length];
+        this.courseEntries = new int[userCourses.length];
+        int[] fill = Arrays.copyOf(coursePtr, courseCount);
+        for (int u = 0; u < userCount; u++) {
+            for (int p = userPtr[u]; p < userPtr[u + 1]; p++) {
+                int slot = fill[userCourses[p]]++;
+                courseUsers[slot] = u;
+                courseEntries[slot] = p;
+            }
+        }
+    }
+
+    /**
+     * 生成约 interactions 条（用户, 课程）交互
+     */
+    public static SyntheticDataset generate(int interactions, long seed) {
+        int userCount = Math.max(1, interactions / MEAN_INTERACTIONS_PER_USER);
+        int courseCount = Math.min(5000, Math.max(200, interactions / 100));
+        SplittableRandom random = new SplittableRandom(seed);
+
+        double[] cdf = new double[courseCount];
+        double sum = 0.0;
+        for (int c = 0; c < courseCount; c++) {
+            sum += 1.0 / (c + 1);
+            cdf[c] = sum;
+        }
+        for (int c = 0; c < courseCount; c++) {
+            cdf[c] /= sum;
+        }
+
+        int[] userPtr = new int[userCount + 1];
+        int[] userCourses = new int[interactions + courseCount];
+        int[] counts = new int[userCourses.length];
+        float[] ratings = new float[userCourses.length];
+        int size = 0;
+        int[] row = new int[courseCount];
+        for (int u = 0; u < userCount; u++) {
+            int remaining = interactions - size;
+            int target = Math.min(courseCount / 2, Math.max(1, geometric(random, MEAN_INTERACTIONS_PER_USER)));
+            if (u == userCount - 1 || target > remaining) {
+                target = Math.max(1, Math.min(courseCount / 2, remaining));
+            }
+            int n = 0;
+            while (n < target) {
+                int course = sample(cdf, random.nextDouble());
+                boolean duplicate = false;
+                for (int i = 0; i < n && !duplicate; i++) {
+                    duplicate = row[i] == course;
+                }
+                if (!duplicate) {
+                    row[n++] = course;
+                }
+            }
+            Arrays.sort(row, 0, n);
+            if (size + n > userCourses.length) {
+                int capacity = Math.max(size + n, userCourses.length + (userCourses.length >> 1));
+                userCourses = Arrays.copyOf(userCourses, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+            }
+            for (int i = 0; i < n; i++) {
+                userCourses[size] = row[i];
+                counts[size] = 1 + geometric(random, 3);
+                ratings[size] = 1 + random.nextInt(5);
+                size++;
+            }
+            userPtr[u + 1] = size;
+        }
+        return new SyntheticDataset(userCount, courseCount, userPtr, Arrays.copyOf(userCourses, size),
+                Arrays.copyOf(counts, size), Arrays.copyOf(ratings, size), cdf);
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public int courseCount() {
+        return courseCount;
+    }
+
+    public int interactionCount() {
+        return userCourses.length;
+    }
+
+    /**
+     * 按 Zipf 分布抽一门课程ID（请求中的热门课程更常见）
+     */
+    public long sampleCourseId(SplittableRandom random) {
+        return sample(zipfCdf, random.nextDouble()) + 1L;
+    }
+
+    public long sampleUserId(SplittableRandom random) {
+        return random.nextInt(userCount) + 1L;
+    }
+
+    /**
+     * 逐行回放交互矩阵查询结果（列名与 USER_COURSE_MATRIX_SQL 一致）
+     */
+    public void forEachMatrixRow(Consumer<Map<String, Object>> consumer) {
+        for (int u = 0; u < userCount; u++) {
+            for (int p = userPtr[u]; p < userPtr[u + 1]; p++) {
+                Map<String, Object> row = new HashMap<>(8);
+                row.put("user_id", u + 1L);
+                row.put("course_id", userCourses[p] + 1L);
+                row.put("interaction_count", (long) counts[p]);
+                row.put("avg_rating", (double) ratings[p]);
+                consumer.accept(row);
+            }
+        }
+    }
+
+    /**
+     * 用户的课程交互行（selectUserCourseInteractions）
+     */
+    public List<Map<String, Object>> userInteractions(long userId) {
+        int u = (int) userId - 1;
+        if (u < 0 || u >= userCount) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(userPtr[u + 1] - userPtr[u]);
+        for (int p = userPtr[u]; p < userPtr[u + 1]; p++) {
+            Map<String, Object> row = new HashMap<>(4);
+            row.put("course_id", userCourses[p] + 1L);
+            row.put("interaction_count", (long) counts[p]);
+            row.put("avg_rating", (double) ratings[p]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 课程的用户交互行（selectCourseUserInteractions）
+     */
+    public List<Map<String, Object>> courseInteractions(long courseId) {
+        int c = (int) courseId - 1;
+        if (c < 0 || c >= courseCount) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(coursePtr[c + 1] - coursePtr[c]);
+        for (int p = coursePtr[c]; p < coursePtr[c + 1]; p++) {
+            int entry = courseEntries[p];
+            Map<String, Object> row = new HashMap<>(4);
+            row.put("user_id", courseUsers[p] + 1L);
+            row.put("interaction_count", (long) counts[entry]);
+            row.put("avg_rating", (double) ratings[entry]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 用户交互过的课程ID（selectUserInteractedCourses）
+     */
+    public List<Long> interactedCourses(long userId) {
+        int u = (int) userId - 1;
+        if (u < 0 || u >= userCount) {
+            return new ArrayList<>();
+        }
+        List<Long> courses = new ArrayList<>(userPtr[u + 1] - userPtr[u]);
+        for (int p = userPtr[u]; p < userPtr[u + 1]; p++) {
+            courses.add(userCourses[p] + 1L);
+        }
+        return courses;
+    }
+
+    private static int sample(double[] cdf, double value) {
+        int idx = Arrays.binarySearch(cdf, value);
+        return Math.min(cdf.length - 1, idx >= 0 ? idx : -idx - 1);
+    }
+
+    private static int geometric(SplittableRandom random, int mean) {
+        double p = 1.0 / mean;
+        return (int) Math.ceil(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+    }
+}
@@ -13,8 +13,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -66,6 +68,30 @@ public class CourseController {
         return Result.success("课程删除成功");
     }
     
+    /**
+     * 批量获取课程
+     */
+    @GetMapping("/batch")
+    @Operation(summary = "批量获取课程", description = "根据ID列表批量获取课程基础信息")
+    public Result<List<Course>> getCoursesByIds(@Parameter(description = "课程ID列表") @RequestParam List<Long> courseIds) {
+        log.info("批量获取课程请求: size={}", courseIds.size());
+        List<Course> courses = courseService.getCoursesByIds(courseIds);
+        return Result.success("查询成功", courses);
+    }
+    
+    /**
+     * 获取有更新的课程ID
+     */
+    @GetMapping("/ids/updated")
+    @Operation(summary = "获取有更新的课程ID", description = "获取指定时间之后有更新的已发布课程ID，不传时间返回全部")
+    public Result<List<Long>> getCourseIdsUpdatedSince(
+            @Parameter(description = "起始时间") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        log.info("获取有更新的课程ID请求: since={}", since);
+        List<Long> courseIds = courseService.getCourseIdsUpdatedSince(since);
+        return Result.success("查询成功", courseIds);
+    }
+    
     /**
      * 获取课程详情
      */
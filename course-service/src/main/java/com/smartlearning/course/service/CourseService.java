@@ -6,6 +6,7 @@ import com.smartlearning.course.dto.CourseQueryRequest;
 import com.smartlearning.course.entity.Course;
 import com.smartlearning.course.vo.CourseVO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -122,4 +123,14 @@ public interface CourseService {
      * 统计教师课程数量
      */
     Long countCoursesByTeacher(Long teacherId);
+    
+    /**
+     * 批量查询课程
+     */
+    List<Course> getCoursesByIds(List<Long> courseIds);
+    
+    /**
+     * 查询指定时间之后有更新的已发布课程ID
+     */
+    List<Long> getCourseIdsUpdatedSince(LocalDateTime since);
 }
@@ -384,6 +384,25 @@ public class CourseServiceImpl implements CourseService {
         return courseMapper.countCoursesByTeacher(teacherId);
     }
 
+    @Override
+    public List<Course> getCoursesByIds(List<Long> courseIds) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return List.of();
+        }
+        return courseMapper.selectBatchIds(courseIds);
+    }
+
+    @Override
+    public List<Long> getCourseIdsUpdatedSince(LocalDateTime since) {
+        LambdaQueryWrapper<Course> wrapper = new LambdaQueryWrapper<Course>()
+                .select(Course::getId)
+                .eq(Course::getStatus, CommonConstants.CourseStatus.PUBLISHED)
+                .ge(since != null, Course::getUpdateTime, since);
+        return courseMapper.selectObjs(wrapper).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+    }
+
     /**
      * 清除课程缓存
      */
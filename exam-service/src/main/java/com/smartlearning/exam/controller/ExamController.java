@@ -2,15 +2,27 @@ package com.smartlearning.exam.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.smartlearning.common.result.Result;
+import com.smartlearning.exam.dto.AnswerDraftRequest;
 import com.smartlearning.exam.dto.ExamPaperCreateRequest;
 import com.smartlearning.exam.dto.ExamSubmitRequest;
+import com.smartlearning.exam.dto.PaperGenerateRequest;
 import com.smartlearning.exam.dto.QuestionCreateRequest;
 import com.smartlearning.exam.entity.ExamPaper;
 import com.smartlearning.exam.entity.ExamRecord;
 import com.smartlearning.exam.entity.Question;
+import com.smartlearning.exam.service.AnswerDraftService;
 import com.smartlearning.exam.service.ExamService;
+import com.smartlearning.exam.service.ExamStatsService;
+import com.smartlearning.exam.service.GradingQueueService;
+import com.smartlearning.exam.service.LeaderboardService;
+import com.smartlearning.exam.service.PaperGeneratorService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import com.smartlearning.exam.service.QuestionPoolService;
 import com.smartlearning.exam.vo.ExamPaperVO;
 import com.smartlearning.exam.vo.ExamRecordVO;
+import com.smartlearning.exam.vo.ExamStatsVO;
+import com.smartlearning.exam.vo.GradingStatusVO;
+import com.smartlearning.exam.vo.LeaderboardEntryVO;
 import com.smartlearning.exam.vo.QuestionVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 考试控制器
@@ -33,6 +46,13 @@ import java.util.List;
 public class ExamController {
     
     private final ExamService examService;
+    private final PaperSnapshotService paperSnapshotService;
+    private final GradingQueueService gradingQueueService;
+    private final ExamStatsService examStatsService;
+    private final LeaderboardService leaderboardService;
+    private final AnswerDraftService answerDraftService;
+    private final PaperGeneratorService paperGeneratorService;
+    private final QuestionPoolService questionPoolService;
     
     // ==================== 题目管理 ====================
     
@@ -127,6 +147,16 @@ public class ExamController {
     
     // ==================== 试卷管理 ====================
     
+    /**
+     * 按组卷蓝图随机组卷
+     */
+    @PostMapping("/papers/generate")
+    @Operation(summary = "按蓝图随机组卷", description = "按题型、难度和数量分层随机抽题，返回的题目可直接用于创建试卷")
+    public Result<List<QuestionVO>> generatePaper(@Valid @RequestBody PaperGenerateRequest request) {
+        log.info("按蓝图组卷请求: courseId={}, items={}", request.getCourseId(), request.getItems().size());
+        return Result.success("组卷成功", paperGeneratorService.generate(request));
+    }
+    
     /**
      * 创建试卷
      */
@@ -227,6 +257,56 @@ public class ExamController {
         return Result.success("试卷归档成功");
     }
     
+    /**
+     * 获取试卷成绩统计
+     */
+    @GetMapping("/papers/{paperId}/stats")
+    @Operation(summary = "获取试卷成绩统计", description = "平均分、通过率、分位数和分数分布")
+    public Result<ExamStatsVO> getExamStats(@Parameter(description = "试卷ID") @PathVariable Long paperId) {
+        return Result.success("获取成功", examStatsService.getStats(paperId));
+    }
+    
+    /**
+     * 重建试卷成绩统计
+     */
+    @PostMapping("/papers/{paperId}/stats/rebuild")
+    @Operation(summary = "重建试卷成绩统计", description = "从考试记录全量重新计算试卷成绩统计")
+    public Result<ExamStatsVO> rebuildExamStats(@Parameter(description = "试卷ID") @PathVariable Long paperId) {
+        log.info("重建试卷成绩统计请求: paperId={}", paperId);
+        return Result.success("重建成功", examStatsService.rebuild(paperId));
+    }
+    
+    /**
+     * 获取试卷排行榜
+     */
+    @GetMapping("/papers/{paperId}/leaderboard")
+    @Operation(summary = "获取试卷排行榜", description = "按用户最高分排名，同分同名次")
+    public Result<List<LeaderboardEntryVO>> getLeaderboard(@Parameter(description = "试卷ID") @PathVariable Long paperId,
+                                                         @Parameter(description = "起始位置") @RequestParam(defaultValue = "0") Integer offset,
+                                                         @Parameter(description = "数量") @RequestParam(defaultValue = "20") Integer limit) {
+        return Result.success("获取成功", leaderboardService.getTop(paperId, Math.max(offset, 0), Math.min(Math.max(limit, 1), 100)));
+    }
+    
+    /**
+     * 获取我的排名
+     */
+    @GetMapping("/papers/{paperId}/leaderboard/me")
+    @Operation(summary = "获取我的排名", description = "当前用户在试卷排行榜中的名次，未上榜返回空")
+    public Result<LeaderboardEntryVO> getMyRank(@Parameter(description = "试卷ID") @PathVariable Long paperId,
+                                              @RequestHeader("X-User-Id") Long userId) {
+        return Result.success("获取成功", leaderboardService.getRank(paperId, userId));
+    }
+    
+    /**
+     * 重建试卷排行榜
+     */
+    @PostMapping("/papers/{paperId}/leaderboard/rebuild")
+    @Operation(summary = "重建试卷排行榜", description = "从考试记录全量重建排行榜，名次随后写回考试记录")
+    public Result<Long> rebuildLeaderboard(@Parameter(description = "试卷ID") @PathVariable Long paperId) {
+        log.info("重建试卷排行榜请求: paperId={}", paperId);
+        return Result.success("重建成功", leaderboardService.rebuild(paperId));
+    }
+    
     // ==================== 考试管理 ====================
     
     /**
@@ -241,11 +321,42 @@ public class ExamController {
         return Result.success("考试开始成功", record);
     }
     
+    /**
+     * 获取本次考试的试卷题目
+     */
+    @GetMapping("/records/{recordId}/paper")
+    @Operation(summary = "获取考试题目", description = "返回不含答案的试卷题目，试卷设置乱序时每次考试的题目顺序不同")
+    public Result<List<QuestionVO>> getPaperVariant(@Parameter(description = "考试记录ID") @PathVariable Long recordId,
+                                                  @RequestHeader("X-User-Id") Long userId) {
+        return Result.success("获取成功", paperGeneratorService.getPaperVariant(recordId, userId));
+    }
+    
+    /**
+     * 自动保存答题草稿
+     */
+    @PutMapping("/records/{recordId}/draft")
+    @Operation(summary = "自动保存答题草稿", description = "考试过程中提交变化的题目答案，提交考试时与提交内容合并")
+    public Result<Integer> saveAnswerDraft(@Parameter(description = "考试记录ID") @PathVariable Long recordId,
+                                         @Valid @RequestBody AnswerDraftRequest request,
+                                         @RequestHeader("X-User-Id") Long userId) {
+        return Result.success("保存成功", answerDraftService.save(recordId, userId, request.getAnswers()));
+    }
+    
+    /**
+     * 获取答题草稿
+     */
+    @GetMapping("/records/{recordId}/draft")
+    @Operation(summary = "获取答题草稿", description = "断线重连后恢复已自动保存的答案")
+    public Result<List<ExamSubmitRequest.AnswerItem>> getAnswerDraft(@Parameter(description = "考试记录ID") @PathVariable Long recordId,
+                                                                   @RequestHeader("X-User-Id") Long userId) {
+        return Result.success("获取成功", answerDraftService.get(recordId, userId));
+    }
+    
     /**
      * 提交考试
      */
     @PostMapping("/records/submit")
-    @Operation(summary = "提交考试", description = "学生提交考试答案")
+    @Operation(summary = "提交考试", description = "学生提交考试答案，阅卷异步完成，可通过阅卷状态接口查询结果")
     public Result<ExamRecord> submitExam(@Valid @RequestBody ExamSubmitRequest request,
                                        @RequestHeader("X-User-Id") Long userId) {
         log.info("提交考试请求: recordId={}, userId={}", request.getRecordId(), userId);
@@ -253,6 +364,15 @@ public class ExamController {
         return Result.success("考试提交成功", record);
     }
     
+    /**
+     * 查询阅卷状态
+     */
+    @GetMapping("/records/{recordId}/grading-status")
+    @Operation(summary = "查询阅卷状态", description = "查询提交后的异步阅卷进度和成绩")
+    public Result<GradingStatusVO> getGradingStatus(@Parameter(description = "考试记录ID") @PathVariable Long recordId) {
+        return Result.success("获取成功", gradingQueueService.getStatus(recordId));
+    }
+    
     /**
      * 获取考试记录详情
      */
@@ -303,4 +423,33 @@ public class ExamController {
         ExamRecord record = examService.manualGrade(recordId, answers, graderId);
         return Result.success("阅卷完成", record);
     }
+    
+    // ==================== 缓存管理 ====================
+    
+    /**
+     * 试卷快照缓存统计
+     */
+    @GetMapping("/cache/paper-snapshot/stats")
+    @Operation(summary = "试卷快照缓存统计", description = "本地命中、Redis命中、数据库加载和失效次数")
+    public Result<Map<String, Object>> getPaperSnapshotStats() {
+        return Result.success("获取成功", paperSnapshotService.getStats());
+    }
+    
+    /**
+     * 异步阅卷队列统计
+     */
+    @GetMapping("/cache/grading-queue/stats")
+    @Operation(summary = "阅卷队列统计", description = "排队答卷数、活跃线程数和累计阅卷/失败/批次数")
+    public Result<Map<String, Object>> getGradingQueueStats() {
+        return Result.success("获取成功", gradingQueueService.getStats());
+    }
+    
+    /**
+     * 题目池缓存统计
+     */
+    @GetMapping("/cache/question-pool/stats")
+    @Operation(summary = "题目池缓存统计", description = "本地命中、数据库加载和失效次数")
+    public Result<Map<String, Object>> getQuestionPoolStats() {
+        return Result.success("获取成功", questionPoolService.getStats());
+    }
 }
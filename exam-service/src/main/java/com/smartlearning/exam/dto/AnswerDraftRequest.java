@@ -0,0 +1,19 @@
+package com.smartlearning.exam.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 答题草稿保存请求DTO（只需提交自上次保存以来变化的题目）
+ */
+@Data
+public class AnswerDraftRequest {
+
+    /**
+     * 变化的答题项
+     */
+    @NotEmpty(message = "答题项不能为空")
+    private List<ExamSubmitRequest.AnswerItem> answers;
+}
@@ -0,0 +1,69 @@
+package com.smartlearning.exam.dto;
+
+import lombok.Data;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import java.util.List;
+
+/**
+ * 按组卷蓝图随机组卷请求DTO
+ */
+@Data
+public class PaperGenerateRequest {
+
+    /**
+     * 课程ID
+     */
+    @NotNull(message = "课程ID不能为空")
+    private Long courseId;
+
+    /**
+     * 随机种子（相同种子和题库生成相同的试卷，为空时随机）
+     */
+    private Long seed;
+
+    /**
+     * 组卷蓝图
+     */
+    @Valid
+    @NotEmpty(message = "组卷蓝图不能为空")
+    private List<BlueprintItem> items;
+
+    /**
+     * 蓝图项：从指定题型、难度的题目中抽取若干道
+     */
+    @Data
+    public static class BlueprintItem {
+
+        /**
+         * 题目类型，为空表示不限
+         */
+        @Pattern(regexp = "^(SINGLE|MULTIPLE|JUDGE|FILL|ESSAY)$", message = "题目类型不正确")
+        private String type;
+
+        /**
+         * 题目难度，为空表示不限
+         */
+        @Pattern(regexp = "^(EASY|MEDIUM|HARD)$", message = "题目难度不正确")
+        private String difficulty;
+
+        /**
+         * 抽取数量
+         */
+        @NotNull(message = "抽取数量不能为空")
+        @Min(value = 1, message = "抽取数量至少为1")
+        @Max(value = 200, message = "抽取数量不能超过200")
+        private Integer count;
+
+        /**
+         * 每题分值，为空时使用题目自身分值
+         */
+        @Min(value = 0, message = "分值不能为负数")
+        private Integer score;
+    }
+}
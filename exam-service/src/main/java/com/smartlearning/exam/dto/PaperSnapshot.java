@@ -0,0 +1,41 @@
+package com.smartlearning.exam.dto;
+
+import com.smartlearning.exam.entity.ExamPaper;
+import com.smartlearning.exam.vo.QuestionVO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 试卷快照（试卷元数据 + 题目列表）
+ * <p>
+ * 快照生成后只读：调用方不得修改其中的试卷和题目对象，试卷变更时生成新版本的快照替换旧快照。
+ * 题目包含标准答案，仅供服务内部使用，不能直接返回给考生。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaperSnapshot {
+
+    /**
+     * 快照版本号（试卷每次变更后递增）
+     */
+    private long version;
+
+    /**
+     * 试卷元数据
+     */
+    private ExamPaper paper;
+
+    /**
+     * 试卷题目（按题目顺序）
+     */
+    private List<QuestionVO> questions;
+
+    /**
+     * 生成时间（毫秒时间戳）
+     */
+    private long createdAt;
+}
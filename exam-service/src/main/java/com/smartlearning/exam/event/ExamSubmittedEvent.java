@@ -0,0 +1,22 @@
+package com.smartlearning.exam.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 考试提交事件（提交事务提交后由阅卷队列消费）
+ */
+@Data
+@AllArgsConstructor
+public class ExamSubmittedEvent {
+
+    /**
+     * 考试记录ID
+     */
+    private Long recordId;
+
+    /**
+     * 试卷ID
+     */
+    private Long paperId;
+}
@@ -0,0 +1,172 @@
+package com.smartlearning.exam.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 单门课程的题目ID池（按题型、难度分层）
+ * <p>
+ * 每个 (题型, 难度) 组合一个ID数组，另外预先合并出只限定题型、只限定难度和不限条件的数组，
+ * 抽题时直接在对应数组上随机取下标，期望耗时与抽取数量成正比，与题库大小无关。
+ * 实例只读，题库变更时整体重建后由持有方替换。
+ */
+public final class QuestionPool {
+
+    private static final String ANY = "*";
+    private static final long[] NONE = new long[0];
+
+    private final long version;
+    private final Map<String, long[]> strata;
+    private final int questionCount;
+    private final long builtAt;
+
+    private QuestionPool(long version, Map<String, long[]> strata, int questionCount) {
+        this.version = version;
+        this.strata = strata;
+        this.questionCount = questionCount;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    public static Builder builder(long version) {
+        return new Builder(version);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int questionCount() {
+        return questionCount;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    /**
+     * 符合条件的题目数
+     *
+     * @param type       题型，为空表示不限
+     * @param difficulty 难度，为空表示不限
+     */
+    public int size(String type, String difficulty) {
+        return stratum(type, difficulty).length;
+    }
+
+    /**
+     * 不放回地随机抽取题目
+     *
+     * @param type       题型，为空表示不限
+     * @param difficulty 难度，为空表示不限
+     * @param count      抽取数量
+     * @param random     随机数生成器
+     * @param chosen     已抽中的题目ID（跨分层去重），抽中的题目会加入其中
+     * @return 抽中的题目ID，可用题目不足时返回全部可用题目
+     */
+    public long[] sample(String type, String difficulty, int count, SplittableRandom random, Set<Long> chosen) {
+        long[] ids = stratum(type, difficulty);
+        if (count <= 0 || ids.length == 0) {
+            return NONE;
+        }
+
+        if ((long) count * 2 <= ids.length) {
+            // 稀疏抽样：随机取下标，碰到已抽中的题目重抽；尝试次数有上限，剩余题目大多已被抽中时回退到洗牌
+            long[] result = new long[count];
+            int n = 0;
+            int attempts = count * 4;
+            while (n < count && attempts-- > 0) {
+                long id = ids[random.nextInt(ids.length)];
+                if (chosen.add(id)) {
+                    result[n++] = id;
+                }
+            }
+            if (n == count) {
+                return result;
+            }
+            chosen.removeAll(asList(result, n));
+        }
+        return shuffleSample(ids, count, random, chosen);
+    }
+
+    /**
+     * 部分 Fisher-Yates 洗牌（抽取量接近分层大小时使用）
+     */
+    private static long[] shuffleSample(long[] ids, int count, SplittableRandom random, Set<Long> chosen) {
+        long[] candidates = new long[ids.length];
+        int size = 0;
+        for (long id : ids) {
+            if (!chosen.contains(id)) {
+                candidates[size++] = id;
+            }
+        }
+        int n = Math.min(count, size);
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(size - i);
+            long tmp = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = tmp;
+            chosen.add(candidates[i]);
+        }
+        return Arrays.copyOf(candidates, n);
+    }
+
+    private long[] stratum(String type, String difficulty) {
+        long[] ids = strata.get(key(type, difficulty));
+        return ids != null ? ids : NONE;
+    }
+
+    private static List<Long> asList(long[] values, int length) {
+        List<Long> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    private static String key(String type, String difficulty) {
+        return (type == null || type.isEmpty() ? ANY : type) + "|"
+                + (difficulty == null || difficulty.isEmpty() ? ANY : difficulty);
+    }
+
+    /**
+     * 题目池构建器：逐题追加（题目ID, 题型, 难度）
+     */
+    public static final class Builder {
+
+        private final long version;
+        private final Map<String, List<Long>> strata = new HashMap<>();
+        private final Set<Long> seen = new HashSet<>();
+
+        private Builder(long version) {
+            this.version = version;
+        }
+
+        public Builder add(long questionId, String type, String difficulty) {
+            if (!seen.add(questionId)) {
+                return this;
+            }
+            // 同一题目同时属于精确分层、两个单条件分层和不限条件分层（题型或难度为空时部分分层相同）
+            Set<String> keys = new HashSet<>(8);
+            keys.add(key(type, difficulty));
+            keys.add(key(type, null));
+            keys.add(key(null, difficulty));
+            keys.add(key(null, null));
+            for (String key : keys) {
+                strata.computeIfAbsent(key, k -> new ArrayList<>()).add(questionId);
+            }
+            return this;
+        }
+
+        public QuestionPool build() {
+            Map<String, long[]> arrays = new HashMap<>(strata.size() * 2);
+            strata.forEach((key, ids) -> arrays.put(key, ids.stream().mapToLong(Long::longValue).toArray()));
+            return new QuestionPool(version, arrays, seen.size());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.smartlearning.exam.grading;
+
+/**
+ * 单道题目的标准答案（含编译后的匹配器）
+ */
+public final class AnswerKey {
+
+    private final long questionId;
+    private final String type;
+    private final String answer;
+    private final int score;
+    private final AnswerMatcher matcher;
+
+    public AnswerKey(long questionId, String type, String answer, Integer score, AnswerMatcher matcher) {
+        this.questionId = questionId;
+        this.type = type;
+        this.answer = answer;
+        this.score = score != null ? score : 0;
+        this.matcher = matcher;
+    }
+
+    public long questionId() {
+        return questionId;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String answer() {
+        return answer;
+    }
+
+    /**
+     * 题目分值（答题记录未带分值时使用）
+     */
+    public int score() {
+        return score;
+    }
+
+    public AnswerMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * 判断作答是否正确
+     */
+    public boolean matches(String userAnswer) {
+        return matcher.matches(userAnswer);
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartlearning.exam.grading;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一张试卷的标准答案集合（只读）
+ */
+public final class AnswerKeySet {
+
+    private static final AnswerKeySet EMPTY = new AnswerKeySet(-1L, Collections.emptyMap());
+
+    private final long version;
+    private final Map<Long, AnswerKey> keys;
+
+    private AnswerKeySet(long version, Map<Long, AnswerKey> keys) {
+        this.version = version;
+        this.keys = keys;
+    }
+
+    public static AnswerKeySet empty() {
+        return EMPTY;
+    }
+
+    public static AnswerKeySet of(long version, Collection<AnswerKey> keys) {
+        Map<Long, AnswerKey> map = new HashMap<>(keys.size() * 2);
+        for (AnswerKey key : keys) {
+            map.put(key.questionId(), key);
+        }
+        return new AnswerKeySet(version, Collections.unmodifiableMap(map));
+    }
+
+    /**
+     * 合并额外的答案（如试卷变更后已不在试卷中的题目），返回新实例
+     */
+    public AnswerKeySet with(Collection<AnswerKey> extra) {
+        if (extra.isEmpty()) {
+            return this;
+        }
+        Map<Long, AnswerKey> map = new HashMap<>(keys);
+        for (AnswerKey key : extra) {
+            map.put(key.questionId(), key);
+        }
+        return new AnswerKeySet(version, Collections.unmodifiableMap(map));
+    }
+
+    /**
+     * 对应的试卷快照版本号
+     */
+    public long version() {
+        return version;
+    }
+
+    public AnswerKey get(Long questionId) {
+        return questionId != null ? keys.get(questionId) : null;
+    }
+
+    public boolean contains(Long questionId) {
+        return questionId != null && keys.containsKey(questionId);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
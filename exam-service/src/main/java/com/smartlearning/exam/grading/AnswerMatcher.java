@@ -0,0 +1,19 @@
+package com.smartlearning.exam.grading;
+
+/**
+ * 编译后的答案匹配器（不可变，线程安全）
+ * <p>
+ * 标准答案在编译时解析一次，判分时只扫描考生答案，不分配对象。
+ */
+public interface AnswerMatcher {
+
+    /**
+     * 永不匹配（问答题等需要人工阅卷的题型、缺少标准答案的题目）
+     */
+    AnswerMatcher NEVER = userAnswer -> false;
+
+    /**
+     * 判断作答是否正确
+     */
+    boolean matches(String userAnswer);
+}
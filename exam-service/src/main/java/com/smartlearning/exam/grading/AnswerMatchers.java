@@ -0,0 +1,62 @@
+package com.smartlearning.exam.grading;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按题型把标准答案编译为匹配器
+ */
+public final class AnswerMatchers {
+
+    private AnswerMatchers() {
+    }
+
+    /**
+     * 编译标准答案
+     *
+     * @param type             题型 SINGLE/MULTIPLE/JUDGE/FILL/ESSAY
+     * @param answer           标准答案
+     * @param ignoreWhitespace 文本答案是否忽略内部空白
+     * @return 匹配器
+     */
+    public static AnswerMatcher compile(String type, String answer, boolean ignoreWhitespace) {
+        if (type == null || answer == null) {
+            return AnswerMatcher.NEVER;
+        }
+
+        switch (type) {
+            case "SINGLE":
+            case "JUDGE": {
+                // 单个选项字母按位掩码比较，其他形式（如"正确"）按文本比较
+                ChoiceMatcher choice = ChoiceMatcher.compile(answer);
+                return choice != null && choice.optionCount() == 1
+                        ? choice : TextMatcher.compile(List.of(answer), ignoreWhitespace);
+            }
+            case "MULTIPLE": {
+                // 单个选项字母的组合按位掩码比较，其他形式（如"Java,Python"）按逗号拆分排序后比较
+                ChoiceMatcher choice = ChoiceMatcher.compile(answer);
+                return choice != null ? choice : TokenSetMatcher.compile(answer);
+            }
+            case "FILL":
+                // 填空题可以有多个正确答案，用|分隔
+                return TextMatcher.compile(splitAlternatives(answer), ignoreWhitespace);
+            case "ESSAY":
+                // 问答题需要人工阅卷
+                return AnswerMatcher.NEVER;
+            default:
+                return AnswerMatcher.NEVER;
+        }
+    }
+
+    private static List<String> splitAlternatives(String answer) {
+        List<String> alternatives = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i <= answer.length(); i++) {
+            if (i == answer.length() || answer.charAt(i) == '|') {
+                alternatives.add(answer.substring(from, i));
+                from = i + 1;
+            }
+        }
+        return alternatives;
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartlearning.exam.grading;
+
+/**
+ * 选择题匹配器：选项字母（A-Z，不区分大小写、全角/半角）编码为位掩码后比较
+ * <p>
+ * 只接受由逗号、顿号或空白分隔的单个选项字母，选项顺序不影响结果；
+ * 多个字母连写（如 {@code Java}）或重复选项（如 {@code A,A}）不是合法的选项组合。
+ */
+public final class ChoiceMatcher implements AnswerMatcher {
+
+    private static final long INVALID = -1L;
+
+    private final long mask;
+
+    private ChoiceMatcher(long mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * 编译标准答案
+     *
+     * @param answer 标准答案，如 {@code A}、{@code A,C}
+     * @return 匹配器，答案不是互不相同的单个选项字母组合时返回 null
+     */
+    public static ChoiceMatcher compile(String answer) {
+        long mask = parse(answer);
+        return mask == INVALID || mask == 0 ? null : new ChoiceMatcher(mask);
+    }
+
+    /**
+     * 选中的选项数
+     */
+    public int optionCount() {
+        return Long.bitCount(mask);
+    }
+
+    @Override
+    public boolean matches(String userAnswer) {
+        return userAnswer != null && parse(userAnswer) == mask;
+    }
+
+    private static long parse(String answer) {
+        long mask = 0L;
+        boolean afterLetter = false;
+        for (int i = 0, n = answer.length(); i < n; i++) {
+            char c = TextMatcher.fold(answer.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                long bit = 1L << (c - 'a');
+                // 连写的字母或重复的选项都不是合法的选项组合
+                if (afterLetter || (mask & bit) != 0) {
+                    return INVALID;
+                }
+                mask |= bit;
+                afterLetter = true;
+            } else if (c == ',' || c == '、' || Character.isWhitespace(c)) {
+                afterLetter = false;
+            } else {
+                return INVALID;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,59 @@
+package com.smartlearning.exam.grading;
+
+import com.smartlearning.exam.entity.ExamAnswer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自动阅卷引擎
+ * <p>
+ * 在内存中对整份答卷判分并同时汇总得分、正确题数和错误题数，不需要写回后再执行聚合查询。
+ * 找不到标准答案的答题记录保持原判分结果不变，但仍计入汇总（与按记录聚合的口径一致）。
+ */
+public final class GradingEngine {
+
+    private GradingEngine() {
+    }
+
+    /**
+     * 判分
+     *
+     * @param answers 答题记录，判分结果直接写入其中
+     * @param keys    标准答案
+     * @param now     判分时间
+     * @return 阅卷结果
+     */
+    public static GradingResult grade(List<ExamAnswer> answers, AnswerKeySet keys, LocalDateTime now) {
+        List<ExamAnswer> graded = new ArrayList<>(answers.size());
+        int score = 0;
+        int correctCount = 0;
+        int wrongCount = 0;
+
+        for (ExamAnswer answer : answers) {
+            AnswerKey key = keys.get(answer.getQuestionId());
+            if (key != null) {
+                boolean isCorrect = key.matches(answer.getUserAnswer());
+                int fullScore = answer.getTotalScore() != null ? answer.getTotalScore() : key.score();
+                answer.setIsCorrect(isCorrect ? 1 : 0);
+                answer.setScore(isCorrect ? fullScore : 0);
+                answer.setCorrectAnswer(key.answer());
+                answer.setUpdateTime(now);
+                graded.add(answer);
+            }
+
+            if (answer.getScore() != null) {
+                score += answer.getScore();
+            }
+            if (answer.getIsCorrect() != null) {
+                if (answer.getIsCorrect() == 1) {
+                    correctCount++;
+                } else if (answer.getIsCorrect() == 0) {
+                    wrongCount++;
+                }
+            }
+        }
+        return new GradingResult(score, correctCount, wrongCount, graded);
+    }
+}
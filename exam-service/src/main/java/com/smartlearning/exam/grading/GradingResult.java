@@ -0,0 +1,35 @@
+package com.smartlearning.exam.grading;
+
+import com.smartlearning.exam.entity.ExamAnswer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 一份答卷的阅卷结果
+ */
+@Getter
+@AllArgsConstructor
+public class GradingResult {
+
+    /**
+     * 总得分
+     */
+    private final int score;
+
+    /**
+     * 正确题数
+     */
+    private final int correctCount;
+
+    /**
+     * 错误题数
+     */
+    private final int wrongCount;
+
+    /**
+     * 本次判分的答题记录（需要写回数据库）
+     */
+    private final List<ExamAnswer> graded;
+}
@@ -0,0 +1,167 @@
+package com.smartlearning.exam.grading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文本答案匹配器：与任一规范化后的候选答案相同即为正确
+ * <p>
+ * 规范化规则：去掉首尾空白，全角字符转半角，字母转小写；内部空白按配置压缩为一个空格或全部忽略。
+ * 候选答案按规范化后的哈希值排序存放，判分时逐字符计算考生答案的规范化哈希并二分查找，
+ * 命中后再逐字符比对，整个过程不构造中间字符串。
+ */
+public final class TextMatcher implements AnswerMatcher {
+
+    private final String[] candidates;
+    private final int[] hashes;
+    private final boolean ignoreWhitespace;
+
+    private TextMatcher(String[] candidates, int[] hashes, boolean ignoreWhitespace) {
+        this.candidates = candidates;
+        this.hashes = hashes;
+        this.ignoreWhitespace = ignoreWhitespace;
+    }
+
+    /**
+     * 编译标准答案
+     *
+     * @param alternatives     候选答案
+     * @param ignoreWhitespace 是否忽略内部空白（否则压缩为一个空格）
+     * @return 匹配器，没有非空候选答案时返回 {@link AnswerMatcher#NEVER}
+     */
+    public static AnswerMatcher compile(List<String> alternatives, boolean ignoreWhitespace) {
+        List<String> normalized = new ArrayList<>(alternatives.size());
+        for (String alternative : alternatives) {
+            String value = normalize(alternative, ignoreWhitespace);
+            if (!value.isEmpty() && !normalized.contains(value)) {
+                normalized.add(value);
+            }
+        }
+        if (normalized.isEmpty()) {
+            return NEVER;
+        }
+
+        normalized.sort((a, b) -> Integer.compare(a.hashCode(), b.hashCode()));
+        String[] candidates = normalized.toArray(new String[0]);
+        int[] hashes = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            hashes[i] = candidates[i].hashCode();
+        }
+        return new TextMatcher(candidates, hashes, ignoreWhitespace);
+    }
+
+    /**
+     * 规范化单个答案（编译阶段使用）
+     */
+    public static String normalize(String value, boolean ignoreWhitespace) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        int end = trimmedEnd(value);
+        boolean pendingSpace = false;
+        for (int i = trimmedStart(value); i < end; i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !ignoreWhitespace;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(fold(c));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean matches(String userAnswer) {
+        if (userAnswer == null) {
+            return false;
+        }
+        int start = trimmedStart(userAnswer);
+        int end = trimmedEnd(userAnswer);
+
+        // 与 String.hashCode 相同的多项式哈希，按规范化后的字符计算
+        int hash = 0;
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = userAnswer.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !ignoreWhitespace;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = 31 * hash + ' ';
+                pendingSpace = false;
+            }
+            hash = 31 * hash + fold(c);
+        }
+
+        int idx = Arrays.binarySearch(hashes, hash);
+        if (idx < 0) {
+            return false;
+        }
+        // 回退到同哈希值的第一个候选
+        while (idx > 0 && hashes[idx - 1] == hash) {
+            idx--;
+        }
+        for (; idx < hashes.length && hashes[idx] == hash; idx++) {
+            if (equalsNormalized(candidates[idx], userAnswer, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean equalsNormalized(String candidate, String value, int start, int end) {
+        int j = 0;
+        int length = candidate.length();
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !ignoreWhitespace;
+                continue;
+            }
+            if (pendingSpace) {
+                if (j >= length || candidate.charAt(j++) != ' ') {
+                    return false;
+                }
+                pendingSpace = false;
+            }
+            if (j >= length || candidate.charAt(j++) != fold(c)) {
+                return false;
+            }
+        }
+        return j == length;
+    }
+
+    /**
+     * 全角转半角并转小写（全角空格由空白判断处理）
+     */
+    static char fold(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static int trimmedStart(String value) {
+        int i = 0;
+        while (i < value.length() && Character.isWhitespace(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimmedEnd(String value) {
+        int i = value.length();
+        while (i > 0 && Character.isWhitespace(value.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,49 @@
+package com.smartlearning.exam.grading;
+
+import java.util.Arrays;
+
+/**
+ * 多选题文本选项匹配器：按逗号拆分为选项后排序比较
+ * <p>
+ * 用于选项不是单个字母的多选题（如 {@code Java,Python}），选项顺序不影响结果，重复选项计入比较。
+ * 每个选项按 {@link TextMatcher#normalize(String, boolean)} 规范化；此类题目很少，判分时允许拆分答案。
+ */
+public final class TokenSetMatcher implements AnswerMatcher {
+
+    private final String[] tokens;
+
+    private TokenSetMatcher(String[] tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * 编译标准答案
+     *
+     * @param answer 标准答案，选项之间用逗号分隔
+     * @return 匹配器，没有非空选项时返回 {@link AnswerMatcher#NEVER}
+     */
+    public static AnswerMatcher compile(String answer) {
+        String[] tokens = sortedTokens(answer);
+        return tokens.length == 0 ? NEVER : new TokenSetMatcher(tokens);
+    }
+
+    @Override
+    public boolean matches(String userAnswer) {
+        return userAnswer != null && Arrays.equals(tokens, sortedTokens(userAnswer));
+    }
+
+    private static String[] sortedTokens(String answer) {
+        String[] parts = answer.split("[,，]");
+        String[] tokens = new String[parts.length];
+        int n = 0;
+        for (String part : parts) {
+            String token = TextMatcher.normalize(part, false);
+            if (!token.isEmpty()) {
+                tokens[n++] = token;
+            }
+        }
+        tokens = Arrays.copyOf(tokens, n);
+        Arrays.sort(tokens);
+        return tokens;
+    }
+}
@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.smartlearning.exam.entity.ExamAnswer;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -28,6 +30,24 @@ public interface ExamAnswerMapper extends BaseMapper<ExamAnswer> {
      */
     int batchUpdate(@Param("examAnswers") List<ExamAnswer> examAnswers);
     
+    /**
+     * 批量写回判分结果（CASE WHEN 单条语句）
+     */
+    @Update("<script>" +
+            "UPDATE exam_answers SET " +
+            "is_correct = CASE id " +
+            "<foreach collection='examAnswers' item='a'>WHEN #{a.id} THEN #{a.isCorrect} </foreach>END, " +
+            "score = CASE id " +
+            "<foreach collection='examAnswers' item='a'>WHEN #{a.id} THEN #{a.score} </foreach>END, " +
+            "correct_answer = CASE id " +
+            "<foreach collection='examAnswers' item='a'>WHEN #{a.id} THEN #{a.correctAnswer} </foreach>END, " +
+            "update_time = #{updateTime} " +
+            "WHERE id IN " +
+            "<foreach collection='examAnswers' item='a' open='(' separator=',' close=')'>#{a.id}</foreach>" +
+            "</script>")
+    int batchUpdateGrades(@Param("examAnswers") List<ExamAnswer> examAnswers,
+                          @Param("updateTime") LocalDateTime updateTime);
+    
     /**
      * 统计正确题数
      */
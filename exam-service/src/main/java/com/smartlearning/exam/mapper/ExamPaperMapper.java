@@ -7,6 +7,7 @@ import com.smartlearning.exam.entity.ExamPaper;
 import com.smartlearning.exam.vo.ExamPaperVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -48,11 +49,25 @@ public interface ExamPaperMapper extends BaseMapper<ExamPaper> {
                         @Param("averageScore") Double averageScore,
                         @Param("passRate") Double passRate);
     
+    /**
+     * 写回成绩统计（参考人数由开考计数单独维护）
+     */
+    @Update("UPDATE exam_papers SET average_score = #{averageScore}, pass_rate = #{passRate} WHERE id = #{paperId}")
+    int updateScoreStats(@Param("paperId") Long paperId,
+                         @Param("averageScore") Double averageScore,
+                         @Param("passRate") Double passRate);
+    
     /**
      * 增加参考人数
      */
     int incrementParticipantCount(@Param("paperId") Long paperId);
     
+    /**
+     * 按增量累加参考人数（批量写回内存计数）
+     */
+    @Update("UPDATE exam_papers SET participant_count = IFNULL(participant_count, 0) + #{delta} WHERE id = #{paperId}")
+    int addParticipantCount(@Param("paperId") Long paperId, @Param("delta") Long delta);
+    
     /**
      * 统计试卷数量
      */
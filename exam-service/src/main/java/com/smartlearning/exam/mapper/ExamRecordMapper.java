@@ -7,7 +7,11 @@ import com.smartlearning.exam.entity.ExamRecord;
 import com.smartlearning.exam.vo.ExamRecordVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -57,7 +61,104 @@ public interface ExamRecordMapper extends BaseMapper<ExamRecord> {
     Double calculatePassRate(@Param("paperId") Long paperId, @Param("passScore") Integer passScore);
     
     /**
-     * 更新排名
+     * 更新排名（全表重排，已由排行榜服务的批量写回取代）
      */
     int updateRanking(@Param("paperId") Long paperId);
+    
+    /**
+     * 按状态查询考试记录（按ID升序）
+     */
+    @Select("SELECT id, paper_id, user_id, status FROM exam_records " +
+            "WHERE status = #{status} AND deleted = 0 ORDER BY id LIMIT #{limit}")
+    List<ExamRecord> selectByStatus(@Param("status") String status, @Param("limit") Integer limit);
+    
+    /**
+     * 查询试卷已阅卷记录的成绩（按ID升序），用于重建排行榜和试卷统计
+     */
+    @Select("SELECT id, user_id, score, is_passed FROM exam_records " +
+            "WHERE paper_id = #{paperId} AND status = #{status} AND deleted = 0 ORDER BY id")
+    List<ExamRecord> selectGradedScores(@Param("paperId") Long paperId, @Param("status") String status);
+    
+    /**
+     * 批量写回排名（CASE WHEN 单条语句）
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET ranking = CASE id " +
+            "<foreach collection='records' item='r'>WHEN #{r.id} THEN #{r.ranking} </foreach>END " +
+            "WHERE id IN " +
+            "<foreach collection='records' item='r' open='(' separator=',' close=')'>#{r.id}</foreach>" +
+            "</script>")
+    int batchUpdateRanking(@Param("records") List<ExamRecord> records);
+    
+    /**
+     * 清除指定记录的排名
+     */
+    @Update("<script>" +
+            "UPDATE exam_records SET ranking = NULL WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int clearRanking(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 清除试卷全部记录的排名
+     */
+    @Update("UPDATE exam_records SET ranking = NULL WHERE paper_id = #{paperId} AND ranking IS NOT NULL")
+    int clearPaperRanking(@Param("paperId") Long paperId);
+    
+    /**
+     * 键集分页查询已超过截止时间的进行中考试（按开始时间、ID升序）
+     */
+    @Select("SELECT r.id, r.paper_id, r.user_id, r.start_time FROM exam_records r " +
+            "JOIN exam_papers p ON p.id = r.paper_id " +
+            "WHERE r.status = #{status} AND r.deleted = 0 AND r.start_time < #{cutoff} " +
+            "AND (r.start_time > #{afterStart} OR (r.start_time = #{afterStart} AND r.id > #{afterId})) " +
+            "AND (DATE_ADD(r.start_time, INTERVAL IFNULL(NULLIF(p.duration, 0), #{defaultMinutes}) MINUTE) < #{cutoff} " +
+            "OR p.end_time < #{cutoff}) " +
+            "ORDER BY r.start_time, r.id LIMIT #{limit}")
+    List<ExamRecord> selectExpiredStarted(@Param("status") String status,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          @Param("defaultMinutes") Integer defaultMinutes,
+                                          @Param("afterStart") LocalDateTime afterStart,
+                                          @Param("afterId") Long afterId,
+                                          @Param("limit") Integer limit);
+    
+    /**
+     * 结束超时考试（仅当记录仍为进行中时更新）
+     */
+    @Update("UPDATE exam_records SET status = #{status}, submit_time = #{submitTime}, duration = #{duration}, " +
+            "remark = #{remark}, update_time = #{updateTime} WHERE id = #{id} AND status = #{expected}")
+    int expireRecord(@Param("id") Long id,
+                     @Param("expected") String expected,
+                     @Param("status") String status,
+                     @Param("submitTime") LocalDateTime submitTime,
+                     @Param("duration") Integer duration,
+                     @Param("remark") String remark,
+                     @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 查询并锁定考试记录（同一答卷的判分在事务内串行执行）
+     */
+    @Select("SELECT * FROM exam_records WHERE id = #{id} AND deleted = 0 FOR UPDATE")
+    ExamRecord selectByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * 提交考试（仅当记录仍为进行中时更新，与超时扫描互斥）
+     */
+    @Update("UPDATE exam_records SET status = #{status}, submit_time = #{submitTime}, duration = #{duration}, " +
+            "update_time = #{updateTime} WHERE id = #{id} AND status = #{expected}")
+    int submitRecord(@Param("id") Long id,
+                     @Param("expected") String expected,
+                     @Param("status") String status,
+                     @Param("submitTime") LocalDateTime submitTime,
+                     @Param("duration") Integer duration,
+                     @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 查询提交时间早于指定时间仍未阅卷的答卷
+     */
+    @Select("SELECT id, paper_id, user_id, status FROM exam_records " +
+            "WHERE status = #{status} AND deleted = 0 AND submit_time < #{before} ORDER BY submit_time LIMIT #{limit}")
+    List<ExamRecord> selectSubmittedBefore(@Param("status") String status,
+                                           @Param("before") LocalDateTime before,
+                                           @Param("limit") Integer limit);
 }
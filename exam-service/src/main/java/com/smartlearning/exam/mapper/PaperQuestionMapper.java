@@ -5,6 +5,7 @@ import com.smartlearning.exam.entity.PaperQuestion;
 import com.smartlearning.exam.vo.QuestionVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
@@ -38,4 +39,10 @@ public interface PaperQuestionMapper extends BaseMapper<PaperQuestion> {
      * 计算试卷总分
      */
     Integer sumScoreByPaperId(@Param("paperId") Long paperId);
+    
+    /**
+     * 查询包含指定题目的试卷ID
+     */
+    @Select("SELECT DISTINCT paper_id FROM paper_questions WHERE question_id = #{questionId} AND deleted = 0")
+    List<Long> selectPaperIdsByQuestion(@Param("questionId") Long questionId);
 }
@@ -7,6 +7,7 @@ import com.smartlearning.exam.entity.Question;
 import com.smartlearning.exam.vo.QuestionVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
@@ -59,4 +60,10 @@ public interface QuestionMapper extends BaseMapper<Question> {
     Long countQuestions(@Param("courseId") Long courseId, 
                        @Param("type") String type,
                        @Param("difficulty") String difficulty);
+    
+    /**
+     * 查询课程的可用题目（只包含组卷分层需要的ID、题型和难度）
+     */
+    @Select("SELECT id, type, difficulty FROM questions WHERE course_id = #{courseId} AND status = 1 AND deleted = 0")
+    List<Question> selectPoolEntries(@Param("courseId") Long courseId);
 }
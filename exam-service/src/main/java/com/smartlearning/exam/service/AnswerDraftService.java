@@ -0,0 +1,52 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.dto.ExamSubmitRequest;
+import com.smartlearning.exam.entity.ExamPaper;
+import com.smartlearning.exam.entity.ExamRecord;
+
+import java.util.List;
+
+/**
+ * 答题草稿服务接口
+ * <p>
+ * 考试过程中按题目增量保存答案到Redis，提交时与提交内容合并后一次性写入答题记录。
+ */
+public interface AnswerDraftService {
+
+    /**
+     * 开考时创建草稿，有效期覆盖考试时间窗口
+     * @param record 考试记录
+     * @param paper 试卷
+     */
+    void open(ExamRecord record, ExamPaper paper);
+
+    /**
+     * 保存答题增量
+     * @param recordId 考试记录ID
+     * @param userId 用户ID
+     * @param answers 变化的答题项
+     * @return 草稿中已保存的题目数
+     */
+    int save(Long recordId, Long userId, List<ExamSubmitRequest.AnswerItem> answers);
+
+    /**
+     * 读取草稿（断线重连后恢复作答）
+     * @param recordId 考试记录ID
+     * @param userId 用户ID
+     */
+    List<ExamSubmitRequest.AnswerItem> get(Long recordId, Long userId);
+
+    /**
+     * 合并草稿与提交内容（同一题目以提交内容为准）
+     * @param recordId 考试记录ID
+     * @param submitted 提交的答题项，可以为空
+     * @return 合并后的答题项（按题目ID升序）
+     */
+    List<ExamSubmitRequest.AnswerItem> merge(Long recordId, List<ExamSubmitRequest.AnswerItem> submitted);
+
+    /**
+     * 删除草稿；在事务中调用时推迟到事务提交后执行
+     * @param recordId 考试记录ID
+     */
+    void discard(Long recordId);
+}
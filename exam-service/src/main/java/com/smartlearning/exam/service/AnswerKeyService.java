@@ -0,0 +1,26 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.grading.AnswerKeySet;
+
+import java.util.Collection;
+
+/**
+ * 标准答案缓存服务接口
+ */
+public interface AnswerKeyService {
+
+    /**
+     * 获取试卷的标准答案集合，随试卷快照版本更新
+     * @param paperId 试卷ID
+     * @return 标准答案集合，试卷不存在时返回空集合
+     */
+    AnswerKeySet forPaper(Long paperId);
+
+    /**
+     * 补全缺失的题目答案（一次批量查询）
+     * @param keys 已有的标准答案集合
+     * @param questionIds 需要判分的题目ID
+     * @return 包含全部可用题目答案的集合
+     */
+    AnswerKeySet complete(AnswerKeySet keys, Collection<Long> questionIds);
+}
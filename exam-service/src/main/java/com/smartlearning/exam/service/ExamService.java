@@ -11,6 +11,7 @@ import com.smartlearning.exam.vo.ExamPaperVO;
 import com.smartlearning.exam.vo.ExamRecordVO;
 import com.smartlearning.exam.vo.QuestionVO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -121,6 +122,18 @@ public interface ExamService {
      */
     ExamRecord autoGrade(Long recordId);
     
+    /**
+     * 对已提交的答卷判分，不更新试卷统计（由阅卷队列按批更新）；
+     * 在事务内锁定考试记录，答卷不是已提交状态（已被其他线程或节点阅卷）时直接返回
+     */
+    ExamRecord gradeSubmission(Long recordId);
+    
+    /**
+     * 结束超时的考试：有草稿答案时自动提交并进入阅卷队列，否则标记为超时
+     * @return 处理后的记录状态，记录已不是进行中状态（考生已提交）时返回 null
+     */
+    String expireExam(ExamRecord record, LocalDateTime deadline);
+    
     /**
      * 手动阅卷
      */
@@ -153,7 +166,7 @@ public interface ExamService {
     boolean checkExamPermission(Long paperId, Long userId);
     
     /**
-     * 统计考试数据
+     * 统计考试数据（标记试卷成绩统计待写回）
      */
     void updateExamStats(Long paperId);
 }
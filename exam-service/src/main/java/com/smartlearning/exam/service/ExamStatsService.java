@@ -0,0 +1,45 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.vo.ExamStatsVO;
+
+/**
+ * 试卷成绩统计服务接口
+ * <p>
+ * 每张试卷在Redis中维护累计量（人数、总分、通过人数、分数直方图），每份答卷阅卷后O(1)更新，
+ * 定时写回试卷表，可随时从考试记录全量重建。
+ */
+public interface ExamStatsService {
+
+    /**
+     * 记录一份答卷的阅卷结果（同一答卷重复记录时只保留最新成绩）；在事务中调用时推迟到事务提交后执行
+     * @param paperId 试卷ID
+     * @param recordId 考试记录ID
+     * @param score 得分
+     * @param passed 是否通过（1/0）
+     */
+    void recordGraded(Long paperId, Long recordId, int score, int passed);
+
+    /**
+     * 标记试卷统计待写回
+     * @param paperId 试卷ID
+     */
+    void markDirty(Long paperId);
+
+    /**
+     * 查询试卷成绩统计
+     * @param paperId 试卷ID
+     */
+    ExamStatsVO getStats(Long paperId);
+
+    /**
+     * 从考试记录全量重建试卷统计
+     * @param paperId 试卷ID
+     */
+    ExamStatsVO rebuild(Long paperId);
+
+    /**
+     * 把有变化的试卷统计写回数据库
+     * @return 本次写回的试卷数
+     */
+    int flush();
+}
@@ -0,0 +1,15 @@
+package com.smartlearning.exam.service;
+
+/**
+ * 考试超时处理服务接口
+ * <p>
+ * 定时扫描超过截止时间仍处于进行中的考试：有草稿答案的自动提交并进入阅卷队列，没有作答的标记为超时。
+ */
+public interface ExamTimeoutService {
+
+    /**
+     * 执行一轮超时扫描
+     * @return 本轮处理的考试记录数
+     */
+    int sweep();
+}
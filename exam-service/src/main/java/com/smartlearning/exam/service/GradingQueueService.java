@@ -0,0 +1,37 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.vo.GradingStatusVO;
+
+import java.util.Map;
+
+/**
+ * 异步阅卷队列服务接口
+ * <p>
+ * 提交考试只保存答案，阅卷由有界线程池异步完成；同一试卷的提交合并成批，每批只更新一次试卷统计和排名。
+ */
+public interface GradingQueueService {
+
+    /**
+     * 加入阅卷队列
+     * @param recordId 考试记录ID
+     * @param paperId 试卷ID
+     */
+    void enqueue(Long recordId, Long paperId);
+
+    /**
+     * 重新入队提交后长时间未阅卷的答卷（线程池拒绝、节点停机或阅卷失败），并清理过期的失败状态
+     * @return 重新入队的答卷数
+     */
+    int recoverStale();
+
+    /**
+     * 查询阅卷状态
+     * @param recordId 考试记录ID
+     */
+    GradingStatusVO getStatus(Long recordId);
+
+    /**
+     * 队列统计
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,52 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.vo.LeaderboardEntryVO;
+
+import java.util.List;
+
+/**
+ * 试卷排行榜服务接口（Redis有序集合）
+ * <p>
+ * 每位用户只以历次考试中的最高分上榜（同分保留较早的记录），同分同名次；
+ * 排名在后台批量写回考试记录表。
+ */
+public interface LeaderboardService {
+
+    /**
+     * 记录一份答卷的成绩；在事务中调用时推迟到事务提交后执行
+     * @param paperId 试卷ID
+     * @param userId 用户ID
+     * @param recordId 考试记录ID
+     * @param score 得分
+     */
+    void recordGraded(Long paperId, Long userId, Long recordId, int score);
+
+    /**
+     * 查询排行榜一页
+     * @param paperId 试卷ID
+     * @param offset 起始位置（从0开始）
+     * @param limit 数量
+     */
+    List<LeaderboardEntryVO> getTop(Long paperId, int offset, int limit);
+
+    /**
+     * 查询用户排名
+     * @param paperId 试卷ID
+     * @param userId 用户ID
+     * @return 排名条目，未上榜时返回 null
+     */
+    LeaderboardEntryVO getRank(Long paperId, Long userId);
+
+    /**
+     * 从考试记录全量重建排行榜
+     * @param paperId 试卷ID
+     * @return 上榜人数
+     */
+    long rebuild(Long paperId);
+
+    /**
+     * 把有变化的排行榜写回考试记录表
+     * @return 本次写回的试卷数
+     */
+    int sync();
+}
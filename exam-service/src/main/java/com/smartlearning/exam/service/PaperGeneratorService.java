@@ -0,0 +1,41 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.dto.PaperGenerateRequest;
+import com.smartlearning.exam.vo.QuestionVO;
+
+import java.util.List;
+
+/**
+ * 随机组卷服务接口
+ * <p>
+ * 基于按课程缓存的分层题目池抽题，不使用 {@code ORDER BY RAND()}。
+ */
+public interface PaperGeneratorService {
+
+    /**
+     * 按组卷蓝图分层随机抽题（同一份试卷内题目不重复）
+     * @param request 组卷请求
+     * @return 抽中的题目（按蓝图顺序，已设置题目顺序和分值）
+     */
+    List<QuestionVO> generate(PaperGenerateRequest request);
+
+    /**
+     * 随机抽取题目
+     * @param courseId 课程ID
+     * @param type 题目类型，为空表示不限
+     * @param difficulty 题目难度，为空表示不限
+     * @param limit 数量
+     * @return 抽中的题目，题库不足时返回全部符合条件的题目
+     */
+    List<QuestionVO> randomQuestions(Long courseId, String type, String difficulty, Integer limit);
+
+    /**
+     * 获取考生本次考试的试卷题目（不含答案）
+     * <p>
+     * 试卷设置了题目乱序时，以考试记录ID为种子打乱题目顺序，同一次考试重复获取顺序不变；
+     * 题目来自试卷快照，不额外查询题目表。
+     * @param recordId 考试记录ID
+     * @param userId 用户ID
+     */
+    List<QuestionVO> getPaperVariant(Long recordId, Long userId);
+}
@@ -0,0 +1,29 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.dto.PaperSnapshot;
+
+import java.util.Map;
+
+/**
+ * 试卷快照服务接口（进程内缓存 + Redis）
+ */
+public interface PaperSnapshotService {
+
+    /**
+     * 获取试卷当前版本的快照，依次查询本地缓存、Redis 和数据库
+     * @param paperId 试卷ID
+     * @return 试卷快照，试卷不存在时返回 null
+     */
+    PaperSnapshot get(Long paperId);
+
+    /**
+     * 失效试卷快照（递增版本号）；在事务中调用时推迟到事务提交后执行
+     * @param paperId 试卷ID
+     */
+    void invalidate(Long paperId);
+
+    /**
+     * 缓存统计
+     */
+    Map<String, Object> getStats();
+}
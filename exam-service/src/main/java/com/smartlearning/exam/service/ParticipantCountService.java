@@ -0,0 +1,27 @@
+package com.smartlearning.exam.service;
+
+/**
+ * 参考人数计数服务接口
+ * <p>
+ * 开始考试时只在内存中累加，定时批量写回试卷表，避免每次开考都更新同一行。
+ */
+public interface ParticipantCountService {
+
+    /**
+     * 参考人数加一
+     * @param paperId 试卷ID
+     */
+    void increment(Long paperId);
+
+    /**
+     * 尚未写回数据库的参考人数增量
+     * @param paperId 试卷ID
+     */
+    long pending(Long paperId);
+
+    /**
+     * 把累计的增量写回数据库
+     * @return 本次写回的试卷数
+     */
+    int flush();
+}
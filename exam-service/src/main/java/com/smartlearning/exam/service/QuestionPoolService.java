@@ -0,0 +1,29 @@
+package com.smartlearning.exam.service;
+
+import com.smartlearning.exam.generator.QuestionPool;
+
+import java.util.Map;
+
+/**
+ * 题目池服务接口（按课程缓存分层的题目ID）
+ */
+public interface QuestionPoolService {
+
+    /**
+     * 获取课程当前版本的题目池，本地缓存过期或版本变化时从数据库重建
+     * @param courseId 课程ID
+     * @return 题目池，课程没有题目时返回空池
+     */
+    QuestionPool get(Long courseId);
+
+    /**
+     * 失效课程题目池（递增版本号）；在事务中调用时推迟到事务提交后执行
+     * @param courseId 课程ID
+     */
+    void invalidate(Long courseId);
+
+    /**
+     * 缓存统计
+     */
+    Map<String, Object> getStats();
+}
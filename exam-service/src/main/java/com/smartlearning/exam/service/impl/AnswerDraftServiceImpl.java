@@ -0,0 +1,247 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.common.exception.BusinessException;
+import com.smartlearning.common.result.ResultCode;
+import com.smartlearning.exam.dto.ExamSubmitRequest;
+import com.smartlearning.exam.dto.PaperSnapshot;
+import com.smartlearning.exam.entity.ExamPaper;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.grading.AnswerKeySet;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.service.AnswerDraftService;
+import com.smartlearning.exam.service.AnswerKeyService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 答题草稿服务实现
+ * <p>
+ * 每条考试记录一个Redis哈希 {@code exam:draft:{recordId}}：元数据字段 {@code _owner}、{@code _paper}，
+ * 每道题一个 {@code q:{questionId}} 字段，值为 {@code 答题时长:答案}。
+ * 保存通过Lua脚本原子校验归属和题目数上限后写入；哈希在考试截止时间（加宽限期）过期。
+ * 草稿不存在时（开考早于本功能上线、或Redis数据丢失）按考试记录校验后重新创建。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnswerDraftServiceImpl implements AnswerDraftService {
+
+    private static final String KEY_PREFIX = "exam:draft:";
+    private static final String OWNER_FIELD = "_owner";
+    private static final String PAPER_FIELD = "_paper";
+    private static final String QUESTION_PREFIX = "q:";
+    private static final int META_FIELDS = 2;
+
+    /**
+     * KEYS[1] 草稿哈希；ARGV: 用户ID、题目数上限、之后为成对的字段和值。
+     * 返回 -1 草稿不存在，-2 不属于该用户，-3 超过题目数上限，否则返回保存后的题目数。
+     */
+    private static final RedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('HGET', KEYS[1], '" + OWNER_FIELD + "')\n" +
+            "if not owner then return -1 end\n" +
+            "if owner ~= ARGV[1] then return -2 end\n" +
+            "local count = redis.call('HLEN', KEYS[1]) - " + META_FIELDS + "\n" +
+            "for i = 3, #ARGV, 2 do\n" +
+            "  if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 0 then count = count + 1 end\n" +
+            "end\n" +
+            "if count > tonumber(ARGV[2]) then return -3 end\n" +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end\n" +
+            "return count",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ExamRecordMapper examRecordMapper;
+    private final PaperSnapshotService paperSnapshotService;
+    private final AnswerKeyService answerKeyService;
+
+    @Value("${exam.draft.max-answers:500}")
+    private int maxAnswers;
+
+    @Value("${exam.draft.max-answer-length:5000}")
+    private int maxAnswerLength;
+
+    @Value("${exam.draft.grace-minutes:10}")
+    private long graceMinutes;
+
+    @Value("${exam.draft.default-ttl-minutes:180}")
+    private long defaultTtlMinutes;
+
+    @Override
+    public void open(ExamRecord record, ExamPaper paper) {
+        Duration ttl = ttl(record, paper);
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "考试已结束");
+        }
+        String key = KEY_PREFIX + record.getId();
+        stringRedisTemplate.opsForHash().putAll(key, Map.of(
+                OWNER_FIELD, String.valueOf(record.getUserId()),
+                PAPER_FIELD, String.valueOf(record.getPaperId())));
+        stringRedisTemplate.expire(key, ttl);
+    }
+
+    @Override
+    public int save(Long recordId, Long userId, List<ExamSubmitRequest.AnswerItem> answers) {
+        String key = KEY_PREFIX + recordId;
+        Object paperId = stringRedisTemplate.opsForHash().get(key, PAPER_FIELD);
+        if (paperId == null) {
+            reopen(recordId, userId);
+            paperId = stringRedisTemplate.opsForHash().get(key, PAPER_FIELD);
+        }
+        AnswerKeySet keys = paperId != null ? answerKeyService.forPaper(Long.valueOf(String.valueOf(paperId))) : null;
+
+        List<String> args = new ArrayList<>(2 + answers.size() * 2);
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(maxAnswers));
+        for (ExamSubmitRequest.AnswerItem item : answers) {
+            if (item.getQuestionId() == null) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "题目ID不能为空");
+            }
+            if (keys != null && keys.size() > 0 && !keys.contains(item.getQuestionId())) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "题目不在试卷中: " + item.getQuestionId());
+            }
+            String answer = item.getUserAnswer() != null ? item.getUserAnswer() : "";
+            if (answer.length() > maxAnswerLength) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "答案长度超过限制");
+            }
+            args.add(QUESTION_PREFIX + item.getQuestionId());
+            args.add((item.getDuration() != null ? item.getDuration() : "") + ":" + answer);
+        }
+
+        Long result = stringRedisTemplate.execute(SAVE_SCRIPT, List.of(key), args.toArray());
+        if (result == null || result == -1L) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "考试已结束或已提交");
+        }
+        if (result == -2L) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限操作此考试记录");
+        }
+        if (result == -3L) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "草稿题目数超过限制");
+        }
+        return result.intValue();
+    }
+
+    @Override
+    public List<ExamSubmitRequest.AnswerItem> get(Long recordId, Long userId) {
+        Map<Object, Object> draft = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + recordId);
+        if (draft.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!String.valueOf(userId).equals(draft.get(OWNER_FIELD))) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限操作此考试记录");
+        }
+        return new ArrayList<>(decode(draft).values());
+    }
+
+    @Override
+    public List<ExamSubmitRequest.AnswerItem> merge(Long recordId, List<ExamSubmitRequest.AnswerItem> submitted) {
+        Map<Long, ExamSubmitRequest.AnswerItem> merged;
+        try {
+            merged = decode(stringRedisTemplate.opsForHash().entries(KEY_PREFIX + recordId));
+        } catch (Exception e) {
+            // 读取草稿失败时以提交内容为准
+            log.warn("读取答题草稿失败: recordId={}, error={}", recordId, e.getMessage());
+            merged = new TreeMap<>();
+        }
+        if (submitted != null) {
+            for (ExamSubmitRequest.AnswerItem item : submitted) {
+                if (item.getQuestionId() != null) {
+                    merged.put(item.getQuestionId(), item);
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @Override
+    public void discard(Long recordId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doDiscard(recordId);
+                }
+            });
+        } else {
+            doDiscard(recordId);
+        }
+    }
+
+    private void doDiscard(Long recordId) {
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + recordId);
+        } catch (Exception e) {
+            log.warn("删除答题草稿失败，等待过期: recordId={}, error={}", recordId, e.getMessage());
+        }
+    }
+
+    /**
+     * 草稿不存在时按考试记录校验并重新创建
+     */
+    private void reopen(Long recordId, Long userId) {
+        ExamRecord record = examRecordMapper.selectById(recordId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在");
+        }
+        if (!record.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限操作此考试记录");
+        }
+        if (!CommonConstants.ExamRecordStatus.STARTED.equals(record.getStatus())) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "考试状态不正确");
+        }
+        PaperSnapshot snapshot = paperSnapshotService.get(record.getPaperId());
+        open(record, snapshot != null ? snapshot.getPaper() : null);
+    }
+
+    /**
+     * 草稿有效期：考试时长与试卷截止时间中较早者，再加宽限期
+     */
+    private Duration ttl(ExamRecord record, ExamPaper paper) {
+        LocalDateTime start = record.getStartTime() != null ? record.getStartTime() : LocalDateTime.now();
+        LocalDateTime deadline = null;
+        if (paper != null && paper.getDuration() != null && paper.getDuration() > 0) {
+            deadline = start.plusMinutes(paper.getDuration());
+        }
+        if (paper != null && paper.getEndTime() != null && (deadline == null || paper.getEndTime().isBefore(deadline))) {
+            deadline = paper.getEndTime();
+        }
+        if (deadline == null) {
+            deadline = start.plusMinutes(defaultTtlMinutes);
+        }
+        return Duration.between(LocalDateTime.now(), deadline.plusMinutes(graceMinutes));
+    }
+
+    private static Map<Long, ExamSubmitRequest.AnswerItem> decode(Map<Object, Object> draft) {
+        Map<Long, ExamSubmitRequest.AnswerItem> answers = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : draft.entrySet()) {
+            String field = String.valueOf(entry.getKey());
+            if (!field.startsWith(QUESTION_PREFIX)) {
+                continue;
+            }
+            String value = String.valueOf(entry.getValue());
+            int sep = value.indexOf(':');
+            ExamSubmitRequest.AnswerItem item = new ExamSubmitRequest.AnswerItem();
+            item.setQuestionId(Long.valueOf(field.substring(QUESTION_PREFIX.length())));
+            item.setDuration(sep > 0 ? Integer.valueOf(value.substring(0, sep)) : null);
+            item.setUserAnswer(value.substring(sep + 1));
+            answers.put(item.getQuestionId(), item);
+        }
+        return answers;
+    }
+}
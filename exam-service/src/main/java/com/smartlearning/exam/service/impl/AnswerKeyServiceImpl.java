@@ -0,0 +1,128 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.exam.dto.PaperSnapshot;
+import com.smartlearning.exam.entity.Question;
+import com.smartlearning.exam.grading.AnswerKey;
+import com.smartlearning.exam.grading.AnswerKeySet;
+import com.smartlearning.exam.grading.AnswerMatcher;
+import com.smartlearning.exam.grading.AnswerMatchers;
+import com.smartlearning.exam.mapper.QuestionMapper;
+import com.smartlearning.exam.service.AnswerKeyService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import com.smartlearning.exam.vo.QuestionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标准答案缓存服务实现
+ * <p>
+ * 答案来自试卷快照中的题目，按试卷缓存编译后的答案集合；快照版本变化（试卷被修改）时重新编译。
+ * 快照本身已在本地和Redis缓存，因此阅卷时通常不需要查询题目表。
+ * 匹配器另按题目ID缓存，以题型和答案原文作为版本：题目未修改时，多张试卷、多个快照版本共用同一个匹配器。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnswerKeyServiceImpl implements AnswerKeyService {
+
+    private final PaperSnapshotService paperSnapshotService;
+    private final QuestionMapper questionMapper;
+
+    private final Map<Long, AnswerKeySet> compiled = new ConcurrentHashMap<>();
+    private final Map<Long, CompiledMatcher> matchers = new ConcurrentHashMap<>();
+
+    @Value("${exam.grading.fill.ignore-whitespace:false}")
+    private boolean ignoreWhitespace;
+
+    @Value("${exam.grading.matcher-cache-size:100000}")
+    private int matcherCacheSize;
+
+    @Override
+    public AnswerKeySet forPaper(Long paperId) {
+        PaperSnapshot snapshot = paperSnapshotService.get(paperId);
+        if (snapshot == null) {
+            compiled.remove(paperId);
+            return AnswerKeySet.empty();
+        }
+
+        AnswerKeySet keys = compiled.get(paperId);
+        if (keys != null && keys.version() == snapshot.getVersion()) {
+            return keys;
+        }
+
+        List<AnswerKey> answerKeys = new ArrayList<>(snapshot.getQuestions().size());
+        for (QuestionVO question : snapshot.getQuestions()) {
+            if (question.getId() != null) {
+                answerKeys.add(answerKey(question.getId(), question.getType(), question.getAnswer(),
+                        question.getScore()));
+            }
+        }
+        keys = AnswerKeySet.of(snapshot.getVersion(), answerKeys);
+        compiled.put(paperId, keys);
+        log.debug("编译试卷标准答案: paperId={}, version={}, questions={}", paperId, keys.version(), keys.size());
+        return keys;
+    }
+
+    @Override
+    public AnswerKeySet complete(AnswerKeySet keys, Collection<Long> questionIds) {
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long questionId : questionIds) {
+            if (questionId != null && !keys.contains(questionId)) {
+                missing.add(questionId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return keys;
+        }
+
+        List<AnswerKey> extra = new ArrayList<>(missing.size());
+        for (Question question : questionMapper.selectBatchIds(missing)) {
+            extra.add(answerKey(question.getId(), question.getType(), question.getAnswer(), question.getScore()));
+        }
+        return keys.with(extra);
+    }
+
+    private AnswerKey answerKey(Long questionId, String type, String answer, Integer score) {
+        return new AnswerKey(questionId, type, answer, score, matcher(questionId, type, answer));
+    }
+
+    private AnswerMatcher matcher(Long questionId, String type, String answer) {
+        CompiledMatcher cached = matchers.get(questionId);
+        if (cached != null && Objects.equals(cached.type, type) && Objects.equals(cached.answer, answer)) {
+            return cached.matcher;
+        }
+        AnswerMatcher matcher = AnswerMatchers.compile(type, answer, ignoreWhitespace);
+        if (matchers.size() >= matcherCacheSize) {
+            matchers.clear();
+        }
+        matchers.put(questionId, new CompiledMatcher(type, answer, matcher));
+        return matcher;
+    }
+
+    /**
+     * 编译结果及其来源（题型、答案原文），来源变化即视为新版本
+     */
+    private static final class CompiledMatcher {
+
+        private final String type;
+        private final String answer;
+        private final AnswerMatcher matcher;
+
+        CompiledMatcher(String type, String answer, AnswerMatcher matcher) {
+            this.type = type;
+            this.answer = answer;
+            this.matcher = matcher;
+        }
+    }
+}
@@ -6,17 +6,32 @@ import com.smartlearning.common.constant.CommonConstants;
 import com.smartlearning.common.exception.BusinessException;
 import com.smartlearning.common.result.ResultCode;
 import com.smartlearning.exam.dto.ExamPaperCreateRequest;
+import com.smartlearning.exam.dto.PaperSnapshot;
 import com.smartlearning.exam.dto.ExamSubmitRequest;
 import com.smartlearning.exam.dto.QuestionCreateRequest;
 import com.smartlearning.exam.entity.*;
+import com.smartlearning.exam.event.ExamSubmittedEvent;
+import com.smartlearning.exam.grading.AnswerKeySet;
+import com.smartlearning.exam.grading.GradingEngine;
+import com.smartlearning.exam.grading.GradingResult;
 import com.smartlearning.exam.mapper.*;
+import com.smartlearning.exam.service.AnswerDraftService;
+import com.smartlearning.exam.service.AnswerKeyService;
 import com.smartlearning.exam.service.ExamService;
+import com.smartlearning.exam.service.ExamStatsService;
+import com.smartlearning.exam.service.LeaderboardService;
+import com.smartlearning.exam.service.PaperGeneratorService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import com.smartlearning.exam.service.ParticipantCountService;
+import com.smartlearning.exam.service.QuestionPoolService;
 import com.smartlearning.exam.vo.ExamPaperVO;
 import com.smartlearning.exam.vo.ExamRecordVO;
 import com.smartlearning.exam.vo.QuestionVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +53,21 @@ public class ExamServiceImpl implements ExamService {
     private final PaperQuestionMapper paperQuestionMapper;
     private final ExamRecordMapper examRecordMapper;
     private final ExamAnswerMapper examAnswerMapper;
+    private final PaperSnapshotService paperSnapshotService;
+    private final ParticipantCountService participantCountService;
+    private final AnswerKeyService answerKeyService;
+    private final ExamStatsService examStatsService;
+    private final LeaderboardService leaderboardService;
+    private final AnswerDraftService answerDraftService;
+    private final QuestionPoolService questionPoolService;
+    private final PaperGeneratorService paperGeneratorService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 每条批量判分更新语句包含的答题记录数
+     */
+    @Value("${exam.grading.batch-size:500}")
+    private int gradeBatchSize;
 
     // ==================== 题目管理 ====================
 
@@ -70,6 +100,8 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "题目创建失败");
         }
 
+        questionPoolService.invalidate(question.getCourseId());
+
         log.info("题目创建成功: questionId={}", question.getId());
         return question;
     }
@@ -108,6 +140,17 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "题目更新失败");
         }
 
+        // 包含该题目的试卷快照（及其标准答案）随之失效
+        for (Long paperId : paperQuestionMapper.selectPaperIdsByQuestion(questionId)) {
+            paperSnapshotService.invalidate(paperId);
+        }
+
+        // 题型、难度或所属课程可能变化
+        questionPoolService.invalidate(existingQuestion.getCourseId());
+        if (question.getCourseId() != null && !question.getCourseId().equals(existingQuestion.getCourseId())) {
+            questionPoolService.invalidate(question.getCourseId());
+        }
+
         log.info("题目更新成功: questionId={}", questionId);
         return findQuestionById(questionId);
     }
@@ -131,6 +174,8 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "题目删除失败");
         }
 
+        questionPoolService.invalidate(question.getCourseId());
+
         log.info("题目删除成功: questionId={}", questionId);
         return true;
     }
@@ -154,7 +199,8 @@ public class ExamServiceImpl implements ExamService {
 
     @Override
     public List<QuestionVO> getRandomQuestions(Long courseId, String type, String difficulty, Integer limit) {
-        return questionMapper.selectRandomQuestions(courseId, type, difficulty, limit);
+        // 从分层题目池中抽取，不在题目表上 ORDER BY RAND()
+        return paperGeneratorService.randomQuestions(courseId, type, difficulty, limit);
     }
 
     // ==================== 试卷管理 ====================
@@ -221,6 +267,8 @@ public class ExamServiceImpl implements ExamService {
             }
         }
 
+        paperSnapshotService.invalidate(paperId);
+
         log.info("试卷更新成功: paperId={}", paperId);
         return findExamPaperById(paperId);
     }
@@ -254,6 +302,8 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "试卷删除失败");
         }
 
+        paperSnapshotService.invalidate(paperId);
+
         log.info("试卷删除成功: paperId={}", paperId);
         return true;
     }
@@ -308,6 +358,8 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "试卷发布失败");
         }
 
+        paperSnapshotService.invalidate(paperId);
+
         log.info("试卷发布成功: paperId={}", paperId);
         return true;
     }
@@ -334,6 +386,8 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "试卷归档失败");
         }
 
+        paperSnapshotService.invalidate(paperId);
+
         log.info("试卷归档成功: paperId={}", paperId);
         return true;
     }
@@ -350,10 +404,12 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.FORBIDDEN, "无权限参加此考试");
         }
 
-        ExamPaper paper = findExamPaperById(paperId);
-        if (paper == null) {
+        // 开考高峰读取试卷快照，不逐次查询试卷表
+        PaperSnapshot snapshot = paperSnapshotService.get(paperId);
+        if (snapshot == null) {
             throw new BusinessException(ResultCode.NOT_FOUND, "试卷不存在");
         }
+        ExamPaper paper = snapshot.getPaper();
 
         if (!CommonConstants.ExamStatus.PUBLISHED.equals(paper.getStatus())) {
             throw new BusinessException(ResultCode.BAD_REQUEST, "试卷未发布");
@@ -407,8 +463,15 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.ERROR, "考试开始失败");
         }
 
-        // 增加参考人数
-        examPaperMapper.incrementParticipantCount(paperId);
+        // 增加参考人数（内存累加，定时批量写回）
+        participantCountService.increment(paperId);
+
+        // 创建答题草稿（失败时首次自动保存会重新创建）
+        try {
+            answerDraftService.open(record, paper);
+        } catch (Exception e) {
+            log.warn("创建答题草稿失败: recordId={}, error={}", record.getId(), e.getMessage());
+        }
 
         log.info("考试开始成功: recordId={}", record.getId());
         return record;
@@ -432,27 +495,31 @@ public class ExamServiceImpl implements ExamService {
             throw new BusinessException(ResultCode.BAD_REQUEST, "考试状态不正确");
         }
 
-        // 保存答题记录
-        if (request.getAnswers() != null && !request.getAnswers().isEmpty()) {
-            saveExamAnswers(request.getRecordId(), request.getAnswers());
+        // 先以"仍为进行中"为条件更新状态，超时扫描已处理该记录时不再写入答题记录
+        LocalDateTime now = LocalDateTime.now();
+        int duration = (int) java.time.Duration.between(record.getStartTime(), now).getSeconds();
+        int result = examRecordMapper.submitRecord(record.getId(), CommonConstants.ExamRecordStatus.STARTED,
+                CommonConstants.ExamRecordStatus.SUBMITTED, now, duration, now);
+        if (result <= 0) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "考试状态不正确");
         }
-
-        // 更新考试记录状态
         record.setStatus(CommonConstants.ExamRecordStatus.SUBMITTED);
-        record.setSubmitTime(LocalDateTime.now());
-        record.setDuration((int) java.time.Duration.between(record.getStartTime(), LocalDateTime.now()).getSeconds());
-        record.setUpdateTime(LocalDateTime.now());
+        record.setSubmitTime(now);
+        record.setDuration(duration);
+        record.setUpdateTime(now);
 
-        int result = examRecordMapper.updateById(record);
-        if (result <= 0) {
-            throw new BusinessException(ResultCode.ERROR, "考试提交失败");
+        // 合并自动保存的草稿与提交内容，一次批量写入答题记录
+        List<ExamSubmitRequest.AnswerItem> answers = answerDraftService.merge(record.getId(), request.getAnswers());
+        if (!answers.isEmpty()) {
+            saveExamAnswers(request.getRecordId(), answers);
         }
+        answerDraftService.discard(record.getId());
 
-        // 自动阅卷
-        autoGrade(request.getRecordId());
+        // 事务提交后进入异步阅卷队列
+        eventPublisher.publishEvent(new ExamSubmittedEvent(record.getId(), record.getPaperId()));
 
         log.info("考试提交成功: recordId={}", request.getRecordId());
-        return examRecordMapper.selectById(request.getRecordId());
+        return record;
     }
 
     @Override
@@ -460,55 +527,105 @@ public class ExamServiceImpl implements ExamService {
     public ExamRecord autoGrade(Long recordId) {
         log.info("自动阅卷请求: recordId={}", recordId);
 
-        ExamRecord record = examRecordMapper.selectById(recordId);
+        ExamRecord record = examRecordMapper.selectByIdForUpdate(recordId);
         if (record == null) {
             throw new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在");
         }
 
+        grade(record);
+
+        // 更新试卷统计
+        updateExamStats(record.getPaperId());
+
+        log.info("自动阅卷完成: recordId={}, score={}", recordId, record.getScore());
+        return record;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ExamRecord gradeSubmission(Long recordId) {
+        // 锁定记录后再检查状态：多个节点或启动恢复与正常入队同时阅同一份答卷时，后到者等待并看到已阅卷状态
+        ExamRecord record = examRecordMapper.selectByIdForUpdate(recordId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在");
+        }
+        if (!CommonConstants.ExamRecordStatus.SUBMITTED.equals(record.getStatus())) {
+            return record;
+        }
+
+        grade(record);
+        log.info("异步阅卷完成: recordId={}, score={}", recordId, record.getScore());
+        return record;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String expireExam(ExamRecord record, LocalDateTime deadline) {
+        List<ExamSubmitRequest.AnswerItem> answers = answerDraftService.merge(record.getId(), null);
+        String status = answers.isEmpty()
+                ? CommonConstants.ExamRecordStatus.TIMEOUT : CommonConstants.ExamRecordStatus.SUBMITTED;
+        int duration = record.getStartTime() != null
+                ? (int) Math.max(0L, java.time.Duration.between(record.getStartTime(), deadline).getSeconds()) : 0;
+
+        int updated = examRecordMapper.expireRecord(record.getId(), CommonConstants.ExamRecordStatus.STARTED, status,
+                deadline, duration, "超时自动提交", LocalDateTime.now());
+        if (updated <= 0) {
+            return null;
+        }
+
+        if (!answers.isEmpty()) {
+            saveExamAnswers(record.getId(), answers);
+            eventPublisher.publishEvent(new ExamSubmittedEvent(record.getId(), record.getPaperId()));
+        }
+        answerDraftService.discard(record.getId());
+
+        log.info("超时考试已处理: recordId={}, status={}, answers={}", record.getId(), status, answers.size());
+        return status;
+    }
+
+    /**
+     * 判分并更新考试记录
+     */
+    private void grade(ExamRecord record) {
+        Long recordId = record.getId();
+
         // 获取答题记录
         List<ExamAnswer> answers = examAnswerMapper.selectByRecordId(recordId);
 
-        // 自动阅卷
-        for (ExamAnswer answer : answers) {
-            Question question = questionMapper.selectById(answer.getQuestionId());
-            if (question != null) {
-                // 判断答案是否正确
-                boolean isCorrect = checkAnswer(question, answer.getUserAnswer());
-                answer.setIsCorrect(isCorrect ? 1 : 0);
-                answer.setScore(isCorrect ? answer.getTotalScore() : 0);
-                answer.setCorrectAnswer(question.getAnswer());
-                answer.setUpdateTime(LocalDateTime.now());
-
-                examAnswerMapper.updateById(answer);
-            }
-        }
+        // 标准答案取自试卷快照，试卷变更后已不在试卷中的题目一次批量补查
+        AnswerKeySet keys = answerKeyService.forPaper(record.getPaperId());
+        keys = answerKeyService.complete(keys, answers.stream().map(ExamAnswer::getQuestionId).toList());
 
-        // 统计成绩
-        Integer totalScore = examAnswerMapper.sumScore(recordId);
-        Integer correctCount = examAnswerMapper.countCorrectAnswers(recordId);
-        Integer wrongCount = examAnswerMapper.countWrongAnswers(recordId);
+        // 内存判分并汇总成绩
+        LocalDateTime gradeTime = LocalDateTime.now();
+        GradingResult grading = GradingEngine.grade(answers, keys, gradeTime);
+        List<ExamAnswer> graded = grading.getGraded();
+        for (int from = 0; from < graded.size(); from += gradeBatchSize) {
+            examAnswerMapper.batchUpdateGrades(graded.subList(from, Math.min(from + gradeBatchSize, graded.size())),
+                    gradeTime);
+        }
+        int totalScore = grading.getScore();
 
         // 判断是否通过
-        ExamPaper paper = examPaperMapper.selectById(record.getPaperId());
-        boolean isPassed = totalScore != null && paper != null &&
+        PaperSnapshot snapshot = paperSnapshotService.get(record.getPaperId());
+        ExamPaper paper = snapshot != null ? snapshot.getPaper() : null;
+        boolean isPassed = paper != null && paper.getPassScore() != null &&
                 totalScore >= paper.getPassScore();
 
         // 更新考试记录
         record.setStatus(CommonConstants.ExamRecordStatus.GRADED);
-        record.setScore(totalScore != null ? totalScore : 0);
-        record.setCorrectCount(correctCount != null ? correctCount : 0);
-        record.setWrongCount(wrongCount != null ? wrongCount : 0);
+        record.setScore(totalScore);
+        record.setCorrectCount(grading.getCorrectCount());
+        record.setWrongCount(grading.getWrongCount());
         record.setIsPassed(isPassed ? 1 : 0);
-        record.setGradeTime(LocalDateTime.now());
-        record.setUpdateTime(LocalDateTime.now());
+        record.setGradeTime(gradeTime);
+        record.setUpdateTime(gradeTime);
 
         examRecordMapper.updateById(record);
 
-        // 更新试卷统计
-        updateExamStats(record.getPaperId());
-
-        log.info("自动阅卷完成: recordId={}, score={}", recordId, totalScore);
-        return record;
+        // 增量更新试卷成绩统计（重新阅卷时扣除旧成绩）
+        examStatsService.recordGraded(record.getPaperId(), recordId, record.getScore(), record.getIsPassed());
+        leaderboardService.recordGraded(record.getPaperId(), record.getUserId(), recordId, record.getScore());
     }
 
     @Override
@@ -580,23 +697,9 @@ public class ExamServiceImpl implements ExamService {
 
     @Override
     public void updateExamStats(Long paperId) {
+        // 成绩统计和排行榜在阅卷时已增量更新，这里只标记写回（由定时任务执行）
         try {
-            Double averageScore = examRecordMapper.calculateAverageScore(paperId);
-            ExamPaper paper = examPaperMapper.selectById(paperId);
-            Double passRate = null;
-            if (paper != null) {
-                passRate = examRecordMapper.calculatePassRate(paperId, paper.getPassScore());
-            }
-
-            Long participantCount = examRecordMapper.countRecords(paperId, null,
-                    CommonConstants.ExamRecordStatus.GRADED);
-
-            examPaperMapper.updatePaperStats(paperId,
-                    participantCount != null ? participantCount.intValue() : 0,
-                    averageScore, passRate);
-
-            // 更新排名
-            examRecordMapper.updateRanking(paperId);
+            examStatsService.markDirty(paperId);
         } catch (Exception e) {
             log.error("更新考试统计失败: paperId={}", paperId, e);
         }
@@ -624,48 +727,6 @@ public class ExamServiceImpl implements ExamService {
         }
     }
 
-    /**
-     * 检查答案是否正确
-     */
-    private boolean checkAnswer(Question question, String userAnswer) {
-        if (question == null || userAnswer == null) {
-            return false;
-        }
-
-        String correctAnswer = question.getAnswer();
-        if (correctAnswer == null) {
-            return false;
-        }
-
-        // 根据题目类型进行不同的判断
-        switch (question.getType()) {
-            case "SINGLE":
-            case "JUDGE":
-                return correctAnswer.trim().equalsIgnoreCase(userAnswer.trim());
-            case "MULTIPLE":
-                // 多选题需要排序后比较
-                String[] correctOptions = correctAnswer.split(",");
-                String[] userOptions = userAnswer.split(",");
-                java.util.Arrays.sort(correctOptions);
-                java.util.Arrays.sort(userOptions);
-                return java.util.Arrays.equals(correctOptions, userOptions);
-            case "FILL":
-                // 填空题可以有多个正确答案，用|分隔
-                String[] correctAnswers = correctAnswer.split("\\|");
-                for (String answer : correctAnswers) {
-                    if (answer.trim().equalsIgnoreCase(userAnswer.trim())) {
-                        return true;
-                    }
-                }
-                return false;
-            case "ESSAY":
-                // 问答题需要人工阅卷，这里返回false
-                return false;
-            default:
-                return false;
-        }
-    }
-
     /**
      * 添加题目到试卷
      */
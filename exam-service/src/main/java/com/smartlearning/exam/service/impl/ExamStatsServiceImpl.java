@@ -0,0 +1,336 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.mapper.ExamPaperMapper;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.service.ExamStatsService;
+import com.smartlearning.exam.vo.ExamStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 试卷成绩统计服务实现
+ * <p>
+ * 累计量存在Redis哈希 {@code exam:stats:{paperId}} 中：count、sum、passed 以及每个分数一个 {@code h:{score}} 字段；
+ * 另用哈希 {@code exam:stats:{paperId}:records} 记录每份答卷已计入的 "得分:是否通过"。
+ * 更新通过Lua脚本原子完成：答卷已按相同成绩计入时不重复计入，成绩变化时先扣除旧成绩，因此同一答卷的更新可以重复执行。
+ * <p>
+ * 重建由Redis锁串行化：先设置"重建中"标记再查询数据库，标记存在期间到达的更新只追加到待重放列表；
+ * 新统计写入临时键后，由一个脚本原子地完成改名、重放待重放更新和清除标记。查询之前已提交的成绩在重放时按相同成绩跳过，
+ * 查询之后提交的成绩在重放时计入，不会重复计入或丢失。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExamStatsServiceImpl implements ExamStatsService {
+
+    private static final String STATS_KEY_PREFIX = "exam:stats:";
+    private static final String DIRTY_KEY = "exam:stats:dirty";
+    private static final String RECORDS_SUFFIX = ":records";
+    private static final String REBUILDING_SUFFIX = ":rebuilding";
+    private static final String PENDING_SUFFIX = ":pending";
+    private static final String HISTOGRAM_PREFIX = "h:";
+
+    /**
+     * 计入一份答卷：KEYS[1] 统计哈希，KEYS[2] 答卷成绩哈希；参数为答卷ID、得分、是否通过
+     */
+    private static final String APPLY_FUNCTION =
+            "local function apply(stats, records, id, score, passed)\n" +
+            "  local value = score .. ':' .. passed\n" +
+            "  local old = redis.call('HGET', records, id)\n" +
+            "  if old == value then return end\n" +
+            "  if old then\n" +
+            "    local sep = string.find(old, ':', 1, true)\n" +
+            "    local oldScore = string.sub(old, 1, sep - 1)\n" +
+            "    redis.call('HINCRBY', stats, 'count', -1)\n" +
+            "    redis.call('HINCRBY', stats, 'sum', -tonumber(oldScore))\n" +
+            "    redis.call('HINCRBY', stats, 'passed', -tonumber(string.sub(old, sep + 1)))\n" +
+            "    if redis.call('HINCRBY', stats, 'h:' .. oldScore, -1) <= 0 then\n" +
+            "      redis.call('HDEL', stats, 'h:' .. oldScore)\n" +
+            "    end\n" +
+            "  end\n" +
+            "  redis.call('HINCRBY', stats, 'count', 1)\n" +
+            "  redis.call('HINCRBY', stats, 'sum', score)\n" +
+            "  redis.call('HINCRBY', stats, 'passed', passed)\n" +
+            "  redis.call('HINCRBY', stats, 'h:' .. score, 1)\n" +
+            "  redis.call('HSET', records, id, value)\n" +
+            "end\n";
+
+    /**
+     * KEYS: 统计哈希、答卷成绩哈希、待写回集合、重建中标记、待重放列表；ARGV: 答卷ID、得分、是否通过、试卷ID。
+     * 重建中返回2（已追加到待重放列表），统计不存在时返回0（由调用方重建），否则返回1。
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            APPLY_FUNCTION +
+            "if redis.call('EXISTS', KEYS[4]) == 1 then\n" +
+            "  redis.call('RPUSH', KEYS[5], ARGV[1] .. ':' .. ARGV[2] .. ':' .. ARGV[3])\n" +
+            "  return 2\n" +
+            "end\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "apply(KEYS[1], KEYS[2], ARGV[1], ARGV[2], ARGV[3])\n" +
+            "redis.call('SADD', KEYS[3], ARGV[4])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 结束重建。KEYS: 统计哈希、答卷成绩哈希、待写回集合、重建中标记、待重放列表、统计临时键、答卷成绩临时键；
+     * ARGV[1] 为1时先用临时键替换（重建失败时为0，只重放并清除标记），ARGV[2] 试卷ID。返回重放的更新数。
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>(
+            APPLY_FUNCTION +
+            "if ARGV[1] == '1' then\n" +
+            "  redis.call('RENAME', KEYS[6], KEYS[1])\n" +
+            "  if redis.call('EXISTS', KEYS[7]) == 1 then\n" +
+            "    redis.call('RENAME', KEYS[7], KEYS[2])\n" +
+            "  else\n" +
+            "    redis.call('DEL', KEYS[2])\n" +
+            "  end\n" +
+            "end\n" +
+            "local pending = redis.call('LRANGE', KEYS[5], 0, -1)\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then\n" +
+            "  for _, item in ipairs(pending) do\n" +
+            "    local a = string.find(item, ':', 1, true)\n" +
+            "    local b = string.find(item, ':', a + 1, true)\n" +
+            "    apply(KEYS[1], KEYS[2], string.sub(item, 1, a - 1), string.sub(item, a + 1, b - 1), string.sub(item, b + 1))\n" +
+            "  end\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[5], KEYS[4])\n" +
+            "redis.call('SADD', KEYS[3], ARGV[2])\n" +
+            "return #pending",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ExamRecordMapper examRecordMapper;
+    private final ExamPaperMapper examPaperMapper;
+
+    @Value("${exam.stats.flush-batch:100}")
+    private int flushBatch;
+
+    @Value("${exam.stats.rebuild-lock-seconds:60}")
+    private long rebuildLockSeconds;
+
+    @Override
+    public void recordGraded(Long paperId, Long recordId, int score, int passed) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 阅卷事务回滚时不计入统计
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRecord(paperId, recordId, score, passed);
+                }
+            });
+        } else {
+            doRecord(paperId, recordId, score, passed);
+        }
+    }
+
+    @Override
+    public void markDirty(Long paperId) {
+        stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(paperId));
+    }
+
+    @Override
+    public ExamStatsVO getStats(Long paperId) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(STATS_KEY_PREFIX + paperId);
+        if (hash.isEmpty()) {
+            return rebuild(paperId);
+        }
+        return toStats(paperId, hash);
+    }
+
+    @Override
+    public ExamStatsVO rebuild(Long paperId) {
+        String key = STATS_KEY_PREFIX + paperId;
+        String lockKey = key + ":lock";
+        String token = RedisLocks.tryLock(stringRedisTemplate, lockKey, Duration.ofSeconds(rebuildLockSeconds));
+        if (token == null) {
+            // 其他请求或节点正在重建：返回当前统计，统计尚不存在时只读地从数据库计算
+            Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(key);
+            return !hash.isEmpty() ? toStats(paperId, hash) : toStats(paperId, new HashMap<>(load(paperId).stats));
+        }
+
+        long start = System.currentTimeMillis();
+        List<String> keys = List.of(key, key + RECORDS_SUFFIX, DIRTY_KEY, key + REBUILDING_SUFFIX,
+                key + PENDING_SUFFIX, key + ":rebuild", key + RECORDS_SUFFIX + ":rebuild");
+        boolean replaced = false;
+        try {
+            // 标记必须在查询之前设置，查询之后提交的成绩才会进入待重放列表
+            stringRedisTemplate.opsForValue().set(keys.get(3), "1", Duration.ofSeconds(rebuildLockSeconds));
+            Snapshot snapshot = load(paperId);
+
+            stringRedisTemplate.delete(List.of(keys.get(5), keys.get(6)));
+            stringRedisTemplate.opsForHash().putAll(keys.get(5), snapshot.stats);
+            if (!snapshot.records.isEmpty()) {
+                stringRedisTemplate.opsForHash().putAll(keys.get(6), snapshot.records);
+            }
+            Long replayed = stringRedisTemplate.execute(FINISH_SCRIPT, keys, "1", String.valueOf(paperId));
+            replaced = true;
+
+            log.info("试卷统计重建完成: paperId={}, graded={}, replayed={}, 耗时={}ms",
+                    paperId, snapshot.records.size(), replayed, System.currentTimeMillis() - start);
+            return getCurrent(paperId, snapshot);
+        } finally {
+            if (!replaced) {
+                try {
+                    stringRedisTemplate.execute(FINISH_SCRIPT, keys, "0", String.valueOf(paperId));
+                } catch (Exception e) {
+                    log.warn("清除试卷统计重建标记失败，等待标记过期: paperId={}, error={}", paperId, e.getMessage());
+                }
+            }
+            RedisLocks.unlock(stringRedisTemplate, lockKey, token);
+        }
+    }
+
+    @Override
+    public int flush() {
+        List<String> paperIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, flushBatch);
+        if (paperIds == null || paperIds.isEmpty()) {
+            return 0;
+        }
+
+        int flushed = 0;
+        for (String id : paperIds) {
+            Long paperId = Long.valueOf(id);
+            try {
+                ExamStatsVO stats = getStats(paperId);
+                examPaperMapper.updateScoreStats(paperId, stats.getAverageScore(), stats.getPassRate());
+                flushed++;
+            } catch (Exception e) {
+                markDirty(paperId);
+                log.error("试卷统计写回失败，等待下次重试: paperId={}", paperId, e);
+            }
+        }
+        log.debug("试卷统计写回完成: papers={}", flushed);
+        return flushed;
+    }
+
+    private void doRecord(Long paperId, Long recordId, int score, int passed) {
+        String key = STATS_KEY_PREFIX + paperId;
+        try {
+            Long applied = stringRedisTemplate.execute(RECORD_SCRIPT,
+                    List.of(key, key + RECORDS_SUFFIX, DIRTY_KEY, key + REBUILDING_SUFFIX, key + PENDING_SUFFIX),
+                    String.valueOf(recordId), String.valueOf(score), String.valueOf(passed), String.valueOf(paperId));
+            if (applied == null || applied == 0L) {
+                // 统计不存在（首次阅卷或缓存丢失），重建时已包含本次已提交的成绩
+                rebuild(paperId);
+            }
+        } catch (Exception e) {
+            log.error("试卷统计更新失败，可调用重建接口修正: paperId={}", paperId, e);
+        }
+    }
+
+    /**
+     * 从数据库读取已阅卷成绩，生成统计哈希和答卷成绩哈希
+     */
+    private Snapshot load(Long paperId) {
+        List<ExamRecord> records = examRecordMapper.selectGradedScores(paperId, CommonConstants.ExamRecordStatus.GRADED);
+
+        long sum = 0;
+        long passed = 0;
+        Map<Integer, Long> histogram = new HashMap<>();
+        Map<String, String> recordValues = new HashMap<>(records.size() * 2);
+        for (ExamRecord record : records) {
+            int score = record.getScore() != null ? record.getScore() : 0;
+            int isPassed = record.getIsPassed() != null ? record.getIsPassed() : 0;
+            sum += score;
+            passed += isPassed;
+            histogram.merge(score, 1L, Long::sum);
+            recordValues.put(String.valueOf(record.getId()), score + ":" + isPassed);
+        }
+
+        Map<String, String> stats = new HashMap<>();
+        histogram.forEach((score, bucket) -> stats.put(HISTOGRAM_PREFIX + score, String.valueOf(bucket)));
+        stats.put("count", String.valueOf(records.size()));
+        stats.put("sum", String.valueOf(sum));
+        stats.put("passed", String.valueOf(passed));
+        return new Snapshot(stats, recordValues);
+    }
+
+    /**
+     * 重建后读取当前统计（包含重放的更新），读取失败时使用重建快照
+     */
+    private ExamStatsVO getCurrent(Long paperId, Snapshot snapshot) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(STATS_KEY_PREFIX + paperId);
+        return toStats(paperId, !hash.isEmpty() ? hash : new HashMap<>(snapshot.stats));
+    }
+
+    private static ExamStatsVO toStats(Long paperId, Map<Object, Object> hash) {
+        long count = toLong(hash.get("count"));
+        long sum = toLong(hash.get("sum"));
+        long passed = toLong(hash.get("passed"));
+
+        TreeMap<Integer, Long> histogram = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : hash.entrySet()) {
+            String field = String.valueOf(entry.getKey());
+            long bucket = toLong(entry.getValue());
+            if (field.startsWith(HISTOGRAM_PREFIX) && bucket > 0) {
+                histogram.put(Integer.parseInt(field.substring(HISTOGRAM_PREFIX.length())), bucket);
+            }
+        }
+
+        ExamStatsVO stats = new ExamStatsVO();
+        stats.setPaperId(paperId);
+        stats.setGradedCount(count);
+        stats.setPassCount(passed);
+        stats.setDistribution(new LinkedHashMap<>(histogram));
+        if (count > 0) {
+            stats.setAverageScore(Math.round(sum * 100.0 / count) / 100.0);
+            stats.setPassRate(Math.round(passed * 10000.0 / count) / 100.0);
+        }
+        if (!histogram.isEmpty()) {
+            stats.setMinScore(histogram.firstKey());
+            stats.setMaxScore(histogram.lastKey());
+            stats.setMedianScore(percentile(histogram, count, 0.5));
+            stats.setP90Score(percentile(histogram, count, 0.9));
+        }
+        return stats;
+    }
+
+    /**
+     * 最近秩法分位数：第 ceil(p * n) 个分数
+     */
+    private static Integer percentile(TreeMap<Integer, Long> histogram, long count, double p) {
+        long rank = Math.max(1L, (long) Math.ceil(p * count));
+        long cumulative = 0;
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            cumulative += entry.getValue();
+            if (cumulative >= rank) {
+                return entry.getKey();
+            }
+        }
+        return histogram.lastKey();
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return value != null ? Long.parseLong(String.valueOf(value)) : 0L;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, String> stats;
+        private final Map<String, String> records;
+
+        Snapshot(Map<String, String> stats, Map<String, String> records) {
+            this.stats = stats;
+            this.records = records;
+        }
+    }
+}
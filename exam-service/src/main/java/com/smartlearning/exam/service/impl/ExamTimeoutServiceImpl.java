@@ -0,0 +1,126 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.exam.dto.PaperSnapshot;
+import com.smartlearning.exam.entity.ExamPaper;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.service.ExamService;
+import com.smartlearning.exam.service.ExamTimeoutService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 考试超时处理服务实现
+ * <p>
+ * 借助 (status, start_time) 索引按 (start_time, id) 键集分页读取已过期的进行中记录，每页至多 {@code page-size} 条，
+ * 每轮至多 {@code max-pages} 页；每条记录在独立的短事务中以"仍为进行中"为条件更新状态，不会长时间锁住考试记录表。
+ * 考生提交同样以"仍为进行中"为条件更新，两者同时发生时只有先提交的一方生效，另一方不写入答题记录。
+ * 多节点部署时通过Redis锁保证同一时刻只有一个节点扫描。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExamTimeoutServiceImpl implements ExamTimeoutService {
+
+    private static final String LOCK_KEY = "exam:timeout:sweeper:lock";
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ExamRecordMapper examRecordMapper;
+    private final ExamService examService;
+    private final PaperSnapshotService paperSnapshotService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${exam.timeout.grace-minutes:2}")
+    private long graceMinutes;
+
+    @Value("${exam.timeout.default-duration-minutes:180}")
+    private int defaultDurationMinutes;
+
+    @Value("${exam.timeout.page-size:200}")
+    private int pageSize;
+
+    @Value("${exam.timeout.max-pages:10}")
+    private int maxPages;
+
+    @Value("${exam.timeout.lock-seconds:300}")
+    private long lockSeconds;
+
+    @Override
+    public int sweep() {
+        String token = RedisLocks.tryLock(stringRedisTemplate, LOCK_KEY, Duration.ofSeconds(lockSeconds));
+        if (token == null) {
+            log.debug("其他节点正在执行超时扫描，跳过本轮");
+            return 0;
+        }
+        try {
+            return doSweep();
+        } finally {
+            RedisLocks.unlock(stringRedisTemplate, LOCK_KEY, token);
+        }
+    }
+
+    private int doSweep() {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        LocalDateTime afterStart = MIN_TIME;
+        long afterId = 0L;
+        int submitted = 0;
+        int timedOut = 0;
+
+        for (int page = 0; page < maxPages; page++) {
+            List<ExamRecord> records = examRecordMapper.selectExpiredStarted(CommonConstants.ExamRecordStatus.STARTED,
+                    cutoff, defaultDurationMinutes, afterStart, afterId, pageSize);
+            for (ExamRecord record : records) {
+                try {
+                    String status = examService.expireExam(record, deadline(record, cutoff));
+                    if (CommonConstants.ExamRecordStatus.SUBMITTED.equals(status)) {
+                        submitted++;
+                    } else if (CommonConstants.ExamRecordStatus.TIMEOUT.equals(status)) {
+                        timedOut++;
+                    }
+                } catch (Exception e) {
+                    log.error("超时考试处理失败: recordId={}", record.getId(), e);
+                }
+            }
+            if (records.size() < pageSize) {
+                break;
+            }
+            ExamRecord last = records.get(records.size() - 1);
+            afterStart = last.getStartTime();
+            afterId = last.getId();
+        }
+
+        if (submitted + timedOut > 0) {
+            log.info("超时扫描完成: 自动提交={}, 标记超时={}, 耗时={}ms",
+                    submitted, timedOut, System.currentTimeMillis() - start);
+        }
+        return submitted + timedOut;
+    }
+
+    /**
+     * 考试截止时间：开始时间加考试时长与试卷结束时间中较早者
+     */
+    private LocalDateTime deadline(ExamRecord record, LocalDateTime cutoff) {
+        PaperSnapshot snapshot = paperSnapshotService.get(record.getPaperId());
+        ExamPaper paper = snapshot != null ? snapshot.getPaper() : null;
+        if (paper == null || record.getStartTime() == null) {
+            return cutoff;
+        }
+        int duration = paper.getDuration() != null && paper.getDuration() > 0
+                ? paper.getDuration() : defaultDurationMinutes;
+        LocalDateTime deadline = record.getStartTime().plusMinutes(duration);
+        if (paper.getEndTime() != null && paper.getEndTime().isBefore(deadline)) {
+            deadline = paper.getEndTime();
+        }
+        return deadline;
+    }
+}
@@ -0,0 +1,294 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.common.exception.BusinessException;
+import com.smartlearning.common.result.ResultCode;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.event.ExamSubmittedEvent;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.service.ExamService;
+import com.smartlearning.exam.service.GradingQueueService;
+import com.smartlearning.exam.vo.GradingStatusVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步阅卷队列服务实现
+ * <p>
+ * 每张试卷一个待阅队列，同一时刻最多一个工作线程处理同一试卷：工作线程一次取出至多 {@code max-batch} 份答卷，
+ * 逐份在独立事务中判分，整批结束后调用一次 {@link ExamService#updateExamStats}。
+ * 处理期间到达的提交进入下一批，交卷高峰时批次自然变大，试卷统计的重算次数随之减少。
+ * 阅卷状态只在本节点内存中跟踪排队/进行中/失败，其余情况以考试记录状态为准；失败状态保留 {@code failed-ttl-minutes}。
+ * <p>
+ * 线程池队列满时拒绝任务而不在提交线程上阅卷，被拒绝的答卷保持已提交状态，由定时恢复重新入队。
+ * 同一答卷可能被多个节点同时入队，{@link ExamService#gradeSubmission} 在事务内锁定记录，保证只判分一次。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GradingQueueServiceImpl implements GradingQueueService {
+
+    private final ExamService examService;
+    private final ExamRecordMapper examRecordMapper;
+
+    private final Map<Long, PaperQueue> queues = new ConcurrentHashMap<>();
+    private final Map<Long, GradingState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder graded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Value("${exam.grading.workers:4}")
+    private int workers;
+
+    @Value("${exam.grading.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${exam.grading.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${exam.grading.recovery-limit:10000}")
+    private int recoveryLimit;
+
+    @Value("${exam.grading.stale-seconds:300}")
+    private long staleSeconds;
+
+    @Value("${exam.grading.failed-ttl-minutes:60}")
+    private long failedTtlMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 任务按试卷合并，排队任务数不超过活跃试卷数；队列满时拒绝（不在提交请求线程上阅卷），答卷由定时恢复重新入队
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "exam-grading-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("阅卷线程池未在10秒内结束，未完成的答卷将在下次启动时重新阅卷");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交事务提交后入队（事务回滚时不阅卷）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamSubmitted(ExamSubmittedEvent event) {
+        enqueue(event.getRecordId(), event.getPaperId());
+    }
+
+    /**
+     * 服务启动后重新阅卷仍处于已提交状态的答卷（上次停机时未完成）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        try {
+            List<ExamRecord> pending = examRecordMapper.selectByStatus(
+                    CommonConstants.ExamRecordStatus.SUBMITTED, recoveryLimit);
+            for (ExamRecord record : pending) {
+                enqueue(record.getId(), record.getPaperId());
+            }
+            if (!pending.isEmpty()) {
+                log.info("重新加入阅卷队列的答卷数: {}", pending.size());
+            }
+        } catch (Exception e) {
+            log.error("恢复待阅答卷失败", e);
+        }
+    }
+
+    @Override
+    public void enqueue(Long recordId, Long paperId) {
+        GradingState previous = states.get(recordId);
+        if (previous != null && !GradingStatusVO.FAILED.equals(previous.status)) {
+            // 已在本节点排队或阅卷中
+            return;
+        }
+        states.put(recordId, new GradingState(GradingStatusVO.QUEUED, null));
+        PaperQueue queue = queues.computeIfAbsent(paperId, PaperQueue::new);
+        queue.pending.add(recordId);
+        enqueued.increment();
+        schedule(queue);
+    }
+
+    @Override
+    public int recoverStale() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(failedTtlMinutes);
+        states.values().removeIf(state -> GradingStatusVO.FAILED.equals(state.status) && state.updatedAt < expireBefore);
+
+        List<ExamRecord> stale = examRecordMapper.selectSubmittedBefore(CommonConstants.ExamRecordStatus.SUBMITTED,
+                LocalDateTime.now().minusSeconds(staleSeconds), recoveryLimit);
+        for (ExamRecord record : stale) {
+            enqueue(record.getId(), record.getPaperId());
+        }
+        if (!stale.isEmpty()) {
+            log.info("重新加入阅卷队列的超时未阅答卷数: {}", stale.size());
+        }
+        return stale.size();
+    }
+
+    @Override
+    public GradingStatusVO getStatus(Long recordId) {
+        GradingStatusVO status = new GradingStatusVO();
+        status.setRecordId(recordId);
+
+        GradingState state = states.get(recordId);
+        if (state != null && !GradingStatusVO.FAILED.equals(state.status)) {
+            status.setStatus(state.status);
+            return status;
+        }
+
+        ExamRecord record = examRecordMapper.selectById(recordId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在");
+        }
+        if (CommonConstants.ExamRecordStatus.GRADED.equals(record.getStatus())) {
+            status.setStatus(GradingStatusVO.GRADED);
+            status.setScore(record.getScore());
+            status.setIsPassed(record.getIsPassed());
+            status.setGradeTime(record.getGradeTime());
+        } else if (state != null) {
+            status.setStatus(GradingStatusVO.FAILED);
+            status.setMessage(state.message);
+        } else if (CommonConstants.ExamRecordStatus.SUBMITTED.equals(record.getStatus())) {
+            // 由其他节点阅卷或等待重启恢复
+            status.setStatus(GradingStatusVO.QUEUED);
+        } else {
+            status.setStatus(record.getStatus());
+        }
+        return status;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        int queued = 0;
+        for (PaperQueue queue : queues.values()) {
+            queued += queue.pending.size();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queued);
+        stats.put("papers", queues.size());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("graded", graded.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        return stats;
+    }
+
+    private void schedule(PaperQueue queue) {
+        if (queue.scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(queue));
+            } catch (RuntimeException e) {
+                // 线程池队列已满或已关闭：答卷保持已提交状态，由定时恢复或重启后重新入队
+                int dropped = 0;
+                Long recordId;
+                while ((recordId = queue.pending.poll()) != null) {
+                    states.remove(recordId);
+                    dropped++;
+                }
+                queue.scheduled.set(false);
+                log.warn("阅卷任务提交被拒绝，等待恢复重新入队: paperId={}, records={}, error={}",
+                        queue.paperId, dropped, e.getMessage());
+            }
+        }
+    }
+
+    private void drain(PaperQueue queue) {
+        try {
+            List<Long> batch = new ArrayList<>();
+            Long recordId;
+            while (batch.size() < maxBatch && (recordId = queue.pending.poll()) != null) {
+                batch.add(recordId);
+            }
+
+            int success = 0;
+            for (Long id : batch) {
+                states.put(id, new GradingState(GradingStatusVO.GRADING, null));
+                try {
+                    examService.gradeSubmission(id);
+                    states.remove(id);
+                    graded.increment();
+                    success++;
+                } catch (Exception e) {
+                    states.put(id, new GradingState(GradingStatusVO.FAILED, e.getMessage()));
+                    failed.increment();
+                    log.error("答卷阅卷失败: recordId={}", id, e);
+                }
+            }
+
+            if (success > 0) {
+                examService.updateExamStats(queue.paperId);
+                batches.increment();
+                log.debug("阅卷批次完成: paperId={}, graded={}, failed={}", queue.paperId, success, batch.size() - success);
+            }
+        } finally {
+            queue.scheduled.set(false);
+            if (!queue.pending.isEmpty()) {
+                schedule(queue);
+            }
+        }
+    }
+
+    /**
+     * 单张试卷的待阅队列（试卷数量有限，队列对象不回收）
+     */
+    private static final class PaperQueue {
+
+        private final Long paperId;
+        private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        PaperQueue(Long paperId) {
+            this.paperId = paperId;
+        }
+    }
+
+    private static final class GradingState {
+
+        private final String status;
+        private final String message;
+        private final long updatedAt;
+
+        GradingState(String status, String message) {
+            this.status = status;
+            this.message = message;
+            this.updatedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.constant.CommonConstants;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.service.LeaderboardService;
+import com.smartlearning.exam.vo.LeaderboardEntryVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 试卷排行榜服务实现
+ * <p>
+ * 每张试卷两个键：有序集合 {@code exam:leaderboard:{paperId}}（成员为用户ID，分值为最高分）
+ * 和哈希 {@code exam:leaderboard:{paperId}:best}（用户ID -> "记录ID:得分"）。
+ * 成绩通过Lua脚本原子更新：只有高于当前最高分的记录才替换（同分保留较早的记录），被替换的记录进入待清除集合。
+ * 名次 = 分数严格更高的人数 + 1（{@code ZCOUNT}），同分同名次，查询为 O(log n)。
+ * 重新阅卷使当前最高分记录降分时以新分数为准，该用户其他更高的记录在下次重建时恢复。
+ * <p>
+ * 重建由Redis锁串行化：先设置"重建中"标记再查询数据库，标记存在期间到达的成绩追加到待重放列表，
+ * 新榜单写入临时键后由一个脚本原子地改名、重放并清除标记（同一记录重复计入不改变结果）。
+ * 重建只把试卷加入全量写回集合，清空旧名次的SQL由后台写回执行，不在查询请求中执行。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardServiceImpl implements LeaderboardService {
+
+    private static final String KEY_PREFIX = "exam:leaderboard:";
+    private static final String DIRTY_KEY = "exam:leaderboard:dirty";
+    private static final String FULL_SYNC_KEY = "exam:leaderboard:full-sync";
+
+    /**
+     * 最高分哈希中的构建标记字段，空试卷也保留哈希以区分"未构建"
+     */
+    private static final String BUILT_FIELD = "_built";
+
+    /**
+     * 计入一份成绩：只有高于当前最高分的记录才替换（同分保留较早的记录），被替换的记录进入待清除集合
+     */
+    private static final String APPLY_FUNCTION =
+            "local function apply(zset, best, stale, user, record, score)\n" +
+            "  local current = redis.call('HGET', best, user)\n" +
+            "  if current then\n" +
+            "    local sep = string.find(current, ':', 1, true)\n" +
+            "    local currentRecord = string.sub(current, 1, sep - 1)\n" +
+            "    if currentRecord ~= record then\n" +
+            "      if tonumber(score) <= tonumber(string.sub(current, sep + 1)) then return 0 end\n" +
+            "      redis.call('SADD', stale, currentRecord)\n" +
+            "    end\n" +
+            "  end\n" +
+            "  redis.call('HSET', best, user, record .. ':' .. score)\n" +
+            "  redis.call('ZADD', zset, score, user)\n" +
+            "  return 1\n" +
+            "end\n";
+
+    /**
+     * KEYS: 有序集合、最高分哈希、待清除记录集合、待写回试卷集合、重建中标记、待重放列表；ARGV: 用户ID、记录ID、得分、试卷ID。
+     * 返回 -1 表示排行榜未构建，0 表示未刷新最高分，1 表示已更新，2 表示重建中（已追加到待重放列表）。
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            APPLY_FUNCTION +
+            "if redis.call('EXISTS', KEYS[5]) == 1 then\n" +
+            "  redis.call('RPUSH', KEYS[6], ARGV[1] .. ':' .. ARGV[2] .. ':' .. ARGV[3])\n" +
+            "  return 2\n" +
+            "end\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 0 then return -1 end\n" +
+            "local applied = apply(KEYS[1], KEYS[2], KEYS[3], ARGV[1], ARGV[2], ARGV[3])\n" +
+            "if applied == 1 then redis.call('SADD', KEYS[4], ARGV[4]) end\n" +
+            "return applied",
+            Long.class);
+
+    /**
+     * 结束重建。KEYS: 有序集合、最高分哈希、待清除记录集合、待写回试卷集合、重建中标记、待重放列表、
+     * 有序集合临时键、最高分哈希临时键、全量写回集合；ARGV[1] 为1时先用临时键替换（重建失败时为0，只重放并清除标记），
+     * ARGV[2] 试卷ID。返回重放的成绩数。
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>(
+            APPLY_FUNCTION +
+            "if ARGV[1] == '1' then\n" +
+            "  if redis.call('EXISTS', KEYS[7]) == 1 then\n" +
+            "    redis.call('RENAME', KEYS[7], KEYS[1])\n" +
+            "  else\n" +
+            "    redis.call('DEL', KEYS[1])\n" +
+            "  end\n" +
+            "  redis.call('RENAME', KEYS[8], KEYS[2])\n" +
+            "  redis.call('DEL', KEYS[3])\n" +
+            "  redis.call('SADD', KEYS[9], ARGV[2])\n" +
+            "end\n" +
+            "local pending = redis.call('LRANGE', KEYS[6], 0, -1)\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then\n" +
+            "  for _, item in ipairs(pending) do\n" +
+            "    local a = string.find(item, ':', 1, true)\n" +
+            "    local b = string.find(item, ':', a + 1, true)\n" +
+            "    apply(KEYS[1], KEYS[2], KEYS[3], string.sub(item, 1, a - 1), string.sub(item, a + 1, b - 1), string.sub(item, b + 1))\n" +
+            "  end\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[6], KEYS[5])\n" +
+            "redis.call('SADD', KEYS[4], ARGV[2])\n" +
+            "return #pending",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ExamRecordMapper examRecordMapper;
+
+    @Value("${exam.leaderboard.sync-batch:20}")
+    private int syncBatch;
+
+    @Value("${exam.leaderboard.update-batch-size:500}")
+    private int updateBatchSize;
+
+    @Value("${exam.leaderboard.rebuild-lock-seconds:60}")
+    private long rebuildLockSeconds;
+
+    @Override
+    public void recordGraded(Long paperId, Long userId, Long recordId, int score) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRecord(paperId, userId, recordId, score);
+                }
+            });
+        } else {
+            doRecord(paperId, userId, recordId, score);
+        }
+    }
+
+    @Override
+    public List<LeaderboardEntryVO> getTop(Long paperId, int offset, int limit) {
+        ensureBuilt(paperId);
+        String key = KEY_PREFIX + paperId;
+        Set<ZSetOperations.TypedTuple<String>> page = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(key, offset, offset + limit - 1L);
+        if (page == null || page.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Object> userIds = page.stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toList());
+        List<Object> best = stringRedisTemplate.opsForHash().multiGet(key + ":best", userIds);
+
+        List<LeaderboardEntryVO> entries = new ArrayList<>(page.size());
+        long rank = 0;
+        double previous = Double.NaN;
+        int position = offset;
+        for (ZSetOperations.TypedTuple<String> tuple : page) {
+            double score = tuple.getScore() != null ? tuple.getScore() : 0.0;
+            if (entries.isEmpty()) {
+                rank = higherCount(key, score) + 1;
+            } else if (score != previous) {
+                rank = position + 1L;
+            }
+            entries.add(entry(rank, tuple.getValue(), best.get(entries.size()), score));
+            previous = score;
+            position++;
+        }
+        return entries;
+    }
+
+    @Override
+    public LeaderboardEntryVO getRank(Long paperId, Long userId) {
+        ensureBuilt(paperId);
+        String key = KEY_PREFIX + paperId;
+        String member = String.valueOf(userId);
+        Double score = stringRedisTemplate.opsForZSet().score(key, member);
+        if (score == null) {
+            return null;
+        }
+        Object best = stringRedisTemplate.opsForHash().get(key + ":best", member);
+        return entry(higherCount(key, score) + 1, member, best, score);
+    }
+
+    @Override
+    public long rebuild(Long paperId) {
+        String key = KEY_PREFIX + paperId;
+        String lockKey = key + ":lock";
+        String token = RedisLocks.tryLock(stringRedisTemplate, lockKey, Duration.ofSeconds(rebuildLockSeconds));
+        if (token == null) {
+            // 其他请求或节点正在重建，不重复重建
+            Long size = stringRedisTemplate.opsForZSet().zCard(key);
+            return size != null ? size : 0L;
+        }
+
+        long start = System.currentTimeMillis();
+        List<String> keys = List.of(key, key + ":best", key + ":stale", DIRTY_KEY, key + ":rebuilding",
+                key + ":pending", key + ":rebuild", key + ":best:rebuild", FULL_SYNC_KEY);
+        boolean replaced = false;
+        try {
+            // 标记必须在查询之前设置，查询之后提交的成绩才会进入待重放列表
+            stringRedisTemplate.opsForValue().set(keys.get(4), "1", Duration.ofSeconds(rebuildLockSeconds));
+            List<ExamRecord> records = examRecordMapper.selectGradedScores(paperId,
+                    CommonConstants.ExamRecordStatus.GRADED);
+
+            // 记录按ID升序，同一用户只在严格更高时替换，同分保留较早的记录
+            Map<Long, ExamRecord> bestByUser = new HashMap<>();
+            for (ExamRecord record : records) {
+                int score = record.getScore() != null ? record.getScore() : 0;
+                ExamRecord current = bestByUser.get(record.getUserId());
+                if (current == null || score > (current.getScore() != null ? current.getScore() : 0)) {
+                    bestByUser.put(record.getUserId(), record);
+                }
+            }
+
+            Map<String, String> hash = new HashMap<>(bestByUser.size() * 2);
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(bestByUser.size() * 2);
+            hash.put(BUILT_FIELD, "1");
+            for (ExamRecord record : bestByUser.values()) {
+                int score = record.getScore() != null ? record.getScore() : 0;
+                String member = String.valueOf(record.getUserId());
+                hash.put(member, record.getId() + ":" + score);
+                tuples.add(ZSetOperations.TypedTuple.of(member, (double) score));
+            }
+
+            // 先写临时键，再由脚本改名替换并重放重建期间的成绩
+            stringRedisTemplate.delete(List.of(keys.get(6), keys.get(7)));
+            stringRedisTemplate.opsForHash().putAll(keys.get(7), hash);
+            if (!tuples.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(keys.get(6), tuples);
+            }
+            Long replayed = stringRedisTemplate.execute(FINISH_SCRIPT, keys, "1", String.valueOf(paperId));
+            replaced = true;
+
+            log.info("排行榜重建完成: paperId={}, records={}, users={}, replayed={}, 耗时={}ms",
+                    paperId, records.size(), bestByUser.size(), replayed, System.currentTimeMillis() - start);
+            return bestByUser.size();
+        } finally {
+            if (!replaced) {
+                try {
+                    stringRedisTemplate.execute(FINISH_SCRIPT, keys, "0", String.valueOf(paperId));
+                } catch (Exception e) {
+                    log.warn("清除排行榜重建标记失败，等待标记过期: paperId={}, error={}", paperId, e.getMessage());
+                }
+            }
+            RedisLocks.unlock(stringRedisTemplate, lockKey, token);
+        }
+    }
+
+    @Override
+    public int sync() {
+        List<String> paperIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, syncBatch);
+        if (paperIds == null || paperIds.isEmpty()) {
+            return 0;
+        }
+
+        int synced = 0;
+        for (String id : paperIds) {
+            try {
+                syncPaper(Long.valueOf(id));
+                synced++;
+            } catch (Exception e) {
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, id);
+                log.error("排行榜写回失败，等待下次重试: paperId={}", id, e);
+            }
+        }
+        return synced;
+    }
+
+    private void syncPaper(Long paperId) {
+        long start = System.currentTimeMillis();
+        String key = KEY_PREFIX + paperId;
+
+        // 重建后旧名次全部作废，先清空整张试卷的名次（失败时恢复标记），再按当前榜单写回
+        Long fullSync = stringRedisTemplate.opsForSet().remove(FULL_SYNC_KEY, String.valueOf(paperId));
+        if (fullSync != null && fullSync > 0) {
+            try {
+                examRecordMapper.clearPaperRanking(paperId);
+            } catch (RuntimeException e) {
+                stringRedisTemplate.opsForSet().add(FULL_SYNC_KEY, String.valueOf(paperId));
+                throw e;
+            }
+        }
+
+        // 不再是最高分的记录清除名次
+        List<String> stale = stringRedisTemplate.opsForSet().pop(key + ":stale", updateBatchSize);
+        while (stale != null && !stale.isEmpty()) {
+            examRecordMapper.clearRanking(stale.stream().map(Long::valueOf).collect(Collectors.toList()));
+            stale = stringRedisTemplate.opsForSet().pop(key + ":stale", updateBatchSize);
+        }
+
+        Map<Object, Object> best = stringRedisTemplate.opsForHash().entries(key + ":best");
+        List<ExamRecord> ranked = new ArrayList<>(best.size());
+        for (Map.Entry<Object, Object> entry : best.entrySet()) {
+            if (BUILT_FIELD.equals(entry.getKey())) {
+                continue;
+            }
+            String value = String.valueOf(entry.getValue());
+            int sep = value.indexOf(':');
+            ExamRecord record = new ExamRecord();
+            record.setId(Long.valueOf(value.substring(0, sep)));
+            record.setScore(Integer.valueOf(value.substring(sep + 1)));
+            ranked.add(record);
+        }
+
+        // 同分同名次（1, 2, 2, 4）
+        ranked.sort((a, b) -> Integer.compare(b.getScore(), a.getScore()));
+        for (int i = 0; i < ranked.size(); i++) {
+            ExamRecord record = ranked.get(i);
+            boolean tied = i > 0 && record.getScore().equals(ranked.get(i - 1).getScore());
+            record.setRanking(tied ? ranked.get(i - 1).getRanking() : i + 1);
+        }
+        for (int from = 0; from < ranked.size(); from += updateBatchSize) {
+            examRecordMapper.batchUpdateRanking(ranked.subList(from, Math.min(from + updateBatchSize, ranked.size())));
+        }
+        log.debug("排行榜写回完成: paperId={}, users={}, 耗时={}ms", paperId, ranked.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void doRecord(Long paperId, Long userId, Long recordId, int score) {
+        try {
+            String key = KEY_PREFIX + paperId;
+            Long applied = stringRedisTemplate.execute(RECORD_SCRIPT,
+                    List.of(key, key + ":best", key + ":stale", DIRTY_KEY, key + ":rebuilding", key + ":pending"),
+                    String.valueOf(userId), String.valueOf(recordId), String.valueOf(score), String.valueOf(paperId));
+            if (applied == null || applied < 0) {
+                // 排行榜未构建（首次阅卷或缓存丢失），重建时已包含本次已提交的成绩
+                rebuild(paperId);
+            }
+        } catch (Exception e) {
+            log.error("排行榜更新失败，可调用重建接口修正: paperId={}, recordId={}", paperId, recordId, e);
+        }
+    }
+
+    private void ensureBuilt(Long paperId) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY_PREFIX + paperId + ":best"))) {
+            rebuild(paperId);
+        }
+    }
+
+    /**
+     * 分数严格高于指定分数的人数（得分为整数）
+     */
+    private long higherCount(String key, double score) {
+        Long count = stringRedisTemplate.opsForZSet().count(key, score + 0.5, Double.POSITIVE_INFINITY);
+        return count != null ? count : 0L;
+    }
+
+    private static LeaderboardEntryVO entry(long rank, String userId, Object best, double score) {
+        LeaderboardEntryVO entry = new LeaderboardEntryVO();
+        entry.setRank(rank);
+        entry.setUserId(Long.valueOf(userId));
+        entry.setScore((int) score);
+        if (best != null) {
+            String value = String.valueOf(best);
+            entry.setRecordId(Long.valueOf(value.substring(0, value.indexOf(':'))));
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,183 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.common.exception.BusinessException;
+import com.smartlearning.common.result.ResultCode;
+import com.smartlearning.exam.dto.PaperGenerateRequest;
+import com.smartlearning.exam.dto.PaperSnapshot;
+import com.smartlearning.exam.entity.ExamRecord;
+import com.smartlearning.exam.entity.Question;
+import com.smartlearning.exam.generator.QuestionPool;
+import com.smartlearning.exam.mapper.ExamRecordMapper;
+import com.smartlearning.exam.mapper.QuestionMapper;
+import com.smartlearning.exam.service.PaperGeneratorService;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import com.smartlearning.exam.service.QuestionPoolService;
+import com.smartlearning.exam.vo.QuestionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 随机组卷服务实现
+ * <p>
+ * 每个蓝图项在题目池的对应分层中按下标随机抽取，期望耗时与抽取数量成正比；
+ * 抽中的题目用一次主键批量查询取回详情。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaperGeneratorServiceImpl implements PaperGeneratorService {
+
+    private final QuestionPoolService questionPoolService;
+    private final QuestionMapper questionMapper;
+    private final ExamRecordMapper examRecordMapper;
+    private final PaperSnapshotService paperSnapshotService;
+
+    /**
+     * 单次组卷的最大题目数
+     */
+    @Value("${exam.question-pool.max-questions:500}")
+    private int maxQuestions;
+
+    @Override
+    public List<QuestionVO> generate(PaperGenerateRequest request) {
+        int total = request.getItems().stream().mapToInt(PaperGenerateRequest.BlueprintItem::getCount).sum();
+        if (total > maxQuestions) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "组卷题目数不能超过" + maxQuestions);
+        }
+
+        QuestionPool pool = questionPoolService.get(request.getCourseId());
+        SplittableRandom random = request.getSeed() != null
+                ? new SplittableRandom(request.getSeed()) : new SplittableRandom();
+        Set<Long> chosen = new HashSet<>(total * 2);
+
+        List<long[]> sampled = new ArrayList<>(request.getItems().size());
+        for (PaperGenerateRequest.BlueprintItem item : request.getItems()) {
+            long[] ids = pool.sample(item.getType(), item.getDifficulty(), item.getCount(), random, chosen);
+            if (ids.length < item.getCount()) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, String.format("题库中%s/%s题目不足: 需要%d道，可用%d道",
+                        label(item.getType()), label(item.getDifficulty()), item.getCount(), ids.length));
+            }
+            sampled.add(ids);
+        }
+
+        Map<Long, Question> questions = loadQuestions(chosen);
+        List<QuestionVO> result = new ArrayList<>(total);
+        for (int i = 0; i < sampled.size(); i++) {
+            Integer score = request.getItems().get(i).getScore();
+            for (long id : sampled.get(i)) {
+                Question question = questions.get(id);
+                if (question == null) {
+                    // 题目池版本生效前已被删除或停用的题目
+                    throw new BusinessException(ResultCode.BAD_REQUEST, "题库已变更，请重新组卷");
+                }
+                QuestionVO vo = toVO(question);
+                vo.setScore(score != null ? score : question.getScore());
+                vo.setQuestionOrder(result.size() + 1);
+                result.add(vo);
+            }
+        }
+
+        log.info("按蓝图组卷完成: courseId={}, items={}, questions={}",
+                request.getCourseId(), request.getItems().size(), result.size());
+        return result;
+    }
+
+    @Override
+    public List<QuestionVO> randomQuestions(Long courseId, String type, String difficulty, Integer limit) {
+        int count = Math.min(limit != null ? limit : 10, maxQuestions);
+        long[] ids = questionPoolService.get(courseId)
+                .sample(type, difficulty, count, new SplittableRandom(), new HashSet<>(count * 2));
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Question> questions = loadQuestions(Arrays.stream(ids).boxed().toList());
+        List<QuestionVO> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Question question = questions.get(id);
+            if (question != null) {
+                result.add(toVO(question));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<QuestionVO> getPaperVariant(Long recordId, Long userId) {
+        ExamRecord record = examRecordMapper.selectById(recordId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在");
+        }
+        if (!record.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限操作此考试记录");
+        }
+        PaperSnapshot snapshot = paperSnapshotService.get(record.getPaperId());
+        if (snapshot == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "试卷不存在");
+        }
+
+        List<QuestionVO> questions = new ArrayList<>(snapshot.getQuestions().size());
+        for (QuestionVO source : snapshot.getQuestions()) {
+            // 快照中的题目对象只读且包含标准答案，逐题复制后去掉答案
+            QuestionVO question = new QuestionVO();
+            BeanUtils.copyProperties(source, question);
+            question.setAnswer(null);
+            question.setExplanation(null);
+            question.setUserAnswer(null);
+            question.setIsCorrect(null);
+            questions.add(question);
+        }
+
+        if (Integer.valueOf(1).equals(snapshot.getPaper().getIsShuffled())) {
+            Collections.shuffle(questions, new Random(recordId));
+            for (int i = 0; i < questions.size(); i++) {
+                questions.get(i).setQuestionOrder(i + 1);
+            }
+        }
+        return questions;
+    }
+
+    private Map<Long, Question> loadQuestions(Collection<Long> ids) {
+        Map<Long, Question> questions = new HashMap<>(ids.size() * 2);
+        if (!ids.isEmpty()) {
+            for (Question question : questionMapper.selectBatchIds(ids)) {
+                if (Integer.valueOf(1).equals(question.getStatus())) {
+                    questions.put(question.getId(), question);
+                }
+            }
+        }
+        return questions;
+    }
+
+    private static QuestionVO toVO(Question question) {
+        QuestionVO vo = new QuestionVO();
+        BeanUtils.copyProperties(question, vo, "options", "tags");
+        if (StringUtils.hasText(question.getOptions())) {
+            vo.setOptions(Arrays.asList(question.getOptions().split("\\|\\|")));
+        }
+        if (StringUtils.hasText(question.getTags())) {
+            vo.setTags(Arrays.asList(question.getTags().split(",")));
+        }
+        return vo;
+    }
+
+    private static String label(String value) {
+        return StringUtils.hasText(value) ? value : "不限";
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartlearning.exam.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlearning.exam.dto.PaperSnapshot;
+import com.smartlearning.exam.entity.ExamPaper;
+import com.smartlearning.exam.mapper.ExamPaperMapper;
+import com.smartlearning.exam.mapper.PaperQuestionMapper;
+import com.smartlearning.exam.service.PaperSnapshotService;
+import com.smartlearning.exam.vo.QuestionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 试卷快照服务实现
+ * <p>
+ * Redis 中保存每张试卷的当前版本号和按版本存储的快照（JSON）。试卷变更时递增版本号，旧版本快照自然过期。
+ * 本地缓存条目在 {@code local-ttl-ms} 内直接使用，过期后只比对一次 Redis 版本号，版本未变则续期；
+ * 因此其他节点修改试卷后，本节点最多在该时间内仍使用旧快照。
+ * 同一试卷的并发未命中合并为一次数据库加载。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaperSnapshotServiceImpl implements PaperSnapshotService {
+
+    private static final String VERSION_KEY_PREFIX = "exam:paper:version:";
+    private static final String SNAPSHOT_KEY_PREFIX = "exam:paper:snapshot:";
+
+    private final ExamPaperMapper examPaperMapper;
+    private final PaperQuestionMapper paperQuestionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, LocalEntry> localCache = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<PaperSnapshot>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${exam.paper-snapshot.local-ttl-ms:5000}")
+    private long localTtlMs;
+
+    @Value("${exam.paper-snapshot.local-max-size:1000}")
+    private int localMaxSize;
+
+    @Value("${exam.paper-snapshot.redis-ttl-hours:24}")
+    private long redisTtlHours;
+
+    @Override
+    public PaperSnapshot get(Long paperId) {
+        long now = System.currentTimeMillis();
+        LocalEntry entry = localCache.get(paperId);
+        if (entry != null && entry.checkedAt + localTtlMs > now) {
+            localHits.increment();
+            return entry.snapshot;
+        }
+
+        Long version = currentVersion(paperId);
+        if (version == null) {
+            // Redis 不可用：沿用本地快照，没有时直接查库（不写入缓存）
+            return entry != null ? entry.snapshot : loadFromDatabase(paperId, -1L);
+        }
+        if (entry != null && entry.snapshot.getVersion() == version) {
+            entry.checkedAt = now;
+            localHits.increment();
+            return entry.snapshot;
+        }
+
+        PaperSnapshot snapshot = readRedis(paperId, version);
+        if (snapshot != null) {
+            redisHits.increment();
+        } else {
+            snapshot = loadCoalesced(paperId, version);
+            if (snapshot == null) {
+                return null;
+            }
+        }
+        putLocal(paperId, snapshot, now);
+        return snapshot;
+    }
+
+    @Override
+    public void invalidate(Long paperId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 提交前失效会让并发请求把未提交前的旧数据按新版本号重新缓存
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(paperId);
+                }
+            });
+        } else {
+            doInvalidate(paperId);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("localSize", localCache.size());
+        stats.put("localHits", localHits.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private void doInvalidate(Long paperId) {
+        localCache.remove(paperId);
+        invalidations.increment();
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + paperId);
+        } catch (Exception e) {
+            log.error("试卷快照版本号递增失败，其他节点将在快照过期前使用旧快照: paperId={}", paperId, e);
+        }
+        log.debug("试卷快照已失效: paperId={}", paperId);
+    }
+
+    private Long currentVersion(Long paperId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + paperId);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("读取试卷快照版本号失败: paperId={}, error={}", paperId, e.getMessage());
+            return null;
+        }
+    }
+
+    private PaperSnapshot readRedis(Long paperId, long version) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(snapshotKey(paperId, version));
+            if (json == null) {
+                return null;
+            }
+            PaperSnapshot snapshot = objectMapper.readValue(json, PaperSnapshot.class);
+            snapshot.setQuestions(readOnly(snapshot.getQuestions()));
+            return snapshot;
+        } catch (Exception e) {
+            log.warn("读取Redis试卷快照失败: paperId={}, version={}, error={}", paperId, version, e.getMessage());
+            return null;
+        }
+    }
+
+    private PaperSnapshot loadCoalesced(Long paperId, long version) {
+        CompletableFuture<PaperSnapshot> created = new CompletableFuture<>();
+        CompletableFuture<PaperSnapshot> existing = loading.putIfAbsent(paperId, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            PaperSnapshot snapshot = loadFromDatabase(paperId, version);
+            if (snapshot != null) {
+                writeRedis(paperId, snapshot);
+            }
+            created.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(paperId, created);
+        }
+    }
+
+    private PaperSnapshot loadFromDatabase(Long paperId, long version) {
+        ExamPaper paper = examPaperMapper.selectById(paperId);
+        if (paper == null) {
+            return null;
+        }
+        List<QuestionVO> questions = paperQuestionMapper.selectQuestionsByPaper(paperId);
+        loads.increment();
+        log.debug("加载试卷快照: paperId={}, version={}, questions={}",
+                paperId, version, questions != null ? questions.size() : 0);
+        return new PaperSnapshot(version, paper, readOnly(questions), System.currentTimeMillis());
+    }
+
+    private void writeRedis(Long paperId, PaperSnapshot snapshot) {
+        try {
+            stringRedisTemplate.opsForValue().set(snapshotKey(paperId, snapshot.getVersion()),
+                    objectMapper.writeValueAsString(snapshot), redisTtlHours, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("写入Redis试卷快照失败: paperId={}, error={}", paperId, e.getMessage());
+        }
+    }
+
+    private void putLocal(Long paperId, PaperSnapshot snapshot, long now) {
+        if (localCache.size() >= localMaxSize && !localCache.containsKey(paperId)) {
+            localCache.values().removeIf(entry -> entry.checkedAt + localTtlMs <= now);
+            if (localCache.size() >= localMaxSize) {
+                localCache.clear();
+            }
+        }
+        localCache.put(paperId, new LocalEntry(snapshot, now));
+    }
+
+    private static String snapshotKey(Long paperId, long version) {
+        return SNAPSHOT_KEY_PREFIX + paperId + ":" + version;
+    }
+
+    private static List<QuestionVO> readOnly(List<QuestionVO> questions) {
+        return questions != null ? Collections.unmodifiableList(questions) : Collections.emptyList();
+    }
+
+    private static final class LocalEntry {
+
+        private final PaperSnapshot snapshot;
+        private volatile long checkedAt;
+
+        LocalEntry(PaperSnapshot snapshot, long checkedAt) {
+            this.snapshot = snapshot;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.exam.mapper.ExamPaperMapper;
+import com.smartlearning.exam.service.ParticipantCountService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 参考人数计数服务实现
+ * <p>
+ * 每张试卷一个 {@link LongAdder}，开考线程之间不竞争同一计数单元；写回时取出并清零增量，
+ * 用一条 {@code participant_count = participant_count + delta} 更新，失败时把增量加回等待下次写回。
+ * 计数器不随写回移除（试卷数量有限），避免移除与并发累加之间丢失增量。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParticipantCountServiceImpl implements ParticipantCountService {
+
+    private final ExamPaperMapper examPaperMapper;
+
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(Long paperId) {
+        counters.computeIfAbsent(paperId, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long pending(Long paperId) {
+        LongAdder counter = counters.get(paperId);
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    @Override
+    public synchronized int flush() {
+        int flushed = 0;
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta <= 0) {
+                continue;
+            }
+            try {
+                examPaperMapper.addParticipantCount(entry.getKey(), delta);
+                flushed++;
+            } catch (Exception e) {
+                entry.getValue().add(delta);
+                log.error("参考人数写回失败，等待下次重试: paperId={}, delta={}", entry.getKey(), delta, e);
+            }
+        }
+        if (flushed > 0) {
+            log.debug("参考人数写回完成: papers={}", flushed);
+        }
+        return flushed;
+    }
+
+    /**
+     * 停机前写回剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
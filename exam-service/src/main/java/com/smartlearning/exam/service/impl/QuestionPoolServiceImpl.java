@@ -0,0 +1,181 @@
+package com.smartlearning.exam.service.impl;
+
+import com.smartlearning.exam.entity.Question;
+import com.smartlearning.exam.generator.QuestionPool;
+import com.smartlearning.exam.mapper.QuestionMapper;
+import com.smartlearning.exam.service.QuestionPoolService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题目池服务实现
+ * <p>
+ * 题目池只在本地内存中保存（每题一个 long），Redis 中只保存每门课程的版本号：题目增删改后递增版本号，
+ * 各节点在本地条目超过 {@code local-ttl-ms} 后比对一次版本号，版本变化时用一条只查 (id, type, difficulty) 的
+ * 查询重建。同一课程的并发重建合并为一次数据库查询。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuestionPoolServiceImpl implements QuestionPoolService {
+
+    private static final String VERSION_KEY_PREFIX = "exam:question-pool:version:";
+
+    private final QuestionMapper questionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<Long, LocalEntry> localCache = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<QuestionPool>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${exam.question-pool.local-ttl-ms:30000}")
+    private long localTtlMs;
+
+    @Value("${exam.question-pool.local-max-size:500}")
+    private int localMaxSize;
+
+    @Override
+    public QuestionPool get(Long courseId) {
+        long now = System.currentTimeMillis();
+        LocalEntry entry = localCache.get(courseId);
+        if (entry != null && entry.checkedAt + localTtlMs > now) {
+            localHits.increment();
+            return entry.pool;
+        }
+
+        Long version = currentVersion(courseId);
+        if (version == null) {
+            // Redis 不可用：沿用本地题目池，没有时直接查库（不写入缓存）
+            return entry != null ? entry.pool : load(courseId, -1L);
+        }
+        if (entry != null && entry.pool.version() == version) {
+            entry.checkedAt = now;
+            localHits.increment();
+            return entry.pool;
+        }
+
+        QuestionPool pool = loadCoalesced(courseId, version);
+        putLocal(courseId, pool, now);
+        return pool;
+    }
+
+    @Override
+    public void invalidate(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 提交前失效会让并发请求按新版本号缓存未提交前的题库
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(courseId);
+                }
+            });
+        } else {
+            doInvalidate(courseId);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("localSize", localCache.size());
+        stats.put("localHits", localHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private void doInvalidate(Long courseId) {
+        localCache.remove(courseId);
+        invalidations.increment();
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + courseId);
+        } catch (Exception e) {
+            log.error("题目池版本号递增失败，其他节点将在本地缓存过期前使用旧题目池: courseId={}", courseId, e);
+        }
+    }
+
+    private Long currentVersion(Long courseId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + courseId);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("读取题目池版本号失败: courseId={}, error={}", courseId, e.getMessage());
+            return null;
+        }
+    }
+
+    private QuestionPool loadCoalesced(Long courseId, long version) {
+        CompletableFuture<QuestionPool> created = new CompletableFuture<>();
+        CompletableFuture<QuestionPool> existing = loading.putIfAbsent(courseId, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            QuestionPool pool = load(courseId, version);
+            created.complete(pool);
+            return pool;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(courseId, created);
+        }
+    }
+
+    private QuestionPool load(Long courseId, long version) {
+        List<Question> questions = questionMapper.selectPoolEntries(courseId);
+        QuestionPool.Builder builder = QuestionPool.builder(version);
+        for (Question question : questions) {
+            builder.add(question.getId(), question.getType(), question.getDifficulty());
+        }
+        QuestionPool pool = builder.build();
+        loads.increment();
+        log.debug("加载题目池: courseId={}, version={}, questions={}", courseId, version, pool.questionCount());
+        return pool;
+    }
+
+    private void putLocal(Long courseId, QuestionPool pool, long now) {
+        if (localCache.size() >= localMaxSize && !localCache.containsKey(courseId)) {
+            localCache.values().removeIf(entry -> entry.checkedAt + localTtlMs <= now);
+            if (localCache.size() >= localMaxSize) {
+                localCache.clear();
+            }
+        }
+        localCache.put(courseId, new LocalEntry(pool, now));
+    }
+
+    private static final class LocalEntry {
+
+        private final QuestionPool pool;
+        private volatile long checkedAt;
+
+        LocalEntry(QuestionPool pool, long checkedAt) {
+            this.pool = pool;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.smartlearning.exam.service.impl;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基于 SET NX 的Redis互斥锁（跨节点的定时任务、重建等）
+ * <p>
+ * 加锁返回随机令牌，解锁时用脚本比较令牌后删除，锁过期后被其他节点重新获取时不会误删对方的锁。
+ */
+final class RedisLocks {
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private RedisLocks() {
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @return 锁令牌，锁已被占用时返回 null
+     */
+    static String tryLock(StringRedisTemplate redis, String key, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(key, token, ttl)) ? token : null;
+    }
+
+    /**
+     * 释放锁（仅当锁仍由该令牌持有时）
+     */
+    static void unlock(StringRedisTemplate redis, String key, String token) {
+        redis.execute(UNLOCK_SCRIPT, List.of(key), token);
+    }
+}
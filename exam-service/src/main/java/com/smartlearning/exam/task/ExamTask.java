@@ -0,0 +1,91 @@
+package com.smartlearning.exam.task;
+
+import com.smartlearning.exam.service.ExamStatsService;
+import com.smartlearning.exam.service.ExamTimeoutService;
+import com.smartlearning.exam.service.GradingQueueService;
+import com.smartlearning.exam.service.LeaderboardService;
+import com.smartlearning.exam.service.ParticipantCountService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 考试服务定时任务
+ * <p>
+ * 调度线程池大小由 {@code spring.task.scheduling.pool.size} 配置，每个任务各占一个线程，
+ * 耗时较长的超时考试扫描不会推迟参考人数、成绩统计等写回任务。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExamTask {
+
+    private final ParticipantCountService participantCountService;
+    private final ExamStatsService examStatsService;
+    private final LeaderboardService leaderboardService;
+    private final ExamTimeoutService examTimeoutService;
+    private final GradingQueueService gradingQueueService;
+
+    /**
+     * 定期把内存中累计的参考人数写回试卷表
+     */
+    @Scheduled(fixedDelayString = "${exam.participant-count.flush-interval-ms:5000}")
+    public void flushParticipantCounts() {
+        try {
+            participantCountService.flush();
+        } catch (Exception e) {
+            log.error("参考人数写回失败", e);
+        }
+    }
+    
+    /**
+     * 定期把有变化的试卷成绩统计写回试卷表
+     */
+    @Scheduled(fixedDelayString = "${exam.stats.flush-interval-ms:10000}")
+    public void flushExamStats() {
+        try {
+            examStatsService.flush();
+        } catch (Exception e) {
+            log.error("试卷成绩统计写回失败", e);
+        }
+    }
+    
+    /**
+     * 定期把有变化的排行榜名次批量写回考试记录表
+     */
+    @Scheduled(fixedDelayString = "${exam.leaderboard.sync-interval-ms:30000}")
+    public void syncLeaderboards() {
+        try {
+            leaderboardService.sync();
+        } catch (Exception e) {
+            log.error("排行榜写回失败", e);
+        }
+    }
+    
+    /**
+     * 定期处理超过截止时间仍在进行中的考试
+     */
+    @Scheduled(initialDelayString = "${exam.timeout.sweep-interval-ms:60000}",
+            fixedDelayString = "${exam.timeout.sweep-interval-ms:60000}")
+    public void sweepTimeoutExams() {
+        try {
+            examTimeoutService.sweep();
+        } catch (Exception e) {
+            log.error("超时考试扫描失败", e);
+        }
+    }
+    
+    /**
+     * 定期重新入队提交后长时间未阅卷的答卷
+     */
+    @Scheduled(initialDelayString = "${exam.grading.recovery-interval-ms:60000}",
+            fixedDelayString = "${exam.grading.recovery-interval-ms:60000}")
+    public void recoverStaleGrading() {
+        try {
+            gradingQueueService.recoverStale();
+        } catch (Exception e) {
+            log.error("恢复未阅答卷失败", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.smartlearning.exam.vo;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 试卷成绩统计VO
+ */
+@Data
+public class ExamStatsVO {
+
+    /**
+     * 试卷ID
+     */
+    private Long paperId;
+
+    /**
+     * 已阅卷人数
+     */
+    private Long gradedCount;
+
+    /**
+     * 通过人数
+     */
+    private Long passCount;
+
+    /**
+     * 平均分
+     */
+    private Double averageScore;
+
+    /**
+     * 通过率（百分比）
+     */
+    private Double passRate;
+
+    /**
+     * 最高分
+     */
+    private Integer maxScore;
+
+    /**
+     * 最低分
+     */
+    private Integer minScore;
+
+    /**
+     * 中位数
+     */
+    private Integer medianScore;
+
+    /**
+     * 90分位分数
+     */
+    private Integer p90Score;
+
+    /**
+     * 分数分布（分数 -> 人数，按分数升序）
+     */
+    private Map<Integer, Long> distribution;
+}
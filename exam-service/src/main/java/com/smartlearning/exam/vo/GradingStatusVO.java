@@ -0,0 +1,62 @@
+package com.smartlearning.exam.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 阅卷状态响应VO
+ */
+@Data
+public class GradingStatusVO {
+
+    /**
+     * 等待阅卷
+     */
+    public static final String QUEUED = "QUEUED";
+
+    /**
+     * 阅卷中
+     */
+    public static final String GRADING = "GRADING";
+
+    /**
+     * 阅卷完成
+     */
+    public static final String GRADED = "GRADED";
+
+    /**
+     * 阅卷失败（考试记录保持已提交状态，服务重启后重新阅卷）
+     */
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 考试记录ID
+     */
+    private Long recordId;
+
+    /**
+     * 阅卷状态 QUEUED/GRADING/GRADED/FAILED，未提交时为考试记录状态
+     */
+    private String status;
+
+    /**
+     * 得分（阅卷完成后返回）
+     */
+    private Integer score;
+
+    /**
+     * 是否通过（阅卷完成后返回）
+     */
+    private Integer isPassed;
+
+    /**
+     * 阅卷时间
+     */
+    private LocalDateTime gradeTime;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
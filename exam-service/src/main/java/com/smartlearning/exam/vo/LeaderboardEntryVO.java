@@ -0,0 +1,30 @@
+package com.smartlearning.exam.vo;
+
+import lombok.Data;
+
+/**
+ * 排行榜条目VO
+ */
+@Data
+public class LeaderboardEntryVO {
+
+    /**
+     * 排名（同分同名次）
+     */
+    private Long rank;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 最高分对应的考试记录ID
+     */
+    private Long recordId;
+
+    /**
+     * 最高分
+     */
+    private Integer score;
+}
@@ -0,0 +1,181 @@
+package com.smartlearning.exam.grading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 答案匹配器测试
+ * <p>
+ * 覆盖各题型的大小写、全角、空白和分隔符变体，以及空答案、非法答案等边界情况。
+ */
+public class AnswerMatchersTest {
+
+    @Test
+    void singleChoiceIgnoresCaseAndWidth() {
+        AnswerMatcher matcher = AnswerMatchers.compile("SINGLE", "B", false);
+
+        assertInstanceOf(ChoiceMatcher.class, matcher);
+        assertTrue(matcher.matches("B"));
+        assertTrue(matcher.matches("b"));
+        assertTrue(matcher.matches(" B "));
+        assertTrue(matcher.matches("Ｂ"), "全角字母应转为半角");
+        assertFalse(matcher.matches("B B"), "重复选项应判错");
+        assertFalse(matcher.matches("B,B"), "重复选项应判错");
+        assertFalse(matcher.matches("A"));
+        assertFalse(matcher.matches("AB"));
+        assertFalse(matcher.matches("B."), "非选项字符应判错");
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void singleChoiceWithTextAnswerFallsBackToText() {
+        AnswerMatcher matcher = AnswerMatchers.compile("SINGLE", "A,B", false);
+
+        assertInstanceOf(TextMatcher.class, matcher, "多个选项字母不是合法的单选答案");
+        assertTrue(matcher.matches("a,b"));
+        assertFalse(matcher.matches("A"));
+    }
+
+    @Test
+    void multipleChoiceIgnoresOrderAndSeparators() {
+        AnswerMatcher matcher = AnswerMatchers.compile("MULTIPLE", "A,C", false);
+
+        assertInstanceOf(ChoiceMatcher.class, matcher);
+        assertTrue(matcher.matches("A,C"));
+        assertTrue(matcher.matches("C,A"));
+        assertTrue(matcher.matches("a c"));
+        assertTrue(matcher.matches("A、C"));
+        assertTrue(matcher.matches("Ａ，Ｃ"), "全角逗号和字母应转为半角");
+        assertTrue(matcher.matches("A,,C "));
+        assertFalse(matcher.matches("A"), "少选应判错");
+        assertFalse(matcher.matches("A,B,C"), "多选应判错");
+        assertFalse(matcher.matches("AC"), "连写的字母不是合法的选项组合");
+        assertFalse(matcher.matches("A,C,A"), "重复选项应判错");
+        assertFalse(matcher.matches("A;C"), "不支持的分隔符应判错");
+        assertFalse(matcher.matches(","));
+    }
+
+    @Test
+    void multipleChoiceKeyWithSeparators() {
+        AnswerMatcher matcher = AnswerMatchers.compile("MULTIPLE", "A, B, D", false);
+
+        assertTrue(matcher.matches("A B D"));
+        assertTrue(matcher.matches("d,b,a"));
+        assertFalse(matcher.matches("A,B"));
+    }
+
+    @Test
+    void multipleChoiceWithWordOptionsComparesSortedTokens() {
+        AnswerMatcher matcher = AnswerMatchers.compile("MULTIPLE", "Java,Python", false);
+
+        assertInstanceOf(TokenSetMatcher.class, matcher, "选项不是单个字母时按选项文本比较");
+        assertTrue(matcher.matches("Java,Python"));
+        assertTrue(matcher.matches("Python,Java"));
+        assertTrue(matcher.matches(" python , JAVA "));
+        assertFalse(matcher.matches("nohtyP,avaJ"), "字母相同但选项不同应判错");
+        assertFalse(matcher.matches("Java"));
+        assertFalse(matcher.matches("Java,Python,Java"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void repeatedLetterKeyIsNotChoiceMask() {
+        AnswerMatcher single = AnswerMatchers.compile("SINGLE", "A", false);
+        assertFalse(single.matches("A,A"), "单选题重复作答不应判对");
+
+        AnswerMatcher multiple = AnswerMatchers.compile("MULTIPLE", "AC", false);
+        assertInstanceOf(TokenSetMatcher.class, multiple, "连写的字母按选项文本比较");
+        assertTrue(multiple.matches("ac"));
+        assertFalse(multiple.matches("CA"));
+    }
+
+    @Test
+    void judgeAcceptsLetterOrText() {
+        AnswerMatcher letter = AnswerMatchers.compile("JUDGE", "A", false);
+        assertTrue(letter.matches("a"));
+        assertFalse(letter.matches("B"));
+
+        AnswerMatcher text = AnswerMatchers.compile("JUDGE", "正确", false);
+        assertInstanceOf(TextMatcher.class, text);
+        assertTrue(text.matches("正确"));
+        assertTrue(text.matches(" 正确 "));
+        assertFalse(text.matches("错误"));
+
+        AnswerMatcher word = AnswerMatchers.compile("JUDGE", "True", false);
+        assertTrue(word.matches("TRUE"));
+        assertTrue(word.matches("true"));
+        assertFalse(word.matches("T"));
+    }
+
+    @Test
+    void fillMatchesAnyAlternative() {
+        AnswerMatcher matcher = AnswerMatchers.compile("FILL", "HashMap|哈希表| hash map ", false);
+
+        assertTrue(matcher.matches("hashmap"));
+        assertTrue(matcher.matches("HASHMAP"));
+        assertTrue(matcher.matches("哈希表"));
+        assertTrue(matcher.matches("Hash   Map"), "内部连续空白应压缩为一个空格");
+        assertTrue(matcher.matches("\thash map\n"));
+        assertTrue(matcher.matches("ＨａｓｈＭａｐ"), "全角字母应转为半角");
+        assertFalse(matcher.matches("hash-map"));
+        assertFalse(matcher.matches("Hash Map X"));
+        assertFalse(matcher.matches("哈希"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void fillWhitespaceSensitivityFollowsConfig() {
+        AnswerMatcher strict = AnswerMatchers.compile("FILL", "hash map", false);
+        assertTrue(strict.matches("hash  map"));
+        assertFalse(strict.matches("hashmap"), "不忽略空白时缺少空格应判错");
+
+        AnswerMatcher loose = AnswerMatchers.compile("FILL", "hash map", true);
+        assertTrue(loose.matches("hashmap"));
+        assertTrue(loose.matches("h a s h m a p"));
+        assertFalse(loose.matches("hash mop"));
+    }
+
+    @Test
+    void fillSkipsEmptyAlternatives() {
+        AnswerMatcher matcher = AnswerMatchers.compile("FILL", "|abc||", false);
+
+        assertTrue(matcher.matches("ABC"));
+        assertFalse(matcher.matches(""), "空候选答案应被忽略");
+        assertFalse(matcher.matches("  "));
+    }
+
+    @Test
+    void emptyKeysNeverMatch() {
+        for (String type : List.of("SINGLE", "MULTIPLE", "JUDGE", "FILL")) {
+            assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile(type, "", false), type);
+            assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile(type, "   ", false), type);
+            assertFalse(AnswerMatchers.compile(type, "", false).matches(""), type);
+        }
+        assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile("FILL", "|", false));
+        assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile("SINGLE", null, false));
+        assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile(null, "A", false));
+    }
+
+    @Test
+    void essayAndUnknownTypesNeverMatch() {
+        assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile("ESSAY", "答案", false));
+        assertSame(AnswerMatcher.NEVER, AnswerMatchers.compile("UNKNOWN", "A", false));
+        assertFalse(AnswerMatchers.compile("ESSAY", "答案", false).matches("答案"));
+    }
+
+    @Test
+    void textMatcherHandlesHashCollisions() {
+        // "a}" 与 "b^" 规范化后的 String.hashCode 相同
+        assertEquals("a}".hashCode(), "b^".hashCode());
+        AnswerMatcher matcher = TextMatcher.compile(List.of("a}", "b^"), false);
+
+        assertTrue(matcher.matches("A}"));
+        assertTrue(matcher.matches("B^"));
+        assertFalse(matcher.matches("a^"));
+    }
+}
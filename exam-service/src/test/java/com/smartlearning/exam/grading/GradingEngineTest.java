@@ -0,0 +1,157 @@
+package com.smartlearning.exam.grading;
+
+import com.smartlearning.exam.entity.ExamAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 判分引擎测试
+ */
+public class GradingEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    void gradesObjectiveAnswersAndSumsScores() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(
+                key(1L, "SINGLE", "A", 2),
+                key(2L, "MULTIPLE", "A,C", 4),
+                key(3L, "JUDGE", "B", 1),
+                key(4L, "FILL", "HashMap|哈希表", 3)));
+        List<ExamAnswer> answers = List.of(
+                answer(1L, "a", null),
+                answer(2L, "C, A", null),
+                answer(3L, "A", null),
+                answer(4L, " hashmap ", null));
+
+        GradingResult result = GradingEngine.grade(answers, keys, NOW);
+
+        assertEquals(2 + 4 + 3, result.getScore());
+        assertEquals(3, result.getCorrectCount());
+        assertEquals(1, result.getWrongCount());
+        assertEquals(4, result.getGraded().size());
+
+        ExamAnswer wrong = answers.get(2);
+        assertEquals(0, wrong.getIsCorrect());
+        assertEquals(0, wrong.getScore());
+        assertEquals("B", wrong.getCorrectAnswer());
+        assertEquals(NOW, wrong.getUpdateTime());
+
+        ExamAnswer fill = answers.get(3);
+        assertEquals(1, fill.getIsCorrect());
+        assertEquals(3, fill.getScore());
+        assertEquals("HashMap|哈希表", fill.getCorrectAnswer());
+    }
+
+    @Test
+    void paperScoreOverridesQuestionScore() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(key(1L, "SINGLE", "A", 2)));
+        ExamAnswer answer = answer(1L, "A", 5);
+
+        GradingResult result = GradingEngine.grade(List.of(answer), keys, NOW);
+
+        assertEquals(5, answer.getScore(), "试卷设置的分值优先于题目分值");
+        assertEquals(5, result.getScore());
+    }
+
+    @Test
+    void missingQuestionScoreCountsAsZero() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(key(1L, "SINGLE", "A", null)));
+        ExamAnswer answer = answer(1L, "A", null);
+
+        GradingResult result = GradingEngine.grade(List.of(answer), keys, NOW);
+
+        assertEquals(1, answer.getIsCorrect());
+        assertEquals(0, answer.getScore());
+        assertEquals(0, result.getScore());
+        assertEquals(1, result.getCorrectCount());
+    }
+
+    @Test
+    void blankAndEmptyKeysAreGradedWrong() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(
+                key(1L, "FILL", "", 3),
+                key(2L, "SINGLE", "A", 2),
+                key(3L, "MULTIPLE", "AB", 2)));
+        List<ExamAnswer> answers = List.of(
+                answer(1L, "", null),
+                answer(2L, null, null),
+                answer(3L, "  ", null));
+
+        GradingResult result = GradingEngine.grade(answers, keys, NOW);
+
+        assertEquals(0, result.getScore());
+        assertEquals(0, result.getCorrectCount());
+        assertEquals(3, result.getWrongCount());
+        for (ExamAnswer answer : answers) {
+            assertEquals(0, answer.getIsCorrect());
+            assertEquals(0, answer.getScore());
+        }
+    }
+
+    @Test
+    void answersWithoutKeyKeepExistingResult() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(key(1L, "SINGLE", "A", 2)));
+        ExamAnswer graded = answer(1L, "A", null);
+        // 问答题已人工阅卷
+        ExamAnswer essay = answer(2L, "答案", 10);
+        essay.setScore(7);
+        essay.setIsCorrect(1);
+        // 尚未阅卷的问答题
+        ExamAnswer pending = answer(3L, "答案", 10);
+
+        GradingResult result = GradingEngine.grade(List.of(graded, essay, pending), keys, NOW);
+
+        assertEquals(List.of(graded), result.getGraded(), "没有标准答案的题目不需要写回");
+        assertEquals(2 + 7, result.getScore());
+        assertEquals(2, result.getCorrectCount());
+        assertEquals(0, result.getWrongCount());
+        assertEquals(7, essay.getScore());
+        assertNull(pending.getScore());
+        assertNull(pending.getIsCorrect());
+        assertNull(pending.getUpdateTime());
+    }
+
+    @Test
+    void regradeOverwritesPreviousResult() {
+        AnswerKeySet keys = AnswerKeySet.of(1L, List.of(key(1L, "SINGLE", "B", 2)));
+        ExamAnswer answer = answer(1L, "A", null);
+        answer.setScore(2);
+        answer.setIsCorrect(1);
+
+        GradingResult result = GradingEngine.grade(List.of(answer), keys, NOW);
+
+        assertEquals(0, answer.getIsCorrect());
+        assertEquals(0, answer.getScore());
+        assertEquals(0, result.getScore());
+        assertEquals(1, result.getWrongCount());
+    }
+
+    @Test
+    void emptyKeySetGradesNothing() {
+        ExamAnswer answer = answer(1L, "A", 2);
+
+        GradingResult result = GradingEngine.grade(List.of(answer), AnswerKeySet.empty(), NOW);
+
+        assertTrue(result.getGraded().isEmpty());
+        assertEquals(0, result.getScore());
+        assertEquals(0, result.getCorrectCount());
+        assertEquals(0, result.getWrongCount());
+    }
+
+    private static AnswerKey key(long questionId, String type, String answer, Integer score) {
+        return new AnswerKey(questionId, type, answer, score, AnswerMatchers.compile(type, answer, false));
+    }
+
+    private static ExamAnswer answer(long questionId, String userAnswer, Integer totalScore) {
+        ExamAnswer answer = new ExamAnswer();
+        answer.setQuestionId(questionId);
+        answer.setUserAnswer(userAnswer);
+        answer.setTotalScore(totalScore);
+        return answer;
+    }
+}
@@ -2,10 +2,12 @@ package com.smartlearning.common.feign;
 
 import com.smartlearning.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +29,13 @@ public interface CourseServiceClient {
     @GetMapping("/batch")
     Result<List<Map<String, Object>>> getCoursesByIds(@RequestParam("courseIds") List<Long> courseIds);
     
+    /**
+     * 获取指定时间之后有更新的已发布课程ID（不传时间返回全部）
+     */
+    @GetMapping("/ids/updated")
+    Result<List<Long>> getCourseIdsUpdatedSince(@RequestParam(value = "since", required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since);
+    
     /**
      * 获取热门课程
      */
@@ -0,0 +1,16 @@
+-- ================================================
+-- 考试服务索引优化
+-- Database: smart_learning
+-- Version: 1.0.1
+-- ================================================
+
+USE smart_learning;
+
+-- 超时扫描：按状态和开始时间范围查找已过期的进行中考试
+ALTER TABLE exam_records ADD INDEX idx_status_start_time (status, start_time);
+
+-- 成绩统计和排行榜重建：按试卷读取已阅卷记录的成绩
+ALTER TABLE exam_records ADD INDEX idx_paper_status_score (paper_id, status, score);
+
+-- 开考校验：按用户和试卷查询历史考试记录
+ALTER TABLE exam_records ADD INDEX idx_user_paper (user_id, paper_id);